@@ -0,0 +1,163 @@
+package com.aerospike.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a JMH result file against the committed baseline. Each benchmark is reported with its change in time and
+ * in bytes allocated per operation. It is a regression if either grows by more than the tolerance, in percent, and the
+ * time grows by more than the error of both runs. A time whose error, in the baseline or in this run, is itself more
+ * than the tolerance could hide a regression of that size, so it is reported as not comparable rather than passed.
+ * Exits with 1 if any benchmark regressed.
+ * <p/>
+ * The time of each benchmark can have its own tolerance, read from a properties file committed with the baseline.
+ * Benchmarks which are noisy on the machine the baseline was measured on are then still compared, against a wider
+ * tolerance, rather than never failing. The file is written from the baseline with {@code --tolerances}, giving each
+ * benchmark the error of its baseline rounded up to a multiple of 5%, and at least the default tolerance.
+ * <pre>
+ * java -cp ... com.aerospike.generator.BaselineComparison baseline.json result.json [tolerancePercent [tolerances.properties]]
+ * java -cp ... com.aerospike.generator.BaselineComparison --tolerances baseline.json tolerances.properties [tolerancePercent]
+ * </pre>
+ */
+public class BaselineComparison {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    /** Allocations below this many bytes per operation are not compared, as they are within the measurement noise */
+    private static final double MIN_ALLOCATION_CHANGE = 16;
+
+    private static class Score {
+        private final double time;
+        private final double error;
+        private final String unit;
+        private final double allocated;
+
+        Score(JsonNode result) {
+            JsonNode primary = result.get("primaryMetric");
+            this.time = primary.get("score").asDouble();
+            double scoreError = primary.get("scoreError").asDouble();
+            this.error = Double.isNaN(scoreError) ? 0 : scoreError;
+            this.unit = primary.get("scoreUnit").asText();
+            JsonNode allocation = result.path("secondaryMetrics").path(ALLOCATION);
+            this.allocated = allocation.isMissingNode() ? -1 : allocation.get("score").asDouble();
+        }
+    }
+
+    private static Map<String, Score> read(String fileName) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(fileName))) {
+            StringBuilder name = new StringBuilder(result.get("benchmark").asText().replace("com.aerospike.generator.", ""));
+            // Parameters in a fixed order, so runs with the parameters listed differently still match
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            params.forEach((key, value) -> name.append(':').append(key).append('=').append(value));
+            scores.put(name.toString(), new Score(result));
+        }
+        return scores;
+    }
+
+    /** The error of the time, as a percentage of it */
+    private static double percentError(Score score) {
+        return score.time == 0 ? 0 : 100 * score.error / score.time;
+    }
+
+    private static double percentChange(double baseline, double current) {
+        return baseline == 0 ? 0 : 100 * (current - baseline) / baseline;
+    }
+
+    /** The time tolerance of each benchmark, or an empty map if there is no file of them */
+    private static Map<String, Double> readTolerances(String fileName) throws IOException {
+        Map<String, Double> tolerances = new TreeMap<>();
+        Path file = Path.of(fileName);
+        if (Files.isRegularFile(file)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            properties.forEach((name, tolerance) -> tolerances.put((String) name, Double.parseDouble((String) tolerance)));
+        }
+        return tolerances;
+    }
+
+    /** Write the tolerance of each benchmark of the baseline: its error rounded up to 5%, and at least the minimum */
+    private static void writeTolerances(String baselineFile, String tolerancesFile, double minimum) throws IOException {
+        Map<String, Score> baseline = read(baselineFile);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Path.of(tolerancesFile), StandardCharsets.UTF_8))) {
+            out.println("# The time tolerance of each benchmark in percent, written from " + Path.of(baselineFile).getFileName());
+            out.println("# by BaselineComparison --tolerances. Rewrite it whenever the baseline is measured again.");
+            for (Map.Entry<String, Score> entry : new TreeMap<>(baseline).entrySet()) {
+                double tolerance = Math.max(minimum, 5 * Math.ceil(percentError(entry.getValue()) / 5));
+                out.printf("%s=%.0f%n", entry.getKey().replace(":", "\\:").replace("=", "\\="), tolerance);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("--tolerances")) {
+            writeTolerances(args[1], args[2], args.length > 3 ? Double.parseDouble(args[3]) : 10);
+            return;
+        }
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <result.json> [tolerancePercent [tolerances.properties]]");
+            System.err.println("       BaselineComparison --tolerances <baseline.json> <tolerances.properties> [tolerancePercent]");
+            System.exit(2);
+        }
+        double defaultTolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Double> tolerances = args.length > 3 ? readTolerances(args[3]) : Map.of();
+        Map<String, Score> baseline = read(args[0]);
+        Map<String, Score> current = read(args[1]);
+
+        int regressions = 0;
+        int notComparable = 0;
+        System.out.printf("%-80s %14s %14s %8s %6s %12s %12s %8s%n", "Benchmark", "Baseline", "Current", "Change",
+                "Limit", "Base B/op", "Current B/op", "Change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-80s %14s %,11.1f %-2s%n", entry.getKey(), "-", now.time, now.unit);
+                continue;
+            }
+            double timeChange = percentChange(before.time, now.time);
+            double tolerance = tolerances.getOrDefault(entry.getKey(), defaultTolerance);
+            double error = Math.max(percentError(before), percentError(now));
+            boolean comparable = error <= tolerance;
+            boolean slower = comparable && timeChange > tolerance && now.time - now.error > before.time + before.error;
+            double allocationChange = percentChange(before.allocated, now.allocated);
+            boolean allocates = before.allocated >= 0 && now.allocated >= 0 && allocationChange > defaultTolerance
+                    && now.allocated - before.allocated > MIN_ALLOCATION_CHANGE;
+            System.out.printf("%-80s %,11.1f %-2s %,11.1f %-2s %+7.1f%% %5.0f%% %,12.0f %,12.0f %+7.1f%%%s%n", entry.getKey(),
+                    before.time, before.unit, now.time, now.unit, timeChange, tolerance, before.allocated, now.allocated,
+                    allocationChange, (slower || allocates ? "  REGRESSION" : "")
+                    + (comparable ? "" : String.format("  TIME NOT COMPARABLE (error %.0f%%)", error)));
+            if (slower || allocates) {
+                regressions++;
+            }
+            if (!comparable) {
+                notComparable++;
+            }
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                System.out.printf("%-80s not run%n", name);
+            }
+        }
+        System.out.printf("%d of %d benchmarks regressed by more than their limit%n", regressions, current.size());
+        if (notComparable > 0) {
+            System.out.printf("%d of %d benchmarks had an error above their limit, so only their allocation "
+                    + "was compared. Rerun them, or the baseline, with more forks or iterations%n", notComparable,
+                    current.size());
+        }
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,63 @@
+package com.aerospike.generator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aerospike.generator.ValueCreator.PopulationMode;
+
+/**
+ * Populating whole example objects, in each population mode, both into a new object and recycling one object.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class PopulateBenchmark {
+    @Param({"Member", "MagicProcessorExample", "MagicListSetExample", "ObjectReferenceExample"})
+    public String example;
+
+    @Param({"COMPILED", "REFLECTION"})
+    public PopulationMode mode;
+
+    private ValueCreator<Object> creator;
+    private Object recycled;
+    private Map<String, Object> params;
+    private long key;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        Class<Object> clazz = (Class<Object>) Class.forName("com.aerospike.generator.example." + example);
+        creator = new ValueCreator<>(clazz, mode);
+        params = new HashMap<>();
+        params.put("Key", key);
+        recycled = creator.createAndPopulate(params);
+    }
+
+    @Benchmark
+    public Object createAndPopulate() {
+        params.put("Key", ++key);
+        return creator.createAndPopulate(params);
+    }
+
+    @Benchmark
+    public Object recycle() {
+        params.put("Key", ++key);
+        return creator.recycle(recycled, params);
+    }
+}
@@ -0,0 +1,171 @@
+package com.aerospike.generator;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aerospike.generator.ValueCreator.PopulationMode;
+import com.aerospike.generator.annotations.FieldType;
+import com.aerospike.generator.annotations.GenAddress;
+import com.aerospike.generator.annotations.GenAddress.AddressPart;
+import com.aerospike.generator.annotations.GenBoolean;
+import com.aerospike.generator.annotations.GenBrowser;
+import com.aerospike.generator.annotations.GenBrowser.BrowserType;
+import com.aerospike.generator.annotations.GenBytes;
+import com.aerospike.generator.annotations.GenDate;
+import com.aerospike.generator.annotations.GenEmail;
+import com.aerospike.generator.annotations.GenEnum;
+import com.aerospike.generator.annotations.GenExclude;
+import com.aerospike.generator.annotations.GenExpression;
+import com.aerospike.generator.annotations.GenHexString;
+import com.aerospike.generator.annotations.GenIpV4;
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenMagic;
+import com.aerospike.generator.annotations.GenName;
+import com.aerospike.generator.annotations.GenNumber;
+import com.aerospike.generator.annotations.GenObject;
+import com.aerospike.generator.annotations.GenOneOf;
+import com.aerospike.generator.annotations.GenPhoneNumber.PhoneNumType;
+import com.aerospike.generator.annotations.GenPhoneNumberProcessor;
+import com.aerospike.generator.annotations.GenRange;
+import com.aerospike.generator.annotations.GenSet;
+import com.aerospike.generator.annotations.GenString;
+import com.aerospike.generator.annotations.GenString.StringType;
+import com.aerospike.generator.annotations.GenUuid;
+import com.aerospike.generator.annotations.Processor;
+
+/**
+ * The cost of one call to each {@code Processor}, taken from the field of {@link Fields} with the benchmark's name so
+ * each processor is built exactly as {@code ValueCreator} builds it. The string types of {@code GenString} are
+ * benchmarked separately as their costs differ by orders of magnitude.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class ProcessorBenchmark {
+    public enum Level {BRONZE, SILVER, GOLD, PLATINUM}
+
+    public static class Nested {
+        @GenNumber(start = 1, end = 1000)
+        private int quantity;
+        @GenName
+        private String name;
+
+        public Nested() {}
+    }
+
+    public static class Fields {
+        @GenAddress(AddressPart.COUNTRY)
+        private String address;
+        @GenBoolean
+        private boolean bool;
+        @GenBrowser(BrowserType.USERAGENT)
+        private String browser;
+        @GenBytes(length = 64)
+        private byte[] bytes;
+        @GenDate(start = "now-30d", end = "now-3m")
+        private Date date;
+        @GenEmail
+        private String email;
+        @GenEnum
+        private Level enumValue;
+        @GenExclude
+        private String exclude;
+        @GenExpression("'Trans-' & $Key")
+        private String expression;
+        @GenHexString(length = 16)
+        private String hexString;
+        @GenIpV4
+        private String ipV4;
+        @GenList(items = 5)
+        private List<String> list;
+        @GenName
+        private String name;
+        @GenNumber(start = 1, end = 1_000_000)
+        private long number;
+        @GenObject
+        private Nested object;
+        @GenOneOf("flipkart:78, swiggy:78, amazon:78, merchant[1-100]")
+        private String oneOf;
+        @GenRange(start = 1, end = 100)
+        private int range;
+        @GenSet(items = 5)
+        private Set<Long> set;
+        @GenString(type = StringType.CHARACTERS, length = 12)
+        private String stringCharacters;
+        @GenString(type = StringType.WORDS, minLength = 2, maxLength = 4)
+        private String stringWords;
+        @GenString(type = StringType.LETTERIFY, format = "???-???")
+        private String stringLetterify;
+        @GenString(type = StringType.REGEXIFY, format = "[a-z]{6}:\\d{1,7}-\\d{3}-\\d{2}")
+        private String stringRegexify;
+        @GenUuid
+        private String uuid;
+
+        public Fields() {}
+    }
+
+    @GenMagic
+    public static class MagicFields {
+        private String firstName;
+
+        public MagicFields() {}
+    }
+
+    @Param({"address", "bool", "browser", "bytes", "date", "email", "enumValue", "exclude", "expression", "hexString",
+            "ipV4", "list", "magic", "name", "number", "object", "oneOf", "phoneNumber", "range", "set",
+            "stringCharacters", "stringWords", "stringLetterify", "stringRegexify", "uuid"})
+    public String processor;
+
+    private Processor target;
+    private Map<String, Object> params;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (processor) {
+        case "magic":
+            target = processorOf(MagicFields.class, "firstName");
+            break;
+        case "phoneNumber":
+            // GenPhoneNumber is only reached through GenMagic and schemas, so it is built directly
+            target = new GenPhoneNumberProcessor(PhoneNumType.PHONE, FieldType.STRING, null);
+            break;
+        default:
+            target = processorOf(Fields.class, processor);
+        }
+        params = new HashMap<>();
+        params.put("Key", 1L);
+    }
+
+    private static <T> Processor processorOf(Class<T> clazz, String fieldName) throws NoSuchFieldException {
+        ValueCreator<T> creator = new ValueCreator<>(clazz, PopulationMode.REFLECTION);
+        FieldGenerator generator = creator.getFieldGenerator(clazz.getDeclaredField(fieldName));
+        if (generator == null) {
+            throw new IllegalArgumentException("Field " + fieldName + " of " + clazz.getSimpleName() + " is not generated");
+        }
+        return generator.getProcessor();
+    }
+
+    @Benchmark
+    public Object process() {
+        return target.process(params);
+    }
+}
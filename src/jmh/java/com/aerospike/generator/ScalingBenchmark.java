@@ -0,0 +1,413 @@
+package com.aerospike.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.aerospike.generator.annotations.GenEmail;
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenName;
+import com.aerospike.generator.annotations.GenName.NameType;
+import com.aerospike.generator.annotations.GenNumber;
+import com.aerospike.generator.annotations.GenObject;
+import com.aerospike.generator.annotations.GenOneOf;
+import com.aerospike.generator.annotations.GenUuid;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Measures how the throughput of {@link Generator#generate} scales with its number of threads. It sweeps the thread
+ * count, the id batch size and the cost of the callback for classes with cheap, Faker-backed, {@code SecureRandom}
+ * backed, weighted-list and nested fields. Each run is recorded with JFR. The report lists the threads blocked on
+ * monitors and parked on locks, grouped by the contended class, and the methods the generation threads were sampled
+ * in most. These show shared state such as the Faker instances, {@code WeightedList} and {@code ValueCreatorCache}
+ * becoming a bottleneck. Compare-and-set loops have no JFR event of their own, and show up as hot methods instead.
+ * <p/>
+ * The results are printed and written as JSON:
+ * <pre>
+ * java -cp ... com.aerospike.generator.ScalingBenchmark [--workloads number,name] [--threads 1,2,4,8]
+ *         [--batches 1,256] [--callbacks 0,5000] [--seconds 2] [--contention-threshold-us 10]
+ *         [--output target/scaling-report.json]
+ * </pre>
+ */
+public class ScalingBenchmark {
+    private static final String WORKER_THREAD_PREFIX = "pool-";
+    private static final int HOT_METHODS = 5;
+    private static final int CONTENDED_CLASSES = 5;
+
+    public static class NumberRecord {
+        @GenNumber(start = 1, end = 1_000_000)
+        private long id;
+        @GenNumber(start = 1, end = 100)
+        private int quantity;
+        @GenNumber(start = 0, end = 100_000, divisor = 100)
+        private double price;
+        @GenNumber(start = 0, end = 1_000)
+        private long points;
+
+        public NumberRecord() {}
+    }
+
+    public static class NameRecord {
+        @GenName(NameType.FIRST)
+        private String firstName;
+        @GenName(NameType.LAST)
+        private String lastName;
+        @GenName(NameType.USERNAME)
+        private String userName;
+
+        public NameRecord() {}
+    }
+
+    public static class EmailRecord {
+        @GenEmail
+        private String email;
+
+        public EmailRecord() {}
+    }
+
+    public static class UuidRecord {
+        @GenUuid
+        private String id;
+        @GenUuid
+        private String sessionId;
+
+        public UuidRecord() {}
+    }
+
+    public static class OneOfRecord {
+        @GenOneOf("flipkart:78, swiggy:78, amazon:78, merchant[1-100]")
+        private String merchant;
+        @GenOneOf("NEW:10, ACTIVE:70, SUSPENDED:5, CLOSED:15")
+        private String status;
+
+        public OneOfRecord() {}
+    }
+
+    public static class NestedRecord {
+        @GenObject
+        private NumberRecord head;
+        @GenList(items = 3)
+        private List<NumberRecord> lines;
+
+        public NestedRecord() {}
+    }
+
+    private static final Map<String, Class<?>> WORKLOADS = new LinkedHashMap<>();
+    static {
+        WORKLOADS.put("number", NumberRecord.class);
+        WORKLOADS.put("name", NameRecord.class);
+        WORKLOADS.put("email", EmailRecord.class);
+        WORKLOADS.put("uuid", UuidRecord.class);
+        WORKLOADS.put("oneOf", OneOfRecord.class);
+        WORKLOADS.put("nested", NestedRecord.class);
+    }
+
+    private List<String> workloads = new ArrayList<>(WORKLOADS.keySet());
+    private List<Integer> threadCounts = defaultThreadCounts();
+    private List<Integer> batchSizes = List.of(1, 256);
+    private List<Long> callbackNanos = List.of(0L, 5_000L);
+    private double seconds = 2;
+    private Path output = Path.of("target", "scaling-report.json");
+    private Duration contentionThreshold = Duration.ofNanos(10_000);
+
+    private static List<Integer> defaultThreadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        TreeSet<Integer> counts = new TreeSet<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+        return new ArrayList<>(counts);
+    }
+
+    private static <T> List<T> parseList(String value, Function<String, T> parser) {
+        List<T> result = new ArrayList<>();
+        for (String item : value.split(",")) {
+            result.add(parser.apply(item.trim()));
+        }
+        return result;
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+            case "--workloads":
+                workloads = parseList(value, name -> {
+                    if (!WORKLOADS.containsKey(name)) {
+                        throw new IllegalArgumentException("Unknown workload " + name + ", expected one of " + WORKLOADS.keySet());
+                    }
+                    return name;
+                });
+                break;
+            case "--threads":
+                threadCounts = parseList(value, Integer::parseInt);
+                break;
+            case "--batches":
+                batchSizes = parseList(value, Integer::parseInt);
+                break;
+            case "--callbacks":
+                callbackNanos = parseList(value, Long::parseLong);
+                break;
+            case "--seconds":
+                seconds = Double.parseDouble(value);
+                break;
+            case "--output":
+                output = Path.of(value);
+                break;
+            case "--contention-threshold-us":
+                contentionThreshold = Duration.ofNanos((long) (Double.parseDouble(value) * 1000));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    private static void spin(long nanos) {
+        if (nanos > 0) {
+            long end = System.nanoTime() + nanos;
+            while (System.nanoTime() < end) {
+                // Simulates the cost of sending the record
+            }
+        }
+    }
+
+    /**
+     * The single threaded rate, which also warms up the class. Each run generates enough records to last about the
+     * configured time if it scaled perfectly.
+     */
+    private double calibrate(Class<?> clazz, long callbackCost) {
+        ValueCreator<?> creator = ValueCreatorCache.getInstance().get(clazz);
+        Map<String, Object> params = new HashMap<>();
+        long count = 0;
+        long start = System.nanoTime();
+        long end = start + 500_000_000L;
+        long now;
+        do {
+            params.put("Key", count++);
+            creator.createAndPopulate(params);
+            spin(callbackCost);
+            now = System.nanoTime();
+        } while (now < end);
+        return count * 1e9 / (now - start);
+    }
+
+    private static class Contention {
+        private long events;
+        private long nanos;
+        private final Map<String, Long> nanosByClass = new HashMap<>();
+
+        void add(String className, long duration) {
+            events++;
+            nanos += duration;
+            nanosByClass.merge(className, duration, Long::sum);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("events", events);
+            result.put("totalMillis", nanos / 1e6);
+            result.put("byClass", top(nanosByClass, CONTENDED_CLASSES, value -> value / 1e6));
+            return result;
+        }
+    }
+
+    private static <N extends Number> Map<String, Object> top(Map<String, N> values, int count, Function<N, Object> converter) {
+        return values.entrySet().stream()
+                .sorted((a, b) -> Double.compare(b.getValue().doubleValue(), a.getValue().doubleValue()))
+                .limit(count)
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> converter.apply(entry.getValue()), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static boolean isWorker(RecordedEvent event) {
+        // Execution samples are taken from another thread, and record the thread they sampled separately
+        RecordedThread thread = event.hasField("sampledThread") ? event.getValue("sampledThread") : event.getThread();
+        return thread != null && thread.getJavaName() != null && thread.getJavaName().startsWith(WORKER_THREAD_PREFIX);
+    }
+
+    private static String topFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame frame = event.getStackTrace().getFrames().get(0);
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    private static String className(RecordedEvent event, String field) {
+        RecordedClass recordedClass = event.hasField(field) ? event.getValue(field) : null;
+        return recordedClass != null ? recordedClass.getName() : topFrame(event);
+    }
+
+    private Recording startRecording() {
+        if (!FlightRecorder.isAvailable()) {
+            return null;
+        }
+        Recording recording = new Recording();
+        recording.enable("jdk.JavaMonitorEnter").withThreshold(contentionThreshold).withStackTrace();
+        recording.enable("jdk.ThreadPark").withThreshold(contentionThreshold).withStackTrace();
+        recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(10));
+        recording.start();
+        return recording;
+    }
+
+    private void addContention(Recording recording, Map<String, Object> result) throws IOException {
+        Path file = Files.createTempFile("scaling", ".jfr");
+        try {
+            recording.dump(file);
+            Contention monitors = new Contention();
+            Contention parks = new Contention();
+            Map<String, Long> samples = new HashMap<>();
+            long totalSamples = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (!isWorker(event)) {
+                    continue;
+                }
+                switch (event.getEventType().getName()) {
+                case "jdk.JavaMonitorEnter":
+                    monitors.add(className(event, "monitorClass"), event.getDuration().toNanos());
+                    break;
+                case "jdk.ThreadPark":
+                    parks.add(className(event, "parkedClass"), event.getDuration().toNanos());
+                    break;
+                case "jdk.ExecutionSample":
+                    samples.merge(topFrame(event), 1L, Long::sum);
+                    totalSamples++;
+                    break;
+                default:
+                    break;
+                }
+            }
+            long sampleCount = totalSamples;
+            result.put("monitorBlocked", monitors.toMap());
+            result.put("parked", parks.toMap());
+            result.put("executionSamples", sampleCount);
+            result.put("hotMethods", top(samples, HOT_METHODS, value -> sampleCount == 0 ? 0 : value / (double) sampleCount));
+        }
+        finally {
+            recording.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private <T> Map<String, Object> run(String workload, Class<T> clazz, int threads, int batchSize, long callbackCost,
+            long records) throws Exception {
+        Generator generator = new Generator(clazz).setRecordLatencies(false).setIdBatchSize(batchSize);
+        Recording recording = startRecording();
+        long start = System.nanoTime();
+        generator.generate(1, records, threads, clazz, object -> spin(callbackCost));
+        while (!generator.isComplete()) {
+            Thread.sleep(5);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (recording != null) {
+            recording.stop();
+        }
+        Generator.MonitorStats stats = generator.getMonitorStats();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("workload", workload);
+        result.put("threads", threads);
+        result.put("idBatchSize", batchSize);
+        result.put("callbackNanos", callbackCost);
+        result.put("records", stats.getSuccessCount());
+        result.put("failures", stats.getFailureCount());
+        result.put("seconds", elapsed / 1e9);
+        result.put("recordsPerSecond", stats.getSuccessCount() * 1e9 / elapsed);
+        if (recording != null) {
+            addContention(recording, result);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long contentionEvents(Map<String, Object> result, String kind) {
+        Object contention = result.get(kind);
+        return contention == null ? 0 : (Long) ((Map<String, Object>) contention).get("events");
+    }
+
+    private List<Map<String, Object>> runAll() throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+        System.out.printf("%-8s %7s %6s %10s %14s %8s %11s %11s  %s%n", "workload", "threads", "batch", "callback",
+                "records/sec", "speedup", "blocked ms", "parked ms", "hottest method");
+        for (String workload : workloads) {
+            Class<?> clazz = WORKLOADS.get(workload);
+            for (long callbackCost : callbackNanos) {
+                double singleThreadRate = calibrate(clazz, callbackCost);
+                for (int batchSize : batchSizes) {
+                    Double baseRate = null;
+                    for (int threads : threadCounts) {
+                        long records = Math.max(1_000, (long) (singleThreadRate * threads * seconds));
+                        Map<String, Object> result = run(workload, clazz, threads, batchSize, callbackCost, records);
+                        double rate = (Double) result.get("recordsPerSecond");
+                        if (baseRate == null) {
+                            baseRate = rate / threads;
+                        }
+                        result.put("speedup", rate / baseRate);
+                        result.put("efficiency", rate / baseRate / threads);
+                        results.add(result);
+                        print(result);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> result) {
+        Map<String, Object> monitors = (Map<String, Object>) result.get("monitorBlocked");
+        Map<String, Object> parks = (Map<String, Object>) result.get("parked");
+        Map<String, Object> hot = (Map<String, Object>) result.get("hotMethods");
+        String hottest = hot == null || hot.isEmpty() ? "" : hot.entrySet().iterator().next().getKey()
+                + String.format(" (%.0f%%)", 100 * (Double) hot.values().iterator().next());
+        System.out.printf("%-8s %7d %6d %8dns %,14.0f %7.2fx %11.1f %11.1f  %s%n", result.get("workload"),
+                result.get("threads"), result.get("idBatchSize"), result.get("callbackNanos"), result.get("recordsPerSecond"),
+                result.get("speedup"), monitors == null ? 0.0 : monitors.get("totalMillis"),
+                parks == null ? 0.0 : parks.get("totalMillis"), hottest);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ScalingBenchmark benchmark = new ScalingBenchmark();
+        benchmark.parseArguments(args);
+        List<Map<String, Object>> results = benchmark.runAll();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("date", Instant.now().toString());
+        report.put("jdk", System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("contentionThresholdMicros", benchmark.contentionThreshold.toNanos() / 1000.0);
+        report.put("jfr", FlightRecorder.isAvailable());
+        report.put("results", results);
+        File file = benchmark.output.toFile();
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, report);
+        long contended = results.stream().filter(result -> contentionEvents(result, "monitorBlocked") + contentionEvents(result, "parked") > 0).count();
+        System.out.printf("%d runs, %d with contention over %s, written to %s%n", results.size(), contended,
+                benchmark.contentionThreshold, benchmark.output);
+    }
+}
@@ -0,0 +1,633 @@
+package com.aerospike.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Bin;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.Value;
+import com.aerospike.client.cluster.Cluster;
+import com.aerospike.client.cluster.Partition;
+import com.aerospike.client.listener.BatchOperateListListener;
+import com.aerospike.client.listener.WriteListener;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.policy.BatchWritePolicy;
+import com.aerospike.client.policy.WritePolicy;
+
+/**
+ * A {@link Generator.Callback} which writes each generated object to Aerospike. The object is converted to bins by a
+ * {@link BinMapper} and its key taken from one of its fields, or from a function of the object. Records are written
+ * either one at a time or in batches of {@code batchSize}, through the async API by default. Async writes are limited
+ * to {@code maxInFlight} commands at once: once that many are outstanding, the generator threads wait for one to
+ * finish. Without async, each generator thread waits for its own writes.
+ * <p/>
+ * Batches are grouped by the node which owns each record by default, so each batch goes to a single node. They can
+ * also be grouped by partition, or not at all. Key digests are computed by a {@link KeyDigest} for each thread rather
+ * than by the client. If the key is the id of each record, set with {@code keyFromId}, and the generator computes key
+ * digests for the same set, the generator's digests are used. The latency of each write or batch, and the number of
+ * records written and failed by result code, are kept in the {@link Metrics}.
+ * <p/>
+ * A single write which fails without async throws its {@code AerospikeException}, so the generator retries it with
+ * its retry policy and passes it to its error handler. Records which fail once {@code process} has returned, in an
+ * async write or in a batch, are reported to the run which generated them through its
+ * {@link Generator.FailureReporter}, so they also reach the error handler and count towards the maximum number of
+ * errors.
+ * <p/>
+ * Async writes need the client to have been created with event loops. Call {@link #close()} once generation has
+ * finished to write the partly filled batches and wait for the outstanding writes. Closing the sink does not close
+ * the client.
+ * <pre>
+ * try (AerospikeSink&lt;Customer&gt; sink = AerospikeSink.builder(client, "test", "customer", Customer.class)
+ *         .keyField("id").batchSize(100).maxInFlight(64).build()) {
+ *     generator.generate(1, 1_000_000, Customer.class, sink).monitor(() -&gt; sink.getMetrics().toString());
+ * }
+ * </pre>
+ */
+public class AerospikeSink<T> implements Generator.KeyedCallback<T>, Generator.DeferredCallback<T>, AutoCloseable {
+    // ConcurrentHashMap cannot hold a null key, used for records whose node is not known
+    private static final Object NO_NODE = new Object();
+    private static final Integer[] PARTITION_IDS = new Integer[KeyDigest.PARTITIONS];
+    static {
+        for (int i = 0; i < PARTITION_IDS.length; i++) {
+            PARTITION_IDS[i] = i;
+        }
+    }
+
+    /** The records waiting to be written in one batch, with the ids of the records they were generated from */
+    private static class PendingBatch {
+        private final List<BatchRecord> records;
+        private final long[] ids;
+
+        PendingBatch(int batchSize) {
+            this.records = new ArrayList<>(batchSize);
+            this.ids = new long[batchSize];
+        }
+    }
+
+    /** How records are grouped into batches */
+    public enum Grouping {
+        /** Records are batched in the order they are generated, and the client splits each batch by node */
+        NONE,
+        /** Each batch holds records owned by a single node */
+        NODE,
+        /** Each batch holds records of a single partition */
+        PARTITION
+    }
+
+    private final IAerospikeClient client;
+    private final String namespace;
+    private final String setName;
+    private final BinMapper<T> mapper;
+    private final Function<T, Object> keyFunction;
+    private final boolean keyFromId;
+    private final ThreadLocal<KeyDigest> keyDigests;
+    private final WritePolicy writePolicy;
+    private final BatchPolicy batchPolicy;
+    private final BatchWritePolicy batchWritePolicy;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final boolean async;
+    private final Grouping grouping;
+    private final Semaphore inFlight;
+    private final Map<Object, PendingBatch> pending = new ConcurrentHashMap<>();
+    private volatile Generator.FailureReporter reporter;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final Map<Integer, LongAdder> failuresByResultCode = new ConcurrentHashMap<>();
+    private final AtomicReference<AerospikeException> lastError = new AtomicReference<>();
+    private volatile boolean closed;
+
+    /**
+     * A snapshot of the counters of a sink. Latencies are measured from when a write or batch is sent until it
+     * completes, so a batch counts once however many records it holds.
+     */
+    public static class Metrics {
+        private final long written;
+        private final long failed;
+        private final long commands;
+        private final int inFlight;
+        private final long totalLatencyNanos;
+        private final long maxLatencyNanos;
+        private final Map<Integer, Long> failuresByResultCode;
+
+        Metrics(long written, long failed, long commands, int inFlight, long totalLatencyNanos, long maxLatencyNanos,
+                Map<Integer, Long> failuresByResultCode) {
+            this.written = written;
+            this.failed = failed;
+            this.commands = commands;
+            this.inFlight = inFlight;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+            this.failuresByResultCode = failuresByResultCode;
+        }
+        /** The number of records written successfully */
+        public long getWritten() {
+            return written;
+        }
+        /** The number of records which failed to be written */
+        public long getFailed() {
+            return failed;
+        }
+        /** The number of writes and batches which have completed */
+        public long getCommands() {
+            return commands;
+        }
+        /** The number of writes and batches sent but not yet completed */
+        public int getInFlight() {
+            return inFlight;
+        }
+        public double getMeanLatencyMicros() {
+            return commands == 0 ? 0 : totalLatencyNanos / 1000.0 / commands;
+        }
+        public double getMaxLatencyMicros() {
+            return maxLatencyNanos / 1000.0;
+        }
+        /** The number of records which failed with each {@code ResultCode} */
+        public Map<Integer, Long> getFailuresByResultCode() {
+            return failuresByResultCode;
+        }
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("written %,d, failed %,d, in flight %d, latency mean %,.0fus max %,.0fus",
+                    written, failed, inFlight, getMeanLatencyMicros(), getMaxLatencyMicros()));
+            for (Map.Entry<Integer, Long> entry : failuresByResultCode.entrySet()) {
+                sb.append(String.format(", %s: %,d", ResultCode.getResultString(entry.getKey()), entry.getValue()));
+            }
+            return sb.toString();
+        }
+    }
+
+    public static class Builder<T> {
+        private final IAerospikeClient client;
+        private final String namespace;
+        private final String setName;
+        private final Class<T> clazz;
+        private Function<T, Object> keyFunction;
+        private boolean keyFromId;
+        private WritePolicy writePolicy;
+        private BatchPolicy batchPolicy;
+        private BatchWritePolicy batchWritePolicy;
+        private int batchSize = 1;
+        private int maxInFlight = 256;
+        private boolean async = true;
+        private Grouping grouping = Grouping.NODE;
+
+        private Builder(IAerospikeClient client, String namespace, String setName, Class<T> clazz) {
+            this.client = client;
+            this.namespace = namespace;
+            this.setName = setName;
+            this.clazz = clazz;
+        }
+        /** The field holding the user key of each record */
+        public Builder<T> keyField(String fieldName) {
+            BinMapper<T> mapper = BinMapper.forClass(clazz);
+            int index = mapper.indexOf(fieldName);
+            if (index < 0) {
+                throw new IllegalArgumentException(String.format("Class %s has no field %s to use as the key", clazz.getName(), fieldName));
+            }
+            this.keyFunction = object -> mapper.getFieldValue(object, index);
+            this.keyFromId = false;
+            return this;
+        }
+        /** A function giving the user key of each record */
+        public Builder<T> key(Function<T, Object> keyFunction) {
+            this.keyFunction = keyFunction;
+            this.keyFromId = false;
+            return this;
+        }
+        /**
+         * Use the id of each record as its user key. This needs the generator to compute key digests, see
+         * {@link Generator#setKeyDigests(String)}, and the digests are reused if it computes them for this set.
+         */
+        public Builder<T> keyFromId() {
+            this.keyFunction = null;
+            this.keyFromId = true;
+            return this;
+        }
+        /** The policy for single writes, and the defaults for writes in a batch. Defaults to the client's */
+        public Builder<T> writePolicy(WritePolicy writePolicy) {
+            this.writePolicy = writePolicy;
+            return this;
+        }
+        /** The policy for batches. Defaults to the client's batch write policy */
+        public Builder<T> batchPolicy(BatchPolicy batchPolicy) {
+            this.batchPolicy = batchPolicy;
+            return this;
+        }
+        /** The policy for each write in a batch. Defaults to the settings of the write policy */
+        public Builder<T> batchWritePolicy(BatchWritePolicy batchWritePolicy) {
+            this.batchWritePolicy = batchWritePolicy;
+            return this;
+        }
+        /** The number of records in each batch. 1, the default, writes each record on its own */
+        public Builder<T> batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+        /** The most async writes or batches outstanding at once */
+        public Builder<T> maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+        /** Whether to use the async API, which is the default, or to write on the generator threads */
+        public Builder<T> async(boolean async) {
+            this.async = async;
+            return this;
+        }
+        /** Whether batches only hold records of a single node, which is the default */
+        public Builder<T> groupByNode(boolean groupByNode) {
+            this.grouping = groupByNode ? Grouping.NODE : Grouping.NONE;
+            return this;
+        }
+        /** How records are grouped into batches. Defaults to {@code NODE} */
+        public Builder<T> grouping(Grouping grouping) {
+            this.grouping = grouping;
+            return this;
+        }
+        public AerospikeSink<T> build() {
+            if (keyFunction == null && !keyFromId) {
+                throw new IllegalArgumentException("The key of the records must be given by keyField, key or keyFromId");
+            }
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be at least 1, not " + batchSize);
+            }
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be at least 1, not " + maxInFlight);
+            }
+            return new AerospikeSink<>(this);
+        }
+    }
+
+    public static <T> Builder<T> builder(IAerospikeClient client, String namespace, String setName, Class<T> clazz) {
+        return new Builder<>(client, namespace, setName, clazz);
+    }
+
+    private AerospikeSink(Builder<T> builder) {
+        this.client = builder.client;
+        this.namespace = builder.namespace;
+        this.setName = builder.setName;
+        this.mapper = BinMapper.forClass(builder.clazz);
+        this.keyFunction = builder.keyFunction;
+        this.keyFromId = builder.keyFromId;
+        this.keyDigests = ThreadLocal.withInitial(() -> new KeyDigest(setName));
+        this.writePolicy = builder.writePolicy != null ? builder.writePolicy : client.getWritePolicyDefault();
+        this.batchPolicy = builder.batchPolicy != null ? builder.batchPolicy : client.getBatchParentPolicyWriteDefault();
+        this.batchWritePolicy = builder.batchWritePolicy != null ? builder.batchWritePolicy : toBatchWritePolicy(writePolicy);
+        this.batchSize = builder.batchSize;
+        this.maxInFlight = builder.maxInFlight;
+        this.async = builder.async;
+        this.grouping = builder.grouping;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    private static BatchWritePolicy toBatchWritePolicy(WritePolicy writePolicy) {
+        BatchWritePolicy policy = new BatchWritePolicy();
+        if (writePolicy != null) {
+            policy.filterExp = writePolicy.filterExp;
+            policy.recordExistsAction = writePolicy.recordExistsAction;
+            policy.commitLevel = writePolicy.commitLevel;
+            policy.generationPolicy = writePolicy.generationPolicy;
+            policy.generation = writePolicy.generation;
+            policy.expiration = writePolicy.expiration;
+            policy.durableDelete = writePolicy.durableDelete;
+            policy.sendKey = writePolicy.sendKey;
+        }
+        return policy;
+    }
+
+    public BinMapper<T> getMapper() {
+        return mapper;
+    }
+
+    @Override
+    public void startRun(Generator.FailureReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    @Override
+    public void process(T object) {
+        if (keyFromId) {
+            throw new IllegalStateException("The sink takes its keys from the record ids, so the generator must compute key digests");
+        }
+        Value userKey = Value.get(keyFunction.apply(object));
+        byte[] digest = new byte[KeyDigest.DIGEST_SIZE];
+        int partitionId = keyDigests.get().digest(userKey, digest, 0);
+        send(object, new Key(namespace, digest, setName, userKey), partitionId);
+    }
+
+    @Override
+    public void process(T object, Generator.RecordKey recordKey) {
+        if (!keyFromId) {
+            process(object);
+        }
+        else if (setName.equals(recordKey.getSetName())) {
+            send(object, new Key(namespace, recordKey.copyDigest(), setName, Value.get(recordKey.getId())), recordKey.getPartitionId());
+        }
+        else {
+            byte[] digest = new byte[KeyDigest.DIGEST_SIZE];
+            int partitionId = keyDigests.get().digest(recordKey.getId(), digest, 0);
+            send(object, new Key(namespace, digest, setName, Value.get(recordKey.getId())), partitionId);
+        }
+    }
+
+    private void send(T object, Key key, int partitionId) {
+        if (closed) {
+            throw new IllegalStateException("The sink has been closed");
+        }
+        // The object may be recycled by the generator before an async or batched write is sent
+        Bin[] bins = mapper.toDetachedBins(object);
+        Generator.FailureReporter currentReporter = reporter;
+        long id = currentReporter == null ? -1 : currentReporter.currentId();
+        if (batchSize == 1) {
+            write(key, bins, id);
+        }
+        else {
+            Operation[] operations = new Operation[bins.length];
+            for (int i = 0; i < bins.length; i++) {
+                operations[i] = Operation.put(bins[i]);
+            }
+            BatchRecord record = new BatchWrite(batchWritePolicy, key, operations);
+            add(groupOf(key, partitionId), record, id);
+        }
+    }
+
+    private Object groupOf(Key key, int partitionId) {
+        switch (grouping) {
+        case NODE:
+            return nodeOf(key);
+        case PARTITION:
+            return PARTITION_IDS[partitionId];
+        default:
+            return NO_NODE;
+        }
+    }
+
+    /**
+     * The node which owns the record, or {@code NO_NODE} if it cannot be determined, for example because the client
+     * is not connected to a real cluster.
+     */
+    private Object nodeOf(Key key) {
+        Cluster cluster = client.getCluster();
+        if (cluster == null) {
+            return NO_NODE;
+        }
+        try {
+            return Partition.getNodeBatchWrite(cluster, key, batchPolicy.replica, null, 0);
+        }
+        catch (AerospikeException e) {
+            return NO_NODE;
+        }
+    }
+
+    private void add(Object node, BatchRecord record, long id) {
+        List<BatchRecord> full = null;
+        long[] fullIds = null;
+        PendingBatch batch = pending.computeIfAbsent(node, ignored -> new PendingBatch(batchSize));
+        synchronized (batch) {
+            batch.ids[batch.records.size()] = id;
+            batch.records.add(record);
+            if (batch.records.size() >= batchSize) {
+                full = new ArrayList<>(batch.records);
+                fullIds = batch.ids.clone();
+                batch.records.clear();
+            }
+        }
+        if (full != null) {
+            writeBatch(full, fullIds);
+        }
+    }
+
+    private void write(Key key, Bin[] bins, long id) {
+        if (!async) {
+            long start = System.nanoTime();
+            try {
+                client.put(writePolicy, key, bins);
+                succeeded(1, start);
+            }
+            catch (AerospikeException e) {
+                failed(1, e.getResultCode(), e, start);
+                throw e;
+            }
+            return;
+        }
+        acquire();
+        long start = System.nanoTime();
+        try {
+            client.put(null, new WriteListener() {
+                @Override
+                public void onSuccess(Key key) {
+                    succeeded(1, start);
+                    inFlight.release();
+                }
+                @Override
+                public void onFailure(AerospikeException exception) {
+                    try {
+                        failed(1, exception.getResultCode(), exception, start);
+                        report(id, exception);
+                    }
+                    finally {
+                        inFlight.release();
+                    }
+                }
+            }, writePolicy, key, bins);
+        }
+        catch (AerospikeException e) {
+            // The command could not be started, so the listener will not be called
+            inFlight.release();
+            failed(1, e.getResultCode(), e, start);
+            throw e;
+        }
+    }
+
+    /**
+     * Write a batch. A batch holds the records of other threads as well as the caller's, so its failures are
+     * reported for each record rather than thrown, even without async.
+     */
+    private void writeBatch(List<BatchRecord> records, long[] ids) {
+        if (!async) {
+            long start = System.nanoTime();
+            try {
+                client.operate(batchPolicy, records);
+                batchCompleted(records, ids, start);
+            }
+            catch (AerospikeException e) {
+                batchFailed(records.size(), ids, e, start);
+            }
+            return;
+        }
+        acquire();
+        long start = System.nanoTime();
+        try {
+            client.operate(null, new BatchOperateListListener() {
+                @Override
+                public void onSuccess(List<BatchRecord> results, boolean status) {
+                    try {
+                        batchCompleted(results, ids, start);
+                    }
+                    finally {
+                        inFlight.release();
+                    }
+                }
+                @Override
+                public void onFailure(AerospikeException exception) {
+                    try {
+                        batchFailed(records.size(), ids, exception, start);
+                    }
+                    finally {
+                        inFlight.release();
+                    }
+                }
+            }, batchPolicy, records);
+        }
+        catch (AerospikeException e) {
+            inFlight.release();
+            batchFailed(records.size(), ids, e, start);
+        }
+    }
+
+    private void acquire() {
+        try {
+            inFlight.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting to write to Aerospike", e);
+        }
+    }
+
+    private void batchCompleted(List<BatchRecord> records, long[] ids, long start) {
+        int succeeded = 0;
+        for (int i = 0; i < records.size(); i++) {
+            BatchRecord record = records.get(i);
+            if (record.resultCode == ResultCode.OK) {
+                succeeded++;
+            }
+            else {
+                failuresByResultCode.computeIfAbsent(record.resultCode, ignored -> new LongAdder()).increment();
+                failed.increment();
+                AerospikeException exception = new AerospikeException(record.resultCode);
+                lastError.set(exception);
+                report(ids[i], exception);
+            }
+        }
+        succeeded(succeeded, start);
+    }
+
+    private void batchFailed(int records, long[] ids, AerospikeException exception, long start) {
+        failed(records, exception.getResultCode(), exception, start);
+        for (int i = 0; i < records; i++) {
+            report(ids[i], exception);
+        }
+    }
+
+    /** Pass a record which failed after {@code process} returned to the run which generated it, if there is one */
+    private void report(long id, AerospikeException exception) {
+        Generator.FailureReporter currentReporter = reporter;
+        if (currentReporter != null) {
+            currentReporter.failed(id, exception);
+        }
+    }
+
+    private void succeeded(int records, long start) {
+        written.add(records);
+        recordLatency(start);
+    }
+
+    private void failed(int records, int resultCode, AerospikeException exception, long start) {
+        failed.add(records);
+        failuresByResultCode.computeIfAbsent(resultCode, ignored -> new LongAdder()).add(records);
+        lastError.set(exception);
+        recordLatency(start);
+    }
+
+    private void recordLatency(long start) {
+        long latency = System.nanoTime() - start;
+        commands.increment();
+        latencyNanos.add(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
+
+    public Metrics getMetrics() {
+        Map<Integer, Long> failures = new TreeMap<>();
+        failuresByResultCode.forEach((code, count) -> failures.put(code, count.sum()));
+        return new Metrics(written.sum(), failed.sum(), commands.sum(), maxInFlight - inFlight.availablePermits(),
+                latencyNanos.sum(), maxLatencyNanos.get(), failures);
+    }
+
+    /**
+     * The most recent error from Aerospike, or null if every write has succeeded.
+     */
+    public AerospikeException getLastError() {
+        return lastError.get();
+    }
+
+    /**
+     * Write the records waiting in partly filled batches.
+     */
+    public void flush() {
+        for (PendingBatch batch : pending.values()) {
+            List<BatchRecord> records;
+            long[] ids;
+            synchronized (batch) {
+                if (batch.records.isEmpty()) {
+                    continue;
+                }
+                records = new ArrayList<>(batch.records);
+                ids = Arrays.copyOf(batch.ids, records.size());
+                batch.records.clear();
+            }
+            writeBatch(records, ids);
+        }
+    }
+
+    /**
+     * Wait until there are no async writes outstanding.
+     * @return false if the timeout passed first
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!inFlight.tryAcquire(maxInFlight, timeout, unit)) {
+            return false;
+        }
+        inFlight.release(maxInFlight);
+        return true;
+    }
+
+    /**
+     * Write the partly filled batches and wait for all the outstanding writes to complete.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        try {
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,699 @@
+package com.aerospike.generator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Function;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.Value;
+import com.aerospike.client.util.Packer;
+
+/**
+ * Converts objects of a class to and from Aerospike {@code Bin}s, one bin for each field of the class and its
+ * superclasses, named after the field. Everything the conversion needs is worked out once when the mapper is
+ * created: the bin names, a typed getter for each field (shared with the {@code ValueCreator} for the class where
+ * it has one) and a converter to read each field back. Mapping an object then only reads its fields through
+ * {@code MethodHandle}s, and primitive fields become bins without being boxed. Static and transient fields are not
+ * mapped, and a field hides a superclass field of the same name.
+ * <p/>
+ * Values are converted to types Aerospike stores natively: {@code Date}s, {@code Instant}s, {@code LocalDate}s and
+ * {@code LocalDateTime}s (at UTC) become milliseconds since the epoch, enums their name and other {@code java} types
+ * their string form. Arrays, collections and maps become list and map values which are packed straight from the
+ * field, without being copied into intermediate lists, and nested objects, such as {@code @GenObject} fields, become
+ * maps of their own fields. As these values are packed when the bins are written, use {@link #toDetachedBins(Object)}
+ * if the object may change first, for example when a {@code Generator} recycles its instances.
+ */
+public class BinMapper<T> {
+    /** The longest bin name Aerospike allows */
+    public static final int MAX_BIN_NAME_LENGTH = 15;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private static final ClassValue<BinMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected BinMapper<?> computeValue(Class<?> type) {
+            return new BinMapper<>(type);
+        }
+    };
+
+    /** How a field is read, so primitive fields can be read without boxing */
+    private enum Kind {
+        LONG(long.class), DOUBLE(double.class), BOOLEAN(boolean.class), OBJECT(Object.class);
+
+        private final MethodType getterType;
+
+        Kind(Class<?> type) {
+            this.getterType = MethodType.methodType(type, Object.class);
+        }
+
+        static Kind of(Class<?> type) {
+            if (type == long.class || type == int.class || type == short.class || type == byte.class) {
+                return LONG;
+            }
+            if (type == double.class || type == float.class) {
+                return DOUBLE;
+            }
+            return type == boolean.class ? BOOLEAN : OBJECT;
+        }
+    }
+
+    private final Class<T> clazz;
+    private final String[] binNames;
+    private final Kind[] kinds;
+    private final MethodHandle[] getters;
+    private final MethodHandle[] boxedGetters;
+    private final FieldSetter[] setters;
+    private final Function<Object, Object>[] readers;
+    private final Map<String, Integer> indexes;
+    private volatile MethodHandle constructor;
+
+    @SuppressWarnings("unchecked")
+    private BinMapper(Class<T> clazz) {
+        this.clazz = clazz;
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                if (fields.stream().noneMatch(existing -> existing.getName().equals(field.getName()))) {
+                    declared.add(field);
+                }
+            }
+            // Superclass fields come first
+            fields.addAll(0, declared);
+        }
+        ValueCreator<T> creator = findCreator(clazz);
+        this.binNames = new String[fields.size()];
+        this.kinds = new Kind[fields.size()];
+        this.getters = new MethodHandle[fields.size()];
+        this.boxedGetters = new MethodHandle[fields.size()];
+        this.setters = new FieldSetter[fields.size()];
+        this.readers = new Function[fields.size()];
+        this.indexes = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (field.getName().length() > MAX_BIN_NAME_LENGTH) {
+                throw new IllegalArgumentException(String.format("Field %s of class %s cannot be stored as its name is longer than the %d characters a bin name can have",
+                        field.getName(), field.getDeclaringClass().getName(), MAX_BIN_NAME_LENGTH));
+            }
+            binNames[i] = field.getName();
+            kinds[i] = Kind.of(field.getType());
+            setters[i] = findSetter(creator, field);
+            getters[i] = getter(field, setters[i]).asType(kinds[i].getterType);
+            boxedGetters[i] = getters[i].asType(Kind.OBJECT.getterType);
+            readers[i] = reader(field.getType(), field.getGenericType());
+            indexes.put(binNames[i], i);
+        }
+    }
+
+    private static <T> ValueCreator<T> findCreator(Class<T> clazz) {
+        try {
+            return ValueCreatorCache.getInstance().get(clazz);
+        }
+        catch (RuntimeException e) {
+            // The class cannot be generated, but can still be mapped
+            return null;
+        }
+    }
+
+    /**
+     * Returns the setter the {@code ValueCreator} uses for the field, or a new one. Returns null if the field cannot
+     * be set, such as the fields of a record, in which case objects can be mapped to bins but not back.
+     */
+    private static FieldSetter findSetter(ValueCreator<?> creator, Field field) {
+        FieldSetter setter = creator == null ? null : creator.getSetter(field);
+        if (setter != null) {
+            return setter;
+        }
+        try {
+            return new FieldSetter(field);
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle getter(Field field, FieldSetter setter) {
+        if (setter != null) {
+            return setter.getTypedGetterHandle();
+        }
+        try {
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(field.getType(), Object.class));
+        }
+        catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException(String.format("Field %s of class %s cannot be read: %s",
+                    field.getName(), field.getDeclaringClass().getName(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Returns the mapper for the class, which is created the first time it is asked for.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BinMapper<T> forClass(Class<T> clazz) {
+        return (BinMapper<T>) MAPPERS.get(clazz);
+    }
+
+    public Class<T> getMappedClass() {
+        return clazz;
+    }
+
+    public String[] getBinNames() {
+        return binNames.clone();
+    }
+
+    /**
+     * The position of the bin for a field in the result of {@link #toBins(Object)}, or -1 if the field is not mapped.
+     */
+    public int indexOf(String fieldName) {
+        Integer index = indexes.get(fieldName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the value of the field at {@code index}, as it is read from the object, without conversion.
+     */
+    public Object getFieldValue(T object, int index) {
+        try {
+            return (Object) boxedGetters[index].invokeExact((Object) object);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public Bin[] toBins(T object) {
+        Bin[] bins = new Bin[binNames.length];
+        try {
+            for (int i = 0; i < bins.length; i++) {
+                MethodHandle getter = getters[i];
+                switch (kinds[i]) {
+                case LONG:
+                    bins[i] = new Bin(binNames[i], (long) getter.invokeExact((Object) object));
+                    break;
+                case DOUBLE:
+                    bins[i] = new Bin(binNames[i], (double) getter.invokeExact((Object) object));
+                    break;
+                case BOOLEAN:
+                    bins[i] = new Bin(binNames[i], (boolean) getter.invokeExact((Object) object));
+                    break;
+                default:
+                    bins[i] = new Bin(binNames[i], toValue((Object) getter.invokeExact((Object) object)));
+                    break;
+                }
+            }
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+        return bins;
+    }
+
+    /**
+     * Convert the object to bins whose list and map values are packed straight away, so the bins stay valid when the
+     * object is changed afterwards.
+     */
+    public Bin[] toDetachedBins(T object) {
+        Bin[] bins = toBins(object);
+        for (Bin bin : bins) {
+            if (bin.value instanceof PackedValue) {
+                ((PackedValue) bin.value).detach();
+            }
+        }
+        return bins;
+    }
+
+    /**
+     * Convert the object to a map of bin name to the value Aerospike would store for it.
+     */
+    public Map<String, Object> toMap(T object) {
+        Map<String, Object> result = new LinkedHashMap<>((int) (binNames.length / 0.75f) + 1);
+        for (int i = 0; i < binNames.length; i++) {
+            result.put(binNames[i], toAerospikeValue(getFieldValue(object, i)));
+        }
+        return result;
+    }
+
+    /**
+     * Create an object from bins, such as those read back from Aerospike. Bins which do not match a field are
+     * ignored, and fields without a bin keep the value the constructor gave them.
+     */
+    public T fromBins(Bin... bins) {
+        T result = newInstance();
+        for (Bin bin : bins) {
+            Integer index = indexes.get(bin.name);
+            if (index != null) {
+                setField(result, index, bin.value.getObject());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create an object from a map of bin name to value, such as the bins of a {@code Record}.
+     */
+    public T fromMap(Map<String, ?> bins) {
+        T result = newInstance();
+        for (int i = 0; i < binNames.length; i++) {
+            if (bins.containsKey(binNames[i])) {
+                setField(result, i, bins.get(binNames[i]));
+            }
+        }
+        return result;
+    }
+
+    private void setField(T object, int index, Object value) {
+        if (setters[index] == null) {
+            throw new IllegalArgumentException(String.format("Field %s of class %s cannot be set from a bin",
+                    binNames[index], clazz.getName()));
+        }
+        if (value == null) {
+            if (kinds[index] == Kind.OBJECT) {
+                setters[index].set(object, null);
+            }
+            return;
+        }
+        setters[index].set(object, readers[index].apply(value));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() {
+        MethodHandle handle = constructor;
+        if (handle == null) {
+            try {
+                Constructor<T> noArgs = clazz.getDeclaredConstructor();
+                noArgs.setAccessible(true);
+                handle = MethodHandles.lookup().unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+            }
+            catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException(String.format("Class %s cannot be created from bins as it has no constructor without parameters",
+                        clazz.getName()), e);
+            }
+            constructor = handle;
+        }
+        try {
+            return (T) (Object) handle.invokeExact();
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Returns a function which converts a value read from Aerospike to the passed type.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Function<Object, Object> reader(Class<?> type, Type genericType) {
+        if (type == long.class || type == Long.class) {
+            return value -> ((Number) value).longValue();
+        }
+        if (type == int.class || type == Integer.class) {
+            return value -> ((Number) value).intValue();
+        }
+        if (type == short.class || type == Short.class) {
+            return value -> ((Number) value).shortValue();
+        }
+        if (type == byte.class || type == Byte.class) {
+            return value -> ((Number) value).byteValue();
+        }
+        if (type == double.class || type == Double.class) {
+            return value -> ((Number) value).doubleValue();
+        }
+        if (type == float.class || type == Float.class) {
+            return value -> ((Number) value).floatValue();
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return value -> value instanceof Boolean ? value : ((Number) value).longValue() != 0;
+        }
+        if (type == char.class || type == Character.class) {
+            return value -> value.toString().charAt(0);
+        }
+        if (type == String.class) {
+            return Object::toString;
+        }
+        if (type == Date.class) {
+            return value -> new Date(((Number) value).longValue());
+        }
+        if (type == Instant.class) {
+            return value -> Instant.ofEpochMilli(((Number) value).longValue());
+        }
+        if (type == LocalDate.class) {
+            return value -> LocalDate.ofEpochDay(Math.floorDiv(((Number) value).longValue(), MILLIS_PER_DAY));
+        }
+        if (type == LocalDateTime.class) {
+            return value -> LocalDateTime.ofInstant(Instant.ofEpochMilli(((Number) value).longValue()), ZoneOffset.UTC);
+        }
+        if (type == UUID.class) {
+            return value -> UUID.fromString(value.toString());
+        }
+        if (type.isEnum()) {
+            return value -> Enum.valueOf((Class<Enum>) type, value.toString());
+        }
+        if (type.isArray() && type != byte[].class) {
+            Class<?> componentType = type.getComponentType();
+            Type genericComponent = genericType instanceof GenericArrayType
+                    ? ((GenericArrayType) genericType).getGenericComponentType() : componentType;
+            Function<Object, Object> elementReader = reader(componentType, genericComponent);
+            return value -> {
+                List<?> list = (List<?>) value;
+                Object result = Array.newInstance(componentType, list.size());
+                for (int i = 0; i < list.size(); i++) {
+                    Object element = list.get(i);
+                    if (element != null) {
+                        Array.set(result, i, elementReader.apply(element));
+                    }
+                }
+                return result;
+            };
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            Function<Object, Object> elementReader = typeArgumentReader(genericType, 0);
+            Function<Integer, Collection<Object>> factory = SortedSet.class.isAssignableFrom(type) ? size -> new TreeSet<>()
+                    : Set.class.isAssignableFrom(type) ? LinkedHashSet::new : ArrayList::new;
+            return value -> {
+                Collection<?> source = (Collection<?>) value;
+                Collection<Object> result = factory.apply(source.size());
+                for (Object element : source) {
+                    result.add(element == null ? null : elementReader.apply(element));
+                }
+                return result;
+            };
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            Function<Object, Object> keyReader = typeArgumentReader(genericType, 0);
+            Function<Object, Object> valueReader = typeArgumentReader(genericType, 1);
+            return value -> {
+                Map<?, ?> source = (Map<?, ?>) value;
+                Map<Object, Object> result = new HashMap<>((int) (source.size() / 0.75f) + 1);
+                for (Map.Entry<?, ?> entry : source.entrySet()) {
+                    Object entryValue = entry.getValue();
+                    result.put(keyReader.apply(entry.getKey()), entryValue == null ? null : valueReader.apply(entryValue));
+                }
+                return result;
+            };
+        }
+        if (!type.isPrimitive() && !type.isInterface() && !isJavaType(type)) {
+            return value -> forClass(type).fromMap((Map<String, ?>) value);
+        }
+        return Function.identity();
+    }
+
+    private static Function<Object, Object> typeArgumentReader(Type genericType, int index) {
+        if (genericType instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[index];
+            if (argument instanceof Class) {
+                return reader((Class<?>) argument, argument);
+            }
+            if (argument instanceof ParameterizedType) {
+                return reader((Class<?>) ((ParameterizedType) argument).getRawType(), argument);
+            }
+        }
+        return Function.identity();
+    }
+
+    private static boolean isJavaType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.");
+    }
+
+    static boolean isMap(Object value) {
+        return value instanceof Map || !(value instanceof Collection || value.getClass().isArray());
+    }
+
+    /**
+     * Convert a temporal value to milliseconds since the epoch, or return null if it is not one.
+     */
+    private static Long toMillis(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).toEpochDay() * MILLIS_PER_DAY;
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the value is stored as a list or map. Other values are stored as a simple type.
+     */
+    private static boolean isStructured(Object value) {
+        if (value instanceof Collection || value instanceof Map || value.getClass().isArray()) {
+            return !(value instanceof byte[]);
+        }
+        return !(value instanceof Enum) && !isJavaType(value.getClass());
+    }
+
+    /**
+     * Convert a field value to an Aerospike {@code Value}, without copying lists, maps or nested objects.
+     */
+    static Value toValue(Object value) {
+        if (value == null) {
+            return Value.getAsNull();
+        }
+        if (value instanceof String) {
+            return Value.get((String) value);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return Value.get(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return Value.get(((Number) value).doubleValue());
+        }
+        if (value instanceof Boolean) {
+            return Value.get(((Boolean) value).booleanValue());
+        }
+        if (value instanceof byte[]) {
+            return Value.get((byte[]) value);
+        }
+        Long millis = toMillis(value);
+        if (millis != null) {
+            return Value.get(millis.longValue());
+        }
+        if (isStructured(value)) {
+            return new PackedValue(value, PackedValue.typeOf(value));
+        }
+        return Value.get(value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+    }
+
+    /**
+     * Convert a value to one of the types Aerospike stores natively.
+     */
+    static Object toAerospikeValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Long
+                || value instanceof Double || value instanceof Boolean || value instanceof byte[]) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        Long millis = toMillis(value);
+        if (millis != null) {
+            return millis;
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            List<Object> result = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                result.add(toAerospikeValue(element));
+            }
+            return result;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> result = new HashMap<>((int) (map.size() / 0.75f) + 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                result.put(toAerospikeValue(entry.getKey()), toAerospikeValue(entry.getValue()));
+            }
+            return result;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> result = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                result.add(toAerospikeValue(Array.get(value, i)));
+            }
+            return result;
+        }
+        if (isStructured(value)) {
+            return mapObject(value);
+        }
+        return value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <U> Map<String, Object> mapObject(U value) {
+        return forClass((Class<U>) value.getClass()).toMap(value);
+    }
+
+    /**
+     * Pack a value as Aerospike would store it, converting each element of lists and maps as it is packed.
+     */
+    static void pack(Packer packer, Object value) {
+        if (value == null) {
+            packer.packNil();
+        }
+        else if (value instanceof String) {
+            packer.packParticleString((String) value);
+        }
+        else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            packer.packLong(((Number) value).longValue());
+        }
+        else if (value instanceof Double || value instanceof Float) {
+            packer.packDouble(((Number) value).doubleValue());
+        }
+        else if (value instanceof Boolean) {
+            packer.packBoolean((Boolean) value);
+        }
+        else if (value instanceof byte[]) {
+            packer.packParticleBytes((byte[]) value);
+        }
+        else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            packer.packArrayBegin(collection.size());
+            for (Object element : collection) {
+                pack(packer, element);
+            }
+        }
+        else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            packer.packMapBegin(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                pack(packer, entry.getKey());
+                pack(packer, entry.getValue());
+            }
+        }
+        else if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            packer.packArrayBegin(array.length);
+            for (Object element : array) {
+                pack(packer, element);
+            }
+        }
+        else if (value.getClass().isArray()) {
+            packPrimitiveArray(packer, value);
+        }
+        else {
+            Long millis = toMillis(value);
+            if (millis != null) {
+                packer.packLong(millis);
+            }
+            else if (isStructured(value)) {
+                packObject(packer, value);
+            }
+            else {
+                packer.packParticleString(value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+            }
+        }
+    }
+
+    private static void packPrimitiveArray(Packer packer, Object array) {
+        if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            packer.packArrayBegin(values.length);
+            for (long element : values) {
+                packer.packLong(element);
+            }
+        }
+        else if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            packer.packArrayBegin(values.length);
+            for (int element : values) {
+                packer.packLong(element);
+            }
+        }
+        else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            packer.packArrayBegin(values.length);
+            for (double element : values) {
+                packer.packDouble(element);
+            }
+        }
+        else {
+            int length = Array.getLength(array);
+            packer.packArrayBegin(length);
+            for (int i = 0; i < length; i++) {
+                pack(packer, Array.get(array, i));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <U> void packObject(Packer packer, U value) {
+        forClass((Class<U>) value.getClass()).packFields(packer, value);
+    }
+
+    private void packFields(Packer packer, T object) {
+        packer.packMapBegin(binNames.length);
+        try {
+            for (int i = 0; i < binNames.length; i++) {
+                packer.packParticleString(binNames[i]);
+                MethodHandle getter = getters[i];
+                switch (kinds[i]) {
+                case LONG:
+                    packer.packLong((long) getter.invokeExact((Object) object));
+                    break;
+                case DOUBLE:
+                    packer.packDouble((double) getter.invokeExact((Object) object));
+                    break;
+                case BOOLEAN:
+                    packer.packBoolean((boolean) getter.invokeExact((Object) object));
+                    break;
+                default:
+                    pack(packer, (Object) getter.invokeExact((Object) object));
+                    break;
+                }
+            }
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.aerospike.generator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import com.aerospike.generator.FieldGenerator.ValueKind;
+import com.aerospike.generator.annotations.BooleanProcessor;
+import com.aerospike.generator.annotations.DoubleProcessor;
+import com.aerospike.generator.annotations.IntProcessor;
+import com.aerospike.generator.annotations.LongProcessor;
+import com.aerospike.generator.annotations.Processor;
+import com.aerospike.generator.annotations.RecyclingProcessor;
+
+/**
+ * A {@link Populator} which compiles the field generators of a class into a single {@code MethodHandle}. Each field
+ * becomes a step which invokes its processor through the processor's concrete class and passes the result straight
+ * to the field's setter, using the primitive {@code processXxx} methods for primitive fields. The steps are folded
+ * together in a fixed order, so populating an object is one handle invocation with no iteration over the fields and
+ * no interface dispatch on the processors.
+ */
+class CompiledPopulator<T> implements Populator<T> {
+    private static final MethodType PROCESS = MethodType.methodType(Object.class, Map.class);
+    private static final MethodType STEP = MethodType.methodType(void.class, Object.class, Map.class);
+    private static final MethodType RECYCLE = MethodType.methodType(Object.class, Map.class, Object.class);
+    
+    private final MethodHandle populator;
+    
+    CompiledPopulator(FieldGenerator[] generators) {
+        this(generators, false);
+    }
+    
+    /**
+     * @param recycle true to compile steps which pass the current value of each field to processors which can reuse it
+     */
+    CompiledPopulator(FieldGenerator[] generators, boolean recycle) {
+        MethodHandle handle = MethodHandles.empty(STEP);
+        // Fold from the last field to the first so the first field is invoked first
+        for (int i = generators.length - 1; i >= 0; i--) {
+            MethodHandle step = recycle && generators[i].isRecycling() ? compileRecyclingStep(generators[i]) : compileStep(generators[i]);
+            handle = MethodHandles.foldArguments(handle, step);
+        }
+        this.populator = handle;
+    }
+    
+    private static MethodHandle compileStep(FieldGenerator generator) {
+        ValueKind kind = generator.getKind();
+        MethodHandle process = processHandle(generator.getProcessor(), kind);
+        if (kind == ValueKind.FLOAT) {
+            // Float fields are generated as doubles
+            process = MethodHandles.explicitCastArguments(process, MethodType.methodType(float.class, Map.class));
+        }
+        return MethodHandles.filterArguments(generator.getSetter().getHandle(kind.getType()), 1, process);
+    }
+    
+    /**
+     * A step of type {@code (Object, Map)void} which reads the field, passes its value to the processor and writes 
+     * back the result.
+     */
+    private static MethodHandle compileRecyclingStep(FieldGenerator generator) {
+        FieldSetter setter = generator.getSetter();
+        MethodHandle process;
+        try {
+            process = MethodHandles.publicLookup().findVirtual(RecyclingProcessor.class, "process", RECYCLE).bindTo(generator.getProcessor());
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        // (Object object, Map params)Object: process(params, get(object))
+        MethodHandle value = MethodHandles.filterArguments(
+                MethodHandles.permuteArguments(process, MethodType.methodType(Object.class, Object.class, Map.class), 1, 0),
+                0, setter.getGetterHandle());
+        // (Object value, Object object, Map params)void: set(object, value)
+        MethodHandle store = MethodHandles.permuteArguments(MethodHandles.dropArguments(setter.getHandle(), 2, Map.class),
+                MethodType.methodType(void.class, Object.class, Object.class, Map.class), 1, 0, 2);
+        return MethodHandles.foldArguments(store, value);
+    }
+    
+    /**
+     * Bind the processor method which generates the passed kind of value. This is looked up on the processor's 
+     * concrete class where that is accessible, otherwise through the interface which declares it.
+     */
+    private static MethodHandle processHandle(Processor processor, ValueKind kind) {
+        String name;
+        Class<?> declaringInterface;
+        switch (kind) {
+        case LONG:      name = "processLong";       declaringInterface = LongProcessor.class; break;
+        case INT:       name = "processInt";        declaringInterface = IntProcessor.class; break;
+        case DOUBLE:
+        case FLOAT:     name = "processDouble";     declaringInterface = DoubleProcessor.class; break;
+        case BOOLEAN:   name = "processBoolean";    declaringInterface = BooleanProcessor.class; break;
+        default:        name = "process";           declaringInterface = Processor.class;
+        }
+        MethodType type = kind == ValueKind.OBJECT ? PROCESS 
+                : MethodType.methodType(kind == ValueKind.FLOAT ? double.class : kind.getType(), Map.class);
+        Class<?> processorClass = processor.getClass();
+        if (Modifier.isPublic(processorClass.getModifiers())) {
+            try {
+                return MethodHandles.publicLookup().findVirtual(processorClass, name, type).bindTo(processor);
+            }
+            catch (NoSuchMethodException | IllegalAccessException ignored) {
+            }
+        }
+        try {
+            return MethodHandles.publicLookup().findVirtual(declaringInterface, name, type).bindTo(processor);
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    @Override
+    public void populate(T object, Map<String, Object> params) {
+        try {
+            populator.invokeExact((Object)object, params);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.aerospike.generator;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Handles the records a {@link Generator} failed to generate or process. It is called once for each failed record,
+ * after any retries of its callback, on the thread which generated the record, so it must be thread safe and should
+ * be quick. The generator uses an {@link ErrorLogger} unless another handler is set with
+ * {@link Generator#setErrorHandler(ErrorHandler)}.
+ */
+@FunctionalInterface
+public interface ErrorHandler {
+    /**
+     * @param id the id of the record, or of the key of the operation in a workload
+     * @param stage the stage the record failed in
+     * @param exception the exception it failed with
+     */
+    void handle(long id, Generator.Stage stage, Exception exception);
+
+    /**
+     * Called the first time a {@link MetricsSink} throws. Its later failures are only counted, in
+     * {@link Generator#getMetricsSinkFailures(MetricsSink)}. This is called on the thread publishing the metrics.
+     */
+    default void metricsSinkFailed(MetricsSink sink, Exception exception) {}
+
+    /** Called once when a run completes, so handlers which aggregate the errors can report what is left */
+    default void runComplete() {}
+
+    /** A handler which calls this handler and then the next one */
+    default ErrorHandler andThen(ErrorHandler next) {
+        ErrorHandler first = this;
+        return new ErrorHandler() {
+            @Override
+            public void handle(long id, Generator.Stage stage, Exception exception) {
+                first.handle(id, stage, exception);
+                next.handle(id, stage, exception);
+            }
+
+            @Override
+            public void metricsSinkFailed(MetricsSink sink, Exception exception) {
+                first.metricsSinkFailed(sink, exception);
+                next.metricsSinkFailed(sink, exception);
+            }
+
+            @Override
+            public void runComplete() {
+                first.runComplete();
+                next.runComplete();
+            }
+        };
+    }
+
+    /**
+     * A dead-letter hook, which passes the id of each failed record on, for example to write them to a file and
+     * generate them again later. Combine it with a logger using {@code new ErrorLogger().andThen(...)}.
+     */
+    static ErrorHandler deadLetters(LongConsumer failedIds) {
+        return (id, stage, exception) -> failedIds.accept(id);
+    }
+}
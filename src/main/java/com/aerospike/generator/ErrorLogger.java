@@ -0,0 +1,110 @@
+package com.aerospike.generator;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default {@link ErrorHandler}, which logs failures without letting them swamp the output. The first failure of
+ * each exception type in each stage is printed with its stack trace. Later ones are only counted, and a summary of
+ * them is printed at most once per interval, and when the run completes. When a sink starts rejecting every record,
+ * the threads then only bump a counter instead of queuing to print a stack trace each. The first failure of each
+ * {@link MetricsSink} is printed the same way.
+ */
+public class ErrorLogger implements ErrorHandler {
+    private static class Aggregate {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+        private volatile long lastId;
+        private volatile Exception last;
+    }
+
+    private final PrintStream out;
+    private final long intervalNanos;
+    private final ConcurrentHashMap<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final AtomicLong nextReport;
+
+    /** Log to {@code System.err}, summarizing repeated failures every 10 seconds */
+    public ErrorLogger() {
+        this(System.err, Duration.ofSeconds(10));
+    }
+
+    public ErrorLogger(PrintStream out, Duration interval) {
+        if (out == null) {
+            throw new IllegalArgumentException("The output stream cannot be null");
+        }
+        if (interval == null || interval.isNegative()) {
+            throw new IllegalArgumentException("The summary interval cannot be negative, not " + interval);
+        }
+        this.out = out;
+        this.intervalNanos = interval.toNanos();
+        this.nextReport = new AtomicLong(System.nanoTime() + intervalNanos);
+    }
+
+    @Override
+    public void handle(long id, Generator.Stage stage, Exception exception) {
+        String key = stage + " " + exception.getClass().getName();
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate == null) {
+            Aggregate created = new Aggregate();
+            aggregate = aggregates.putIfAbsent(key, created);
+            if (aggregate == null) {
+                created.total.increment();
+                synchronized (out) {
+                    out.printf("Record %d failed in %s, further %s failures in %s are summarized%n", id, stage,
+                            exception.getClass().getName(), stage);
+                    exception.printStackTrace(out);
+                }
+                return;
+            }
+        }
+        aggregate.total.increment();
+        aggregate.pending.increment();
+        aggregate.lastId = id;
+        aggregate.last = exception;
+        long now = System.nanoTime();
+        long next = nextReport.get();
+        if (now - next >= 0 && nextReport.compareAndSet(next, now + intervalNanos)) {
+            report();
+        }
+    }
+
+    @Override
+    public void metricsSinkFailed(MetricsSink sink, Exception exception) {
+        synchronized (out) {
+            out.printf("Metrics sink %s failed, and its later failures are only counted%n", sink);
+            exception.printStackTrace(out);
+        }
+    }
+
+    @Override
+    public void runComplete() {
+        report();
+    }
+
+    /** Print the failures counted since the last summary */
+    public void report() {
+        synchronized (out) {
+            for (Map.Entry<String, Aggregate> entry : new TreeMap<>(aggregates).entrySet()) {
+                Aggregate aggregate = entry.getValue();
+                long count = aggregate.pending.sumThenReset();
+                if (count > 0) {
+                    Exception last = aggregate.last;
+                    out.printf("%,d more failures of %s (%,d in total), the last on record %d: %s%n", count,
+                            entry.getKey(), aggregate.total.sum(), aggregate.lastId, last == null ? "" : last.getMessage());
+                }
+            }
+        }
+    }
+
+    /** The number of failures of each stage and exception type, keyed by the stage and the exception's class name */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        aggregates.forEach((key, aggregate) -> counts.put(key, aggregate.total.sum()));
+        return counts;
+    }
+}
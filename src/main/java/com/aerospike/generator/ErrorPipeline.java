@@ -0,0 +1,75 @@
+package com.aerospike.generator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The handling of the failures of one run, shared by its worker threads. It retries callbacks with the retry policy,
+ * counts the records which still fail, passes them to the error handler, and aborts the run once the maximum number
+ * of errors is reached. The workers check {@link #isAborted()} before each record, which is a single volatile read.
+ */
+final class ErrorPipeline {
+    private final ErrorHandler handler;
+    private final RetryPolicy retryPolicy;
+    private final long maxErrors;
+    private final AtomicLong errors;
+    private final AtomicBoolean handlerFailed = new AtomicBoolean();
+    private volatile boolean aborted = false;
+
+    ErrorPipeline(ErrorHandler handler, RetryPolicy retryPolicy, long maxErrors, AtomicLong errors) {
+        this.handler = handler;
+        this.retryPolicy = retryPolicy;
+        this.maxErrors = maxErrors;
+        this.errors = errors;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Whether to call the callback again after it threw, having waited for the backoff of the retry. The retries are
+     * numbered from 1. No retries are made once the run is aborted, or if the thread is interrupted while waiting.
+     */
+    boolean retry(int retry, Exception exception) {
+        if (aborted || !retryPolicy.shouldRetry(retry, exception)) {
+            return false;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(retryPolicy.delayNanos(retry));
+            return true;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Count a record which failed and pass it to the handler */
+    void failed(long id, Generator.Stage stage, Exception exception) {
+        if (errors.incrementAndGet() >= maxErrors) {
+            aborted = true;
+        }
+        try {
+            handler.handle(id, stage, exception);
+        }
+        catch (RuntimeException e) {
+            // A broken handler must not stop the generation, nor flood the output itself
+            if (handlerFailed.compareAndSet(false, true)) {
+                System.err.println("The error handler failed, and its later failures are ignored");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** Called by the last thread of the run */
+    void complete() {
+        try {
+            handler.runComplete();
+        }
+        catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.aerospike.generator;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import com.aerospike.generator.annotations.BooleanProcessor;
+import com.aerospike.generator.annotations.DoubleProcessor;
+import com.aerospike.generator.annotations.IntProcessor;
+import com.aerospike.generator.annotations.LongProcessor;
+import com.aerospike.generator.annotations.Processor;
+import com.aerospike.generator.annotations.RecyclingProcessor;
+
+/**
+ * Binds the processor which generates the values for a field to the setter which writes them into the object. If the
+ * field is a primitive and the processor can generate that primitive directly, the value is never boxed.
+ */
+class FieldGenerator {
+    /**
+     * How the value is passed from the processor to the setter.
+     */
+    enum ValueKind {
+        OBJECT(Object.class), LONG(long.class), INT(int.class), DOUBLE(double.class), FLOAT(float.class), BOOLEAN(boolean.class);
+        
+        private final Class<?> type;
+        private ValueKind(Class<?> type) {
+            this.type = type;
+        }
+        
+        Class<?> getType() {
+            return type;
+        }
+    }
+    
+    private final Field field;
+    private final Processor processor;
+    // Created when first needed, as fields passed to a constructor, such as those of a record, may not be settable
+    private volatile FieldSetter setter;
+    private final ValueKind kind;
+    private final Class<? extends Annotation> annotation;
+    private final long seedSalt;
+    
+    FieldGenerator(Field field, Processor processor) {
+        this(field, processor, null);
+    }
+    
+    /**
+     * @param annotation the annotation the processor was created from, if known
+     */
+    FieldGenerator(Field field, Processor processor, Class<? extends Annotation> annotation) {
+        this.field = field;
+        this.processor = processor;
+        this.kind = determineKind(field.getType(), processor);
+        this.annotation = annotation;
+        this.seedSalt = 31L * field.getDeclaringClass().getName().hashCode() + field.getName().hashCode();
+    }
+    
+    static ValueKind determineKind(Class<?> fieldType, Processor processor) {
+        if (fieldType == long.class && processor instanceof LongProcessor) {
+            return ValueKind.LONG;
+        }
+        else if (fieldType == int.class && processor instanceof IntProcessor) {
+            return ValueKind.INT;
+        }
+        else if (fieldType == double.class && processor instanceof DoubleProcessor) {
+            return ValueKind.DOUBLE;
+        }
+        else if (fieldType == float.class && processor instanceof DoubleProcessor) {
+            return ValueKind.FLOAT;
+        }
+        else if (fieldType == boolean.class && processor instanceof BooleanProcessor) {
+            return ValueKind.BOOLEAN;
+        }
+        return ValueKind.OBJECT;
+    }
+    
+    Field getField() {
+        return field;
+    }
+    
+    Processor getProcessor() {
+        return processor;
+    }
+    
+    FieldSetter getSetter() {
+        FieldSetter result = setter;
+        if (result == null) {
+            result = new FieldSetter(field);
+            setter = result;
+        }
+        return result;
+    }
+    
+    ValueKind getKind() {
+        return kind;
+    }
+    
+    Class<? extends Annotation> getAnnotation() {
+        return annotation;
+    }
+    
+    /**
+     * Mixed into the seed of an object to give the seed of this field when generation is seeded. It depends only on
+     * the field, so a field has the same seed whatever order the fields are generated in.
+     */
+    long getSeedSalt() {
+        return seedSalt;
+    }
+    
+    /**
+     * Returns true if the processor can reuse the value the field already holds when the object is populated again.
+     */
+    boolean isRecycling() {
+        return kind == ValueKind.OBJECT && processor instanceof RecyclingProcessor;
+    }
+    
+    /**
+     * Generate the field of an object which has been populated before, reusing its current value where possible.
+     */
+    void regenerate(Object object, Map<String, Object> params) {
+        if (isRecycling()) {
+            FieldSetter setter = getSetter();
+            setter.set(object, ((RecyclingProcessor)processor).process(params, setter.get(object)));
+        }
+        else {
+            generate(object, params);
+        }
+    }
+    
+    void generate(Object object, Map<String, Object> params) {
+        FieldSetter setter = getSetter();
+        switch (kind) {
+        case LONG:
+            setter.setLong(object, ((LongProcessor)processor).processLong(params));
+            break;
+        case INT:
+            setter.setInt(object, ((IntProcessor)processor).processInt(params));
+            break;
+        case DOUBLE:
+            setter.setDouble(object, ((DoubleProcessor)processor).processDouble(params));
+            break;
+        case FLOAT:
+            setter.setFloat(object, (float)((DoubleProcessor)processor).processDouble(params));
+            break;
+        case BOOLEAN:
+            setter.setBoolean(object, ((BooleanProcessor)processor).processBoolean(params));
+            break;
+        default:
+            setter.set(object, processor.process(params));
+        }
+    }
+}
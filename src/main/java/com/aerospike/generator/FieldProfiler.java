@@ -0,0 +1,306 @@
+package com.aerospike.generator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A sampling profiler which measures how long each field of a class takes to generate, and how many bytes it
+ * allocates, to show which processor makes a class slow to generate. While a profiler is active, a fraction of the
+ * records populated by any {@code ValueCreator} are populated one field at a time, timing each field. The objects
+ * nested in a sampled record, through {@code GenObject}, {@code GenList} and the like, are sampled with it, and
+ * appear under the field which generated them in the report.
+ * <pre>
+ * FieldProfiler profiler = FieldProfiler.start(0.01);
+ * generator.generate(1, 1_000_000, Customer.class, sink).monitor();
+ * profiler.stop();
+ * System.out.println(profiler.report());
+ * </pre>
+ * The time of a field includes the objects nested in it. Allocated bytes are read from the
+ * {@code com.sun.management.ThreadMXBean} of the JVM, and are not reported if it does not support them. Classes
+ * populated by a build-time {@code Populator} are not profiled.
+ */
+public final class FieldProfiler {
+    private static volatile FieldProfiler active;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final double sampleRate;
+    private final long allocationOverhead;
+    private final Map<Class<?>, ClassProfile> classes = new ConcurrentHashMap<>();
+    private final Set<Class<?>> roots = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) bean;
+                if (result.isThreadAllocatedMemorySupported()) {
+                    result.setThreadAllocatedMemoryEnabled(true);
+                    return result;
+                }
+            }
+        }
+        catch (RuntimeException | LinkageError ignored) {
+            // Allocations are not measured
+        }
+        return null;
+    }
+
+    /**
+     * The population of a class in sampled records.
+     */
+    public static class ClassProfile {
+        private final Class<?> clazz;
+        private final LongAdder samples = new LongAdder();
+        private final Map<Field, FieldProfile> fields = new ConcurrentHashMap<>();
+
+        ClassProfile(Class<?> clazz) {
+            this.clazz = clazz;
+        }
+        public Class<?> getProfiledClass() {
+            return clazz;
+        }
+        /** The number of objects of the class populated in sampled records */
+        public long getSamples() {
+            return samples.sum();
+        }
+        /** The fields, slowest in total first */
+        public List<FieldProfile> getFields() {
+            List<FieldProfile> result = new ArrayList<>(fields.values());
+            result.sort(Comparator.comparingLong(FieldProfile::getTotalNanos).reversed());
+            return result;
+        }
+        /** The time to populate an object of the class, from the mean time of each field */
+        public double getMeanNanos() {
+            double result = 0;
+            for (FieldProfile field : fields.values()) {
+                result += field.getMeanNanos();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The generation of a field in sampled records.
+     */
+    public static class FieldProfile {
+        private final Field field;
+        private final String processorName;
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final Set<Class<?>> children = ConcurrentHashMap.newKeySet();
+
+        FieldProfile(FieldGenerator generator) {
+            this.field = generator.getField();
+            this.processorName = generator.getAnnotation() != null ? generator.getAnnotation().getSimpleName()
+                    : generator.getProcessor().getClass().getSimpleName();
+        }
+        public String getFieldName() {
+            return field.getName();
+        }
+        /** The annotation the field is generated from, or the class of its processor */
+        public String getProcessorName() {
+            return processorName;
+        }
+        public long getSamples() {
+            return samples.sum();
+        }
+        public long getTotalNanos() {
+            return nanos.sum();
+        }
+        public double getMeanNanos() {
+            long count = getSamples();
+            return count == 0 ? 0 : (double) getTotalNanos() / count;
+        }
+        /** The mean bytes allocated to generate the field, or -1 if allocations are not measured */
+        public double getMeanAllocatedBytes() {
+            long count = getSamples();
+            return THREADS == null ? -1 : count == 0 ? 0 : (double) allocatedBytes.sum() / count;
+        }
+        /** The classes of the objects populated while generating the field */
+        public Set<Class<?>> getChildren() {
+            return children;
+        }
+    }
+
+    private static final class ThreadState {
+        private int depth;
+        private boolean sampling;
+        private FieldProfile currentField;
+    }
+
+    /**
+     * Times the generation of one field. Returned by {@link FieldProfiler#startField}, and must be stopped.
+     */
+    final class FieldTimer {
+        private final ThreadState state;
+        private final FieldProfile profile;
+        private final FieldProfile enclosingField;
+        private final long startBytes;
+        private final long startNanos;
+
+        private FieldTimer(ThreadState state, FieldProfile profile) {
+            this.state = state;
+            this.profile = profile;
+            this.enclosingField = state.currentField;
+            state.currentField = profile;
+            this.startBytes = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        void stop() {
+            long elapsed = System.nanoTime() - startNanos;
+            long bytes = allocatedBytes() - startBytes - allocationOverhead;
+            state.currentField = enclosingField;
+            profile.samples.increment();
+            profile.nanos.add(elapsed);
+            profile.allocatedBytes.add(Math.max(bytes, 0));
+        }
+    }
+
+    private FieldProfiler(double sampleRate) {
+        this.sampleRate = sampleRate;
+        this.allocationOverhead = measureAllocationOverhead();
+    }
+
+    /**
+     * Start profiling the given fraction of records, from 0 to 1, replacing any profiler already active.
+     */
+    public static FieldProfiler start(double sampleRate) {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("The sample rate must be more than 0 and at most 1, not " + sampleRate);
+        }
+        FieldProfiler profiler = new FieldProfiler(sampleRate);
+        active = profiler;
+        return profiler;
+    }
+
+    /**
+     * Stop profiling. The results are kept.
+     */
+    public void stop() {
+        if (active == this) {
+            active = null;
+        }
+    }
+
+    /**
+     * The active profiler, or null if records are not being profiled.
+     */
+    public static FieldProfiler getActive() {
+        return active;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Reading the allocated bytes can allocate itself, which is subtracted from each field.
+     */
+    private static long measureAllocationOverhead() {
+        if (THREADS == null) {
+            return 0;
+        }
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = allocatedBytes();
+            overhead = Math.min(overhead, allocatedBytes() - start);
+        }
+        return overhead;
+    }
+
+    /**
+     * Called when a {@code ValueCreator} starts to populate an object. Returns true if the object is part of a
+     * sampled record, so its fields should be timed. Each call must be followed by {@link #exit()}.
+     */
+    boolean enter(Class<?> clazz) {
+        ThreadState state = threadState.get();
+        if (state.depth++ == 0) {
+            state.sampling = ThreadLocalRandom.current().nextDouble() < sampleRate;
+            if (state.sampling) {
+                roots.add(clazz);
+            }
+        }
+        else if (state.sampling && state.currentField != null) {
+            state.currentField.children.add(clazz);
+        }
+        if (state.sampling) {
+            classProfile(clazz).samples.increment();
+        }
+        return state.sampling;
+    }
+
+    void exit() {
+        threadState.get().depth--;
+    }
+
+    FieldTimer startField(Class<?> clazz, FieldGenerator generator) {
+        FieldProfile profile = classProfile(clazz).fields.computeIfAbsent(generator.getField(), ignored -> new FieldProfile(generator));
+        return new FieldTimer(threadState.get(), profile);
+    }
+
+    private ClassProfile classProfile(Class<?> clazz) {
+        return classes.computeIfAbsent(clazz, ClassProfile::new);
+    }
+
+    /**
+     * The profile of a class, or null if no object of it has been sampled.
+     */
+    public ClassProfile getProfile(Class<?> clazz) {
+        return classes.get(clazz);
+    }
+
+    /**
+     * A report of each class at the top of sampled records, with its fields slowest first and the classes nested in
+     * each field beneath it.
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder(String.format("Field generation profile, %.2f%% of records sampled%n", sampleRate * 100));
+        List<ClassProfile> rootProfiles = new ArrayList<>();
+        for (Class<?> root : roots) {
+            rootProfiles.add(classes.get(root));
+        }
+        rootProfiles.sort(Comparator.comparingDouble((ClassProfile profile) -> profile.getMeanNanos() * profile.getSamples()).reversed());
+        for (ClassProfile profile : rootProfiles) {
+            report(sb, profile, "", new HashSet<>());
+        }
+        return sb.toString();
+    }
+
+    private void report(StringBuilder sb, ClassProfile profile, String indent, Set<Class<?>> enclosing) {
+        double classNanos = profile.getMeanNanos();
+        sb.append(String.format("%s%s: %,d samples, %,.1fus per object%n", indent, profile.getProfiledClass().getName(),
+                profile.getSamples(), classNanos / 1000.0));
+        enclosing.add(profile.getProfiledClass());
+        for (FieldProfile field : profile.getFields()) {
+            double bytes = field.getMeanAllocatedBytes();
+            sb.append(String.format("%s  %5.1f%% %,10.2fus %12s  %s (%s)%n", indent,
+                    classNanos == 0 ? 0 : 100 * field.getMeanNanos() / classNanos, field.getMeanNanos() / 1000.0,
+                    bytes < 0 ? "" : String.format("%,.0fB", bytes), field.getFieldName(), field.getProcessorName()));
+            for (Class<?> child : field.getChildren()) {
+                ClassProfile childProfile = classes.get(child);
+                // A class nested in itself is only reported once
+                if (childProfile != null && !enclosing.contains(child)) {
+                    report(sb, childProfile, indent + "      ", enclosing);
+                }
+            }
+        }
+        enclosing.remove(profile.getProfiledClass());
+    }
+}
@@ -0,0 +1,267 @@
+package com.aerospike.generator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Writes values into a single field using {@code MethodHandle}s which are resolved once when the setter is created,
+ * rather than using {@code Field.set} with its per-call access checks. Primitive values can be written through the
+ * typed {@code setXxx} methods without being boxed. As with {@link ValueCreator}, final fields are deliberately
+ * allowed to be set. The current value can also be read, so objects being populated again can reuse what the field holds.
+ */
+public class FieldSetter {
+    private static final MethodType OBJECT_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodHandle SET_REFLECTIVELY;
+    static {
+        try {
+            SET_REFLECTIVELY = MethodHandles.lookup().findVirtual(FieldSetter.class, "setReflectively", 
+                    MethodType.methodType(void.class, Throwable.class, Object.class, Object.class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Field field;
+    private final MethodHandle objectSetter;
+    private final MethodHandle objectGetter;
+    private final MethodHandle typedGetter;
+    private final MethodHandle longSetter;
+    private final MethodHandle intSetter;
+    private final MethodHandle doubleSetter;
+    private final MethodHandle floatSetter;
+    private final MethodHandle booleanSetter;
+
+    public FieldSetter(Field field) {
+        this.field = field;
+        field.setAccessible(true);
+        MethodHandle setter;
+        MethodHandle getter;
+        try {
+            setter = MethodHandles.lookup().unreflectSetter(field);
+            getter = MethodHandles.lookup().unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Field %s of class %s cannot be set: %s",
+                    field.getName(), field.getDeclaringClass().getName(), e.getMessage()), e);
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            // Static setters have no receiver, accept and ignore the object like Field.set does
+            setter = MethodHandles.dropArguments(setter, 0, Object.class);
+            getter = MethodHandles.dropArguments(getter, 0, Object.class);
+        }
+        this.objectSetter = setter.asType(OBJECT_SETTER);
+        this.objectGetter = getter.asType(OBJECT_GETTER);
+        this.typedGetter = getter.asType(MethodType.methodType(field.getType(), Object.class));
+        this.longSetter = typedSetter(setter, long.class);
+        this.intSetter = typedSetter(setter, int.class);
+        this.doubleSetter = typedSetter(setter, double.class);
+        this.floatSetter = typedSetter(setter, float.class);
+        this.booleanSetter = typedSetter(setter, boolean.class);
+    }
+
+    /**
+     * Adapt the setter to take the passed primitive type. If the field cannot accept that primitive without a
+     * narrowing conversion, null is returned and values of that type go through the boxed setter.
+     */
+    private static MethodHandle typedSetter(MethodHandle setter, Class<?> primitiveType) {
+        Class<?> fieldType = setter.type().parameterType(1);
+        if (!fieldType.isPrimitive() && !fieldType.isAssignableFrom(MethodType.methodType(primitiveType).wrap().returnType())) {
+            return null;
+        }
+        try {
+            return setter.asType(MethodType.methodType(void.class, Object.class, primitiveType));
+        }
+        catch (WrongMethodTypeException e) {
+            return null;
+        }
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    public void set(Object object, Object value) {
+        try {
+            objectSetter.invokeExact(object, value);
+        }
+        catch (ClassCastException | NullPointerException e) {
+            // The handle only unboxes exact wrapper types, fall back to reflection for widening conversions and
+            // to produce the same errors as Field.set
+            setReflectively(object, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Returns a handle of type {@code (Object, Object)void} which behaves the same as {@link #set(Object, Object)},
+     * for composing into larger handles.
+     */
+    public MethodHandle getHandle() {
+        // The raw handle can only fail with a ClassCastException or NullPointerException
+        return MethodHandles.catchException(objectSetter, RuntimeException.class, SET_REFLECTIVELY.bindTo(this));
+    }
+    
+    /**
+     * Returns a handle of type {@code (Object, valueType)void}. Primitive value types use the typed setter where the
+     * field accepts that primitive, otherwise the value is boxed and passed to the handle from {@link #getHandle()}.
+     */
+    public MethodHandle getHandle(Class<?> valueType) {
+        MethodHandle typed = null;
+        if (valueType == long.class) {
+            typed = longSetter;
+        }
+        else if (valueType == int.class) {
+            typed = intSetter;
+        }
+        else if (valueType == double.class) {
+            typed = doubleSetter;
+        }
+        else if (valueType == float.class) {
+            typed = floatSetter;
+        }
+        else if (valueType == boolean.class) {
+            typed = booleanSetter;
+        }
+        if (typed != null) {
+            return typed;
+        }
+        return getHandle().asType(MethodType.methodType(void.class, Object.class, valueType));
+    }
+    
+    /**
+     * Returns the current value of the field, boxed if it is a primitive.
+     */
+    public Object get(Object object) {
+        try {
+            return (Object) objectGetter.invokeExact(object);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+    
+    /**
+     * Returns a handle of type {@code (Object)Object} which behaves the same as {@link #get(Object)}.
+     */
+    public MethodHandle getGetterHandle() {
+        return objectGetter;
+    }
+    
+    /**
+     * Returns a handle of type {@code (Object)fieldType}, which reads primitive fields without boxing them.
+     */
+    public MethodHandle getTypedGetterHandle() {
+        return typedGetter;
+    }
+    
+    @SuppressWarnings("unused")
+    private void setReflectively(Throwable ignored, Object object, Object value) {
+        setReflectively(object, value);
+    }
+
+    private void setReflectively(Object object, Object value) {
+        try {
+            field.set(object, value);
+        }
+        catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    public void setLong(Object object, long value) {
+        if (longSetter == null) {
+            set(object, value);
+            return;
+        }
+        try {
+            longSetter.invokeExact(object, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public void setInt(Object object, int value) {
+        if (intSetter == null) {
+            set(object, value);
+            return;
+        }
+        try {
+            intSetter.invokeExact(object, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public void setDouble(Object object, double value) {
+        if (doubleSetter == null) {
+            set(object, value);
+            return;
+        }
+        try {
+            doubleSetter.invokeExact(object, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public void setFloat(Object object, float value) {
+        if (floatSetter == null) {
+            set(object, value);
+            return;
+        }
+        try {
+            floatSetter.invokeExact(object, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public void setBoolean(Object object, boolean value) {
+        if (booleanSetter == null) {
+            set(object, value);
+            return;
+        }
+        try {
+            booleanSetter.invokeExact(object, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.aerospike.generator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The JDK Flight Recorder events of the generator, so its pauses can be lined up with GC, I/O and the rest of a
+ * recording. They are all in the "Aerospike Generator" category and can be turned on and off, or given a different
+ * threshold, in a JFC settings file like any JDK event. When JFR is not recording them, creating and committing an
+ * event costs next to nothing, and the per-record events are not even allocated once the JIT has compiled the loop.
+ */
+final class FlightRecorderEvents {
+    private static final String CATEGORY_1 = "Aerospike";
+    private static final String CATEGORY_2 = "Generator";
+
+    /** The number of records summarized by each {@link ChunkEvent} */
+    static final int CHUNK_RECORDS = 1000;
+
+    private FlightRecorderEvents() {}
+
+    @Name("com.aerospike.generator.RunStart")
+    @Label("Generation Run Start")
+    @Category({CATEGORY_1, CATEGORY_2})
+    @Description("A Generator started a run, with its configuration")
+    @StackTrace(false)
+    static final class RunStartEvent extends Event {
+        @Label("Operation")
+        @Description("generate, or workload for a mix of reads, updates and inserts")
+        String operation;
+        @Label("Class")
+        String className;
+        @Label("Start Id")
+        long startId;
+        @Label("End Id")
+        long endId;
+        @Label("Threads")
+        int threads;
+        @Label("Id Batch Size")
+        int idBatchSize;
+        @Label("Recycle Instances")
+        boolean recycleInstances;
+        @Label("Key Digest Set")
+        String keyDigestSet;
+        @Label("Record Latencies")
+        boolean recordLatencies;
+    }
+
+    @Name("com.aerospike.generator.Run")
+    @Label("Generation Run")
+    @Category({CATEGORY_1, CATEGORY_2})
+    @Description("A Generator run, from its start until its last thread finished")
+    @StackTrace(false)
+    static final class RunEvent extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Class")
+        String className;
+        @Label("Threads")
+        int threads;
+        @Label("Successful")
+        long successCount;
+        @Label("Failed")
+        long failureCount;
+    }
+
+    @Name("com.aerospike.generator.Chunk")
+    @Label("Generation Chunk")
+    @Category({CATEGORY_1, CATEGORY_2})
+    @Description("A summary of up to 1,000 records generated by one thread. Threads share out the ids, so the records "
+            + "lie between the first and last id but are not every id between them")
+    @StackTrace(false)
+    static final class ChunkEvent extends Event {
+        @Label("Class")
+        String className;
+        @Label("First Id")
+        @Description("The id of the first record the thread generated in the chunk")
+        long firstId;
+        @Label("Last Id")
+        @Description("The id of the last record the thread generated in the chunk")
+        long lastId;
+        @Label("Records")
+        long records;
+        @Label("Failed")
+        long failures;
+    }
+
+    @Name("com.aerospike.generator.SlowRecord")
+    @Label("Slow Record")
+    @Category({CATEGORY_1, CATEGORY_2})
+    @Description("A record which took longer than the threshold to create, populate and process")
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class SlowRecordEvent extends Event {
+        @Label("Class")
+        String className;
+        @Label("Id")
+        long id;
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("com.aerospike.generator.ProcessorBuild")
+    @Label("Processor Build")
+    @Category({CATEGORY_1, CATEGORY_2})
+    @Description("A ValueCreator built the processor of a field")
+    @StackTrace(false)
+    static final class ProcessorBuildEvent extends Event {
+        @Label("Class")
+        String className;
+        @Label("Field")
+        String fieldName;
+        @Label("Annotation")
+        String annotation;
+        @Label("Processor")
+        String processor;
+    }
+
+    @Name("com.aerospike.generator.ValueCreatorBuild")
+    @Label("ValueCreator Build")
+    @Category({CATEGORY_1, CATEGORY_2})
+    @Description("A ValueCreator analyzed its class and built the processors of its fields")
+    @StackTrace(false)
+    static final class ValueCreatorBuildEvent extends Event {
+        @Label("Class")
+        String className;
+        @Label("Population Mode")
+        String populationMode;
+        @Label("Generated Fields")
+        int fields;
+    }
+}
@@ -0,0 +1,89 @@
+package com.aerospike.generator;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+
+import com.aerospike.generator.annotations.GenPopulator;
+
+/**
+ * Locates populators generated at build time for classes marked with {@link GenPopulator}, and provides the 
+ * runtime support the generated code relies on.
+ */
+public class GeneratedPopulators {
+    public static final String SUFFIX = "Populator";
+    private static final Map<ClassLoader, Map<Class<?>, PopulatorFactory>> FACTORIES = new WeakHashMap<>();
+    
+    private GeneratedPopulators() {}
+    
+    /**
+     * The fully qualified name of the populator generated for the passed class. This must match the name used by
+     * the annotation processor.
+     */
+    public static String getPopulatorClassName(Class<?> clazz) {
+        StringBuilder name = new StringBuilder(clazz.getSimpleName());
+        for (Class<?> enclosing = clazz.getEnclosingClass(); enclosing != null; enclosing = enclosing.getEnclosingClass()) {
+            name.insert(0, '_').insert(0, enclosing.getSimpleName());
+        }
+        String packageName = clazz.getPackageName();
+        return (packageName.isEmpty() ? "" : packageName + ".") + name + SUFFIX;
+    }
+    
+    /**
+     * Find and instantiate the generated populator for the passed class.
+     * @return the populator, or null if the class is not marked with {@code GenPopulator} or no populator was generated for it.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Populator<T> find(Class<T> clazz) {
+        if (!clazz.isAnnotationPresent(GenPopulator.class)) {
+            return null;
+        }
+        ClassLoader loader = clazz.getClassLoader() == null ? ClassLoader.getSystemClassLoader() : clazz.getClassLoader();
+        PopulatorFactory factory = factories(loader).get(clazz);
+        return factory == null ? null : (Populator<T>) factory.create();
+    }
+    
+    /**
+     * The factories registered with {@code ServiceLoader} which can be seen from the class loader, by the class they 
+     * populate. They are only loaded once per class loader.
+     */
+    private static Map<Class<?>, PopulatorFactory> factories(ClassLoader loader) {
+        synchronized (FACTORIES) {
+            Map<Class<?>, PopulatorFactory> factories = FACTORIES.get(loader);
+            if (factories == null) {
+                factories = new HashMap<>();
+                Iterator<PopulatorFactory> iterator = ServiceLoader.load(PopulatorFactory.class, loader).iterator();
+                while (true) {
+                    try {
+                        if (!iterator.hasNext()) {
+                            break;
+                        }
+                        PopulatorFactory factory = iterator.next();
+                        factories.putIfAbsent(factory.getType(), factory);
+                    }
+                    catch (ServiceConfigurationError e) {
+                        // A populator listed by an earlier build whose class has since been removed
+                    }
+                }
+                FACTORIES.put(loader, factories);
+            }
+            return factories;
+        }
+    }
+    
+    /**
+     * Used by generated populators to resolve the fields they were generated from.
+     */
+    public static Field getField(Class<?> clazz, String name) {
+        try {
+            return clazz.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(String.format("Field %s does not exist on class %s, the class has changed since its populator was generated",
+                    name, clazz.getName()), e);
+        }
+    }
+}
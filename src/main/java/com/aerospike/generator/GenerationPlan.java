@@ -0,0 +1,121 @@
+package com.aerospike.generator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.aerospike.generator.annotations.Processor;
+
+/**
+ * Orders the field generators of a class, including those inherited from its superclasses, so that every field is
+ * generated after the fields its processor reads through {@code $obj}. Fields which are not referenced keep their
+ * declaration order, superclass fields first, with deferred processors after the others.
+ */
+final class GenerationPlan {
+    private GenerationPlan() {}
+
+    /**
+     * Order the passed generators, which must be in declaration order from the topmost superclass down.
+     * @throws IllegalArgumentException if the references between the fields form a cycle
+     */
+    static FieldGenerator[] order(Class<?> clazz, List<FieldGenerator> generators) {
+        List<FieldGenerator> initial = deferredLast(generators, FieldGenerator::getProcessor);
+
+        // A field in a subclass hides a field of the same name in a superclass, as it does for the expression lookup
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < initial.size(); i++) {
+            FieldGenerator generator = initial.get(i);
+            Integer existing = byName.get(generator.getField().getName());
+            if (existing == null || initial.get(existing).getField().getDeclaringClass().isAssignableFrom(generator.getField().getDeclaringClass())) {
+                byName.put(generator.getField().getName(), i);
+            }
+        }
+        List<FieldGenerator> result = sort("Class " + clazz.getName(), initial, byName, 
+                FieldGenerator::getProcessor, generator -> generator.getField().getName());
+        return result.toArray(new FieldGenerator[0]);
+    }
+    
+    /**
+     * Order named items which have no inheritance between them, such as the bins of a {@link RecordSchema}.
+     * @param owner what the items belong to, for the error message
+     * @throws IllegalArgumentException if the references between the items form a cycle
+     */
+    static <E> List<E> order(String owner, List<E> items, Function<E, Processor> processors, Function<E, String> names) {
+        List<E> initial = deferredLast(items, processors);
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < initial.size(); i++) {
+            byName.put(names.apply(initial.get(i)), i);
+        }
+        return sort(owner, initial, byName, processors, names);
+    }
+    
+    private static <E> List<E> deferredLast(List<E> items, Function<E, Processor> processors) {
+        List<E> initial = new ArrayList<>(items.size());
+        for (E item : items) {
+            if (!processors.apply(item).isDeferred()) {
+                initial.add(item);
+            }
+        }
+        for (E item : items) {
+            if (processors.apply(item).isDeferred()) {
+                initial.add(item);
+            }
+        }
+        return initial;
+    }
+    
+    private static <E> List<E> sort(String owner, List<E> initial, Map<String, Integer> byName, 
+            Function<E, Processor> processors, Function<E, String> names) {
+        int[][] dependencies = new int[initial.size()][];
+        for (int i = 0; i < initial.size(); i++) {
+            dependencies[i] = processors.apply(initial.get(i)).getObjectReferences().stream()
+                    .filter(byName::containsKey)
+                    .mapToInt(byName::get)
+                    .toArray();
+        }
+
+        List<E> result = new ArrayList<>(initial.size());
+        int[] state = new int[initial.size()];
+        List<Integer> path = new ArrayList<>();
+        for (int i = 0; i < initial.size(); i++) {
+            visit(owner, i, initial, names, dependencies, state, path, result);
+        }
+        return result;
+    }
+
+    private static final int VISITING = 1;
+    private static final int DONE = 2;
+
+    private static <E> void visit(String owner, int index, List<E> items, Function<E, String> names, int[][] dependencies,
+            int[] state, List<Integer> path, List<E> result) {
+        if (state[index] == DONE) {
+            return;
+        }
+        path.add(index);
+        if (state[index] == VISITING) {
+            throw new IllegalArgumentException(String.format("%s cannot be generated as its fields reference each other in a cycle: %s",
+                    owner, describeCycle(path, items, names)));
+        }
+        state[index] = VISITING;
+        for (int dependency : dependencies[index]) {
+            visit(owner, dependency, items, names, dependencies, state, path, result);
+        }
+        state[index] = DONE;
+        path.remove(path.size() - 1);
+        result.add(items.get(index));
+    }
+
+    private static <E> String describeCycle(List<Integer> path, List<E> items, Function<E, String> names) {
+        int last = path.get(path.size() - 1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = path.indexOf(last); i < path.size(); i++) {
+            if (sb.length() > 0) {
+                sb.append(" -> ");
+            }
+            sb.append(names.apply(items.get(path.get(i))));
+        }
+        return sb.toString();
+    }
+}
@@ -1,48 +1,121 @@
 package com.aerospike.generator;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
 public class Generator {
+    /** The parameter holding the partition of the record's key, when the generator computes key digests */
+    public static final String PARTITION_ID_PARAM = "PartitionId";
+    // The id of the record each generation thread is processing, for FailureReporter.currentId
+    private static final ThreadLocal<long[]> CURRENT_ID = ThreadLocal.withInitial(() -> new long[1]);
 
     public interface MonitorCallback {
         String addExtraInfo();
     }
     
+    /**
+     * Receives each generated object. If the generator recycles its instances, the object is only valid until 
+     * {@code process} returns, after which it is overwritten with the next record. Callbacks which keep the object,
+     * or hand it to another thread, must copy it first.
+     */
     public interface Callback<T> {
         void process(T t);
     }
     
-    public interface Factory<T> {
-        T create(long id);
+    /**
+     * A callback which also receives the Aerospike key of each record when the generator computes key digests.
+     * {@link #process(Object, RecordKey)} is then called instead of {@link #process(Object)}.
+     */
+    public interface KeyedCallback<T> extends Callback<T> {
+        void process(T t, RecordKey key);
     }
     
-    private static class DefaultConstructorFactory<T> implements Factory<T> {
-        private final Constructor<T> constructor;
-        private final String className;
-        public DefaultConstructorFactory(Class<T> clazz) {
-            this.className = clazz.getName();
-            try {
-                this.constructor = clazz.getDeclaredConstructor();
-            } catch (NoSuchMethodException | SecurityException e) {
-                throw new IllegalArgumentException(String.format("Class %s does not have a no-argument constructor, so a factory must be provided", className));
-            }
-        }
+    /**
+     * A callback which completes some records after {@code process} returns, for example by writing them
+     * asynchronously or in batches. When a run starts the generator passes it a {@link FailureReporter}, through
+     * which it reports the records which fail later. These then count as failures rather than successes, go to the
+     * error handler and count towards the maximum number of errors, like a record whose callback threw. They are
+     * not retried, as the generator may already have recycled the object.
+     */
+    public interface DeferredCallback<T> extends Callback<T> {
+        void startRun(FailureReporter reporter);
+    }
+    
+    /**
+     * Reports the records a {@link DeferredCallback} failed to complete to the run which generated them.
+     */
+    public interface FailureReporter {
+        /** The id of the record being processed by the calling thread, only valid while {@code process} runs */
+        long currentId();
+        /** Report that the record with the passed id failed after its {@code process} call returned */
+        void failed(long id, Exception exception);
+    }
+    
+    /**
+     * The digest and partition of the key of the record being generated, whose user key is its id. Each generation
+     * thread reuses one instance, so it is only valid until {@code process} returns.
+     */
+    public static final class RecordKey {
+        private final String setName;
+        private final byte[] digest = new byte[KeyDigest.DIGEST_SIZE];
+        private long id;
+        private int partitionId;
         
-        @Override
-        public T create(long id) {
-            try {
-                return constructor.newInstance();
-            } catch (InstantiationException | IllegalAccessException | IllegalArgumentException
-                    | InvocationTargetException e) {
-                throw new IllegalArgumentException("Could not instantiate class " + className, e);
-            }
+        RecordKey(String setName) {
+            this.setName = setName;
         }
+        public String getSetName() {
+            return setName;
+        }
+        public long getId() {
+            return id;
+        }
+        /** The digest, which is overwritten by the next record */
+        public byte[] getDigest() {
+            return digest;
+        }
+        public byte[] copyDigest() {
+            return digest.clone();
+        }
+        public int getPartitionId() {
+            return partitionId;
+        }
+    }
+    
+    public interface Factory<T> {
+        T create(long id);
+    }
+    
+    /**
+     * The stages of generating a record, whose latency is measured and which failures are reported in. Objects 
+     * created by the {@code ValueCreator} rather than a {@link Factory} are created as part of {@code POPULATE}.
+     */
+    public enum Stage {
+        /** {@code Factory.create} */
+        CREATE,
+        /** Populating the object, or creating and populating it */
+        POPULATE,
+        /** {@code Callback.process}, including any retries */
+        PROCESS
     }
     
     public static class MonitorStats {
@@ -51,15 +124,24 @@ public class Generator {
         private long currentRecord;
         private long successCount;
         private long failureCount;
+        private LatencyHistogram[] latencies;
+        private LatencyHistogram[] intervalLatencies;
         
         public MonitorStats(long startRecord, long endRecord, long currentRecord, long successCount,
                 long failureCount) {
+            this(startRecord, endRecord, currentRecord, successCount, failureCount, newLatencies(), newLatencies());
+        }
+        
+        MonitorStats(long startRecord, long endRecord, long currentRecord, long successCount,
+                long failureCount, LatencyHistogram[] latencies, LatencyHistogram[] intervalLatencies) {
             super();
             this.startRecord = startRecord;
             this.endRecord = endRecord;
             this.currentRecord = currentRecord;
             this.successCount = successCount;
             this.failureCount = failureCount;
+            this.latencies = latencies;
+            this.intervalLatencies = intervalLatencies;
         }
         public long getStartRecord() {
             return startRecord;
@@ -76,13 +158,56 @@ public class Generator {
         public long getFailureCount() {
             return failureCount;
         }
+        /** The latencies of a stage since generation started */
+        public LatencyHistogram getLatency(Stage stage) {
+            return latencies[stage.ordinal()];
+        }
+        /** The latencies of a stage since the previous statistics were taken */
+        public LatencyHistogram getIntervalLatency(Stage stage) {
+            return intervalLatencies[stage.ordinal()];
+        }
+    }
+    
+    private static LatencyHistogram[] newLatencies() {
+        LatencyHistogram[] latencies = new LatencyHistogram[Stage.values().length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        return latencies;
     }
+    
     private long startRecord;
     private long endRecord;
     private AtomicLong started = new AtomicLong(0);
     private AtomicLong success = new AtomicLong(0);
     private AtomicLong errors = new AtomicLong(0);
     private ExecutorService executor = null;
+    private boolean recycleInstances = false;
+    private String digestSetName = null;
+    private boolean recordLatencies = true;
+    private int idBatchSize = 1;
+    private final List<LatencyHistogram[]> workerLatencies = new CopyOnWriteArrayList<>();
+    private LatencyHistogram[] previousLatencies = newLatencies();
+    private ErrorHandler errorHandler = new ErrorLogger();
+    private RetryPolicy retryPolicy = RetryPolicy.none();
+    private long maxErrors = Long.MAX_VALUE;
+    private volatile ErrorPipeline errorPipeline = null;
+    private final List<MetricsSink> metricsSinks = new CopyOnWriteArrayList<>();
+    private final Map<MetricsSink, AtomicLong> metricsSinkFailures = new ConcurrentHashMap<>();
+    private Duration metricsInterval = Duration.ofSeconds(1);
+    private ObjectName mbeanName = null;
+    /** The threads of the current run which have not finished */
+    private final AtomicInteger activeThreads = new AtomicInteger();
+    // The state of the current run for its metrics, guarded by this generator
+    private String runOperation = null;
+    private String runClassName = null;
+    private long runStartNanos;
+    private long runEndNanos;
+    private long runDeadlineNanos = Long.MAX_VALUE;
+    private boolean runFinished = false;
+    private final ThroughputWindow throughput = new ThroughputWindow();
+    /** The successful records of each class over the finished runs */
+    private final Map<String, Long> classCounts = new HashMap<>();
     
     public Generator(Class<?> ...seedClasses) {
         for (Class<?> thisClazz : seedClasses) {
@@ -90,6 +215,217 @@ public class Generator {
         }
     }
 
+    /**
+     * Turn on recycling of instances. Each generation thread then creates one object, with its nested objects, lists,
+     * sets and arrays, and populates it again for every subsequent id, overwriting it in place. This removes most of 
+     * the allocation per record when the callback serializes the object and discards it. The object passed to the 
+     * callback is only valid during the call. The factory, if one is passed, is only called for the first object 
+     * of each thread. Classes created from their field values, such as records, cannot be recycled and are still
+     * created for each id.
+     */
+    public Generator setRecycleInstances(boolean recycleInstances) {
+        this.recycleInstances = recycleInstances;
+        return this;
+    }
+    
+    public boolean isRecycleInstances() {
+        return recycleInstances;
+    }
+    
+    /**
+     * Compute the Aerospike key digest and partition of each record, taking its id as an integer user key in the 
+     * passed set. Each thread computes the digests with its own {@link KeyDigest}, without allocating. The partition
+     * is put in the parameters as {@code PartitionId} before the object is generated, and callbacks implementing
+     * {@link KeyedCallback} are passed the digest, so a sink can group records by partition or node without hashing
+     * each key again. Pass null to turn this off.
+     */
+    public Generator setKeyDigests(String setName) {
+        this.digestSetName = setName;
+        return this;
+    }
+    
+    public String getKeyDigestSet() {
+        return digestSetName;
+    }
+    
+    /**
+     * Whether to measure the latency of each {@link Stage} of generating a record, which is on by default. Each
+     * thread records into its own histograms, which are only combined when the statistics are taken, so this costs
+     * a few calls to {@code System.nanoTime} per record.
+     */
+    public Generator setRecordLatencies(boolean recordLatencies) {
+        this.recordLatencies = recordLatencies;
+        return this;
+    }
+    
+    public boolean isRecordLatencies() {
+        return recordLatencies;
+    }
+    
+    /**
+     * The number of ids each thread claims at a time, which is 1 by default. With 1, the threads take every id from
+     * one shared counter, so the ids are generated in close to ascending order, but the counter is contended when
+     * generation is cheap. Larger batches claim a block of ids with one update of the counter and generate them on
+     * the same thread. The current record in the monitor statistics then moves in blocks.
+     */
+    public Generator setIdBatchSize(int idBatchSize) {
+        if (idBatchSize < 1) {
+            throw new IllegalArgumentException("The id batch size must be at least 1, not " + idBatchSize);
+        }
+        this.idBatchSize = idBatchSize;
+        return this;
+    }
+    
+    public int getIdBatchSize() {
+        return idBatchSize;
+    }
+    
+    /**
+     * The handler of the records which fail, after any retries. The default {@link ErrorLogger} prints the first
+     * failure of each exception type with its stack trace, and summarizes the rest every 10 seconds.
+     */
+    public Generator setErrorHandler(ErrorHandler errorHandler) {
+        if (errorHandler == null) {
+            throw new IllegalArgumentException("The error handler cannot be null");
+        }
+        this.errorHandler = errorHandler;
+        return this;
+    }
+    
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+    
+    /**
+     * How the callback of a record, or the operation of a workload, is retried when it throws, which is not at all
+     * by default. The record only fails, and is passed to the error handler, once the retries run out.
+     */
+    public Generator setRetryPolicy(RetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException("The retry policy cannot be null");
+        }
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+    
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+    
+    /**
+     * Abort a run once this many records have failed. The threads stop taking new ids, finish the record they are 
+     * on and the run completes, with {@link #isAborted()} true. There is no limit by default.
+     */
+    public Generator setMaxErrors(long maxErrors) {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("The maximum number of errors must be at least 1, not " + maxErrors);
+        }
+        this.maxErrors = maxErrors;
+        return this;
+    }
+    
+    public long getMaxErrors() {
+        return maxErrors;
+    }
+    
+    /** Whether the current or last run was stopped by reaching the maximum number of errors */
+    public boolean isAborted() {
+        ErrorPipeline pipeline = errorPipeline;
+        return pipeline != null && pipeline.isAborted();
+    }
+    
+    /**
+     * Add a sink which is passed the metrics of each run every metrics interval, and once more when the run
+     * completes. The sinks are called on a thread of their own, which only runs while a run is going.
+     */
+    public Generator addMetricsSink(MetricsSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("The metrics sink cannot be null");
+        }
+        metricsSinks.add(sink);
+        return this;
+    }
+    
+    public Generator removeMetricsSink(MetricsSink sink) {
+        metricsSinks.remove(sink);
+        metricsSinkFailures.remove(sink);
+        return this;
+    }
+    
+    /** The number of times the sink has thrown when passed the metrics */
+    public long getMetricsSinkFailures(MetricsSink sink) {
+        AtomicLong failures = metricsSinkFailures.get(sink);
+        return failures == null ? 0 : failures.get();
+    }
+    
+    /**
+     * How often the metrics sinks are called during a run, which is every second by default. This takes effect from 
+     * the next run.
+     */
+    public Generator setMetricsInterval(Duration metricsInterval) {
+        if (metricsInterval == null || metricsInterval.toMillis() < 1) {
+            throw new IllegalArgumentException("The metrics interval must be at least a millisecond, not " + metricsInterval);
+        }
+        this.metricsInterval = metricsInterval;
+        return this;
+    }
+    
+    public Duration getMetricsInterval() {
+        return metricsInterval;
+    }
+    
+    /**
+     * Register a {@link GeneratorMXBean} for this generator with the platform MBean server, named
+     * {@code com.aerospike.generator:type=Generator,name=<name>}, so its runs can be followed from JConsole, VisualVM
+     * or a JMX exporter. A generator has one bean at a time, so registering again replaces the previous name. Call
+     * {@link #unregisterMBean()} when the generator is no longer needed, as the server keeps it reachable.
+     */
+    public synchronized Generator registerMBean(String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("The MBean name cannot be empty");
+        }
+        ObjectName objectName;
+        try {
+            objectName = new ObjectName("com.aerospike.generator:type=Generator,name=" + ObjectName.quote(name));
+        }
+        catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid MBean name " + name, e);
+        }
+        unregisterMBean();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new GeneratorMetricsBean(this), objectName);
+        }
+        catch (InstanceAlreadyExistsException e) {
+            throw new IllegalArgumentException("A generator is already registered as " + objectName, e);
+        }
+        catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+        mbeanName = objectName;
+        return this;
+    }
+    
+    public synchronized Generator unregisterMBean() {
+        if (mbeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            }
+            catch (InstanceNotFoundException e) {
+                // Already unregistered through the server
+            }
+            catch (JMException e) {
+                throw new IllegalStateException(e);
+            }
+            mbeanName = null;
+        }
+        return this;
+    }
+    
+    /** The name the generator's MBean is registered under, or null if it is not registered */
+    public synchronized ObjectName getMBeanName() {
+        return mbeanName;
+    }
+    
     public <T> Generator generate(long startId, long endId, Class<T> clazz, Callback<T> callback) {
         return this.generate(startId, endId, 0, clazz, null, null, callback);
     }
@@ -106,42 +442,168 @@ public class Generator {
         return this.generate(startId, endId, threads, clazz, null, paramMap, callback);
     }
     
+    @SuppressWarnings("unchecked")
     public <T> Generator generate(long startId, long endId, int threads, Class<T> clazz, 
             Factory<T> factory, Map<String, Object> paramMap,Callback<T> callback) {
         
-        Factory<T> factoryToUse = factory == null ? new DefaultConstructorFactory<T>(clazz) : factory;
         ValueCreator<T> valueCreator = ValueCreatorCache.getInstance().get(clazz);
+        if (factory == null) {
+            // Objects are created by the ValueCreator, either empty or from their generated values
+            valueCreator.requiresConstructor();
+        }
         
         int threadsToUse = threads <= 0 ? Runtime.getRuntime().availableProcessors() : threads;
         this.started.set(0);
         this.success.set(0);
         this.errors.set(0);
+        resetLatencies();
         executor = Executors.newFixedThreadPool(threadsToUse);
         startRecord = startId;
         endRecord = endId;
         started.set(startId);
+        boolean recycle = recycleInstances;
+        String setName = digestSetName;
+        boolean measure = recordLatencies;
+        int batchSize = idBatchSize;
+        KeyedCallback<T> keyedCallback = setName != null && callback instanceof KeyedCallback ? (KeyedCallback<T>) callback : null;
+        String className = clazz.getName();
+        ErrorPipeline errorPipeline = new ErrorPipeline(errorHandler, retryPolicy, maxErrors, errors);
+        Runnable threadFinished = startRun("generate", className, startId, endId, threadsToUse, Long.MAX_VALUE, errorPipeline);
+        if (callback instanceof DeferredCallback) {
+            ((DeferredCallback<T>) callback).startRun(new FailureReporter() {
+                @Override
+                public long currentId() {
+                    return CURRENT_ID.get()[0];
+                }
+                @Override
+                public void failed(long id, Exception exception) {
+                    success.decrementAndGet();
+                    errorPipeline.failed(id, Stage.PROCESS, exception);
+                }
+            });
+        }
         
-        for (int i = 0; i < threadsToUse; i++) {
-            executor.submit(() -> {
-                Map<String, Object> params = paramMap != null ? new HashMap<>(paramMap) : new HashMap<>();
-                while (true) {
-                    long id = started.getAndIncrement();
-                    if (id > endRecord) {
-                        break;
+        Runnable worker = () -> {
+            Map<String, Object> params = paramMap != null ? new HashMap<>(paramMap) : new HashMap<>();
+            KeyDigest keyDigest = setName == null ? null : new KeyDigest(setName);
+            RecordKey recordKey = setName == null ? null : new RecordKey(setName);
+            long[] currentId = CURRENT_ID.get();
+            LatencyHistogram[] latencies = measure ? newLatencies() : null;
+            if (latencies != null) {
+                workerLatencies.add(latencies);
+            }
+            T recycled = null;
+            long nextId = 0;
+            long batchEnd = -1;
+            FlightRecorderEvents.ChunkEvent chunk = null;
+            while (true) {
+                if (nextId > batchEnd) {
+                    nextId = started.getAndAdd(batchSize);
+                    batchEnd = nextId + batchSize - 1;
+                }
+                long id = nextId++;
+                if (id > endRecord || errorPipeline.isAborted()) {
+                    break;
+                }
+                if (chunk == null) {
+                    chunk = new FlightRecorderEvents.ChunkEvent();
+                    chunk.begin();
+                    chunk.firstId = id;
+                }
+                FlightRecorderEvents.SlowRecordEvent slowRecord = new FlightRecorderEvents.SlowRecordEvent();
+                slowRecord.begin();
+                boolean failed = false;
+                Stage stage = factory == null || recycled != null ? Stage.POPULATE : Stage.CREATE;
+                try {
+                    params.put("Key", id);
+                    currentId[0] = id;
+                    if (keyDigest != null) {
+                        recordKey.id = id;
+                        recordKey.partitionId = keyDigest.digest(id, recordKey.digest, 0);
+                        params.put(PARTITION_ID_PARAM, recordKey.partitionId);
+                    }
+                    long start = latencies == null ? 0 : System.nanoTime();
+                    long populateStart = start;
+                    T object;
+                    if (recycled != null) {
+                        // The parameters are only used by this thread, so they do not need to be copied
+                        object = valueCreator.recycle(recycled, params, false);
+                    }
+                    else if (factory == null) {
+                        object = valueCreator.createAndPopulate(params);
                     }
-                    try {
-                        params.put("Key", id);
-                        T object = factoryToUse.create(id);
+                    else {
+                        object = factory.create(id);
+                        stage = Stage.POPULATE;
+                        if (latencies != null) {
+                            populateStart = System.nanoTime();
+                            latencies[Stage.CREATE.ordinal()].record(populateStart - start);
+                        }
                         valueCreator.populate(object, params);
-                        callback.process(object);
-                        success.incrementAndGet();
                     }
-                    catch (Exception e) {
-                        e.printStackTrace();
-                        errors.incrementAndGet();
+                    if (recycle && valueCreator.canRecycle(object)) {
+                        recycled = object;
+                    }
+                    long processStart = 0;
+                    if (latencies != null) {
+                        processStart = System.nanoTime();
+                        latencies[Stage.POPULATE.ordinal()].record(processStart - populateStart);
+                    }
+                    stage = Stage.PROCESS;
+                    for (int retry = 1; ; retry++) {
+                        try {
+                            if (keyedCallback != null) {
+                                keyedCallback.process(object, recordKey);
+                            }
+                            else {
+                                callback.process(object);
+                            }
+                            break;
+                        }
+                        catch (Exception e) {
+                            if (!errorPipeline.retry(retry, e)) {
+                                throw e;
+                            }
+                        }
+                    }
+                    if (latencies != null) {
+                        latencies[Stage.PROCESS.ordinal()].record(System.nanoTime() - processStart);
                     }
+                    success.incrementAndGet();
+                }
+                catch (Exception e) {
+                    errorPipeline.failed(id, stage, e);
+                    failed = true;
+                }
+                slowRecord.end();
+                if (slowRecord.shouldCommit()) {
+                    slowRecord.className = className;
+                    slowRecord.id = id;
+                    slowRecord.failed = failed;
+                    slowRecord.commit();
+                }
+                chunk.lastId = id;
+                chunk.records++;
+                if (failed) {
+                    chunk.failures++;
+                }
+                if (chunk.records == FlightRecorderEvents.CHUNK_RECORDS) {
+                    commitChunk(chunk, className);
+                    chunk = null;
+                }
+            }
+            if (chunk != null) {
+                commitChunk(chunk, className);
+            }
+        };
+        for (int i = 0; i < threadsToUse; i++) {
+            executor.submit(() -> {
+                try {
+                    worker.run();
+                }
+                finally {
+                    threadFinished.run();
                 }
-                
             });
         }
         
@@ -149,8 +611,207 @@ public class Generator {
         return this;
     }
     
+    private static void commitChunk(FlightRecorderEvents.ChunkEvent chunk, String className) {
+        chunk.end();
+        if (chunk.shouldCommit()) {
+            chunk.className = className;
+            chunk.commit();
+        }
+    }
+    
+    /**
+     * Record the start of a run in JFR and its metrics, and return a task for each thread of the run to call when it
+     * finishes. The last of them records the whole run and publishes its final metrics.
+     */
+    private Runnable startRun(String operation, String className, long startId, long endId, int threads,
+            long deadlineNanos, ErrorPipeline errorPipeline) {
+        FlightRecorderEvents.RunStartEvent startEvent = new FlightRecorderEvents.RunStartEvent();
+        if (startEvent.isEnabled()) {
+            startEvent.operation = operation;
+            startEvent.className = className;
+            startEvent.startId = startId;
+            startEvent.endId = endId;
+            startEvent.threads = threads;
+            startEvent.idBatchSize = idBatchSize;
+            startEvent.recycleInstances = recycleInstances;
+            startEvent.keyDigestSet = digestSetName;
+            startEvent.recordLatencies = recordLatencies;
+            startEvent.commit();
+        }
+        this.errorPipeline = errorPipeline;
+        synchronized (this) {
+            runOperation = operation;
+            runClassName = className;
+            runStartNanos = System.nanoTime();
+            runDeadlineNanos = deadlineNanos;
+            runFinished = false;
+            throughput.reset(runStartNanos);
+            activeThreads.set(threads);
+        }
+        ScheduledExecutorService publisher = startPublishing();
+        FlightRecorderEvents.RunEvent runEvent = new FlightRecorderEvents.RunEvent();
+        runEvent.begin();
+        return () -> {
+            if (activeThreads.decrementAndGet() == 0) {
+                runEvent.end();
+                if (runEvent.shouldCommit()) {
+                    runEvent.operation = operation;
+                    runEvent.className = className;
+                    runEvent.threads = threads;
+                    runEvent.successCount = success.get();
+                    runEvent.failureCount = errors.get();
+                    runEvent.commit();
+                }
+                errorPipeline.complete();
+                synchronized (this) {
+                    runEndNanos = System.nanoTime();
+                    runFinished = true;
+                    classCounts.merge(className, success.get(), Long::sum);
+                }
+                if (publisher != null) {
+                    // The final metrics are published on the same thread, after any publication in progress
+                    publisher.execute(this::publishMetrics);
+                    publisher.shutdown();
+                }
+            }
+        };
+    }
+    
+    /** Start publishing the metrics of a run to the sinks, returning null if there are none */
+    private ScheduledExecutorService startPublishing() {
+        if (metricsSinks.isEmpty()) {
+            return null;
+        }
+        ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "generator-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = metricsInterval.toMillis();
+        publisher.scheduleAtFixedRate(this::publishMetrics, interval, interval, TimeUnit.MILLISECONDS);
+        return publisher;
+    }
+    
+    private void publishMetrics() {
+        GeneratorMetrics metrics = getMetrics();
+        for (MetricsSink sink : metricsSinks) {
+            try {
+                sink.publish(metrics);
+            }
+            catch (RuntimeException e) {
+                // A broken sink would otherwise be reported every interval
+                if (metricsSinkFailures.computeIfAbsent(sink, s -> new AtomicLong()).incrementAndGet() == 1) {
+                    errorHandler.metricsSinkFailed(sink, e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Run a mix of reads, updates and inserts on this generator's worker threads. Like {@code generate}, this returns
+     * straight away, and {@link #monitor()} and {@link #isComplete()} follow the run. Each operation counts as a
+     * record in the monitor statistics.
+     */
+    public <T> Generator run(Workload<T> workload) {
+        ValueCreator<T> valueCreator = ValueCreatorCache.getInstance().get(workload.getWorkloadClass());
+        valueCreator.requiresConstructor();
+        
+        int threadsToUse = workload.getThreads() <= 0 ? Runtime.getRuntime().availableProcessors() : workload.getThreads();
+        this.success.set(0);
+        this.errors.set(0);
+        resetLatencies();
+        executor = Executors.newFixedThreadPool(threadsToUse);
+        startRecord = 1;
+        endRecord = workload.getOperationCount();
+        started.set(startRecord);
+        boolean recycle = recycleInstances;
+        long lastOperation = endRecord;
+        workload.start(threadsToUse);
+        ErrorPipeline errorPipeline = new ErrorPipeline(errorHandler, retryPolicy, maxErrors, errors);
+        Runnable threadFinished = startRun("workload", workload.getWorkloadClass().getName(), startRecord, endRecord,
+                threadsToUse, workload.getDeadlineNanos(), errorPipeline);
+        
+        for (int i = 0; i < threadsToUse; i++) {
+            executor.submit(() -> {
+                try {
+                    workload.runWorker(valueCreator, recycle, started, lastOperation, success, errorPipeline);
+                }
+                finally {
+                    threadFinished.run();
+                }
+            });
+        }
+        executor.shutdown();
+        return this;
+    }
+    
+    private synchronized void resetLatencies() {
+        workerLatencies.clear();
+        previousLatencies = newLatencies();
+    }
+    
+    /**
+     * Take the statistics of the current run. The interval latencies cover the records since the statistics were
+     * last taken.
+     */
+    public synchronized MonitorStats getMonitorStats() {
+        LatencyHistogram[] latencies = newLatencies();
+        for (LatencyHistogram[] worker : workerLatencies) {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i].add(worker[i]);
+            }
+        }
+        LatencyHistogram[] interval = new LatencyHistogram[latencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            interval[i] = latencies[i].since(previousLatencies[i]);
+        }
+        previousLatencies = latencies;
+        return new MonitorStats(startRecord, endRecord, started.get(), success.get(), errors.get(), latencies, interval);
+    }
+    
+    /** @deprecated Use {@link #getMonitorStats()} */
+    @Deprecated
     public MonitorStats getMontiorStats() {
-        return new MonitorStats(startRecord, endRecord, started.get(), success.get(), errors.get());
+        return getMonitorStats();
+    }
+    
+    /**
+     * Take a snapshot of the metrics of the current run, or of the last run once it has finished. This only reads
+     * counters, and records a sample for the rates at most once a second, so it is cheap enough to call on every
+     * scrape. Unlike {@link #getMonitorStats()}, it does not move the latency interval on.
+     */
+    public synchronized GeneratorMetrics getMetrics() {
+        long now = System.nanoTime();
+        long successCount = success.get();
+        long failureCount = errors.get();
+        long completed = successCount + failureCount;
+        Map<String, Long> counts = new TreeMap<>(classCounts);
+        if (runClassName == null) {
+            return new GeneratorMetrics(System.currentTimeMillis(), null, null, startRecord, endRecord, successCount,
+                    failureCount, 0, 0, 0, 0, 0, -1, true, false, Collections.unmodifiableMap(counts));
+        }
+        throughput.update(now, completed, failureCount);
+        double average = throughput.getAverageRecordsPerSecond();
+        long eta;
+        if (runFinished) {
+            eta = 0;
+        }
+        else {
+            eta = -1;
+            if (endRecord != Long.MAX_VALUE && average > 0) {
+                long remaining = Math.max(0, endRecord - startRecord + 1 - completed);
+                eta = (long)Math.ceil(remaining / average);
+            }
+            if (runDeadlineNanos != Long.MAX_VALUE) {
+                long timeLeft = (long)Math.ceil(Math.max(0, runDeadlineNanos - now) / 1e9);
+                eta = eta < 0 ? timeLeft : Math.min(eta, timeLeft);
+            }
+            counts.merge(runClassName, successCount, Long::sum);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis((runFinished ? runEndNanos : now) - runStartNanos);
+        return new GeneratorMetrics(System.currentTimeMillis(), runOperation, runClassName, startRecord, endRecord,
+                successCount, failureCount, activeThreads.get(), elapsed, throughput.getRecordsPerSecond(), average,
+                throughput.getErrorRate(), eta, runFinished, isAborted(), Collections.unmodifiableMap(counts));
     }
 
     public void monitor() throws InterruptedException {
@@ -160,12 +821,22 @@ public class Generator {
         long now = System.currentTimeMillis();
         while (!isComplete()) {
             Thread.sleep(1000);
-            MonitorStats stats = getMontiorStats();
+            MonitorStats stats = getMonitorStats();
             String extraInfoStr = extraInfo == null ? "" : extraInfo.addExtraInfo();
             System.out.printf("[%,dms] %,d successful, %,d failed, %,.1f%% done %s\n",
                     (System.currentTimeMillis() - now), stats.getSuccessCount(), stats.getFailureCount(), 
                     100.0*(stats.getSuccessCount() + stats.getFailureCount())/(1+stats.getEndRecord()-stats.getStartRecord()),
                     extraInfoStr);
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram interval = stats.getIntervalLatency(stage);
+                if (interval.getCount() > 0) {
+                    System.out.printf("    %-8s %s (total %s)\n", stage.name().toLowerCase(), interval.toPercentileString(),
+                            stats.getLatency(stage).toPercentileString());
+                }
+            }
+        }
+        if (isAborted()) {
+            System.out.printf("Aborted after %,d failures\n", errors.get());
         }
     }
 
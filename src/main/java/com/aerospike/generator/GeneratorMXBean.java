@@ -0,0 +1,26 @@
+package com.aerospike.generator;
+
+import java.util.Map;
+
+/**
+ * The JMX view of a {@link Generator}, registered with {@link Generator#registerMBean(String)}. Each attribute is
+ * read from a fresh {@link GeneratorMetrics} snapshot, which only reads counters, so it can be scraped every second.
+ */
+public interface GeneratorMXBean {
+    String getOperation();
+    String getClassName();
+    long getStartRecord();
+    long getEndRecord();
+    long getSuccessCount();
+    long getFailureCount();
+    /** The generation threads of the run which have not finished, see {@link GeneratorMetrics#getActiveThreadCount()} */
+    int getActiveThreadCount();
+    long getElapsedMillis();
+    double getRecordsPerSecond();
+    double getAverageRecordsPerSecond();
+    double getErrorRate();
+    long getEstimatedSecondsRemaining();
+    boolean isComplete();
+    boolean isAborted();
+    Map<String, Long> getCountsByClass();
+}
@@ -0,0 +1,126 @@
+package com.aerospike.generator;
+
+import java.util.Map;
+
+/**
+ * A snapshot of the statistics of a {@link Generator}, for dashboards and its JMX bean. The counts and rates are of
+ * the current run, or of the last run once it has finished, except for the per-class counts, which cover every run
+ * of the generator.
+ */
+public final class GeneratorMetrics {
+    /** The number of seconds over which {@link #getAverageRecordsPerSecond()} is taken */
+    public static final int AVERAGE_WINDOW_SECONDS = 60;
+
+    private final long timestamp;
+    private final String operation;
+    private final String className;
+    private final long startRecord;
+    private final long endRecord;
+    private final long successCount;
+    private final long failureCount;
+    private final int activeThreadCount;
+    private final long elapsedMillis;
+    private final double recordsPerSecond;
+    private final double averageRecordsPerSecond;
+    private final double errorRate;
+    private final long estimatedSecondsRemaining;
+    private final boolean complete;
+    private final boolean aborted;
+    private final Map<String, Long> countsByClass;
+
+    GeneratorMetrics(long timestamp, String operation, String className, long startRecord, long endRecord,
+            long successCount, long failureCount, int activeThreadCount, long elapsedMillis, double recordsPerSecond,
+            double averageRecordsPerSecond, double errorRate, long estimatedSecondsRemaining, boolean complete,
+            boolean aborted, Map<String, Long> countsByClass) {
+        this.timestamp = timestamp;
+        this.operation = operation;
+        this.className = className;
+        this.startRecord = startRecord;
+        this.endRecord = endRecord;
+        this.successCount = successCount;
+        this.failureCount = failureCount;
+        this.activeThreadCount = activeThreadCount;
+        this.elapsedMillis = elapsedMillis;
+        this.recordsPerSecond = recordsPerSecond;
+        this.averageRecordsPerSecond = averageRecordsPerSecond;
+        this.errorRate = errorRate;
+        this.estimatedSecondsRemaining = estimatedSecondsRemaining;
+        this.complete = complete;
+        this.aborted = aborted;
+        this.countsByClass = countsByClass;
+    }
+
+    /** The time the snapshot was taken, in milliseconds since the epoch */
+    public long getTimestamp() {
+        return timestamp;
+    }
+    /** {@code generate}, or {@code workload} for a mix of reads, updates and inserts, or null before the first run */
+    public String getOperation() {
+        return operation;
+    }
+    /** The name of the class being generated, or null before the first run */
+    public String getClassName() {
+        return className;
+    }
+    public long getStartRecord() {
+        return startRecord;
+    }
+    /** The last id of the run, or {@code Long.MAX_VALUE} for a workload only bounded by its duration */
+    public long getEndRecord() {
+        return endRecord;
+    }
+    public long getSuccessCount() {
+        return successCount;
+    }
+    public long getFailureCount() {
+        return failureCount;
+    }
+    /**
+     * The number of generation threads of the run which have not finished. This is not a count of records: a thread
+     * is active from its start until it has no ids left, including while it waits on a slow callback.
+     */
+    public int getActiveThreadCount() {
+        return activeThreadCount;
+    }
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    /** The records completed per second over about the last second */
+    public double getRecordsPerSecond() {
+        return recordsPerSecond;
+    }
+    /** The records completed per second over about the last {@value #AVERAGE_WINDOW_SECONDS} seconds */
+    public double getAverageRecordsPerSecond() {
+        return averageRecordsPerSecond;
+    }
+    /** The fraction of the records over the average window which failed, from 0 to 1 */
+    public double getErrorRate() {
+        return errorRate;
+    }
+    /**
+     * The estimated number of seconds until the run completes, at the average rate, or -1 if it cannot be estimated
+     * yet. For a workload bounded by a duration this is no more than the time left.
+     */
+    public long getEstimatedSecondsRemaining() {
+        return estimatedSecondsRemaining;
+    }
+    public boolean isComplete() {
+        return complete;
+    }
+    /** Whether the run was stopped by reaching the maximum number of errors */
+    public boolean isAborted() {
+        return aborted;
+    }
+    /** The number of records successfully generated for each class, over every run of the generator */
+    public Map<String, Long> getCountsByClass() {
+        return countsByClass;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s: %,d successful, %,d failed, %,d threads active, %,.1f/s (%,.1f/s average), "
+                + "%.2f%% errors, eta %ds%s", operation, className, successCount, failureCount, activeThreadCount,
+                recordsPerSecond, averageRecordsPerSecond, 100 * errorRate, estimatedSecondsRemaining,
+                complete ? ", complete" : "") + (aborted ? ", aborted" : "");
+    }
+}
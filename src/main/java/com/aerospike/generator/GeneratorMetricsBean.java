@@ -0,0 +1,90 @@
+package com.aerospike.generator;
+
+import java.util.Map;
+
+/**
+ * The MXBean registered for a generator. JMX clients read the attributes one at a time, so each takes its own
+ * snapshot rather than holding on to one which would go stale.
+ */
+final class GeneratorMetricsBean implements GeneratorMXBean {
+    private final Generator generator;
+
+    GeneratorMetricsBean(Generator generator) {
+        this.generator = generator;
+    }
+
+    @Override
+    public String getOperation() {
+        return generator.getMetrics().getOperation();
+    }
+
+    @Override
+    public String getClassName() {
+        return generator.getMetrics().getClassName();
+    }
+
+    @Override
+    public long getStartRecord() {
+        return generator.getMetrics().getStartRecord();
+    }
+
+    @Override
+    public long getEndRecord() {
+        return generator.getMetrics().getEndRecord();
+    }
+
+    @Override
+    public long getSuccessCount() {
+        return generator.getMetrics().getSuccessCount();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return generator.getMetrics().getFailureCount();
+    }
+
+    @Override
+    public int getActiveThreadCount() {
+        return generator.getMetrics().getActiveThreadCount();
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return generator.getMetrics().getElapsedMillis();
+    }
+
+    @Override
+    public double getRecordsPerSecond() {
+        return generator.getMetrics().getRecordsPerSecond();
+    }
+
+    @Override
+    public double getAverageRecordsPerSecond() {
+        return generator.getMetrics().getAverageRecordsPerSecond();
+    }
+
+    @Override
+    public double getErrorRate() {
+        return generator.getMetrics().getErrorRate();
+    }
+
+    @Override
+    public long getEstimatedSecondsRemaining() {
+        return generator.getMetrics().getEstimatedSecondsRemaining();
+    }
+
+    @Override
+    public boolean isComplete() {
+        return generator.getMetrics().isComplete();
+    }
+
+    @Override
+    public boolean isAborted() {
+        return generator.getMetrics().isAborted();
+    }
+
+    @Override
+    public Map<String, Long> getCountsByClass() {
+        return generator.getMetrics().getCountsByClass();
+    }
+}
@@ -0,0 +1,366 @@
+package com.aerospike.generator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.aerospike.generator.annotations.GenConstructor;
+
+/**
+ * Creates objects by passing the generated values of their fields to a constructor, a static factory method or a
+ * builder, rather than calling a no-argument constructor and setting the fields afterwards. This allows immutable
+ * classes and records to be generated. The constructor, factory or builder methods are resolved once into
+ * {@code MethodHandle}s.
+ * <p/>
+ * Records are detected reflectively so this works when the library is run on a JVM which supports them, and are
+ * created through their canonical constructor unless another constructor is marked with {@link GenConstructor}.
+ */
+final class Instantiator<T> {
+    private static final MethodType BUILDER_SETTER = MethodType.methodType(Object.class, Object.class, Object.class);
+    private static final Method IS_RECORD;
+    private static final Method GET_RECORD_COMPONENTS;
+    static {
+        Method isRecord = null;
+        Method getRecordComponents = null;
+        try {
+            isRecord = Class.class.getMethod("isRecord");
+            getRecordComponents = Class.class.getMethod("getRecordComponents");
+        }
+        catch (NoSuchMethodException e) {
+            // Records are not supported by this JVM
+        }
+        IS_RECORD = isRecord;
+        GET_RECORD_COMPONENTS = getRecordComponents;
+    }
+
+    private final Class<T> clazz;
+    private final String description;
+    private final String[] names;
+    private final Class<?>[] types;
+    private final Object[] defaults;
+    // (Object[])Object for constructors and factories, null for builders
+    private final MethodHandle creator;
+    // ()Object, (Object, Object)Object for each argument and (Object)Object
+    private final MethodHandle builderFactory;
+    private final MethodHandle[] builderSetters;
+    private final MethodHandle build;
+
+    private Instantiator(Class<T> clazz, String description, String[] names, Class<?>[] types, MethodHandle creator,
+            MethodHandle builderFactory, MethodHandle[] builderSetters, MethodHandle build) {
+        this.clazz = clazz;
+        this.description = description;
+        this.names = names;
+        this.types = types;
+        this.defaults = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isPrimitive()) {
+                defaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+            }
+        }
+        this.creator = creator;
+        this.builderFactory = builderFactory;
+        this.builderSetters = builderSetters;
+        this.build = build;
+    }
+
+    /**
+     * Find how to create objects of the class from their field values. Returns null if the class has no
+     * {@code GenConstructor} and is not a record, so is created through its no-argument constructor.
+     * @param generators the generators of the fields of the class, used to find the methods of a builder
+     * @throws IllegalArgumentException if the {@code GenConstructor} cannot be used
+     */
+    static <T> Instantiator<T> find(Class<T> clazz, FieldGenerator[] generators) {
+        List<Executable> annotated = new ArrayList<>();
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            if (constructor.getAnnotation(GenConstructor.class) != null) {
+                annotated.add(constructor);
+            }
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.getAnnotation(GenConstructor.class) != null) {
+                annotated.add(method);
+            }
+        }
+        if (annotated.size() > 1) {
+            throw new IllegalArgumentException(String.format("Class %s has %d members marked with GenConstructor, only one is allowed",
+                    clazz.getName(), annotated.size()));
+        }
+        if (annotated.size() == 1) {
+            Executable executable = annotated.get(0);
+            String[] names = executable.getAnnotation(GenConstructor.class).value();
+            if (executable instanceof Method) {
+                Method method = (Method) executable;
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    throw new IllegalArgumentException(String.format("Method %s of class %s is marked with GenConstructor so must be static",
+                            method.getName(), clazz.getName()));
+                }
+                if (!clazz.isAssignableFrom(method.getReturnType())) {
+                    return forBuilder(clazz, method, names, generators);
+                }
+            }
+            return forExecutable(clazz, executable, names.length > 0 ? names : parameterNames(clazz, executable));
+        }
+        if (isRecord(clazz)) {
+            return forRecord(clazz);
+        }
+        return null;
+    }
+
+    private static boolean isRecord(Class<?> clazz) {
+        try {
+            return IS_RECORD != null && (Boolean) IS_RECORD.invoke(clazz);
+        }
+        catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private static <T> Instantiator<T> forRecord(Class<T> clazz) {
+        try {
+            Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(clazz);
+            String[] names = new String[components.length];
+            Class<?>[] types = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                names[i] = (String) components[i].getClass().getMethod("getName").invoke(components[i]);
+                types[i] = (Class<?>) components[i].getClass().getMethod("getType").invoke(components[i]);
+            }
+            return forExecutable(clazz, clazz.getDeclaredConstructor(types), names);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(String.format("The canonical constructor of record %s could not be found: %s",
+                    clazz.getName(), e.getMessage()), e);
+        }
+    }
+
+    private static String[] parameterNames(Class<?> clazz, Executable executable) {
+        Parameter[] parameters = executable.getParameters();
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            if (!parameters[i].isNamePresent()) {
+                throw new IllegalArgumentException(String.format("The parameter names of %s are not available. Either list the fields "
+                        + "in the GenConstructor annotation or compile class %s with -parameters", executable, clazz.getName()));
+            }
+            names[i] = parameters[i].getName();
+        }
+        return names;
+    }
+
+    private static <T> Instantiator<T> forExecutable(Class<T> clazz, Executable executable, String[] names) {
+        Class<?>[] types = executable.getParameterTypes();
+        if (names.length != types.length) {
+            throw new IllegalArgumentException(String.format("GenConstructor on %s lists %d fields but there are %d parameters",
+                    executable, names.length, types.length));
+        }
+        for (int i = 0; i < names.length; i++) {
+            checkField(clazz, names[i], types[i], executable);
+        }
+        MethodHandle handle;
+        try {
+            executable.setAccessible(true);
+            if (executable instanceof Constructor) {
+                handle = MethodHandles.lookup().unreflectConstructor((Constructor<?>) executable);
+            }
+            else {
+                handle = MethodHandles.lookup().unreflect((Method) executable);
+            }
+        }
+        catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException(String.format("%s of class %s cannot be called: %s",
+                    executable, clazz.getName(), e.getMessage()), e);
+        }
+        MethodHandle creator = handle.asType(MethodType.genericMethodType(types.length)).asSpreader(Object[].class, types.length);
+        return new Instantiator<>(clazz, executable.toString(), names, types, creator, null, null, null);
+    }
+
+    private static <T> Instantiator<T> forBuilder(Class<T> clazz, Method factory, String[] names, FieldGenerator[] generators) {
+        Class<?> builderType = factory.getReturnType();
+        if (factory.getParameterCount() > 0) {
+            throw new IllegalArgumentException(String.format("Builder method %s of class %s must not take any parameters",
+                    factory.getName(), clazz.getName()));
+        }
+        Method buildMethod = findMethod(builderType, "build");
+        if (buildMethod == null || buildMethod.getParameterCount() > 0 || !clazz.isAssignableFrom(buildMethod.getReturnType())) {
+            throw new IllegalArgumentException(String.format("Method %s of class %s is marked with GenConstructor, but neither returns %s "
+                    + "nor returns a builder with a build() method returning %s", factory.getName(), clazz.getName(),
+                    clazz.getSimpleName(), clazz.getSimpleName()));
+        }
+        List<String> fieldNames = new ArrayList<>();
+        List<Method> setters = new ArrayList<>();
+        if (names.length > 0) {
+            for (String name : names) {
+                Field field = checkField(clazz, name, null, factory);
+                Method setter = findBuilderSetter(builderType, field);
+                if (setter == null) {
+                    throw new IllegalArgumentException(String.format("Builder %s has no method %s, set%s or with%s taking a %s",
+                            builderType.getName(), name, capitalize(name), capitalize(name), field.getType().getSimpleName()));
+                }
+                fieldNames.add(name);
+                setters.add(setter);
+            }
+        }
+        else {
+            for (FieldGenerator generator : generators) {
+                Method setter = findBuilderSetter(builderType, generator.getField());
+                if (setter != null && !fieldNames.contains(generator.getField().getName())) {
+                    fieldNames.add(generator.getField().getName());
+                    setters.add(setter);
+                }
+            }
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            factory.setAccessible(true);
+            buildMethod.setAccessible(true);
+            MethodHandle builderFactory = lookup.unreflect(factory).asType(MethodType.methodType(Object.class));
+            MethodHandle build = lookup.unreflect(buildMethod).asType(MethodType.methodType(Object.class, Object.class));
+            MethodHandle[] builderSetters = new MethodHandle[setters.size()];
+            Class<?>[] types = new Class<?>[setters.size()];
+            for (int i = 0; i < builderSetters.length; i++) {
+                Method setter = setters.get(i);
+                setter.setAccessible(true);
+                types[i] = setter.getParameterTypes()[0];
+                MethodHandle handle = lookup.unreflect(setter);
+                if (builderType.isAssignableFrom(setter.getReturnType())) {
+                    builderSetters[i] = handle.asType(BUILDER_SETTER);
+                }
+                else {
+                    // Keep using the builder the method was called on
+                    MethodHandle keepBuilder = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 1, Object.class);
+                    builderSetters[i] = MethodHandles.foldArguments(keepBuilder,
+                            handle.asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                }
+            }
+            return new Instantiator<>(clazz, "builder " + builderType.getName(), fieldNames.toArray(new String[0]), types,
+                    null, builderFactory, builderSetters, build);
+        }
+        catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException(String.format("The builder of class %s cannot be called: %s",
+                    clazz.getName(), e.getMessage()), e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?> ...parameterTypes) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredMethod(name, parameterTypes);
+            }
+            catch (NoSuchMethodException ignored) {
+            }
+        }
+        return null;
+    }
+
+    private static Method findBuilderSetter(Class<?> builderType, Field field) {
+        String name = field.getName();
+        for (String methodName : new String[] {name, "set" + capitalize(name), "with" + capitalize(name)}) {
+            for (Class<?> current = builderType; current != null; current = current.getSuperclass()) {
+                for (Method method : current.getDeclaredMethods()) {
+                    if (method.getName().equals(methodName) && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())
+                            && accepts(method.getParameterTypes()[0], field.getType())) {
+                        return method;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static boolean accepts(Class<?> parameterType, Class<?> fieldType) {
+        return wrap(parameterType).isAssignableFrom(wrap(fieldType));
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    /**
+     * Check the named field exists on the class or a superclass, and if a parameter type is given that the
+     * parameter can be passed the value of the field.
+     */
+    private static Field checkField(Class<?> clazz, String name, Class<?> parameterType, Executable executable) {
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    if (parameterType != null && !accepts(parameterType, field.getType())) {
+                        throw new IllegalArgumentException(String.format("Parameter %s of %s is a %s, so cannot be passed field %s which is a %s",
+                                name, executable, parameterType.getSimpleName(), name, field.getType().getSimpleName()));
+                    }
+                    return field;
+                }
+            }
+        }
+        throw new IllegalArgumentException(String.format("Parameter %s of %s does not match a field of class %s",
+                name, executable, clazz.getName()));
+    }
+
+    /**
+     * The name of the field passed to each argument.
+     */
+    String[] getNames() {
+        return names;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns an array of arguments with every argument set to its default value.
+     */
+    Object[] newArguments() {
+        return defaults.clone();
+    }
+
+    /**
+     * Set an argument. A null value for a primitive argument leaves its default value.
+     */
+    void setArgument(Object[] arguments, int index, Object value) {
+        if (value != null || !types[index].isPrimitive()) {
+            arguments[index] = value;
+        }
+    }
+
+    T create(Object[] arguments) {
+        try {
+            Object result;
+            if (creator != null) {
+                result = (Object) creator.invokeExact(arguments);
+            }
+            else {
+                Object builder = (Object) builderFactory.invokeExact();
+                for (int i = 0; i < builderSetters.length; i++) {
+                    builder = (Object) builderSetters[i].invokeExact(builder, arguments[i]);
+                }
+                result = (Object) build.invokeExact(builder);
+            }
+            return clazz.cast(result);
+        }
+        catch (ClassCastException e) {
+            throw new IllegalArgumentException(String.format("The values generated for class %s do not match the parameters of %s %s: %s",
+                    clazz.getName(), description, Arrays.stream(types).map(Class::getSimpleName).collect(Collectors.joining(", ", "(", ")")),
+                    e.getMessage()), e);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalArgumentException(String.format("Could not create class %s using %s: %s", clazz.getName(), description, t), t);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.aerospike.generator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.aerospike.client.Value;
+import com.aerospike.client.command.ParticleType;
+
+/**
+ * Computes the digest of Aerospike keys in one set, and the partition each key belongs to. The digest is the
+ * RIPEMD-160 hash of the set name, the particle type of the user key and the user key, as the client computes it
+ * for a {@code Key}. Unlike the client, the digest is written into an array passed by the caller and the hash state
+ * and input buffer are reused, so computing a digest allocates nothing once the buffer is large enough for the keys.
+ * <p/>
+ * A {@code KeyDigest} is not thread safe. Each thread should use its own.
+ */
+public final class KeyDigest {
+    /** The length of a digest in bytes */
+    public static final int DIGEST_SIZE = 20;
+    /** The number of partitions in an Aerospike namespace */
+    public static final int PARTITIONS = 4096;
+
+    private static final int[] RL = {
+            0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15,
+            7, 4, 13, 1, 10, 6, 15, 3, 12, 0, 9, 5, 2, 14, 11, 8,
+            3, 10, 14, 4, 9, 15, 8, 1, 2, 7, 0, 6, 13, 11, 5, 12,
+            1, 9, 11, 10, 0, 8, 12, 4, 13, 3, 7, 15, 14, 5, 6, 2,
+            4, 0, 5, 9, 7, 12, 2, 10, 14, 1, 3, 8, 11, 6, 15, 13 };
+    private static final int[] RR = {
+            5, 14, 7, 0, 9, 2, 11, 4, 13, 6, 15, 8, 1, 10, 3, 12,
+            6, 11, 3, 7, 0, 13, 5, 10, 14, 15, 8, 12, 4, 9, 1, 2,
+            15, 5, 1, 3, 7, 14, 6, 9, 11, 8, 12, 2, 10, 0, 4, 13,
+            8, 6, 4, 1, 3, 11, 15, 0, 5, 12, 2, 13, 9, 7, 10, 14,
+            12, 15, 10, 4, 1, 5, 8, 7, 6, 2, 13, 14, 0, 3, 9, 11 };
+    private static final int[] SL = {
+            11, 14, 15, 12, 5, 8, 7, 9, 11, 13, 14, 15, 6, 7, 9, 8,
+            7, 6, 8, 13, 11, 9, 7, 15, 7, 12, 15, 9, 11, 7, 13, 12,
+            11, 13, 6, 7, 14, 9, 13, 15, 14, 8, 13, 6, 5, 12, 7, 5,
+            11, 12, 14, 15, 14, 15, 9, 8, 9, 14, 5, 6, 8, 6, 5, 12,
+            9, 15, 5, 11, 6, 8, 13, 12, 5, 12, 13, 14, 11, 8, 5, 6 };
+    private static final int[] SR = {
+            8, 9, 9, 11, 13, 15, 15, 5, 7, 7, 8, 11, 14, 14, 12, 6,
+            9, 13, 15, 7, 12, 8, 9, 11, 7, 7, 12, 7, 6, 15, 13, 11,
+            9, 7, 15, 11, 8, 6, 6, 14, 12, 13, 5, 14, 13, 13, 7, 5,
+            15, 5, 8, 11, 14, 14, 6, 14, 6, 9, 12, 9, 12, 5, 15, 8,
+            8, 5, 12, 9, 12, 5, 14, 6, 8, 13, 6, 5, 15, 13, 11, 11 };
+    private static final int[] KL = { 0x00000000, 0x5A827999, 0x6ED9EBA1, 0x8F1BBCDC, 0xA953FD4E };
+    private static final int[] KR = { 0x50A28BE6, 0x5C4DD124, 0x6D703EF3, 0x7A6D76E9, 0x00000000 };
+
+    private final String setName;
+    private final int prefixLength;
+    /** The set name followed by the particle type and the user key being hashed */
+    private byte[] input;
+    private final int[] words = new int[16];
+    private final byte[] lastBlocks = new byte[128];
+    private int h0, h1, h2, h3, h4;
+
+    public KeyDigest(String setName) {
+        this.setName = setName == null ? "" : setName;
+        byte[] setBytes = this.setName.getBytes(StandardCharsets.UTF_8);
+        this.prefixLength = setBytes.length;
+        this.input = Arrays.copyOf(setBytes, prefixLength + 64);
+    }
+
+    public String getSetName() {
+        return setName;
+    }
+
+    /**
+     * Compute the digest of an integer user key into {@code digest} at {@code offset}.
+     * @return the partition of the key
+     */
+    public int digest(long userKey, byte[] digest, int offset) {
+        int length = startKey(ParticleType.INTEGER, 8);
+        for (int i = 7; i >= 0; i--) {
+            input[length + i] = (byte) userKey;
+            userKey >>>= 8;
+        }
+        return hash(length + 8, digest, offset);
+    }
+
+    /**
+     * Compute the digest of a string user key into {@code digest} at {@code offset}.
+     * @return the partition of the key
+     */
+    public int digest(String userKey, byte[] digest, int offset) {
+        int start = startKey(ParticleType.STRING, userKey.length() * 3);
+        int end = start;
+        for (int i = 0; i < userKey.length(); i++) {
+            char c = userKey.charAt(i);
+            if (c < 0x80) {
+                input[end++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                input[end++] = (byte) (0xc0 | (c >> 6));
+                input[end++] = (byte) (0x80 | (c & 0x3f));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < userKey.length() && Character.isLowSurrogate(userKey.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, userKey.charAt(++i));
+                input[end++] = (byte) (0xf0 | (codePoint >> 18));
+                input[end++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                input[end++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                input[end++] = (byte) (0x80 | (codePoint & 0x3f));
+            }
+            else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate is encoded as '?', as String.getBytes does
+                input[end++] = '?';
+            }
+            else {
+                input[end++] = (byte) (0xe0 | (c >> 12));
+                input[end++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                input[end++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return hash(end, digest, offset);
+    }
+
+    /**
+     * Compute the digest of a blob user key into {@code digest} at {@code offset}.
+     * @return the partition of the key
+     */
+    public int digest(byte[] userKey, byte[] digest, int offset) {
+        int start = startKey(ParticleType.BLOB, userKey.length);
+        System.arraycopy(userKey, 0, input, start, userKey.length);
+        return hash(start + userKey.length, digest, offset);
+    }
+
+    /**
+     * Compute the digest of a user key of any type Aerospike accepts as a key into {@code digest} at {@code offset}.
+     * @return the partition of the key
+     */
+    public int digest(Value userKey, byte[] digest, int offset) {
+        Object key = userKey.getObject();
+        switch (userKey.getType()) {
+        case ParticleType.INTEGER:
+            return digest(((Number) key).longValue(), digest, offset);
+        case ParticleType.STRING:
+            return digest((String) key, digest, offset);
+        default:
+            int start = startKey(userKey.getType(), userKey.estimateSize());
+            return hash(start + userKey.write(input, start), digest, offset);
+        }
+    }
+
+    /**
+     * Returns the partition of an integer user key, without keeping its digest.
+     */
+    public int partitionId(long userKey) {
+        int length = startKey(ParticleType.INTEGER, 8);
+        for (int i = 7; i >= 0; i--) {
+            input[length + i] = (byte) userKey;
+            userKey >>>= 8;
+        }
+        return hash(length + 8, null, 0);
+    }
+
+    /**
+     * Returns the partition of a digest, as {@code Partition.getPartitionId} does.
+     */
+    public static int partitionId(byte[] digest, int offset) {
+        return ((digest[offset] & 0xFF) | ((digest[offset + 1] & 0xFF) << 8)) & (PARTITIONS - 1);
+    }
+
+    /**
+     * Write the particle type after the set name, making sure there is room for a key of up to {@code maxLength}
+     * bytes. Returns the position of the key.
+     */
+    private int startKey(int particleType, int maxLength) {
+        int needed = prefixLength + 1 + maxLength;
+        if (needed > input.length) {
+            input = Arrays.copyOf(input, Math.max(needed, input.length * 2));
+        }
+        input[prefixLength] = (byte) particleType;
+        return prefixLength + 1;
+    }
+
+    private int hash(int length, byte[] digest, int offset) {
+        h0 = 0x67452301;
+        h1 = 0xEFCDAB89;
+        h2 = 0x98BADCFE;
+        h3 = 0x10325476;
+        h4 = 0xC3D2E1F0;
+        int fullBlocks = length & ~63;
+        for (int position = 0; position < fullBlocks; position += 64) {
+            compress(input, position);
+        }
+        // Pad the rest with 0x80, zeros and the length in bits, which takes one or two more blocks
+        int remaining = length - fullBlocks;
+        System.arraycopy(input, fullBlocks, lastBlocks, 0, remaining);
+        lastBlocks[remaining] = (byte) 0x80;
+        int end = remaining < 56 ? 64 : 128;
+        Arrays.fill(lastBlocks, remaining + 1, end - 8, (byte) 0);
+        long bits = (long) length << 3;
+        for (int i = end - 8; i < end; i++) {
+            lastBlocks[i] = (byte) bits;
+            bits >>>= 8;
+        }
+        compress(lastBlocks, 0);
+        if (end == 128) {
+            compress(lastBlocks, 64);
+        }
+        if (digest != null) {
+            writeInt(digest, offset, h0);
+            writeInt(digest, offset + 4, h1);
+            writeInt(digest, offset + 8, h2);
+            writeInt(digest, offset + 12, h3);
+            writeInt(digest, offset + 16, h4);
+        }
+        // The partition is taken from the first two bytes of the digest, which are the low bytes of h0
+        return h0 & (PARTITIONS - 1);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >>> 8);
+        buffer[offset + 2] = (byte) (value >>> 16);
+        buffer[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private void compress(byte[] block, int offset) {
+        int[] x = words;
+        for (int i = 0; i < 16; i++, offset += 4) {
+            x[i] = (block[offset] & 0xFF) | ((block[offset + 1] & 0xFF) << 8)
+                    | ((block[offset + 2] & 0xFF) << 16) | ((block[offset + 3] & 0xFF) << 24);
+        }
+        int al = h0, bl = h1, cl = h2, dl = h3, el = h4;
+        int ar = h0, br = h1, cr = h2, dr = h3, er = h4;
+        for (int j = 0; j < 80; j++) {
+            int round = j >> 4;
+            int t = Integer.rotateLeft(al + f(round, bl, cl, dl) + x[RL[j]] + KL[round], SL[j]) + el;
+            al = el;
+            el = dl;
+            dl = Integer.rotateLeft(cl, 10);
+            cl = bl;
+            bl = t;
+            t = Integer.rotateLeft(ar + f(4 - round, br, cr, dr) + x[RR[j]] + KR[round], SR[j]) + er;
+            ar = er;
+            er = dr;
+            dr = Integer.rotateLeft(cr, 10);
+            cr = br;
+            br = t;
+        }
+        int t = h1 + cl + dr;
+        h1 = h2 + dl + er;
+        h2 = h3 + el + ar;
+        h3 = h4 + al + br;
+        h4 = h0 + bl + cr;
+        h0 = t;
+    }
+
+    private static int f(int round, int x, int y, int z) {
+        switch (round) {
+        case 0:
+            return x ^ y ^ z;
+        case 1:
+            return (x & y) | (~x & z);
+        case 2:
+            return (x | ~y) ^ z;
+        case 3:
+            return (x & z) | (y & ~z);
+        default:
+            return x ^ (y | ~z);
+        }
+    }
+}
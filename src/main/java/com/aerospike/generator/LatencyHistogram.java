@@ -0,0 +1,170 @@
+package com.aerospike.generator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with a fixed relative precision, in the style of HdrHistogram. Values
+ * below 128 are counted exactly. Above that each power of two is split into 64 buckets, so a value is reported within
+ * 1.6% of what was recorded, from nanoseconds up to the largest {@code long}, in a fixed 30KB of counts.
+ * <p/>
+ * A histogram is written by a single thread, which records without locking or compare-and-set. Any thread may read it
+ * or take a {@link #copy()} while it is being written. The copy may miss values being recorded at that moment, but
+ * its counts are never torn. Histograms of several threads are combined with {@link #add(LatencyHistogram)}.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = EXACT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final int COUNT = 0;
+    private static final int SUM = 1;
+    private static final int MIN = 2;
+    private static final int MAX = 3;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray totals = new AtomicLongArray(4);
+
+    public LatencyHistogram() {
+        totals.setPlain(MIN, Long.MAX_VALUE);
+    }
+
+    static int bucketOf(long value) {
+        if (value < EXACT) {
+            return (int) Math.max(value, 0);
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * The largest value counted in a bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < EXACT) {
+            return bucket;
+        }
+        int shift = (bucket - EXACT) / SUB_BUCKETS + 1;
+        long top = SUB_BUCKETS + (bucket - EXACT) % SUB_BUCKETS;
+        long highest = ((top + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+
+    /**
+     * Record a latency. Must only be called by the thread which owns the histogram.
+     */
+    public void record(long nanos) {
+        int bucket = bucketOf(nanos);
+        counts.setRelease(bucket, counts.getPlain(bucket) + 1);
+        totals.setRelease(SUM, totals.getPlain(SUM) + nanos);
+        if (nanos < totals.getPlain(MIN)) {
+            totals.setRelease(MIN, nanos);
+        }
+        if (nanos > totals.getPlain(MAX)) {
+            totals.setRelease(MAX, nanos);
+        }
+        // The count is written last, so a reader which sees it also sees the value in its bucket
+        totals.setRelease(COUNT, totals.getPlain(COUNT) + 1);
+    }
+
+    /**
+     * Add the counts of another histogram to this one. Must only be called by the thread which owns this histogram,
+     * and is typically used on a copy.
+     */
+    public LatencyHistogram add(LatencyHistogram other) {
+        long count = other.totals.getAcquire(COUNT);
+        if (count == 0) {
+            return this;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketCount = other.counts.getAcquire(i);
+            if (bucketCount != 0) {
+                counts.setRelease(i, counts.getPlain(i) + bucketCount);
+            }
+        }
+        totals.setRelease(SUM, totals.getPlain(SUM) + other.totals.getAcquire(SUM));
+        totals.setRelease(MIN, Math.min(totals.getPlain(MIN), other.totals.getAcquire(MIN)));
+        totals.setRelease(MAX, Math.max(totals.getPlain(MAX), other.totals.getAcquire(MAX)));
+        totals.setRelease(COUNT, totals.getPlain(COUNT) + count);
+        return this;
+    }
+
+    /**
+     * The values recorded since {@code earlier}, which must be an earlier copy of this histogram. The minimum and
+     * maximum come from the buckets, so they are within the histogram's precision.
+     */
+    public LatencyHistogram since(LatencyHistogram earlier) {
+        LatencyHistogram result = new LatencyHistogram();
+        int lowest = -1;
+        int highest = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts.getAcquire(i) - earlier.counts.getAcquire(i);
+            if (count > 0) {
+                result.counts.setPlain(i, count);
+                lowest = lowest < 0 ? i : lowest;
+                highest = i;
+            }
+        }
+        if (lowest >= 0) {
+            result.totals.setPlain(SUM, totals.getAcquire(SUM) - earlier.totals.getAcquire(SUM));
+            result.totals.setPlain(MIN, Math.max(lowest == 0 ? 0 : highestValueOf(lowest - 1) + 1, getMinNanos()));
+            result.totals.setPlain(MAX, Math.min(highestValueOf(highest), getMaxNanos()));
+            result.totals.setRelease(COUNT, getCount() - earlier.getCount());
+        }
+        return result;
+    }
+
+    public LatencyHistogram copy() {
+        return new LatencyHistogram().add(this);
+    }
+
+    public long getCount() {
+        return totals.getAcquire(COUNT);
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totals.getAcquire(SUM) / count;
+    }
+
+    public long getMinNanos() {
+        return getCount() == 0 ? 0 : totals.getAcquire(MIN);
+    }
+
+    public long getMaxNanos() {
+        return totals.getAcquire(MAX);
+    }
+
+    /**
+     * The latency which {@code percentile} percent of the recorded values are at or below, such as 99.9. Returns 0
+     * if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.getAcquire(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * The 50th, 99th and 99.9th percentiles and the maximum, in microseconds.
+     */
+    public String toPercentileString() {
+        return String.format("p50 %,.1fus, p99 %,.1fus, p99.9 %,.1fus, max %,.1fus", getValueAtPercentile(50) / 1000.0,
+                getValueAtPercentile(99) / 1000.0, getValueAtPercentile(99.9) / 1000.0, getMaxNanos() / 1000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %,d, mean %,.1fus, %s", getCount(), getMeanNanos() / 1000.0, toPercentileString());
+    }
+}
@@ -0,0 +1,381 @@
+package com.aerospike.generator;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import com.aerospike.client.command.ParticleType;
+
+/**
+ * Writes generated values into a reusable {@code ByteBuffer}, either as MessagePack or as the raw particles Aerospike
+ * stores in each bin. The buffer grows as needed and is kept between records, so once it has reached the size of the
+ * largest record, writing a record allocates nothing. Strings are encoded to UTF-8 straight into the buffer.
+ * <p/>
+ * By default the MessagePack is in the form Aerospike uses for lists and maps: every string and byte array starts
+ * with a byte giving its particle type. Pass {@code false} for {@code aerospikeFormat} for plain MessagePack.
+ * <p/>
+ * Values are converted the way they are stored in Aerospike: integral numbers are written as longs, floats as
+ * doubles, {@code Date}s and {@code Instant}s as milliseconds since the epoch, arrays and collections as lists.
+ * Other objects, such as {@code UUID}s, enums and dates without a time zone are written as their string form.
+ * <p/>
+ * A writer is not thread safe, each thread should have its own.
+ */
+public class MessagePackWriter {
+    private final boolean aerospikeFormat;
+    private ByteBuffer buffer;
+
+    public MessagePackWriter() {
+        this(1024, true);
+    }
+
+    public MessagePackWriter(int initialCapacity, boolean aerospikeFormat) {
+        this(ByteBuffer.allocate(initialCapacity), aerospikeFormat);
+    }
+
+    /**
+     * Write into the passed buffer, starting at its position. If it fills up it is replaced with a larger buffer of
+     * the same kind, so always use {@link #getBuffer()} to get the result.
+     */
+    public MessagePackWriter(ByteBuffer buffer, boolean aerospikeFormat) {
+        this.buffer = buffer;
+        this.aerospikeFormat = aerospikeFormat;
+    }
+
+    public boolean isAerospikeFormat() {
+        return aerospikeFormat;
+    }
+
+    /**
+     * The buffer being written to. Its position is the end of the data written.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Discard what has been written, keeping the buffer for the next record.
+     */
+    public MessagePackWriter reset() {
+        buffer.clear();
+        return this;
+    }
+
+    /**
+     * A copy of the bytes written.
+     */
+    public byte[] toByteArray() {
+        byte[] result = new byte[buffer.position()];
+        buffer.duplicate().flip().get(result);
+        return result;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            ByteBuffer larger = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    public void packNil() {
+        ensureCapacity(1);
+        buffer.put((byte) 0xc0);
+    }
+
+    public void packBoolean(boolean value) {
+        ensureCapacity(1);
+        buffer.put((byte) (value ? 0xc3 : 0xc2));
+    }
+
+    public void packLong(long value) {
+        ensureCapacity(9);
+        if (value >= -32 && value < 128) {
+            // Positive or negative fixint
+            buffer.put((byte) value);
+        }
+        else if (value == (byte) value) {
+            buffer.put((byte) 0xd0).put((byte) value);
+        }
+        else if (value == (short) value) {
+            buffer.put((byte) 0xd1).putShort((short) value);
+        }
+        else if (value == (int) value) {
+            buffer.put((byte) 0xd2).putInt((int) value);
+        }
+        else {
+            buffer.put((byte) 0xd3).putLong(value);
+        }
+    }
+
+    public void packDouble(double value) {
+        ensureCapacity(9);
+        buffer.put((byte) 0xcb).putDouble(value);
+    }
+
+    public void packString(CharSequence value) {
+        int length = utf8Length(value);
+        int size = aerospikeFormat ? length + 1 : length;
+        ensureCapacity(size + 5);
+        if (size < 32) {
+            buffer.put((byte) (0xa0 | size));
+        }
+        else {
+            packHeader(size, 0xd9, 0xda, 0xdb);
+        }
+        if (aerospikeFormat) {
+            buffer.put((byte) ParticleType.STRING);
+        }
+        encodeUtf8(value);
+    }
+
+    public void packBytes(byte[] value) {
+        int size = aerospikeFormat ? value.length + 1 : value.length;
+        ensureCapacity(size + 5);
+        packHeader(size, 0xc4, 0xc5, 0xc6);
+        if (aerospikeFormat) {
+            buffer.put((byte) ParticleType.BLOB);
+        }
+        buffer.put(value);
+    }
+
+    public void packArrayHeader(int size) {
+        ensureCapacity(5);
+        if (size < 16) {
+            buffer.put((byte) (0x90 | size));
+        }
+        else {
+            packHeader(size, -1, 0xdc, 0xdd);
+        }
+    }
+
+    public void packMapHeader(int size) {
+        ensureCapacity(5);
+        if (size < 16) {
+            buffer.put((byte) (0x80 | size));
+        }
+        else {
+            packHeader(size, -1, 0xde, 0xdf);
+        }
+    }
+
+    private void packHeader(int size, int code8, int code16, int code32) {
+        if (size < 256 && code8 >= 0) {
+            buffer.put((byte) code8).put((byte) size);
+        }
+        else if (size < 65536) {
+            buffer.put((byte) code16).putShort((short) size);
+        }
+        else {
+            buffer.put((byte) code32).putInt(size);
+        }
+    }
+
+    /**
+     * Pack a value of any of the types generators produce, including nested lists, sets, maps and arrays.
+     */
+    public void packValue(Object value) {
+        if (value == null) {
+            packNil();
+        }
+        else if (value instanceof CharSequence) {
+            packString((CharSequence) value);
+        }
+        else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            packLong(((Number) value).longValue());
+        }
+        else if (value instanceof Double || value instanceof Float) {
+            packDouble(((Number) value).doubleValue());
+        }
+        else if (value instanceof Boolean) {
+            packBoolean((Boolean) value);
+        }
+        else if (value instanceof byte[]) {
+            packBytes((byte[]) value);
+        }
+        else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            packArrayHeader(collection.size());
+            for (Object element : collection) {
+                packValue(element);
+            }
+        }
+        else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            packMapHeader(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                packValue(entry.getKey());
+                packValue(entry.getValue());
+            }
+        }
+        else if (value.getClass().isArray()) {
+            packArray(value);
+        }
+        else if (value instanceof Date) {
+            packLong(((Date) value).getTime());
+        }
+        else if (value instanceof Instant) {
+            packLong(((Instant) value).toEpochMilli());
+        }
+        else if (value instanceof Character) {
+            packString(value.toString());
+        }
+        else if (value instanceof Enum) {
+            packString(((Enum<?>) value).name());
+        }
+        else {
+            packString(value.toString());
+        }
+    }
+
+    private void packArray(Object array) {
+        if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            packArrayHeader(values.length);
+            for (long value : values) {
+                packLong(value);
+            }
+        }
+        else if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            packArrayHeader(values.length);
+            for (int value : values) {
+                packLong(value);
+            }
+        }
+        else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            packArrayHeader(values.length);
+            for (double value : values) {
+                packDouble(value);
+            }
+        }
+        else {
+            int length = Array.getLength(array);
+            packArrayHeader(length);
+            for (int i = 0; i < length; i++) {
+                packValue(Array.get(array, i));
+            }
+        }
+    }
+
+    /**
+     * Write a value as the particle Aerospike stores in a bin: a long or double as 8 bytes, a string as its UTF-8
+     * bytes, a byte array as itself and lists and maps as MessagePack. Nothing is written for null.
+     * @return the {@code ParticleType} of the value
+     */
+    public int packParticle(Object value) {
+        if (value == null) {
+            return ParticleType.NULL;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return packParticle(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            ensureCapacity(8);
+            buffer.putDouble(((Number) value).doubleValue());
+            return ParticleType.DOUBLE;
+        }
+        if (value instanceof Boolean) {
+            ensureCapacity(1);
+            buffer.put((byte) ((Boolean) value ? 1 : 0));
+            return ParticleType.BOOL;
+        }
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            ensureCapacity(bytes.length);
+            buffer.put(bytes);
+            return ParticleType.BLOB;
+        }
+        if (value instanceof Map) {
+            packValue(value);
+            return ParticleType.MAP;
+        }
+        if (value instanceof Collection || value.getClass().isArray()) {
+            packValue(value);
+            return ParticleType.LIST;
+        }
+        if (value instanceof Date) {
+            return packParticle(((Date) value).getTime());
+        }
+        if (value instanceof Instant) {
+            return packParticle(((Instant) value).toEpochMilli());
+        }
+        CharSequence string = value instanceof CharSequence ? (CharSequence) value
+                : value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+        ensureCapacity(utf8Length(string));
+        encodeUtf8(string);
+        return ParticleType.STRING;
+    }
+
+    /**
+     * Write a long as the particle Aerospike stores in an integer bin.
+     * @return {@code ParticleType.INTEGER}
+     */
+    public int packParticle(long value) {
+        ensureCapacity(8);
+        buffer.putLong(value);
+        return ParticleType.INTEGER;
+    }
+
+    private static int utf8Length(CharSequence value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes++;
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // Four bytes for the pair of chars
+                    bytes += 2;
+                    i++;
+                }
+                else if (!Character.isSurrogate(c)) {
+                    // An unpaired surrogate is written as a single '?'
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private void encodeUtf8(CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            }
+            else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xf0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+            }
+            else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate is replaced, as String.getBytes does
+                buffer.put((byte) '?');
+            }
+            else {
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.aerospike.generator;
+
+/**
+ * Receives the statistics of a {@link Generator} while it runs, to adapt them to a dashboard or metrics library.
+ * Sinks are added with {@link Generator#addMetricsSink(MetricsSink)}, and are then called on one thread of the
+ * generator, once per metrics interval while a run is going and once more when it completes. A sink which is slow
+ * delays the next snapshot, but not the generation.
+ */
+public interface MetricsSink {
+    void publish(GeneratorMetrics metrics);
+}
@@ -0,0 +1,81 @@
+package com.aerospike.generator;
+
+import com.aerospike.client.Value;
+import com.aerospike.client.command.ParticleType;
+import com.aerospike.client.lua.LuaInstance;
+import com.aerospike.client.util.Packer;
+
+import org.luaj.vm2.LuaValue;
+
+/**
+ * A list or map bin value which is packed straight from the collection, array or object it was read from, converting
+ * each element on the way, rather than first being copied into a list or map of Aerospike types. The packed bytes
+ * are kept once the client has asked for the size of the value, and {@link #detach()} does this up front so the
+ * source can change afterwards.
+ */
+final class PackedValue extends Value {
+    private final Object source;
+    private final int type;
+    private byte[] bytes;
+
+    PackedValue(Object source, int type) {
+        this.source = source;
+        this.type = type;
+    }
+
+    /**
+     * Pack the value now, so it no longer depends on the object it was read from.
+     */
+    void detach() {
+        if (bytes == null) {
+            Packer packer = new Packer();
+            BinMapper.pack(packer, source);
+            bytes = packer.toByteArray();
+        }
+    }
+
+    @Override
+    public int estimateSize() {
+        detach();
+        return bytes.length;
+    }
+
+    @Override
+    public int write(byte[] buffer, int offset) {
+        detach();
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return bytes.length;
+    }
+
+    @Override
+    public void pack(Packer packer) {
+        BinMapper.pack(packer, source);
+    }
+
+    @Override
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * The value as the lists, maps and simple values Aerospike would return for it.
+     */
+    @Override
+    public Object getObject() {
+        return BinMapper.toAerospikeValue(source);
+    }
+
+    @Override
+    public LuaValue getLuaValue(LuaInstance instance) {
+        return Value.get(getObject()).getLuaValue(instance);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(getObject());
+    }
+
+    static int typeOf(Object source) {
+        return BinMapper.isMap(source) ? ParticleType.MAP : ParticleType.LIST;
+    }
+}
@@ -0,0 +1,11 @@
+package com.aerospike.generator;
+
+import java.util.Map;
+
+/**
+ * Assigns generated values to the fields declared on a single class of an object. The parameter map passed in 
+ * has already had the object being populated added to it, so expressions can reference the other fields. 
+ */
+public interface Populator<T> {
+    void populate(T object, Map<String, Object> params);
+}
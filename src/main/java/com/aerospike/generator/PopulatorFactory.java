@@ -0,0 +1,14 @@
+package com.aerospike.generator;
+
+import com.aerospike.generator.annotations.GenPopulator;
+
+/**
+ * Creates the populator generated for a class marked with {@link GenPopulator}. The annotation processor lists the
+ * factory of each populator it generates in {@code META-INF/services}, where {@link GeneratedPopulators} finds it.
+ */
+public interface PopulatorFactory {
+    /** The class the populator populates */
+    Class<?> getType();
+    
+    Populator<?> create();
+}
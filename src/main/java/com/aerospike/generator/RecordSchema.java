@@ -0,0 +1,475 @@
+package com.aerospike.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.aerospike.client.command.ParticleType;
+import com.aerospike.generator.annotations.AnnotationEvaluator;
+import com.aerospike.generator.annotations.FieldType;
+import com.aerospike.generator.annotations.GenExpressionProcessor;
+import com.aerospike.generator.annotations.LongProcessor;
+import com.aerospike.generator.annotations.Processor;
+import com.aerospike.generator.annotations.RandomSource;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Generates records described by a schema rather than by an annotated class. The schema maps each bin name to the
+ * annotation which would generate it, with the annotation's attributes, for example:
+ * <pre>
+ * name: customer
+ * bins:
+ *   id:
+ *     GenExpression: "'Customer-' &amp; $Key"
+ *   age:
+ *     GenNumber: {start: 18, end: 90}
+ *   limit:
+ *     GenExpression: "$obj.age * 100"
+ *     type: LONG
+ *   tags:
+ *     GenList: {minItems: 1, maxItems: 4}
+ *     element:
+ *       GenOneOf: "gold,silver,bronze"
+ *   address:
+ *     bins:
+ *       city: {GenAddress: CITY}
+ * </pre>
+ * An annotation given a single value rather than a map of attributes is passed it as its {@code value}. The optional
+ * {@code type} is the {@link FieldType} to generate. {@code GenNumber} generates {@code LONG}s and
+ * {@code GenExpression} generates {@code STRING}s unless told otherwise, other annotations generate the type they
+ * would for an expression. {@code GenList} and {@code GenSet} take the specification of their elements in
+ * {@code element}, and a bin with {@code bins} of its own is generated as a nested map.
+ * <p/>
+ * The processors are created and ordered once when the schema is loaded, so generating a record only runs the
+ * processors, without any reflection. A schema is thread safe.
+ */
+public class RecordSchema {
+    private static final String BINS = "bins";
+    private static final String TYPE = "type";
+    private static final String ELEMENT = "element";
+
+    private final String name;
+    private final String[] binNames;
+    private final Processor[] processors;
+    // Whether each bin is generated as a long, so it can be written without boxing
+    private final boolean[] longValued;
+    // The bins in the order they are generated, as indexes into binNames
+    private final int[] order;
+    private final boolean referenced;
+
+    /**
+     * The processor for a bin, or the elements of a list, and whether it generates longs.
+     */
+    private static final class Bin {
+        final Processor processor;
+        final boolean longValued;
+
+        Bin(Processor processor, FieldType type) {
+            this.processor = processor;
+            this.longValued = type == FieldType.LONG && processor instanceof LongProcessor;
+        }
+    }
+
+    private RecordSchema(String name, List<String> binNames, List<Bin> bins) {
+        this.name = name;
+        this.binNames = binNames.toArray(new String[0]);
+        this.processors = new Processor[bins.size()];
+        this.longValued = new boolean[bins.size()];
+        for (int i = 0; i < processors.length; i++) {
+            processors[i] = bins.get(i).processor;
+            longValued[i] = bins.get(i).longValued;
+        }
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < binNames.size(); i++) {
+            indexes.add(i);
+        }
+        this.order = GenerationPlan.order("Schema " + name, indexes, i -> this.processors[i], i -> this.binNames[i])
+                .stream().mapToInt(Integer::intValue).toArray();
+        this.referenced = Arrays.stream(this.processors).anyMatch(p -> !p.getObjectReferences().isEmpty());
+    }
+
+    public static RecordSchema fromYaml(InputStream in) {
+        return read(new ObjectMapper(new YAMLFactory()), in);
+    }
+
+    public static RecordSchema fromYaml(String yaml) {
+        return read(new ObjectMapper(new YAMLFactory()), yaml);
+    }
+
+    public static RecordSchema fromJson(InputStream in) {
+        return read(new ObjectMapper(), in);
+    }
+
+    public static RecordSchema fromJson(String json) {
+        return read(new ObjectMapper(), json);
+    }
+
+    private static RecordSchema read(ObjectMapper mapper, Object source) {
+        try {
+            TypeReference<Map<String, Object>> type = new TypeReference<>() {};
+            Map<String, Object> document = source instanceof String
+                    ? mapper.readValue((String) source, type) : mapper.readValue((InputStream) source, type);
+            if (document == null) {
+                throw new IllegalArgumentException("The schema is empty");
+            }
+            return fromMap(document);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the schema: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create a schema from its parsed form: a map with an optional {@code name} and a {@code bins} map.
+     * @throws IllegalArgumentException if the schema is invalid
+     */
+    public static RecordSchema fromMap(Map<String, Object> document) {
+        Object name = document.get("name");
+        return parse(name == null ? "record" : name.toString(), document.get(BINS));
+    }
+
+    private static RecordSchema parse(String name, Object bins) {
+        if (!(bins instanceof Map) || ((Map<?, ?>) bins).isEmpty()) {
+            throw new IllegalArgumentException(String.format("Schema %s must have a map of bins", name));
+        }
+        List<String> binNames = new ArrayList<>();
+        List<Bin> parsed = new ArrayList<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) bins).entrySet()) {
+            String binName = String.valueOf(entry.getKey());
+            binNames.add(binName);
+            parsed.add(parseBin(name, binName, entry.getValue()));
+        }
+        return new RecordSchema(name, binNames, parsed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Bin parseBin(String schemaName, String binName, Object spec) {
+        String description = schemaName + "." + binName;
+        if (!(spec instanceof Map)) {
+            throw new IllegalArgumentException(String.format("Bin %s must be a map of its annotation and attributes", description));
+        }
+        Map<String, Object> binSpec = (Map<String, Object>) spec;
+        if (binSpec.containsKey(BINS)) {
+            return new Bin(new MapProcessor(parse(description, binSpec.get(BINS))), FieldType.OBJECT);
+        }
+        String annotation = null;
+        for (String key : binSpec.keySet()) {
+            if (key.startsWith("Gen")) {
+                if (annotation != null) {
+                    throw new IllegalArgumentException(String.format("Bin %s has both %s and %s, only one annotation can be given",
+                            description, annotation, key));
+                }
+                annotation = key;
+            }
+            else if (!TYPE.equals(key) && !ELEMENT.equals(key)) {
+                throw new IllegalArgumentException(String.format("Bin %s has unknown property '%s'", description, key));
+            }
+        }
+        if (annotation == null) {
+            throw new IllegalArgumentException(String.format("Bin %s does not say how it is generated", description));
+        }
+        Map<String, Object> attributes = toAttributes(binSpec.get(annotation));
+        FieldType type = toFieldType(description, binSpec.get(TYPE));
+        try {
+            switch (annotation) {
+            case "GenList":
+            case "GenSet":
+                if (!binSpec.containsKey(ELEMENT)) {
+                    throw new IllegalArgumentException("the specification of its elements must be given in 'element'");
+                }
+                return new Bin(new CollectionProcessor(parseBin(schemaName, binName + "[]", binSpec.get(ELEMENT)),
+                        attributes, "GenSet".equals(annotation)), FieldType.LIST);
+            case "GenExpression":
+                type = type == null ? FieldType.STRING : type;
+                return new Bin(new GenExpressionProcessor(String.valueOf(attributes.get("value")), type), type);
+            case "GenNumber":
+                type = type == null ? FieldType.LONG : type;
+                return new Bin(AnnotationEvaluator.createProcessor(annotation, attributes, type), type);
+            default:
+                return new Bin(AnnotationEvaluator.createProcessor(annotation, attributes, type), type);
+            }
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Bin %s cannot be generated by %s: %s", description, annotation, e.getMessage()), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toAttributes(Object value) {
+        if (value == null) {
+            return Map.of();
+        }
+        if (value instanceof Map) {
+            return (Map<String, Object>) value;
+        }
+        return Map.of("value", value);
+    }
+
+    private static FieldType toFieldType(String description, Object type) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return FieldType.valueOf(type.toString().toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Bin %s has unknown type '%s', expected one of %s",
+                    description, type, Arrays.toString(FieldType.values())));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The names of the bins, in the order they are declared in the schema. This is the order of the values in
+     * {@link #createValues(Map)}.
+     */
+    public String[] getBinNames() {
+        return binNames.clone();
+    }
+
+    /**
+     * The position of a bin in the values returned by {@link #createValues(Map)}, or -1 if there is no such bin.
+     */
+    public int indexOf(String binName) {
+        for (int i = 0; i < binNames.length; i++) {
+            if (binNames[i].equals(binName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Generate a record as a map from bin name to value, in the order the bins are declared.
+     * @param params the parameters for the processors, normally including the {@code Key}
+     */
+    public Map<String, Object> createMap(Map<String, Object> params) {
+        Object[] values = createValues(params);
+        Map<String, Object> result = new LinkedHashMap<>((int) (values.length / 0.75f) + 1);
+        for (int i = 0; i < values.length; i++) {
+            result.put(binNames[i], values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Generate a record as an array holding the value of each bin, in the order of {@link #getBinNames()}.
+     * @param params the parameters for the processors, normally including the {@code Key}
+     */
+    public Object[] createValues(Map<String, Object> params) {
+        Object[] values = new Object[binNames.length];
+        if (!referenced) {
+            for (int index : order) {
+                values[index] = processors[index].process(params);
+            }
+            return values;
+        }
+        // Expressions read the bins generated so far through $obj
+        Map<String, Object> generated = new HashMap<>();
+        Object enclosingObject = params.put("obj", generated);
+        try {
+            for (int index : order) {
+                values[index] = processors[index].process(params);
+                generated.put(binNames[index], values[index]);
+            }
+        }
+        finally {
+            if (enclosingObject == null) {
+                params.remove("obj");
+            }
+            else {
+                params.put("obj", enclosingObject);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Generate a record straight into the writer as a MessagePack map from bin name to value. Values are encoded as
+     * they are generated, so no map or list is built, except for sets and for schemas whose expressions read other
+     * bins through {@code $obj}, which need the values generated first.
+     * @param params the parameters for the processors, normally including the {@code Key}
+     */
+    public void writeRecord(MessagePackWriter writer, Map<String, Object> params) {
+        writer.packMapHeader(binNames.length);
+        if (referenced) {
+            Object[] values = createValues(params);
+            for (int i = 0; i < values.length; i++) {
+                writer.packString(binNames[i]);
+                writer.packValue(values[i]);
+            }
+            return;
+        }
+        for (int index : order) {
+            writer.packString(binNames[index]);
+            writeValue(writer, processors[index], longValued[index], params);
+        }
+    }
+
+    /**
+     * Generate a record straight into the writer as the particle Aerospike stores in each bin. The bins are written
+     * in the order they are generated. For each bin, in the order of {@link #getBinNames()}, the particle type, the
+     * position of the particle in the writer's buffer and its length are stored in the passed arrays. Nested lists
+     * and maps are written as MessagePack, so the writer should use the Aerospike format.
+     * @param params the parameters for the processors, normally including the {@code Key}
+     */
+    public void writeParticles(MessagePackWriter writer, Map<String, Object> params, int[] types, int[] offsets, int[] lengths) {
+        if (referenced) {
+            Object[] values = createValues(params);
+            for (int i = 0; i < values.length; i++) {
+                offsets[i] = writer.position();
+                types[i] = writer.packParticle(values[i]);
+                lengths[i] = writer.position() - offsets[i];
+            }
+            return;
+        }
+        for (int index : order) {
+            offsets[index] = writer.position();
+            Processor processor = processors[index];
+            if (longValued[index]) {
+                types[index] = writer.packParticle(((LongProcessor) processor).processLong(params));
+            }
+            else if (processor instanceof MapProcessor) {
+                ((MapProcessor) processor).schema.writeRecord(writer, params);
+                types[index] = ParticleType.MAP;
+            }
+            else if (processor instanceof CollectionProcessor && ((CollectionProcessor) processor).isAlwaysList()) {
+                ((CollectionProcessor) processor).write(writer, params);
+                types[index] = ParticleType.LIST;
+            }
+            else {
+                types[index] = writer.packParticle(processor.process(params));
+            }
+            lengths[index] = writer.position() - offsets[index];
+        }
+    }
+
+    private static void writeValue(MessagePackWriter writer, Processor processor, boolean longValued, Map<String, Object> params) {
+        if (longValued) {
+            writer.packLong(((LongProcessor) processor).processLong(params));
+        }
+        else if (processor instanceof MapProcessor) {
+            ((MapProcessor) processor).schema.writeRecord(writer, params);
+        }
+        else if (processor instanceof CollectionProcessor) {
+            ((CollectionProcessor) processor).write(writer, params);
+        }
+        else {
+            writer.packValue(processor.process(params));
+        }
+    }
+
+    /**
+     * Generates a nested record as a map.
+     */
+    private static class MapProcessor implements Processor {
+        private final RecordSchema schema;
+
+        MapProcessor(RecordSchema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public Object process(Map<String, Object> params) {
+            return schema.createMap(params);
+        }
+    }
+
+    /**
+     * Generates a list or set with a processor for its elements.
+     */
+    private static class CollectionProcessor implements Processor {
+        private final Bin element;
+        private final Processor elementProcessor;
+        private final int items;
+        private final int minItems;
+        private final int maxItems;
+        private final int percentNull;
+        private final boolean isSet;
+
+        CollectionProcessor(Bin element, Map<String, Object> attributes, boolean isSet) {
+            this.element = element;
+            this.elementProcessor = element.processor;
+            this.items = intAttribute(attributes, "items", -1);
+            this.minItems = intAttribute(attributes, "minItems", -1);
+            this.maxItems = intAttribute(attributes, "maxItems", -1);
+            this.percentNull = intAttribute(attributes, "percentNull", 0);
+            this.isSet = isSet;
+            if (percentNull < 0 || percentNull > 100) {
+                throw new IllegalArgumentException("PercentNull must in the range 0-100, not " + percentNull);
+            }
+            if (items < 0 && (minItems < 0 || maxItems < 0)) {
+                throw new IllegalArgumentException("Either items must be specified or both minItems and maxItems");
+            }
+            if (items >= 0 && (minItems >= 0 || maxItems >= 0)) {
+                throw new IllegalArgumentException("Neither minItems nor maxItems can be specified if items is specified");
+            }
+        }
+
+        private static int intAttribute(Map<String, Object> attributes, String name, int defaultValue) {
+            Object value = attributes.get(name);
+            return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+        }
+
+        /**
+         * Whether this always generates a list, rather than a set or sometimes null.
+         */
+        boolean isAlwaysList() {
+            return !isSet && percentNull == 0;
+        }
+
+        /**
+         * Write a list straight to the writer. Sets are generated first so duplicates can be removed.
+         */
+        void write(MessagePackWriter writer, Map<String, Object> params) {
+            if (isSet) {
+                writer.packValue(process(params));
+                return;
+            }
+            if (percentNull > 0 && RandomSource.nextInt(101) < percentNull) {
+                writer.packNil();
+                return;
+            }
+            int length = Processor.getLengthToGenerate(items, minItems, maxItems);
+            writer.packArrayHeader(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(writer, element.processor, element.longValued, params);
+            }
+        }
+
+        @Override
+        public Object process(Map<String, Object> params) {
+            if (percentNull > 0 && RandomSource.nextInt(101) < percentNull) {
+                return null;
+            }
+            int length = Processor.getLengthToGenerate(items, minItems, maxItems);
+            if (isSet) {
+                // Duplicates are generated again, up to a limit in case there are not enough distinct values
+                Set<Object> result = new HashSet<>();
+                for (int attempts = 0; result.size() < length && attempts < length * 10; attempts++) {
+                    result.add(elementProcessor.process(params));
+                }
+                return result;
+            }
+            List<Object> result = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                result.add(elementProcessor.process(params));
+            }
+            return result;
+        }
+    }
+}
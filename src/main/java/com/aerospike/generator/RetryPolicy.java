@@ -0,0 +1,75 @@
+package com.aerospike.generator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * How a {@link Generator} retries the callback of a record when it throws, for sinks which reject writes for a while
+ * when they are overloaded. Only the callback is retried, with the same object, as generating the object again would
+ * give the same values. The delay doubles with each retry up to a maximum, and each delay is picked at random between
+ * half and all of it, so threads which failed together do not all retry together. Policies are immutable.
+ */
+public final class RetryPolicy {
+    private static final RetryPolicy NONE = new RetryPolicy(0, 0, 0, exception -> false);
+
+    private final int maxRetries;
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final Predicate<? super Exception> retryable;
+
+    private RetryPolicy(int maxRetries, long initialDelayNanos, long maxDelayNanos, Predicate<? super Exception> retryable) {
+        this.maxRetries = maxRetries;
+        this.initialDelayNanos = initialDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.retryable = retryable;
+    }
+
+    /** Never retry, which is the default */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * Retry up to {@code maxRetries} times, waiting {@code initialDelay} before the first retry and doubling the wait
+     * for each retry after it, up to {@code maxDelay}.
+     */
+    public static RetryPolicy backoff(int maxRetries, Duration initialDelay, Duration maxDelay) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("The number of retries cannot be negative, not " + maxRetries);
+        }
+        if (initialDelay == null || initialDelay.isNegative() || maxDelay == null || maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("The delays must be positive, and the maximum delay at least the initial delay, not "
+                    + initialDelay + " and " + maxDelay);
+        }
+        return new RetryPolicy(maxRetries, initialDelay.toNanos(), maxDelay.toNanos(), exception -> true);
+    }
+
+    /** A copy of this policy which only retries the exceptions matching the predicate, such as timeouts */
+    public RetryPolicy retryIf(Predicate<? super Exception> retryable) {
+        if (retryable == null) {
+            throw new IllegalArgumentException("The retry predicate cannot be null");
+        }
+        return new RetryPolicy(maxRetries, initialDelayNanos, maxDelayNanos, retryable);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /** Whether to retry after the given failure, where {@code retry} is the number of the retry from 1 */
+    boolean shouldRetry(int retry, Exception exception) {
+        return retry <= maxRetries && retryable.test(exception);
+    }
+
+    /** The time to wait before the given retry, numbered from 1 */
+    long delayNanos(int retry) {
+        long delay = initialDelayNanos;
+        for (int i = 1; i < retry && delay < maxDelayNanos; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxDelayNanos);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+}
@@ -0,0 +1,78 @@
+package com.aerospike.generator;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * The completed and failed counts of a run, sampled at most once a second when its metrics are read, from which the
+ * instantaneous and moving average rates are taken. Sampling on read keeps the generation threads out of it
+ * entirely, and bounds the samples kept to the average window whatever the scrape interval. It is not thread safe,
+ * the generator reads it while holding the lock of its metrics.
+ */
+final class ThroughputWindow {
+    private static final long SAMPLE_NANOS = 1_000_000_000L;
+    private static final long WINDOW_NANOS = GeneratorMetrics.AVERAGE_WINDOW_SECONDS * SAMPLE_NANOS;
+
+    /** Each sample is the time in nanoseconds, the records completed and the records failed */
+    private final ArrayDeque<long[]> samples = new ArrayDeque<>();
+    private double recordsPerSecond;
+    private double averageRecordsPerSecond;
+    private double errorRate;
+
+    void reset(long nowNanos) {
+        samples.clear();
+        samples.add(new long[] {nowNanos, 0, 0});
+        recordsPerSecond = 0;
+        averageRecordsPerSecond = 0;
+        errorRate = 0;
+    }
+
+    /** Take the rates up to now, recording a sample if the last one is at least a second old */
+    void update(long nowNanos, long completed, long failed) {
+        if (samples.isEmpty()) {
+            reset(nowNanos);
+        }
+        if (nowNanos - samples.getLast()[0] >= SAMPLE_NANOS) {
+            samples.add(new long[] {nowNanos, completed, failed});
+        }
+        // Keep the newest sample which is older than the window, as the base of the average
+        while (samples.size() > 1) {
+            Iterator<long[]> oldest = samples.iterator();
+            oldest.next();
+            if (nowNanos - oldest.next()[0] < WINDOW_NANOS) {
+                break;
+            }
+            samples.removeFirst();
+        }
+        long[] instantBase = samples.getFirst();
+        for (Iterator<long[]> newest = samples.descendingIterator(); newest.hasNext(); ) {
+            long[] sample = newest.next();
+            if (nowNanos - sample[0] >= SAMPLE_NANOS) {
+                instantBase = sample;
+                break;
+            }
+        }
+        long[] averageBase = samples.getFirst();
+        recordsPerSecond = rate(instantBase, nowNanos, completed);
+        averageRecordsPerSecond = rate(averageBase, nowNanos, completed);
+        long records = completed - averageBase[1];
+        errorRate = records <= 0 ? 0 : (double)(failed - averageBase[2]) / records;
+    }
+
+    private static double rate(long[] base, long nowNanos, long completed) {
+        long nanos = nowNanos - base[0];
+        return nanos <= 0 ? 0 : (completed - base[1]) * 1e9 / nanos;
+    }
+
+    double getRecordsPerSecond() {
+        return recordsPerSecond;
+    }
+
+    double getAverageRecordsPerSecond() {
+        return averageRecordsPerSecond;
+    }
+
+    double getErrorRate() {
+        return errorRate;
+    }
+}
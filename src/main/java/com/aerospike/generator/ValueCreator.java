@@ -1,7 +1,9 @@
 package com.aerospike.generator;
 
-import java.awt.List;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -10,21 +12,20 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import com.aerospike.generator.annotations.FieldType;
 import com.aerospike.generator.annotations.GenAddress;
-import com.aerospike.generator.annotations.GenAddress.AddressPart;
 import com.aerospike.generator.annotations.GenAddressProcessor;
 import com.aerospike.generator.annotations.GenBoolean;
 import com.aerospike.generator.annotations.GenBooleanProcessor;
 import com.aerospike.generator.annotations.GenBrowser;
-import com.aerospike.generator.annotations.GenBrowser.BrowserType;
 import com.aerospike.generator.annotations.GenBrowserProcessor;
 import com.aerospike.generator.annotations.GenBytes;
 import com.aerospike.generator.annotations.GenBytesProcessor;
@@ -59,68 +60,321 @@ import com.aerospike.generator.annotations.GenRangeProcessor;
 import com.aerospike.generator.annotations.GenSet;
 import com.aerospike.generator.annotations.GenSetProcessor;
 import com.aerospike.generator.annotations.GenString;
-import com.aerospike.generator.annotations.GenString.StringType;
 import com.aerospike.generator.annotations.GenStringProcessor;
 import com.aerospike.generator.annotations.GenUuid;
 import com.aerospike.generator.annotations.GenUuidProcessor;
 import com.aerospike.generator.annotations.Processor;
+import com.aerospike.generator.annotations.RandomSource;
 
 /**
  * A {@code ValueCreator} is used to populate test data into objects of a single class. It is thread-safe and should be reused across
  * different instantiations of that class.
+ * <p/>
+ * Objects are normally created through their no-argument constructor and then have their fields set. Records, and classes
+ * with a constructor, static factory or builder marked with {@code GenConstructor}, are instead created by generating the
+ * values first and passing them in, see {@link Instantiator}.
  * @param <T>
  */
 public class ValueCreator<T> {
+    /**
+     * How the generated values are assigned to the fields of an object. {@code COMPILED} folds the fields of the class
+     * into a single {@code MethodHandle} (see {@link CompiledPopulator}), {@code REFLECTION} iterates over the fields.
+     * {@code GENERATED} is used when a populator generated at build time for a {@code GenPopulator} class is in use.
+     * The default mode is read from the {@code generator.populationMode} system property.
+     */
+    public enum PopulationMode {
+        REFLECTION,
+        COMPILED,
+        GENERATED
+    }
+    
+    private static final PopulationMode DEFAULT_POPULATION_MODE = 
+            PopulationMode.valueOf(System.getProperty("generator.populationMode", PopulationMode.COMPILED.name()).toUpperCase());
     
-    private final Map<Field, Processor> fieldProcessors = new ConcurrentHashMap<>();
-    private final ValueCreator<Object> superclazz;
-    private final Constructor<T> constructor;
+    private final FieldGenerator[] fieldGenerators;
+    private final PopulationMode populationMode;
+    private final Populator<T> populator;
+    // Built when an object is first recycled
+    private volatile Populator<T> recyclingPopulator;
+    private final boolean generatedPopulation;
+    // ()Object, or null if the class has no no-argument constructor
+    private final MethodHandle constructor;
     private final Class<T> clazz;
+    // When the class is created from its field values, the generators of those values and the arguments they are 
+    // passed as. The populator only covers the fields which are not passed in.
+    private final Instantiator<T> instantiator;
+    // Set once the instantiator is known. Until then a field referring back to this class cannot check it
+    private volatile boolean instantiatorResolved;
+    private volatile boolean constructorRequired;
+    private final FieldGenerator[] argumentGenerators;
+    private final int[] argumentIndexes;
+    private final boolean argumentsReferenced;
+    private final FieldGenerator[] assignedGenerators;
 
-    @SuppressWarnings("unchecked")
     public ValueCreator(Class<T> clazz) {
+        this(clazz, DEFAULT_POPULATION_MODE);
+    }
+    
+    public ValueCreator(Class<T> clazz, PopulationMode populationMode) {
+        this(clazz, populationMode, null);
+    }
+    
+    /**
+     * Create a {@code ValueCreator} which uses a populator generated at build time for the fields of this class 
+     * rather than analyzing the annotations on the fields. 
+     */
+    public ValueCreator(Class<T> clazz, Populator<T> generatedPopulator) {
+        this(clazz, PopulationMode.GENERATED, generatedPopulator);
+    }
+    
+    private ValueCreator(Class<T> clazz, PopulationMode populationMode, Populator<T> generatedPopulator) {
         this.clazz = clazz;
-        Field[] fields = clazz.getDeclaredFields();
-        for (Field field : fields) {
-            // Note: Deliberately allowing setting of final fields
-            if (!Modifier.isTransient(field.getModifiers())) {
-                addProcessorForField(field);
+        this.populationMode = populationMode;
+        if (populationMode == PopulationMode.GENERATED && generatedPopulator == null) {
+            throw new IllegalArgumentException("A generated populator must be provided to use the GENERATED population mode");
+        }
+        FlightRecorderEvents.ValueCreatorBuildEvent buildEvent = new FlightRecorderEvents.ValueCreatorBuildEvent();
+        buildEvent.begin();
+        MethodHandle theConstructor = null;
+        try {
+            Constructor<T> noArgConstructor = clazz.getDeclaredConstructor();
+            noArgConstructor.setAccessible(true);
+            theConstructor = MethodHandles.lookup().unreflectConstructor(noArgConstructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+        }
+        this.constructor = theConstructor;
+        
+        // Fields which refer back to this class are given this creator while it is being built
+        boolean registered = ValueCreatorCache.beginConstruction(clazz, this);
+        try {
+            // A generated populator only covers the fields declared on this class, the plan supplies the inherited ones
+            this.fieldGenerators = buildFieldGenerators(generatedPopulator == null);
+        }
+        finally {
+            if (registered) {
+                ValueCreatorCache.endConstruction(clazz, this);
             }
         }
-        Class<?> mySuperClazz = clazz.getSuperclass();
-        if (mySuperClazz != null) {
-            String superclassPackage = mySuperClazz.getPackageName();
-            if (superclassPackage != null && !(superclassPackage.startsWith("java.lang") || superclassPackage.startsWith("java.util"))) {
-                superclazz = (ValueCreator<Object>) ValueCreatorCache.getInstance().get(mySuperClazz);
+        
+        this.instantiator = Instantiator.find(clazz, fieldGenerators);
+        if (instantiator != null && generatedPopulator != null) {
+            throw new IllegalArgumentException(String.format("Class %s is created through %s so cannot also use a GenPopulator",
+                    clazz.getName(), instantiator.getDescription()));
+        }
+        this.instantiatorResolved = true;
+        if (constructorRequired) {
+            requiresConstructor();
+        }
+        List<FieldGenerator> arguments = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<FieldGenerator> assigned = new ArrayList<>();
+        List<String> names = instantiator == null ? List.of() : Arrays.asList(instantiator.getNames());
+        boolean referenced = false;
+        for (FieldGenerator generator : fieldGenerators) {
+            // A field hidden by a subclass field of the same name is not passed in
+            int index = names.indexOf(generator.getField().getName());
+            if (index >= 0 && !isHidden(generator.getField())) {
+                arguments.add(generator);
+                indexes.add(index);
+                referenced |= !generator.getProcessor().getObjectReferences().isEmpty();
             }
             else {
-                superclazz = null;
+                assigned.add(generator);
             }
         }
+        this.argumentGenerators = arguments.toArray(new FieldGenerator[0]);
+        this.argumentIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+        this.argumentsReferenced = referenced;
+        this.assignedGenerators = assigned.toArray(new FieldGenerator[0]);
+        
+        this.generatedPopulation = generatedPopulator != null;
+        if (generatedPopulator == null) {
+            this.populator = populationMode == PopulationMode.COMPILED ? new CompiledPopulator<>(assignedGenerators) : this::populateFields;
+        }
+        else if (fieldGenerators.length == 0) {
+            this.populator = generatedPopulator;
+        }
         else {
-            superclazz = null;
+            Populator<T> inherited = new CompiledPopulator<>(fieldGenerators);
+            this.populator = (object, params) -> {
+                inherited.populate(object, params);
+                generatedPopulator.populate(object, params);
+            };
+        }
+        buildEvent.end();
+        if (buildEvent.shouldCommit()) {
+            buildEvent.className = clazz.getName();
+            buildEvent.populationMode = populationMode.name();
+            buildEvent.fields = fieldGenerators.length;
+            buildEvent.commit();
+        }
+    }
+    
+    /**
+     * Build the generation plan for this class: the processor and setter for every field of the class and its 
+     * superclasses, resolved once and ordered so that fields referenced by GenExpressions are generated before
+     * the expressions which read them.
+     */
+    private FieldGenerator[] buildFieldGenerators(boolean includeThisClass) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> current = includeThisClass ? clazz : clazz.getSuperclass(); current != null; current = current.getSuperclass()) {
+            String packageName = current.getPackageName();
+            if (packageName.startsWith("java.lang") || packageName.startsWith("java.util")) {
+                break;
+            }
+            hierarchy.add(0, current);
+        }
+        List<FieldGenerator> generators = new ArrayList<>();
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                // Note: Deliberately allowing setting of final fields
+                if (!Modifier.isTransient(field.getModifiers())) {
+                    FlightRecorderEvents.ProcessorBuildEvent buildEvent = new FlightRecorderEvents.ProcessorBuildEvent();
+                    buildEvent.begin();
+                    FieldGenerator generator = generatorForField(field);
+                    if (generator != null) {
+                        generators.add(generator);
+                        buildEvent.end();
+                        if (buildEvent.shouldCommit()) {
+                            buildEvent.className = clazz.getName();
+                            buildEvent.fieldName = field.getName();
+                            buildEvent.annotation = generator.getAnnotation() == null ? null : generator.getAnnotation().getSimpleName();
+                            buildEvent.processor = generator.getProcessor().getClass().getName();
+                            buildEvent.commit();
+                        }
+                    }
+                }
+            }
         }
-        Constructor<T> theConstructor = null;
+        return GenerationPlan.order(clazz, generators);
+    }
+    
+    /**
+     * The populator used to populate objects again, which passes the current values of nested objects, lists, sets
+     * and arrays to their processors so they can be reused. Generated populators do not reuse values.
+     */
+    private Populator<T> getRecyclingPopulator() {
+        Populator<T> result = recyclingPopulator;
+        if (result == null) {
+            boolean recycles = false;
+            for (FieldGenerator generator : assignedGenerators) {
+                recycles |= generator.isRecycling();
+            }
+            if (!recycles || generatedPopulation) {
+                result = populator;
+            }
+            else if (populationMode == PopulationMode.COMPILED) {
+                result = new CompiledPopulator<>(assignedGenerators, true);
+            }
+            else {
+                result = this::recycleFields;
+            }
+            recyclingPopulator = result;
+        }
+        return result;
+    }
+    
+    private void recycleFields(T object, Map<String, Object> params) {
+        for (FieldGenerator generator : assignedGenerators) {
+            generator.regenerate(object, params);
+        }
+    }
+    
+    /**
+     * Run through the fields one by one, restarting the random source of each field if a seed is given, and timing
+     * each field if a profiler is given.
+     */
+    private void populateEachField(T object, Map<String, Object> params, Long seed, boolean recycle, FieldProfiler profiler) {
         try {
-            theConstructor = (Constructor<T>) clazz.getConstructor();
-        } catch (NoSuchMethodException | SecurityException e) {
+            for (FieldGenerator generator : assignedGenerators) {
+                if (seed != null) {
+                    seedField(generator, seed, params);
+                }
+                FieldProfiler.FieldTimer timer = profiler == null ? null : profiler.startField(clazz, generator);
+                try {
+                    if (recycle) {
+                        generator.regenerate(object, params);
+                    }
+                    else {
+                        generator.generate(object, params);
+                    }
+                }
+                finally {
+                    if (timer != null) {
+                        timer.stop();
+                    }
+                }
+            }
+        }
+        finally {
+            if (seed != null) {
+                params.put(RandomSource.SEED_PARAM, seed);
+            }
         }
-        this.constructor = theConstructor;
     }
     
+    /**
+     * Restart the random source from the seed of the field, which is also the seed of any objects nested in it.
+     */
+    private static void seedField(FieldGenerator generator, long seed, Map<String, Object> params) {
+        long fieldSeed = RandomSource.mix(seed, generator.getSeedSalt());
+        RandomSource.reseed(fieldSeed);
+        params.put(RandomSource.SEED_PARAM, fieldSeed);
+    }
+    
+    private boolean isHidden(Field field) {
+        for (Class<?> current = clazz; current != field.getDeclaringClass(); current = current.getSuperclass()) {
+            for (Field declared : current.getDeclaredFields()) {
+                if (declared.getName().equals(field.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private void populateFields(T object, Map<String, Object> params) {
+        // Fields are in dependency order, so GenExpression fields can reference them
+        for (FieldGenerator generator : assignedGenerators) {
+            generator.generate(object, params);
+        }
+    }
+    
+    public PopulationMode getPopulationMode() {
+        return populationMode;
+    }
+    
+    /**
+     * Check this class can be created. A field of a class which refers back to it is resolved while this creator is
+     * being built, before it knows how the class is created, so the check is then made once that is known.
+     */
     public void requiresConstructor() {
-        if (this.constructor == null) {
-            throw new IllegalArgumentException("Class " + clazz + " does not have the required no-arg constructor");
+        if (!instantiatorResolved) {
+            constructorRequired = true;
+            return;
+        }
+        if (this.constructor == null && this.instantiator == null) {
+            throw new IllegalArgumentException("Class " + clazz + " does not have the required no-arg constructor, "
+                    + "a constructor, factory or builder marked with GenConstructor, or a record's canonical constructor");
         }
     }
     
+    /**
+     * Create an empty object through the no-argument constructor. Classes which are created from their field values
+     * can only be created by {@link #createAndPopulate(Map)}.
+     */
     public T create() {
+        if (instantiator != null) {
+            throw new IllegalArgumentException(String.format("Class %s is created through %s so can only be created with createAndPopulate", 
+                    clazz.getName(), instantiator.getDescription()));
+        }
         requiresConstructor();
         try {
-            return this.constructor.newInstance();
-        } catch (InstantiationException | IllegalAccessException | IllegalArgumentException
-                | InvocationTargetException e) {
-            throw new IllegalArgumentException(e.getMessage(), e);
+            return clazz.cast((Object) this.constructor.invokeExact());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalArgumentException(t.getMessage(), t);
         }
     }
     
@@ -128,7 +382,31 @@ public class ValueCreator<T> {
         return createAndPopulate(params, true);
     }
     
+    /**
+     * Create and populate an object whose values are fully determined by the seed and the {@code Key} parameter, so
+     * the same seed and key always produce the same object. Each field, list element and nested object is generated
+     * from its own seed derived from the record's, so parts of the object can be generated later with the same result.
+     * <p/>
+     * If {@code lazy} is true, lists of nested objects are not generated up front. Their size is chosen, but each 
+     * element is only generated the first time it is read, with the same values it would have had if it had been
+     * generated straight away. This makes reading a few fields of a large object graph cheap. The list holds what 
+     * it needs to generate its elements until they have all been read.
+     */
+    public T createAndPopulate(Map<String, Object> params, long seed, boolean lazy) {
+        Object key = params.get("Key");
+        long recordSeed = RandomSource.mix(seed, key instanceof Number ? ((Number) key).longValue() : 0);
+        Map<String, Object> seededParams = new HashMap<>(params);
+        seededParams.put(RandomSource.SEED_PARAM, recordSeed);
+        if (lazy) {
+            seededParams.put(RandomSource.LAZY_PARAM, Boolean.TRUE);
+        }
+        return RandomSource.withSeed(recordSeed, () -> createAndPopulate(seededParams, false));
+    }
+    
     public T createAndPopulate(Map<String, Object> params, boolean createNewMap) {
+        if (instantiator != null) {
+            return instantiate(params, createNewMap);
+        }
         T obj = create();
         try {
             return populate(obj, params, createNewMap);
@@ -137,30 +415,80 @@ public class ValueCreator<T> {
         }
     }
     
-    private <P extends Annotation> boolean checkAndUse(boolean alreadyFound, Field field, FieldType fieldType, Class<P> annotation, Class<? extends Processor> processor) {
-        if (alreadyFound) {
-            return true;
+    /**
+     * Generate the values passed in to create the object, then create it and set any remaining fields. Until the
+     * object exists, expressions which reference its fields through {@code $obj} read the values generated so far.
+     */
+    private T instantiate(Map<String, Object> params, boolean createNewMap) {
+        Map<String, Object> expressionParams = createNewMap ? new HashMap<>(params) : params;
+        Map<String, Object> values = null;
+        Object enclosingObject = null;
+        if (argumentsReferenced) {
+            // Nested objects share their parent's map, so the parent's object is put back afterwards
+            values = new HashMap<>();
+            enclosingObject = expressionParams.put("obj", values);
+        }
+        Object[] arguments = instantiator.newArguments();
+        Object seed = expressionParams.get(RandomSource.SEED_PARAM);
+        try {
+            for (int i = 0; i < argumentGenerators.length; i++) {
+                if (seed != null) {
+                    seedField(argumentGenerators[i], (Long) seed, expressionParams);
+                }
+                Object value = argumentGenerators[i].getProcessor().process(expressionParams);
+                instantiator.setArgument(arguments, argumentIndexes[i], value);
+                if (values != null) {
+                    values.put(argumentGenerators[i].getField().getName(), value);
+                }
+            }
+        }
+        finally {
+            if (argumentsReferenced && !createNewMap) {
+                expressionParams.put("obj", enclosingObject);
+            }
+            if (seed != null) {
+                expressionParams.put(RandomSource.SEED_PARAM, seed);
+            }
+        }
+        T object = instantiator.create(arguments);
+        if (assignedGenerators.length > 0) {
+            // The map has already been copied if needed
+            populateWith(populator, object, expressionParams, false);
+        }
+        return object;
+    }
+    
+    private <P extends Annotation> FieldGenerator checkAndUse(FieldGenerator alreadyFound, Field field, FieldType fieldType, Class<P> annotation, Class<? extends Processor> processor) {
+        if (alreadyFound != null) {
+            return alreadyFound;
         }
         P gen = field.getAnnotation(annotation);
         if (gen != null) {
+            // Only an excluded field can be of a type which has no FieldType, every processor switches on it
+            if (fieldType == null && annotation != GenExclude.class) {
+                throw new IllegalArgumentException(String.format("Field %s of class %s is of type %s, which cannot be generated with @%s",
+                        field.getName(), field.getDeclaringClass().getName(), field.getType().getName(), annotation.getSimpleName()));
+            }
             Constructor<? extends Processor> constructor;
             try {
                 constructor = processor.getConstructor(annotation, FieldType.class, Field.class);
-                Processor proc = constructor.newInstance(gen, fieldType, field);
-                fieldProcessors.put(field,  proc);
-                return true;
-            } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-                e.printStackTrace();
-                return false;
+                return new FieldGenerator(field, constructor.newInstance(gen, fieldType, field), annotation);
+            } catch (InvocationTargetException e) {
+                // The processor rejected the annotation or the type of the field. Its message rarely names the field
+                throw new IllegalArgumentException(String.format("Field %s of class %s cannot be generated with @%s: %s",
+                        field.getName(), field.getDeclaringClass().getName(), annotation.getSimpleName(), 
+                        e.getCause().getMessage()), e.getCause());
+            } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException e) {
+                throw new IllegalStateException(processor.getName() + " cannot be created for field " + field.getName(), e);
             }
         }
-        return false;
+        return null;
     }
     
-    private void addProcessorForField(Field field) {
+    private FieldGenerator generatorForField(Field field) {
         Class<?> clazz = field.getDeclaringClass();
         FieldType fieldType = mapFieldType(field);
-        boolean found = false;
+        FieldGenerator found = null;
             found = checkAndUse(found, field, fieldType, GenAddress.class, GenAddressProcessor.class);
             found = checkAndUse(found, field, fieldType, GenBoolean.class, GenBooleanProcessor.class);
             found = checkAndUse(found, field, fieldType, GenBrowser.class, GenBrowserProcessor.class);
@@ -183,33 +511,45 @@ public class ValueCreator<T> {
             found = checkAndUse(found, field, fieldType, GenUuid.class, GenUuidProcessor.class);
         
         
-        if (!found) {
+        if (found == null) {
             GenMagic genMagic = clazz.getAnnotation(GenMagic.class);
             if (genMagic != null) {
-                Processor processor = new GenMagicProcessor(genMagic, fieldType, field);
-                fieldProcessors.put(field, processor);
-                found = true;
+                found = new FieldGenerator(field, new GenMagicProcessor(genMagic, fieldType, field), GenMagic.class);
             }
         }
-        if (!found) {
+        if (found == null) {
             GenString genString = clazz.getAnnotation(GenString.class);
             if (genString != null && field.getType().isAssignableFrom(String.class)) {
-                Processor processor = new GenStringProcessor(genString, fieldType, field);
-                fieldProcessors.put(field, processor);
-                found = true;
+                found = new FieldGenerator(field, new GenStringProcessor(genString, fieldType, field), GenString.class);
             }
         }
-        if (!found) {
+        if (found == null) {
             GenExpression genExpr = clazz.getAnnotation(GenExpression.class);
             if (genExpr != null && field.getType().isAssignableFrom(String.class)) {
-                Processor processor = new GenExpressionProcessor(genExpr, fieldType, field);
-                fieldProcessors.put(field, processor);
-                found = true;
+                found = new FieldGenerator(field, new GenExpressionProcessor(genExpr, fieldType, field), GenExpression.class);
             }
         }
-        if (found) {
-            field.setAccessible(true);
+        return found;
+    }
+    
+    /**
+     * Returns the setter this creator uses for the field, or null if the field is not generated.
+     */
+    FieldSetter getSetter(Field field) {
+        FieldGenerator generator = getFieldGenerator(field);
+        return generator == null ? null : generator.getSetter();
+    }
+
+    /**
+     * Returns the generator of the field, or null if the field is not generated.
+     */
+    FieldGenerator getFieldGenerator(Field field) {
+        for (FieldGenerator generator : fieldGenerators) {
+            if (generator.getField().equals(field)) {
+                return generator;
+            }
         }
+        return null;
     }
     
     private FieldType mapFieldType(Field field) {
@@ -273,6 +613,32 @@ public class ValueCreator<T> {
         }
         return null;
     }
+    /**
+     * Returns true if the passed object can be populated again by {@link #recycle(Object, Map)}: it is of exactly
+     * this creator's class and the class is not created from its field values.
+     */
+    public boolean canRecycle(Object object) {
+        return object != null && object.getClass() == clazz && instantiator == null;
+    }
+    
+    /**
+     * Populate an object which has been populated before, typically for an earlier key. The nested objects, lists,
+     * sets and arrays it holds are overwritten in place where they are of the right type and size, rather than being
+     * allocated again, so anything which kept a reference to them will see the new values.
+     */
+    public T recycle(T object, Map<String, Object> params) {
+        return recycle(object, params, true);
+    }
+    
+    public T recycle(T object, Map<String, Object> params, boolean createNewMap) {
+        if (!canRecycle(object)) {
+            throw new IllegalArgumentException(String.format("Object of %s cannot be recycled by the ValueCreator for class %s",
+                    object == null ? "null" : object.getClass(), clazz.getName()));
+        }
+        populateWith(getRecyclingPopulator(), object, params, createNewMap);
+        return object;
+    }
+    
     public T populate(T object, long key) throws IllegalArgumentException, IllegalAccessException { 
         return this.populate(object, Map.of("Key", key));
     }
@@ -282,64 +648,59 @@ public class ValueCreator<T> {
     }
     
     public T populate(T object, Map<String, Object> params, boolean createNewMap) throws IllegalArgumentException, IllegalAccessException {
-        Map<String, Object> expressionParams = params;
-        if (createNewMap) {
-            expressionParams = new HashMap<>(params);
-            expressionParams.put("obj", object);
-        }
-        
-        // First, process all non-deferred fields
-        for (Map.Entry<Field, Processor> entry : fieldProcessors.entrySet()) {
-            Processor processor = entry.getValue();
-            if (!processor.isDeferred()) {
-                Field field = entry.getKey();
-                field.setAccessible(true);
-                field.set(object, processor.process(expressionParams));
-            }
-        }
-        
-        // Then, process deferred fields (GenExpression fields)
-        for (Map.Entry<Field, Processor> entry : fieldProcessors.entrySet()) {
-            Processor processor = entry.getValue();
-            if (processor.isDeferred()) {
-                // Add the object to the parameter map for expression evaluation
-                Field field = entry.getKey();
-                field.setAccessible(true);
-                field.set(object, processor.process(expressionParams));
-            }
-        }
-        
-        if (superclazz != null) {
-            superclazz.populate(object, params);
+        if (instantiator != null) {
+            throw new IllegalArgumentException(String.format("Class %s is created through %s so its objects cannot be populated, use createAndPopulate", 
+                    clazz.getName(), instantiator.getDescription()));
         }
+        populateWith(populator, object, params, createNewMap);
         return object;
     }
     
-    private static final int ITERATORS = 10000;
-    private static long time(Processor processor) {
-        long now = System.nanoTime();
-        for (int i = 0; i < ITERATORS; i++) {
-            processor.process(Map.of("Key", i));
+    /**
+     * Run the populator with {@code $obj} referring to the object. Nested objects are populated with their parent's
+     * map rather than a copy, so the parent's object is put back afterwards.
+     */
+    private void populateWith(Populator<T> populator, T object, Map<String, Object> params, boolean createNewMap) {
+        FieldProfiler profiler = generatedPopulation ? null : FieldProfiler.getActive();
+        if (profiler == null) {
+            populateWith(populator, object, params, createNewMap, null);
+            return;
+        }
+        boolean sampled = profiler.enter(clazz);
+        try {
+            populateWith(populator, object, params, createNewMap, sampled ? profiler : null);
+        }
+        finally {
+            profiler.exit();
         }
-        return (System.nanoTime() - now)/1000;
     }
-    
-    private static void benchmark(Processor processor, String name) {
-        long time = time(processor);
-        System.out.printf("%,11dus total, %,8dus per iteration - %s\n", time, time / ITERATORS, name);
-    }
-    public static void main(String[] args) {
-        benchmark(new GenOneOfProcessor("flipkart:78, swiggy:78, amazon:78, merchant[1-100]", FieldType.STRING), "GenOneOf");
-        benchmark(new GenEmailProcessor(null, FieldType.STRING, null), "GenEmail");
-        benchmark(new GenExpressionProcessor("'Trans-' & $Key", FieldType.STRING), "GenExpression");
-        benchmark(new GenUuidProcessor(null, FieldType.STRING, null), "GenUuid");
-        benchmark(new GenStringProcessor(StringType.REGEXIFY, 0,0,0, "[a-z]{6}:\\d{1,7}-\\d{3}-\\d{2}", FieldType.STRING), "GenString - REGEXIFY");
-        benchmark(new GenStringProcessor(StringType.LETTERIFY, 0,0,0, "???-???", FieldType.STRING), "GenString - LETTERIFY");
-        benchmark(new GenStringProcessor(StringType.WORDS, 2,4,-1, null, FieldType.STRING), "GenString - WORDS");
-        benchmark(new GenAddressProcessor(AddressPart.COUNTRY, FieldType.STRING), "GenAddress");
-        benchmark(new GenIpV4Processor(null, FieldType.STRING, null), "GenIpV4");
-        benchmark(new GenBrowserProcessor(BrowserType.USERAGENT, FieldType.STRING), "GenBrowser");
-        benchmark(new GenDateProcessor("now-30d", "now-3m", 10, FieldType.STRING), "GenDate");
-        
+
+    private void populateWith(Populator<T> populator, T object, Map<String, Object> params, boolean createNewMap, FieldProfiler profiler) {
+        Object seed = params.get(RandomSource.SEED_PARAM);
+        if ((seed != null || profiler != null) && !generatedPopulation) {
+            // Seeded generation restarts the random source for each field, and profiling times each field, so they
+            // run through the fields one by one. Generated populators draw from the seed of the whole object instead
+            boolean recycle = populator != this.populator;
+            populator = (target, fieldParams) -> populateEachField(target, fieldParams, (Long) seed, recycle, profiler);
+        }
+        if (createNewMap) {
+            Map<String, Object> expressionParams = new HashMap<>(params);
+            expressionParams.put("obj", object);
+            populator.populate(object, expressionParams);
+        }
+        else {
+            Object enclosingObject = params.put("obj", object);
+            try {
+                populator.populate(object, params);
+            }
+            finally {
+                if (enclosingObject == null) {
+                    params.remove("obj");
+                }
+                else {
+                    params.put("obj", enclosingObject);
+                }
+            }
+        }
     }
 }
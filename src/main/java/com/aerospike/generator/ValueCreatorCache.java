@@ -1,10 +1,28 @@
 package com.aerospike.generator;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Shares one {@link ValueCreator} per class. Lookups of classes which are already cached do not lock. Processors
+ * resolve the creators they need when they are constructed, so generating objects does not go through the cache.
+ * <p/>
+ * A class can refer to itself, directly or through other classes, for example a tree node with a {@code GenObject}
+ * child of the same type. While a {@code ValueCreator} is being built it is visible to the thread building it, so
+ * these references resolve to the creator under construction rather than recursing forever.
+ * <p/>
+ * A class is only built once when several threads request it at the same time: the first thread builds it and the
+ * others wait for its creator. A thread which is itself part way through building a creator does not wait, as the
+ * thread it would wait for could be waiting for it in turn. It builds its own copy of the creator instead, and the
+ * first one cached is kept.
+ */
 public class ValueCreatorCache {
     private final Map<Class<?>, ValueCreator<?>> valueCreators = new ConcurrentHashMap<>();
+    private final Map<Class<?>, CompletableFuture<ValueCreator<?>>> building = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<Class<?>, ValueCreator<?>>> UNDER_CONSTRUCTION = ThreadLocal.withInitial(HashMap::new);
     
     private final static ValueCreatorCache INSTANCE = new ValueCreatorCache();
     private ValueCreatorCache() {}
@@ -12,26 +30,81 @@ public class ValueCreatorCache {
     public static ValueCreatorCache getInstance() {
         return INSTANCE;
     }
-
-    @SuppressWarnings("unchecked")
-    private synchronized <T> ValueCreator<T> getValueCreator(Class<T> clazz) {
-        return (ValueCreator<T>) valueCreators.get(clazz);
+    
+    /**
+     * Called by a {@code ValueCreator} before it resolves its fields. Returns true if the creator was registered
+     * and so must be passed to {@link #endConstruction(Class, ValueCreator)}.
+     */
+    static <T> boolean beginConstruction(Class<T> clazz, ValueCreator<T> valueCreator) {
+        return UNDER_CONSTRUCTION.get().putIfAbsent(clazz, valueCreator) == null;
     }
     
-    private synchronized <T> void addToCache(Class<T> clazz, ValueCreator<T> valueCreator) {
-        this.valueCreators.put(clazz, valueCreator);
+    static <T> void endConstruction(Class<T> clazz, ValueCreator<T> valueCreator) {
+        UNDER_CONSTRUCTION.get().remove(clazz, valueCreator);
     }
     
+    @SuppressWarnings("unchecked")
     public <T> ValueCreator<T> get(Class<T> clazz) {
         if (clazz == null || clazz.equals(Object.class)) {
             return null;
         }
         
-        ValueCreator<T> result = getValueCreator(clazz);
-        if (result == null) {
-            result = new ValueCreator<>(clazz);
-            addToCache(clazz, result);
+        ValueCreator<T> result = (ValueCreator<T>) valueCreators.get(clazz);
+        if (result != null) {
+            return result;
+        }
+        result = (ValueCreator<T>) UNDER_CONSTRUCTION.get().get(clazz);
+        if (result != null) {
+            return result;
+        }
+        if (!UNDER_CONSTRUCTION.get().isEmpty()) {
+            return build(clazz);
+        }
+        // Not built inside computeIfAbsent as building a creator looks up the creators of nested types
+        CompletableFuture<ValueCreator<?>> future = new CompletableFuture<>();
+        CompletableFuture<ValueCreator<?>> inProgress = building.putIfAbsent(clazz, future);
+        if (inProgress != null) {
+            return (ValueCreator<T>) await(inProgress);
+        }
+        try {
+            result = build(clazz);
+            future.complete(result);
+            return result;
+        }
+        catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            building.remove(clazz, future);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> ValueCreator<T> build(Class<T> clazz) {
+        // Another thread may have finished building the class since it was looked up
+        ValueCreator<T> result = (ValueCreator<T>) valueCreators.get(clazz);
+        if (result != null) {
+            return result;
+        }
+        Populator<T> generatedPopulator = GeneratedPopulators.find(clazz);
+        result = generatedPopulator == null ? new ValueCreator<>(clazz) : new ValueCreator<>(clazz, generatedPopulator);
+        ValueCreator<T> existing = (ValueCreator<T>) valueCreators.putIfAbsent(clazz, result);
+        return existing == null ? result : existing;
+    }
+    
+    /**
+     * Wait for a creator being built by another thread, failing the same way that thread did if it could not build it.
+     */
+    private static ValueCreator<?> await(CompletableFuture<ValueCreator<?>> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
         }
-        return result;
     }
 }
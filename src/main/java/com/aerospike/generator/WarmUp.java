@@ -0,0 +1,314 @@
+package com.aerospike.generator;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenMagic;
+import com.aerospike.generator.annotations.GenObject;
+import com.aerospike.generator.annotations.GenSet;
+
+/**
+ * Builds the {@link ValueCreator}s for a set of classes ahead of time so that the cost of analyzing the annotations,
+ * parsing expressions and weighted lists, and initializing the Faker providers is not paid by the first records
+ * generated. The classes are built in parallel on a fork-join pool, together with every class reachable from them
+ * through {@code GenObject}, {@code GenList} and {@code GenSet} fields (including fields of {@code GenMagic} classes)
+ * and the subclasses listed on those annotations. They are built in waves: a class is only built once the classes
+ * it references have been, so each class is built once and its build time does not include its references.
+ * <p/>
+ * Optionally each class is then populated a number of times so the JIT has compiled the generation path before the
+ * real run starts.
+ * <pre>
+ * WarmUp.Report report = WarmUp.warmUp(ForkJoinPool.commonPool(), 1000, Member.class, Order.class);
+ * System.out.println(report);
+ * </pre>
+ */
+public class WarmUp {
+    /**
+     * The outcome of a warm-up. Build times are measured per class and exclude the classes it references, except
+     * where the references form a cycle: the first class of a cycle to be built also builds the rest of the cycle.
+     */
+    public static class Report {
+        private final Map<Class<?>, Long> buildNanos;
+        private final Map<Class<?>, Throwable> failures;
+        private final long totalBuildNanos;
+        private final long jitWarmUpNanos;
+        private final int jitIterations;
+
+        private Report(Map<Class<?>, Long> buildNanos, Map<Class<?>, Throwable> failures, long totalBuildNanos,
+                long jitWarmUpNanos, int jitIterations) {
+            this.buildNanos = Collections.unmodifiableMap(buildNanos);
+            this.failures = Collections.unmodifiableMap(failures);
+            this.totalBuildNanos = totalBuildNanos;
+            this.jitWarmUpNanos = jitWarmUpNanos;
+            this.jitIterations = jitIterations;
+        }
+
+        /**
+         * The time taken to build each class, slowest first.
+         */
+        public Map<Class<?>, Long> getBuildNanos() {
+            return buildNanos;
+        }
+
+        /**
+         * Classes whose {@code ValueCreator} could not be built, or failed during the JIT warm-up loop.
+         */
+        public Map<Class<?>, Throwable> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Elapsed time to build all the classes.
+         */
+        public long getTotalBuildNanos() {
+            return totalBuildNanos;
+        }
+
+        public long getJitWarmUpNanos() {
+            return jitWarmUpNanos;
+        }
+
+        public int getJitIterations() {
+            return jitIterations;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Built %,d classes in %,dms", buildNanos.size(), totalBuildNanos / 1_000_000));
+            if (jitIterations > 0) {
+                sb.append(String.format(", JIT warm-up of %,d iterations took %,dms", jitIterations, jitWarmUpNanos / 1_000_000));
+            }
+            sb.append('\n');
+            for (Map.Entry<Class<?>, Long> entry : buildNanos.entrySet()) {
+                sb.append(String.format("%,10.2fms  %s\n", entry.getValue() / 1_000_000.0, entry.getKey().getName()));
+            }
+            for (Map.Entry<Class<?>, Throwable> entry : failures.entrySet()) {
+                sb.append(String.format("    FAILED  %s: %s\n", entry.getKey().getName(), entry.getValue()));
+            }
+            return sb.toString();
+        }
+    }
+
+    private WarmUp() {}
+
+    /**
+     * Build the classes and the classes they reference on the common fork-join pool, without a JIT warm-up loop.
+     */
+    public static Report warmUp(Class<?> ...classes) {
+        return warmUp(ForkJoinPool.commonPool(), 0, Arrays.asList(classes));
+    }
+
+    public static Report warmUp(ForkJoinPool pool, int jitIterations, Class<?> ...classes) {
+        return warmUp(pool, jitIterations, Arrays.asList(classes));
+    }
+
+    /**
+     * Build the {@code ValueCreator} for each of the classes and the classes they reference on the passed pool.
+     * If {@code jitIterations} is greater than zero, each class which can be created by its {@code ValueCreator} is then
+     * created and populated that many times.
+     */
+    public static Report warmUp(ForkJoinPool pool, int jitIterations, Collection<Class<?>> classes) {
+        Map<Class<?>, Set<Class<?>>> references = new HashMap<>();
+        List<Class<?>> toBuild = findReachableClasses(classes, references);
+        Map<Class<?>, Long> buildNanos = new ConcurrentHashMap<>();
+        Map<Class<?>, Throwable> failures = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (List<Class<?>> wave : groupIntoWaves(toBuild, references)) {
+            tasks.clear();
+            for (Class<?> clazz : wave) {
+                tasks.add(pool.submit(() -> {
+                    long classStart = System.nanoTime();
+                    try {
+                        ValueCreatorCache.getInstance().get(clazz);
+                        buildNanos.put(clazz, System.nanoTime() - classStart);
+                    }
+                    catch (RuntimeException | Error e) {
+                        failures.put(clazz, e);
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+        long totalBuildNanos = System.nanoTime() - start;
+
+        long jitNanos = 0;
+        if (jitIterations > 0) {
+            start = System.nanoTime();
+            tasks.clear();
+            for (Class<?> clazz : classes) {
+                if (!failures.containsKey(clazz)) {
+                    tasks.add(pool.submit(() -> {
+                        try {
+                            runJitWarmUp(clazz, jitIterations);
+                        }
+                        catch (RuntimeException | Error e) {
+                            failures.put(clazz, e);
+                        }
+                    }));
+                }
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+            jitNanos = System.nanoTime() - start;
+        }
+
+        Map<Class<?>, Long> sorted = new LinkedHashMap<>();
+        buildNanos.entrySet().stream()
+                .sorted(Map.Entry.<Class<?>, Long>comparingByValue().reversed())
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return new Report(sorted, new HashMap<>(failures), totalBuildNanos, jitNanos, jitIterations);
+    }
+
+    private static <T> void runJitWarmUp(Class<T> clazz, int iterations) {
+        ValueCreator<T> valueCreator = ValueCreatorCache.getInstance().get(clazz);
+        if (valueCreator == null || Modifier.isAbstract(clazz.getModifiers())) {
+            return;
+        }
+        try {
+            valueCreator.requiresConstructor();
+        }
+        catch (IllegalArgumentException e) {
+            // Needs a factory, which we do not have
+            return;
+        }
+        Map<String, Object> params = new HashMap<>();
+        for (long key = 1; key <= iterations; key++) {
+            params.put("Key", key);
+            valueCreator.createAndPopulate(params);
+        }
+    }
+
+    /**
+     * Returns the passed classes and every class reachable from them through fields which generate nested objects,
+     * with each class after the classes it references where the references do not form a cycle.
+     */
+    static List<Class<?>> findReachableClasses(Collection<Class<?>> classes) {
+        return findReachableClasses(classes, new HashMap<>());
+    }
+
+    /**
+     * As {@link #findReachableClasses(Collection)}, also filling in the model classes each class references.
+     */
+    static List<Class<?>> findReachableClasses(Collection<Class<?>> classes, Map<Class<?>, Set<Class<?>>> references) {
+        Set<Class<?>> result = new LinkedHashSet<>();
+        Set<Class<?>> visiting = new LinkedHashSet<>();
+        for (Class<?> clazz : classes) {
+            visit(clazz, visiting, result, references);
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Split the classes, ordered as returned by {@link #findReachableClasses(Collection)}, into waves which can each
+     * be built in parallel once the waves before them have been built. A class is in the wave after the latest of the
+     * classes it references. References to classes later in the order are part of a cycle and are ignored, as
+     * whichever class of the cycle is built first builds the others.
+     */
+    static List<List<Class<?>>> groupIntoWaves(List<Class<?>> classes, Map<Class<?>, Set<Class<?>>> references) {
+        Map<Class<?>, Integer> waveOf = new HashMap<>();
+        List<List<Class<?>>> waves = new ArrayList<>();
+        for (Class<?> clazz : classes) {
+            int wave = 0;
+            for (Class<?> referenced : references.getOrDefault(clazz, Collections.emptySet())) {
+                Integer referencedWave = waveOf.get(referenced);
+                if (referencedWave != null) {
+                    wave = Math.max(wave, referencedWave + 1);
+                }
+            }
+            waveOf.put(clazz, wave);
+            if (wave == waves.size()) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(clazz);
+        }
+        return waves;
+    }
+
+    private static void visit(Class<?> clazz, Set<Class<?>> visiting, Set<Class<?>> result,
+            Map<Class<?>, Set<Class<?>>> references) {
+        if (result.contains(clazz) || !visiting.add(clazz)) {
+            return;
+        }
+        for (Class<?> current = clazz; current != null && isModelClass(current); current = current.getSuperclass()) {
+            boolean magic = current.getAnnotation(GenMagic.class) != null;
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                GenObject genObject = field.getAnnotation(GenObject.class);
+                GenList genList = field.getAnnotation(GenList.class);
+                GenSet genSet = field.getAnnotation(GenSet.class);
+                if (genObject == null && genList == null && genSet == null && !magic) {
+                    continue;
+                }
+                List<Class<?>> referenced = new ArrayList<>();
+                addElementTypes(field.getGenericType(), referenced);
+                referenced.addAll(Arrays.asList(genObject != null ? genObject.subclasses() : new Class<?>[0]));
+                referenced.addAll(Arrays.asList(genList != null ? genList.subclasses() : new Class<?>[0]));
+                referenced.addAll(Arrays.asList(genSet != null ? genSet.subclasses() : new Class<?>[0]));
+                for (Class<?> type : referenced) {
+                    if (isModelClass(type)) {
+                        references.computeIfAbsent(clazz, key -> new LinkedHashSet<>()).add(type);
+                        visit(type, visiting, result, references);
+                    }
+                }
+            }
+        }
+        visiting.remove(clazz);
+        result.add(clazz);
+    }
+
+    private static void addElementTypes(Type type, List<Class<?>> types) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            if (clazz.isArray()) {
+                addElementTypes(clazz.getComponentType(), types);
+            }
+            else {
+                types.add(clazz);
+            }
+        }
+        else if (type instanceof ParameterizedType) {
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                addElementTypes(argument, types);
+            }
+        }
+        else if (type instanceof GenericArrayType) {
+            addElementTypes(((GenericArrayType) type).getGenericComponentType(), types);
+        }
+    }
+
+    /**
+     * Classes which are populated by a {@code ValueCreator} rather than generated as a single value.
+     */
+    private static boolean isModelClass(Class<?> clazz) {
+        if (clazz.isPrimitive() || clazz.isEnum() || clazz.isArray() || clazz.isInterface() || clazz.isAnnotation()) {
+            return false;
+        }
+        String packageName = clazz.getPackageName();
+        return !(packageName.startsWith("java.") || packageName.startsWith("javax."));
+    }
+}
@@ -0,0 +1,446 @@
+package com.aerospike.generator;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A mix of reads, updates and inserts against records which have already been loaded, run by
+ * {@link Generator#run(Workload)} on the generator's worker threads, like asbench does for its own record format.
+ * Each operation type has a weight and a callback. The callbacks do the actual work, such as reading or writing
+ * Aerospike, so the workload can drive any store.
+ * <ul>
+ * <li>Reads pick an id from the keys loaded so far with the key distribution and pass it to the read callback, with
+ * a null object.</li>
+ * <li>Updates pick an id the same way, generate the object for that id again and pass both to the update callback.</li>
+ * <li>Inserts take the next id after the loaded range, generate its object and pass both to the insert callback. The
+ * inserted ids become eligible for reads and updates.</li>
+ * </ul>
+ * The run stops after a number of operations, or after a duration, whichever comes first. The latency of each
+ * callback, not including generating its object, is recorded per operation type by each worker in its own
+ * {@link LatencyHistogram}, and combined when the latencies are asked for.
+ * <pre>
+ * Workload&lt;Customer&gt; workload = Workload.builder(Customer.class)
+ *         .keyRange(1, 1_000_000)
+ *         .keys(Workload.zipf(0.99))
+ *         .read(80, (id, ignored) -&gt; client.get(null, new Key("test", "customer", id)))
+ *         .update(15, (id, customer) -&gt; client.put(null, new Key("test", "customer", id), mapper.toBins(customer)))
+ *         .insert(5, (id, customer) -&gt; client.put(null, new Key("test", "customer", id), mapper.toBins(customer)))
+ *         .duration(Duration.ofMinutes(5))
+ *         .build();
+ * new Generator(Customer.class).run(workload).monitor();
+ * System.out.println(workload.getLatency(Workload.OperationType.READ));
+ * </pre>
+ */
+public class Workload<T> {
+    public enum OperationType {
+        READ, UPDATE, INSERT
+    }
+
+    /**
+     * Performs one operation of a workload. {@code object} is null for reads.
+     */
+    public interface Operation<T> {
+        void execute(long id, T object) throws Exception;
+    }
+
+    /**
+     * Chooses which of the loaded keys an operation uses.
+     */
+    public interface KeyDistribution {
+        /**
+         * Returns an index from 0 (inclusive) to {@code count} (exclusive).
+         */
+        long next(long count);
+    }
+
+    /**
+     * Every key is equally likely.
+     */
+    public static KeyDistribution uniform() {
+        return count -> ThreadLocalRandom.current().nextLong(count);
+    }
+
+    /**
+     * {@code hotProbability} of the operations use the first {@code hotFraction} of the keys, and the rest use the
+     * other keys. For example {@code hotSpot(0.1, 0.9)} sends 90% of the operations to 10% of the keys.
+     */
+    public static KeyDistribution hotSpot(double hotFraction, double hotProbability) {
+        if (hotFraction <= 0 || hotFraction >= 1 || hotProbability < 0 || hotProbability > 1) {
+            throw new IllegalArgumentException(String.format("hotFraction must be between 0 and 1 exclusive and hotProbability between 0 and 1, not %f and %f",
+                    hotFraction, hotProbability));
+        }
+        return count -> {
+            if (count <= 1) {
+                return 0;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long hotKeys = Math.max(1, Math.min(count - 1, (long) (count * hotFraction)));
+            return random.nextDouble() < hotProbability ? random.nextLong(hotKeys) : hotKeys + random.nextLong(count - hotKeys);
+        };
+    }
+
+    /**
+     * Keys follow a Zipf distribution, where the key at index {@code k} is used in proportion to
+     * {@code 1 / (k+1)^exponent}, so the lowest ids are the most popular. YCSB uses an exponent of 0.99.
+     */
+    public static KeyDistribution zipf(double exponent) {
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("The exponent of a zipf distribution must be positive, not " + exponent);
+        }
+        return new ZipfDistribution(exponent);
+    }
+
+    /**
+     * Samples a Zipf distribution by rejection-inversion (Hörmann and Derflinger), which takes constant time
+     * whatever the number of keys, so the number of keys can grow as records are inserted.
+     */
+    private static class ZipfDistribution implements KeyDistribution {
+        private final double exponent;
+
+        ZipfDistribution(double exponent) {
+            this.exponent = exponent;
+        }
+
+        @Override
+        public long next(long count) {
+            if (count <= 1) {
+                return 0;
+            }
+            double hIntegralX1 = hIntegral(1.5) - 1;
+            double hIntegralCount = hIntegral(count + 0.5);
+            double s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (true) {
+                double u = hIntegralCount + random.nextDouble() * (hIntegralX1 - hIntegralCount);
+                double x = hIntegralInverse(u);
+                long k = Math.max(1, Math.min(count, (long) (x + 0.5)));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k - 1;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        /** log(1+x)/x, accurate near 0 */
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        /** (exp(x)-1)/x, accurate near 0 */
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+
+    public static class Builder<T> {
+        private final Class<T> clazz;
+        private final Map<OperationType, Integer> weights = new EnumMap<>(OperationType.class);
+        private final Map<OperationType, Operation<T>> operations = new EnumMap<>(OperationType.class);
+        private long startId = 1;
+        private long endId = -1;
+        private KeyDistribution keys = uniform();
+        private long operationCount = Long.MAX_VALUE;
+        private Duration duration;
+        private int threads;
+        private Map<String, Object> params;
+
+        private Builder(Class<T> clazz) {
+            this.clazz = clazz;
+        }
+        /** The ids of the records already loaded, which reads and updates choose from */
+        public Builder<T> keyRange(long startId, long endId) {
+            this.startId = startId;
+            this.endId = endId;
+            return this;
+        }
+        /** How reads and updates choose their key. Defaults to uniform */
+        public Builder<T> keys(KeyDistribution keys) {
+            this.keys = keys;
+            return this;
+        }
+        public Builder<T> read(int weight, Operation<T> operation) {
+            return operation(OperationType.READ, weight, operation);
+        }
+        public Builder<T> update(int weight, Operation<T> operation) {
+            return operation(OperationType.UPDATE, weight, operation);
+        }
+        public Builder<T> insert(int weight, Operation<T> operation) {
+            return operation(OperationType.INSERT, weight, operation);
+        }
+        public Builder<T> operation(OperationType type, int weight, Operation<T> operation) {
+            if (weight < 0) {
+                throw new IllegalArgumentException(String.format("The weight of %s must not be negative, not %d", type, weight));
+            }
+            if (weight > 0 && operation == null) {
+                throw new IllegalArgumentException(String.format("%s has a weight of %d but no operation", type, weight));
+            }
+            weights.put(type, weight);
+            operations.put(type, operation);
+            return this;
+        }
+        /** Stop after this many operations */
+        public Builder<T> operations(long operationCount) {
+            this.operationCount = operationCount;
+            return this;
+        }
+        /** Stop once this much time has passed */
+        public Builder<T> duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+        /** The number of worker threads. Defaults to the number of processors */
+        public Builder<T> threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+        /** Parameters passed to the generation of objects for updates and inserts, as for {@code Generator.generate} */
+        public Builder<T> params(Map<String, Object> params) {
+            this.params = params;
+            return this;
+        }
+        public Workload<T> build() {
+            if (endId < startId) {
+                throw new IllegalArgumentException("The loaded keys must be given by keyRange");
+            }
+            if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+                throw new IllegalArgumentException("At least one of read, update or insert must have a positive weight");
+            }
+            if (operationCount == Long.MAX_VALUE && duration == null) {
+                throw new IllegalArgumentException("The workload must be bounded by a number of operations or a duration");
+            }
+            return new Workload<>(this);
+        }
+    }
+
+    public static <T> Builder<T> builder(Class<T> clazz) {
+        return new Builder<>(clazz);
+    }
+
+    private static final OperationType[] TYPES = OperationType.values();
+
+    private final Class<T> clazz;
+    private final long startId;
+    private final long endId;
+    private final KeyDistribution keys;
+    private final long operationCount;
+    private final Duration duration;
+    private final int threads;
+    private final Map<String, Object> params;
+    private final Operation<T>[] operations;
+    /** The cumulative weights of the operation types, in the order of {@code TYPES} */
+    private final int[] cumulativeWeights;
+    private final AtomicLong nextInsertId = new AtomicLong();
+    /** The id each worker is inserting, or {@code Long.MAX_VALUE}, so reads and updates do not pick it too soon */
+    private volatile AtomicLongArray inserting = new AtomicLongArray(0);
+    private final AtomicInteger workers = new AtomicInteger();
+    private final List<LatencyHistogram[]> workerLatencies = new CopyOnWriteArrayList<>();
+    private final LongAdder[] failures = new LongAdder[TYPES.length];
+    private volatile long deadlineNanos;
+
+    @SuppressWarnings("unchecked")
+    private Workload(Builder<T> builder) {
+        this.clazz = builder.clazz;
+        this.startId = builder.startId;
+        this.endId = builder.endId;
+        this.keys = builder.keys;
+        this.operationCount = builder.operationCount;
+        this.duration = builder.duration;
+        this.threads = builder.threads;
+        this.params = builder.params;
+        this.operations = new Operation[TYPES.length];
+        this.cumulativeWeights = new int[TYPES.length];
+        int total = 0;
+        for (OperationType type : TYPES) {
+            total += builder.weights.getOrDefault(type, 0);
+            cumulativeWeights[type.ordinal()] = total;
+            operations[type.ordinal()] = builder.operations.get(type);
+            failures[type.ordinal()] = new LongAdder();
+        }
+    }
+
+    public Class<T> getWorkloadClass() {
+        return clazz;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * The number of operations to run, or {@code Long.MAX_VALUE} if the workload is only bounded by its duration.
+     */
+    public long getOperationCount() {
+        return operationCount;
+    }
+
+    /**
+     * Called by the generator before the workers start.
+     */
+    void start(int threads) {
+        nextInsertId.set(endId + 1);
+        inserting = new AtomicLongArray(threads);
+        for (int i = 0; i < threads; i++) {
+            inserting.set(i, Long.MAX_VALUE);
+        }
+        workers.set(0);
+        workerLatencies.clear();
+        for (LongAdder failure : failures) {
+            failure.reset();
+        }
+        deadlineNanos = duration == null ? Long.MAX_VALUE : System.nanoTime() + duration.toNanos();
+    }
+
+    /** The time the run must stop by, from {@code System.nanoTime}, or {@code Long.MAX_VALUE} if it has no duration */
+    long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * Run operations on the calling thread until {@code issued} passes {@code lastOperation} or the duration is up.
+     * Called by each of the generator's workers.
+     */
+    void runWorker(ValueCreator<T> valueCreator, boolean recycle, AtomicLong issued, long lastOperation,
+            AtomicLong success, ErrorPipeline errorPipeline) {
+        LatencyHistogram[] latencies = new LatencyHistogram[TYPES.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        workerLatencies.add(latencies);
+        int worker = workers.getAndIncrement();
+        Map<String, Object> generationParams = params != null ? new HashMap<>(params) : new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+        T recycled = null;
+        while (!errorPipeline.isAborted() && issued.getAndIncrement() <= lastOperation && System.nanoTime() < deadlineNanos) {
+            int choice = random.nextInt(totalWeight);
+            int type = 0;
+            while (choice >= cumulativeWeights[type]) {
+                type++;
+            }
+            long id = -1;
+            Generator.Stage stage = Generator.Stage.POPULATE;
+            try {
+                T object = null;
+                if (TYPES[type] == OperationType.INSERT) {
+                    // Published before the id is taken, so no other worker can see the id without seeing it is in progress
+                    inserting.set(worker, nextInsertId.get());
+                    id = nextInsertId.getAndIncrement();
+                    inserting.set(worker, id);
+                }
+                else {
+                    id = startId + keys.next(insertedBefore() - startId);
+                }
+                if (TYPES[type] != OperationType.READ) {
+                    generationParams.put("Key", id);
+                    object = recycled != null ? valueCreator.recycle(recycled, generationParams, false)
+                            : valueCreator.createAndPopulate(generationParams);
+                    if (recycle && valueCreator.canRecycle(object)) {
+                        recycled = object;
+                    }
+                }
+                stage = Generator.Stage.PROCESS;
+                long start = System.nanoTime();
+                for (int retry = 1; ; retry++) {
+                    try {
+                        operations[type].execute(id, object);
+                        break;
+                    }
+                    catch (Exception e) {
+                        if (!errorPipeline.retry(retry, e)) {
+                            throw e;
+                        }
+                    }
+                }
+                latencies[type].record(System.nanoTime() - start);
+                success.incrementAndGet();
+            }
+            catch (Exception e) {
+                failures[type].increment();
+                errorPipeline.failed(id, stage, e);
+            }
+            finally {
+                if (TYPES[type] == OperationType.INSERT) {
+                    inserting.set(worker, Long.MAX_VALUE);
+                }
+            }
+        }
+    }
+
+    /**
+     * The first id which may not have been inserted yet. Reads and updates pick ids below it.
+     */
+    private long insertedBefore() {
+        long result = nextInsertId.get();
+        AtomicLongArray current = inserting;
+        for (int i = 0; i < current.length(); i++) {
+            result = Math.min(result, current.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * The latencies of the operations of a type which succeeded, combined across the workers.
+     */
+    public LatencyHistogram getLatency(OperationType type) {
+        LatencyHistogram result = new LatencyHistogram();
+        for (LatencyHistogram[] latencies : workerLatencies) {
+            result.add(latencies[type.ordinal()]);
+        }
+        return result;
+    }
+
+    /**
+     * The number of operations of a type which succeeded.
+     */
+    public long getCount(OperationType type) {
+        return getLatency(type).getCount();
+    }
+
+    /**
+     * The number of operations of a type whose callback, or the generation of its object, threw an exception.
+     */
+    public long getFailures(OperationType type) {
+        return failures[type.ordinal()].sum();
+    }
+
+    /**
+     * The id the next insert will use.
+     */
+    public long getNextInsertId() {
+        return nextInsertId.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (OperationType type : TYPES) {
+            if (operations[type.ordinal()] != null) {
+                sb.append(sb.length() == 0 ? "" : "\n").append(type).append(": ").append(getLatency(type))
+                        .append(String.format(", failed %,d", getFailures(type)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -3,6 +3,7 @@ package com.aerospike.generator.annotations;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.HashMap;
@@ -25,27 +26,10 @@ public class AnnotationEvaluator {
      */
     public static Object evaluate(String annotationName, Map<String, Object> parameters, Map<String, Object> globalParams, boolean returnString) {
         try {
-            // Map annotation names to their classes and processors
-            AnnotationInfo info = getAnnotationInfo(annotationName);
-            if (info == null) {
-                throw new IllegalArgumentException("Unsupported annotation: @" + annotationName);
-            }
-            
             // Resolve parameter references in the annotation parameters
             Map<String, Object> resolvedParameters = resolveParameterReferences(parameters, globalParams);
             
-            // Create a dynamic annotation proxy
-            Object annotation = createAnnotationProxy(info.annotationClass, resolvedParameters);
-            
-            // Create the processor and evaluate
-            Constructor<?> processorConstructor = info.processorClass.getConstructor(
-                info.annotationClass, FieldType.class, Field.class);
-            
-            // Create a dummy field for the processor
-            Field dummyField = createDummyField();
-            
-            Processor processor = (Processor) processorConstructor.newInstance(
-                annotation, info.fieldType, dummyField);
+            Processor processor = createProcessor(annotationName, resolvedParameters, null);
             
             return processor.process(parameters);
             
@@ -54,6 +38,42 @@ public class AnnotationEvaluator {
         }
     }
     
+    /**
+     * Creates the processor an annotation would have on a field, with the annotation's attributes taken from a map.
+     * Attributes missing from the map take their default values.
+     * 
+     * @param annotationName The name of the annotation (e.g., "GenNumber", "GenString")
+     * @param parameters The attributes of the annotation
+     * @param fieldType The type of value to generate, or null for the usual type for the annotation
+     * @return The processor
+     * @throws IllegalArgumentException if the annotation is not supported or the attributes are invalid
+     */
+    public static Processor createProcessor(String annotationName, Map<String, Object> parameters, FieldType fieldType) {
+        // Map annotation names to their classes and processors
+        AnnotationInfo info = getAnnotationInfo(annotationName);
+        if (info == null) {
+            throw new IllegalArgumentException("Unsupported annotation: @" + annotationName);
+        }
+        
+        // Create a dynamic annotation proxy
+        Object annotation = createAnnotationProxy(info.annotationClass, parameters);
+        
+        try {
+            // Create the processor, with a dummy field
+            Constructor<?> processorConstructor = info.processorClass.getConstructor(
+                info.annotationClass, FieldType.class, Field.class);
+            return (Processor) processorConstructor.newInstance(
+                annotation, fieldType == null ? info.fieldType : fieldType, createDummyField());
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalArgumentException("Failed to create processor for @" + annotationName, e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Failed to create processor for @" + annotationName, e);
+        }
+    }
+    
     private static AnnotationInfo getAnnotationInfo(String annotationName) {
         switch (annotationName) {
             case "GenNumber":
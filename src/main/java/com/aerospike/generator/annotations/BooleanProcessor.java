@@ -0,0 +1,11 @@
+package com.aerospike.generator.annotations;
+
+import java.util.Map;
+
+/**
+ * A {@link Processor} which can generate its values as a primitive {@code boolean} without boxing. This is used when the
+ * field being populated is a {@code boolean}.
+ */
+public interface BooleanProcessor extends Processor {
+    boolean processBoolean(Map<String, Object> params);
+}
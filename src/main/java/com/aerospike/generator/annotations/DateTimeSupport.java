@@ -0,0 +1,251 @@
+package com.aerospike.generator.annotations;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared date and time conversion used by {@link GenDateProcessor} and the {@code DATE()} expression function.
+ * <p/>
+ * Formatters are compiled once per pattern and cached. The rules of the system time zone are resolved once into
+ * a table of offset transitions, so converting an epoch millisecond value into a civil date and time is a binary
+ * search plus integer arithmetic rather than a {@code ZoneId} lookup and a chain of {@code java.time} conversions.
+ * A small set of common ISO patterns are also written directly without going through a {@code DateTimeFormatter}.
+ */
+public class DateTimeSupport {
+    public static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long MILLIS_PER_DAY = SECONDS_PER_DAY * 1000;
+    // Transitions outside of this range are looked up from the zone rules directly
+    private static final long TABLE_START = LocalDate.of(1900, 1, 1).toEpochDay() * SECONDS_PER_DAY;
+    private static final long TABLE_END = LocalDate.of(2100, 1, 1).toEpochDay() * SECONDS_PER_DAY;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final Map<String, CachedFormat> FORMATS = new ConcurrentHashMap<>();
+    private static final CachedFormat LOCALIZED_SHORT = new CachedFormat(null, DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT));
+
+    private DateTimeSupport() {}
+
+    /**
+     * Table of the offset transitions of a time zone. Each entry in {@code transitions} is the epoch second at which
+     * the offset changes to the corresponding entry in {@code offsets}. The table of the system time zone is built
+     * lazily, other zones are only used by the tests.
+     */
+    static class TransitionTable {
+        private final ZoneRules rules;
+        private final boolean fixedOffset;
+        private final long[] transitions;
+        private final int[] offsets;
+        private final int initialOffset;
+
+        TransitionTable(ZoneId zone) {
+            this.rules = zone.getRules();
+            this.fixedOffset = rules.isFixedOffset();
+            List<ZoneOffsetTransition> list = new ArrayList<>();
+            ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(TABLE_START));
+            while (transition != null && transition.toEpochSecond() < TABLE_END) {
+                list.add(transition);
+                transition = rules.nextTransition(transition.getInstant());
+            }
+            transitions = new long[list.size()];
+            offsets = new int[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                transitions[i] = list.get(i).toEpochSecond();
+                offsets[i] = list.get(i).getOffsetAfter().getTotalSeconds();
+            }
+            initialOffset = rules.getOffset(Instant.ofEpochSecond(TABLE_START)).getTotalSeconds();
+        }
+
+        /** Returns the offset from UTC in seconds at the passed time */
+        int offsetSeconds(long epochMillis) {
+            if (fixedOffset) {
+                return initialOffset;
+            }
+            long epochSecond = Math.floorDiv(epochMillis, 1000);
+            if (epochSecond < TABLE_START || epochSecond >= TABLE_END) {
+                return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+            }
+            int low = 0;
+            int high = transitions.length - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (transitions[mid] <= epochSecond) {
+                    found = mid;
+                    low = mid + 1;
+                }
+                else {
+                    high = mid - 1;
+                }
+            }
+            return found < 0 ? initialOffset : offsets[found];
+        }
+    }
+
+    private static class SystemZone {
+        private static final TransitionTable TABLE = new TransitionTable(ZONE);
+    }
+
+    /**
+     * A pattern compiled once. Patterns which match a well known ISO layout are written out directly, everything else
+     * is delegated to the compiled {@code DateTimeFormatter}.
+     */
+    public static class CachedFormat {
+        private enum Layout { DATE, DATE_TIME, DATE_T_TIME, TIME, OTHER }
+
+        private final Layout layout;
+        private final DateTimeFormatter formatter;
+
+        private CachedFormat(String pattern, DateTimeFormatter formatter) {
+            this.formatter = formatter;
+            if (pattern == null) {
+                this.layout = Layout.OTHER;
+            }
+            else {
+                switch (pattern) {
+                case "yyyy-MM-dd":              this.layout = Layout.DATE; break;
+                case "yyyy-MM-dd HH:mm:ss":     this.layout = Layout.DATE_TIME; break;
+                case "yyyy-MM-dd'T'HH:mm:ss":   this.layout = Layout.DATE_T_TIME; break;
+                case "HH:mm:ss":                this.layout = Layout.TIME; break;
+                default:                        this.layout = Layout.OTHER;
+                }
+            }
+        }
+
+        public DateTimeFormatter getFormatter() {
+            return formatter;
+        }
+
+        /**
+         * Format the passed epoch millisecond time in the system time zone.
+         */
+        public String format(long epochMillis) {
+            if (layout == Layout.OTHER) {
+                return formatter.format(toLocalDateTime(epochMillis));
+            }
+            long localMillis = toLocalMillis(epochMillis);
+            long epochDay = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+            int secondOfDay = (int) (Math.floorMod(localMillis, MILLIS_PER_DAY) / 1000);
+            switch (layout) {
+            case DATE:
+                if (isFourDigitYear(epochDay)) {
+                    return appendDate(new StringBuilder(10), epochDay).toString();
+                }
+                break;
+            case DATE_TIME:
+            case DATE_T_TIME:
+                if (isFourDigitYear(epochDay)) {
+                    StringBuilder sb = appendDate(new StringBuilder(19), epochDay);
+                    sb.append(layout == Layout.DATE_TIME ? ' ' : 'T');
+                    return appendTime(sb, secondOfDay).toString();
+                }
+                break;
+            case TIME:
+                return appendTime(new StringBuilder(8), secondOfDay).toString();
+            default:
+            }
+            return formatter.format(toLocalDateTime(epochMillis));
+        }
+    }
+
+    /**
+     * Get the compiled format for the passed pattern, compiling and caching it if this pattern has not been seen before.
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static CachedFormat getFormat(String pattern) {
+        CachedFormat format = FORMATS.get(pattern);
+        if (format == null) {
+            format = FORMATS.computeIfAbsent(pattern, p -> new CachedFormat(p, DateTimeFormatter.ofPattern(p)));
+        }
+        return format;
+    }
+
+    /**
+     * The format used when no pattern is specified: the localized short date and time format.
+     */
+    public static CachedFormat getDefaultFormat() {
+        return LOCALIZED_SHORT;
+    }
+
+    public static ZoneId getZone() {
+        return ZONE;
+    }
+
+    /**
+     * Returns the offset from UTC in seconds of the system time zone at the passed time.
+     */
+    public static int offsetSeconds(long epochMillis) {
+        return SystemZone.TABLE.offsetSeconds(epochMillis);
+    }
+
+    public static LocalDate toLocalDate(long epochMillis) {
+        return LocalDate.ofEpochDay(Math.floorDiv(toLocalMillis(epochMillis), MILLIS_PER_DAY));
+    }
+
+    public static LocalTime toLocalTime(long epochMillis) {
+        return LocalTime.ofNanoOfDay(Math.floorMod(toLocalMillis(epochMillis), MILLIS_PER_DAY) * 1_000_000L);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        long localMillis = toLocalMillis(epochMillis);
+        return LocalDateTime.of(LocalDate.ofEpochDay(Math.floorDiv(localMillis, MILLIS_PER_DAY)),
+                LocalTime.ofNanoOfDay(Math.floorMod(localMillis, MILLIS_PER_DAY) * 1_000_000L));
+    }
+
+    private static long toLocalMillis(long epochMillis) {
+        return epochMillis + offsetSeconds(epochMillis) * 1000L;
+    }
+
+    private static boolean isFourDigitYear(long epochDay) {
+        // 0001-01-01 to 9999-12-31
+        return epochDay >= -719162L && epochDay <= 2932896L;
+    }
+
+    /**
+     * Append the epoch day as yyyy-MM-dd. This uses the civil-from-days algorithm which works in 400 year eras of
+     * 146097 days starting on 0000-03-01 so that the leap day falls at the end of the year.
+     */
+    static StringBuilder appendDate(StringBuilder sb, long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra/1460 + dayOfEra/36524 - dayOfEra/146096) / 365;
+        long dayOfYear = dayOfEra - (365*yearOfEra + yearOfEra/4 - yearOfEra/100);
+        long monthPrime = (5*dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153*monthPrime + 2)/5 + 1);
+        int month = (int) (monthPrime < 10 ? monthPrime + 3 : monthPrime - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        appendDigits(sb, year, 4).append('-');
+        appendDigits(sb, month, 2).append('-');
+        return appendDigits(sb, day, 2);
+    }
+
+    static StringBuilder appendTime(StringBuilder sb, int secondOfDay) {
+        appendDigits(sb, secondOfDay / 3600, 2).append(':');
+        appendDigits(sb, (secondOfDay / 60) % 60, 2).append(':');
+        return appendDigits(sb, secondOfDay % 60, 2);
+    }
+
+    private static StringBuilder appendDigits(StringBuilder sb, int value, int digits) {
+        int divisor = 1;
+        for (int i = 1; i < digits; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            sb.append((char)('0' + (value / divisor) % 10));
+        }
+        return sb;
+    }
+}
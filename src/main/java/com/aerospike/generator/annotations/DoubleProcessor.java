@@ -0,0 +1,11 @@
+package com.aerospike.generator.annotations;
+
+import java.util.Map;
+
+/**
+ * A {@link Processor} which can generate its values as a primitive {@code double} without boxing. This is used when the
+ * field being populated is a {@code double}.
+ */
+public interface DoubleProcessor extends Processor {
+    double processDouble(Map<String, Object> params);
+}
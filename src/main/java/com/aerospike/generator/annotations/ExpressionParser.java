@@ -1,13 +1,10 @@
 package com.aerospike.generator.annotations;
 
 import java.lang.reflect.Field;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -251,20 +248,53 @@ public class ExpressionParser {
             }
 
             // Convert to numbers for arithmetic operations
-            long leftNum = toLong(leftValue);
-            long rightNum = toLong(rightValue);
+            long result = apply(op, toLong(leftValue), toLong(rightValue));
+            return returnString ? String.valueOf(result) : result;
+        }
 
+        private static long apply(BinaryOp op, long leftNum, long rightNum) {
             switch (op) {
-                case ADD: return returnString ? String.valueOf(leftNum + rightNum) : leftNum + rightNum;
-                case SUBTRACT: return returnString ? String.valueOf(leftNum - rightNum) : leftNum - rightNum;
-                case MULTIPLY: return returnString ? String.valueOf(leftNum * rightNum) : leftNum * rightNum;
-                case DIVIDE: return returnString ? String.valueOf(leftNum / rightNum) : leftNum / rightNum;
-                case MODULO: return returnString ? String.valueOf(leftNum % rightNum) : leftNum % rightNum;
-                case POWER: return returnString ? String.valueOf((long) Math.pow(leftNum, rightNum)) : (long) Math.pow(leftNum, rightNum);
+                case ADD: return leftNum + rightNum;
+                case SUBTRACT: return leftNum - rightNum;
+                case MULTIPLY: return leftNum * rightNum;
+                case DIVIDE: return leftNum / rightNum;
+                case MODULO: return leftNum % rightNum;
+                case POWER: return (long) Math.pow(leftNum, rightNum);
                 default: throw new IllegalStateException("Unknown operator: " + op);
             }
         }
 
+        /**
+         * Evaluate the node as a primitive long. Numbers, arithmetic and parameters are evaluated without boxing the
+         * intermediate values, any other node is evaluated through the visitor and converted.
+         * @param operand true if the node is an operand of an arithmetic operation, where strings are parsed as
+         * numbers, false if it is the whole expression, where a string result is an error
+         */
+        long evaluateLong(Node node, boolean operand) {
+            if (node instanceof NumberNode) {
+                return ((NumberNode)node).value;
+            }
+            if (node instanceof BinaryNode && ((BinaryNode)node).op != BinaryOp.CONCAT) {
+                BinaryNode binary = (BinaryNode)node;
+                return apply(binary.op, evaluateLong(binary.left, true), evaluateLong(binary.right, true));
+            }
+            if (node instanceof ParameterNode) {
+                String name = ((ParameterNode)node).name;
+                Object value = parameters.get(name);
+                if (value instanceof AtomicLong) {
+                    return ((AtomicLong)value).incrementAndGet();
+                }
+                if (value instanceof Long) {
+                    return (Long)value;
+                }
+            }
+            Object result = node.accept(this);
+            if (!operand && result instanceof String) {
+                throw new IllegalArgumentException("Expected to get a numeric result, but received a string of: " + result);
+            }
+            return toLong(result);
+        }
+
         @Override
         public Object visitParameter(String name) {
             Object value = parameters.get(name);
@@ -297,16 +327,12 @@ public class ExpressionParser {
                     Object timestamp = args[0].accept(this);
                     long time = toLong(timestamp);
                     
-                    String format = "yyyy-MM-dd";
+                    String format = DateTimeSupport.DEFAULT_DATE_PATTERN;
                     if (args.length == 2) {
                         Object formatObj = args[1].accept(this);
                         format = String.valueOf(formatObj);
                     }
-                    
-                    LocalDateTime dateTime = LocalDateTime.ofInstant(
-                        Instant.ofEpochMilli(time), ZoneId.systemDefault());
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-                    return dateTime.format(formatter);
+                    return DateTimeSupport.getFormat(format).format(time);
 
                 case "PAD":
                     if (args.length != 3) {
@@ -337,7 +363,7 @@ public class ExpressionParser {
 
                 case "UUID":
                     if (args.length == 0) {
-                        return UUID.randomUUID().toString();
+                        return RandomSource.randomUUID().toString();
                     }
                     else if (args.length == 1) {
                         Object modifier = args[0].accept(this);
@@ -373,10 +399,21 @@ public class ExpressionParser {
                     throw new IllegalArgumentException("Object '" + objectName + "' not found in parameter map");
                 }
                 
-                // Use reflection to access the field
-                Field field = obj.getClass().getDeclaredField(propertyName);
-                field.setAccessible(true);
-                Object value = field.get(obj);
+                Object value;
+                if (obj instanceof Map) {
+                    // Objects created through their constructor expose the values generated so far as a map
+                    Map<?, ?> values = (Map<?, ?>) obj;
+                    if (!values.containsKey(propertyName)) {
+                        throw new IllegalArgumentException("'" + propertyName + "' has not been generated yet");
+                    }
+                    value = values.get(propertyName);
+                }
+                else {
+                    // Use reflection to access the field, which may be declared on a superclass
+                    Field field = findField(obj.getClass(), propertyName);
+                    field.setAccessible(true);
+                    value = field.get(obj);
+                }
                 
                 // If this is array access, get the element at the specified index
                 if (indexExpression != null) {
@@ -410,6 +447,51 @@ public class ExpressionParser {
         }
     }
 
+    /**
+     * Find the field with the passed name on the class or the nearest of its superclasses which declares it.
+     */
+    static Field findField(Class<?> clazz, String name) throws NoSuchFieldException {
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            }
+            catch (NoSuchFieldException ignored) {
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+    
+    /**
+     * Returns the names of the properties of the passed object which are read by the expression, for example 
+     * {@code $obj.balance * 2} references {@code balance} on {@code obj}.
+     */
+    public static Set<String> findObjectReferences(Node node, String objectName) {
+        Set<String> references = new LinkedHashSet<>();
+        collectObjectReferences(node, objectName, references);
+        return references;
+    }
+    
+    private static void collectObjectReferences(Node node, String objectName, Set<String> references) {
+        if (node instanceof ObjectPropertyNode) {
+            ObjectPropertyNode property = (ObjectPropertyNode)node;
+            if (objectName.equals(property.objectName)) {
+                references.add(property.propertyName);
+            }
+            if (property.indexExpression != null) {
+                collectObjectReferences(property.indexExpression, objectName, references);
+            }
+        }
+        else if (node instanceof BinaryNode) {
+            collectObjectReferences(((BinaryNode)node).left, objectName, references);
+            collectObjectReferences(((BinaryNode)node).right, objectName, references);
+        }
+        else if (node instanceof FunctionNode) {
+            for (Node argument : ((FunctionNode)node).arguments) {
+                collectObjectReferences(argument, objectName, references);
+            }
+        }
+    }
+    
     // Parser implementation
     private static class Parser {
         private final String input;
@@ -796,6 +878,13 @@ public class ExpressionParser {
         return parser.parse();
     }
     
+    /**
+     * Evaluate the expression to a number without boxing the result or, where possible, any intermediate values.
+     */
+    public long evaluateLong(Node ast, Map<String, Object> parameters) {
+        return new ExpressionEvaluator(parameters, false).evaluateLong(ast, false);
+    }
+    
     public Object evaluate(Node ast, Map<String, Object> parameters, boolean returnString) {
         ExpressionEvaluator evaluator = new ExpressionEvaluator(parameters, returnString);
         Object result = ast.accept(evaluator);
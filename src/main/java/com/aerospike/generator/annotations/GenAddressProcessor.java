@@ -8,7 +8,7 @@ import com.github.javafaker.Address;
 import com.github.javafaker.Faker;
 
 public class GenAddressProcessor implements Processor {
-    private final Address address = Faker.instance().address();
+    private final Address address = new Faker(RandomSource.shared()).address();
     private final AddressPart part;
     public GenAddressProcessor(GenAddress addr, FieldType fieldType, Field field) {
         this(addr.value(), fieldType);
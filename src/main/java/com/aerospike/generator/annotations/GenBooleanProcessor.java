@@ -2,9 +2,8 @@ package com.aerospike.generator.annotations;
 
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
-public class GenBooleanProcessor implements Processor {
+public class GenBooleanProcessor implements BooleanProcessor {
     private final WeightedList list;
 
     public GenBooleanProcessor(GenBoolean value, FieldType fieldType, Field field) {
@@ -25,12 +24,22 @@ public class GenBooleanProcessor implements Processor {
     @Override
     public Object process(Map<String, Object> params) {
         if (list == null) {
-            return ThreadLocalRandom.current().nextBoolean();
+            return RandomSource.nextBoolean();
         }
         else {
             return list.selectRandom();
         }
     }
+    
+    @Override
+    public boolean processBoolean(Map<String, Object> params) {
+        if (list == null) {
+            return RandomSource.nextBoolean();
+        }
+        else {
+            return (Boolean) list.selectRandom();
+        }
+    }
     public boolean supports(FieldType fieldType) {
         return fieldType == FieldType.BOOLEAN;
     }
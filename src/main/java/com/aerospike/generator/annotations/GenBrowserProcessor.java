@@ -2,7 +2,6 @@ package com.aerospike.generator.annotations;
 
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 import com.aerospike.generator.annotations.GenBrowser.BrowserType;
 import com.github.javafaker.Faker;
@@ -10,7 +9,7 @@ import com.github.javafaker.Internet;
 import com.github.javafaker.Internet.UserAgent;
 
 public class GenBrowserProcessor implements Processor {
-    private final Internet internet = Faker.instance().internet();
+    private final Internet internet = new Faker(RandomSource.shared()).internet();
     private final BrowserType type;
     
     public GenBrowserProcessor(GenBrowser browser, FieldType fieldType, Field field) {
@@ -32,7 +31,7 @@ public class GenBrowserProcessor implements Processor {
         case NAME:
         default:
             UserAgent[] userAgents = Internet.UserAgent.values();
-            return userAgents[ThreadLocalRandom.current().nextInt(userAgents.length)].toString();
+            return userAgents[RandomSource.nextInt(userAgents.length)].toString();
         }
     }
     public boolean supports(FieldType fieldType) {
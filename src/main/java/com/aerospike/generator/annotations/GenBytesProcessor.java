@@ -2,7 +2,6 @@ package com.aerospike.generator.annotations;
 
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class GenBytesProcessor implements Processor {
 
@@ -42,10 +41,10 @@ public class GenBytesProcessor implements Processor {
             lengthToGenerate = length;
         }
         else {
-            lengthToGenerate = ThreadLocalRandom.current().nextInt(minLength, maxLength +1);
+            lengthToGenerate = RandomSource.nextInt(minLength, maxLength +1);
         }
         byte[] bytes = new byte[lengthToGenerate];
-        ThreadLocalRandom.current().nextBytes(bytes);
+        RandomSource.nextBytes(bytes);
         return bytes;
     }
     
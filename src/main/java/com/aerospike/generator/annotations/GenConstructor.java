@@ -0,0 +1,33 @@
+package com.aerospike.generator.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks how objects of a class are created when the generated values must be passed in rather than set on the fields
+ * afterwards, for example for immutable classes. It can be placed on:
+ * <ul>
+ * <li>a constructor, which is passed the generated values of the fields named by its parameters</li>
+ * <li>a static factory method returning the class, which is passed the values the same way</li>
+ * <li>a static method with no parameters returning a builder. The builder must have a {@code build()} method
+ * returning the class, and the value of each generated field is passed to its method named {@code field},
+ * {@code setField} or {@code withField}</li>
+ * </ul>
+ * The parameters are matched to fields by name. The names are taken from {@code value} if it is given, otherwise
+ * from the parameters themselves, which requires the class to be compiled with {@code -parameters}. Records are
+ * created through their canonical constructor without needing this annotation.
+ * <p/>
+ * Parameters for fields which have no generator are passed {@code null}, or zero for primitives. Generated fields
+ * which are not passed to the constructor are set on the object after it has been created.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.CONSTRUCTOR, ElementType.METHOD})
+public @interface GenConstructor {
+    /**
+     * The names of the fields passed to each parameter, in parameter order. For a builder, the fields to pass to
+     * the builder, otherwise every generated field the builder has a method for.
+     */
+    String[] value() default {};
+}
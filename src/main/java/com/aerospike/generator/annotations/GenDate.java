@@ -11,4 +11,6 @@ public @interface GenDate {
     String start();
     String end();
     int percentNull() default 0;
+    /** The {@code DateTimeFormatter} pattern used when the field is a String. If empty, the localized short date and time format is used */
+    String format() default "";
 }
@@ -4,34 +4,34 @@ import java.lang.reflect.Field;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 
-public class GenDateProcessor implements Processor {
+public class GenDateProcessor implements LongProcessor {
     private final long startTime;
     private final long endTime;
     private final int percentNull;
     private final FieldType fieldType;
-    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT);
+    private final DateTimeSupport.CachedFormat format;
     
     public GenDateProcessor(GenDate genDate, FieldType fieldType, Field field) {
-        this(genDate.start(), genDate.end(), genDate.percentNull(), fieldType);
+        this(genDate.start(), genDate.end(), genDate.percentNull(), genDate.format(), fieldType);
     }
     
     public GenDateProcessor(String startDate, String endDate, int percentNull, FieldType fieldType) {
+        this(startDate, endDate, percentNull, null, fieldType);
+    }
+    
+    public GenDateProcessor(String startDate, String endDate, int percentNull, String format, FieldType fieldType) {
         this.startTime = parseDate(startDate);
         this.endTime = parseDate(endDate);
         this.percentNull = percentNull;
         this.fieldType = fieldType;
+        this.format = (format == null || format.isEmpty()) ? DateTimeSupport.getDefaultFormat() : DateTimeSupport.getFormat(format);
         if (startTime > endTime) {
             throw new IllegalArgumentException(String.format("start date (%d) > end date (%d)", startTime, endTime));
         }
@@ -199,36 +199,37 @@ public class GenDateProcessor implements Processor {
         }
     }
     
-    public Object process(Map<String, Object> params) {
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        long time;
-        if (random.nextInt(101) < this.percentNull) {
-            time = 0;
+    /**
+     * Returns the generated time in milliseconds since the epoch, or 0 if the value should be null
+     */
+    @Override
+    public long processLong(Map<String, Object> params) {
+        if (RandomSource.nextInt(101) < this.percentNull) {
+            return 0;
         }
         else {
-            time = random.nextLong(this.startTime, this.endTime+1);
+            return RandomSource.nextLong(this.startTime, this.endTime+1);
         }
+    }
+    
+    @Override
+    public Object process(Map<String, Object> params) {
+        long time = processLong(params);
         switch (this.fieldType) {
         case DATE:
             return time == 0 ? null : new Date(time);
         case LONG:
             return time;
         case LOCALDATE:
-            return time == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()).toLocalDate();
+            return time == 0 ? null : DateTimeSupport.toLocalDate(time);
         case LOCALDATETIME:
-            return time == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+            return time == 0 ? null : DateTimeSupport.toLocalDateTime(time);
         case LOCALTIME:
-            return time == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()).toLocalTime();
+            return time == 0 ? null : DateTimeSupport.toLocalTime(time);
         case INSTANT:
             return time == 0 ? null : Instant.ofEpochMilli(time);
         case STRING:
-            // TODO: Format
-//            return time == 0 ? "" : new SimpleDateFormat().format(new Date(time));
-            if (time == 0) {
-                return "";
-            }
-            LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
-            return dateTimeFormatter.format(ldt);
+            return time == 0 ? "" : format.format(time);
         default:
             return time;
         }
@@ -7,7 +7,7 @@ import com.github.javafaker.Faker;
 import com.github.javafaker.Internet;
 
 public class GenEmailProcessor implements Processor {
-    private final Internet internet = Faker.instance().internet();
+    private final Internet internet = new Faker(RandomSource.shared()).internet();
 
     public GenEmailProcessor(GenEmail ignored, FieldType fieldType, Field field) {
         if (!supports(fieldType) ) {
@@ -2,7 +2,6 @@ package com.aerospike.generator.annotations;
 
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class GenEnumProcessor implements Processor {
 
@@ -22,7 +21,7 @@ public class GenEnumProcessor implements Processor {
     
     @Override
     public Object process(Map<String, Object> params) {
-        return enumConstants[ThreadLocalRandom.current().nextInt(enumConstants.length)];
+        return enumConstants[RandomSource.nextInt(enumConstants.length)];
     }
     public boolean supports(FieldType fieldType) {
         return fieldType == FieldType.ENUM;
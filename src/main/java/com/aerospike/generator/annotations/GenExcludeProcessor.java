@@ -3,7 +3,7 @@ package com.aerospike.generator.annotations;
 import java.lang.reflect.Field;
 import java.util.Map;
 
-public class GenExcludeProcessor implements Processor {
+public class GenExcludeProcessor implements LongProcessor, IntProcessor, DoubleProcessor, BooleanProcessor {
     private final FieldType fieldType;
     public GenExcludeProcessor(GenExclude ignored, FieldType fieldType, Field field) {
         this.fieldType = fieldType;
@@ -26,6 +26,27 @@ public class GenExcludeProcessor implements Processor {
             return null;
         }
     }
+    
+    @Override
+    public long processLong(Map<String, Object> params) {
+        return 0;
+    }
+    
+    @Override
+    public int processInt(Map<String, Object> params) {
+        return 0;
+    }
+    
+    @Override
+    public double processDouble(Map<String, Object> params) {
+        return 0;
+    }
+    
+    @Override
+    public boolean processBoolean(Map<String, Object> params) {
+        return false;
+    }
+    
     public boolean supports(FieldType fieldType) {
         return true;
     }
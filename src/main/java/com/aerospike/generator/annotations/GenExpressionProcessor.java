@@ -3,16 +3,18 @@ package com.aerospike.generator.annotations;
 import java.lang.reflect.Field;
 import java.util.Date;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import com.aerospike.generator.annotations.ExpressionParser.Node;
 
-public class GenExpressionProcessor implements Processor {
+public class GenExpressionProcessor implements LongProcessor, IntProcessor {
 
     private final FieldType fieldType;
     private final ExpressionParser parser;
     private final Node abstractSyntaxTree;
     private final boolean returnString;
+    private final Set<String> objectReferences;
     
     public GenExpressionProcessor(GenExpression genExpression, FieldType fieldType, Field field) {
         this(genExpression.value(), fieldType);
@@ -26,15 +28,16 @@ public class GenExpressionProcessor implements Processor {
         this.parser = new ExpressionParser();
         this.abstractSyntaxTree = parser.parseExpression(value);
         this.returnString = (fieldType == FieldType.STRING || fieldType == FieldType.UUID);
+        this.objectReferences = Set.copyOf(ExpressionParser.findObjectReferences(abstractSyntaxTree, "obj"));
         
         if (!returnString) {
             // Give a quick test to ensure a number is returned, but only if no object properties are involved
             try {
                 parser.evaluate(abstractSyntaxTree, Map.of("Key", 1L), false);
             } catch (IllegalArgumentException e) {
-                // If the expression contains object properties, skip the test evaluation
-                // as the object won't be available during construction
-                if (!e.getMessage().contains("Object 'obj' not found")) {
+                // If the expression contains object properties or parameters other than the key, skip the test 
+                // evaluation as they won't be available during construction
+                if (!e.getMessage().contains("Object 'obj' not found") && !e.getMessage().startsWith("Parameter not found")) {
                     throw e;
                 }
             }
@@ -58,6 +61,16 @@ public class GenExpressionProcessor implements Processor {
         }
     }
     
+    @Override
+    public long processLong(Map<String, Object> parameterMap) {
+        return parser.evaluateLong(abstractSyntaxTree, parameterMap);
+    }
+    
+    @Override
+    public int processInt(Map<String, Object> parameterMap) {
+        return (int)parser.evaluateLong(abstractSyntaxTree, parameterMap);
+    }
+    
     public boolean supports(FieldType fieldType) {
         switch (fieldType) {
         case INTEGER:
@@ -71,6 +84,11 @@ public class GenExpressionProcessor implements Processor {
         }
     }
     
+    @Override
+    public Set<String> getObjectReferences() {
+        return objectReferences;
+    }
+    
     @Override
     public boolean isDeferred() {
         return true;
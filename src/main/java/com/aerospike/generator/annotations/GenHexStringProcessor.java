@@ -2,7 +2,6 @@ package com.aerospike.generator.annotations;
 
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class GenHexStringProcessor implements Processor {
 
@@ -45,10 +44,10 @@ public class GenHexStringProcessor implements Processor {
             lengthToGenerate = length;
         }
         else {
-            lengthToGenerate = ThreadLocalRandom.current().nextInt(minLength, maxLength +1);
+            lengthToGenerate = RandomSource.nextInt(minLength, maxLength +1);
         }
         byte[] bytes = new byte[lengthToGenerate];
-        ThreadLocalRandom.current().nextBytes(bytes);
+        RandomSource.nextBytes(bytes);
         StringBuilder sb = new StringBuilder(lengthToGenerate * (2+separator.length()) );
         for (int i = 0; i < lengthToGenerate; i++) {
             if (i > 0) {
@@ -7,7 +7,7 @@ import com.github.javafaker.Faker;
 import com.github.javafaker.Internet;
 
 public class GenIpV4Processor implements Processor {
-    private final Internet internet = Faker.instance().internet();
+    private final Internet internet = new Faker(RandomSource.shared()).internet();
 
     public GenIpV4Processor(GenIpV4 ignored, FieldType fieldType, Field field) {
         if (!supports(fieldType) ) {
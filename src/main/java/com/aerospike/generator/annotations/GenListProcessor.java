@@ -1,5 +1,6 @@
 package com.aerospike.generator.annotations;
 
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -8,23 +9,23 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 import com.aerospike.generator.ValueCreator;
 import com.aerospike.generator.ValueCreatorCache;
 import com.aerospike.generator.annotations.GenString.StringType;
 
-public class GenListProcessor<T> implements Processor {
+public class GenListProcessor<T> implements RecyclingProcessor {
 
     private final int minItems;
     private final int maxItems;
     private final int items;
     private final ValueCreator<T> valueCreator;
     private final int percentNull;
-    private final Class<?>[] subclasses;
+    private final ValueCreator<?>[] subclassCreators;
     private final boolean isArray;
     private final Class<?> elementType;
     private final Processor processor;
+    private final long seedSalt;
     
     public GenListProcessor(GenList genList, FieldType fieldType, Field field) {
         this(genList.subclasses(), genList.percentNull(), genList.minItems(), genList.maxItems(), 
@@ -64,7 +65,6 @@ public class GenListProcessor<T> implements Processor {
         if (subclasses == null) {
             subclasses = new Class<?>[0];
         }
-        this.subclasses = subclasses;
         this.minItems = minItems;
         this.maxItems = maxItems;
         this.items = items;
@@ -82,6 +82,7 @@ public class GenListProcessor<T> implements Processor {
         }
 
         
+        this.seedSalt = 31L * field.getDeclaringClass().getName().hashCode() + field.getName().hashCode();
         this.isArray = field.getType().isArray();
         Class<?> elementType = null;
         if (isArray) {
@@ -101,6 +102,9 @@ public class GenListProcessor<T> implements Processor {
                     field.getName(), field.getDeclaringClass().getName(), isArray ? "an array" : "a list"));
         }
         
+        // Primitive array elements use the same default processors as their wrapper types
+        Class<?> valueType = MethodType.methodType(elementType).wrap().returnType();
+        
         // If an element processor is provided, use it; otherwise create default processor
         if (elementProcessor != null) {
             this.processor = elementProcessor;
@@ -121,19 +125,19 @@ public class GenListProcessor<T> implements Processor {
                 }
             }
         }
-        else if (Long.class.isAssignableFrom(elementType)) {
+        else if (Long.class.isAssignableFrom(valueType)) {
             this.processor = new GenNumberProcessor(0, 100, FieldType.LONG);
         }
-        else if (Integer.class.isAssignableFrom(elementType)) {
+        else if (Integer.class.isAssignableFrom(valueType)) {
             this.processor = new GenNumberProcessor(0, 100, FieldType.INTEGER);
         }
-        else if (Double.class.isAssignableFrom(elementType)) {
+        else if (Double.class.isAssignableFrom(valueType)) {
             this.processor = new GenNumberProcessor(0, 1000, FieldType.DOUBLE);
         }
-        else if (Float.class.isAssignableFrom(elementType)) {
+        else if (Float.class.isAssignableFrom(valueType)) {
             this.processor = new GenNumberProcessor(0, 1000, FieldType.FLOAT);
         }
-        else if (Boolean.class.isAssignableFrom(elementType)) {
+        else if (Boolean.class.isAssignableFrom(valueType)) {
             this.processor = new GenBooleanProcessor(null, FieldType.BOOLEAN);
         }
         else {
@@ -145,7 +149,9 @@ public class GenListProcessor<T> implements Processor {
             this.valueCreator = (ValueCreator<T>) ValueCreatorCache.getInstance().get(elementType);
             this.valueCreator.requiresConstructor();
         
-            for (Class<?> subclass : subclasses) {
+            this.subclassCreators = new ValueCreator<?>[subclasses.length];
+            for (int i = 0; i < subclasses.length; i++) {
+                Class<?> subclass = subclasses[i];
                 if (!elementType.isAssignableFrom(subclass)) {
                     throw new IllegalArgumentException(String.format("Class % is listed as a subclass on field %s of class %s, but is not a subclass",
                             subclass.getName(), field.getName(), elementType.getName()));
@@ -154,12 +160,12 @@ public class GenListProcessor<T> implements Processor {
                     throw new IllegalArgumentException(String.format("Class % is listed as a subclass on field %s of class %s, but is abstract. Only concrete classes can be listed",
                             subclass.getName(), field.getName(), elementType.getName()));
                 }
-                // Make sure this subclass in in the cache
-                ValueCreatorCache.getInstance().get(subclass);
+                subclassCreators[i] = ValueCreatorCache.getInstance().get(subclass);
             }
         }
         else {
             this.valueCreator = null;
+            this.subclassCreators = new ValueCreator<?>[0];
         }
     }
     
@@ -184,44 +190,178 @@ public class GenListProcessor<T> implements Processor {
         params.remove(thisKey);
     }
     
+    /**
+     * Generate one element, populating the previous element again if it can be recycled.
+     */
+    @SuppressWarnings("unchecked")
+    private Object generateElement(Map<String, Object> params, Object previous) {
+        if (processor != null) {
+            return processor.process(params);
+        }
+        boolean subclass = subclassCreators.length > 0;
+        ValueCreator<Object> creator = (ValueCreator<Object>) (subclass
+                ? subclassCreators[RandomSource.nextInt(subclassCreators.length)] : this.valueCreator);
+        if (creator.canRecycle(previous)) {
+            return creator.recycle(previous, params, subclass);
+        }
+        return creator.createAndPopulate(params, subclass);
+    }
+    
+    /**
+     * Generate the element at {@code index}. When generation is seeded, nested objects are generated from a seed of 
+     * their own, so an element generated later by a {@link LazyList} has the same values as one generated now. The 
+     * seed is mixed with the field, so sibling lists of the same object differ, and the element is generated from a 
+     * random stream of its own, so the fields after the list draw the same values whether it is lazy or not.
+     */
+    private Object generateElement(Map<String, Object> params, Object previous, int index) {
+        Object objectSeed = params.get(RandomSource.SEED_PARAM);
+        if (objectSeed == null || processor != null) {
+            return generateElement(params, previous);
+        }
+        long elementSeed = RandomSource.mix(RandomSource.mix((Long) objectSeed, seedSalt), index);
+        params.put(RandomSource.SEED_PARAM, elementSeed);
+        try {
+            return RandomSource.withSeed(elementSeed, () -> generateElement(params, previous));
+        }
+        finally {
+            params.put(RandomSource.SEED_PARAM, objectSeed);
+        }
+    }
+    
+    /**
+     * Generate the element at {@code index} of a {@link LazyList} when it is first read.
+     */
+    Object generateLazyElement(Map<String, Object> params, int index) {
+        pushParamKey(params, index);
+        try {
+            return generateElement(params, null, index);
+        }
+        finally {
+            popParamKey(params);
+        }
+    }
+    
+    /**
+     * Fill an array of primitives, reusing the previous array if it has the right length. Where the element processor
+     * can produce the primitive type directly the values are written without being boxed.
+     */
+    private Object generatePrimitiveArray(Map<String, Object> params, int length, Object previous) {
+        Object result = previous != null && previous.getClass().getComponentType() == elementType && Array.getLength(previous) == length
+                ? previous : Array.newInstance(elementType, length);
+        if (elementType == long.class && processor instanceof LongProcessor) {
+            LongProcessor longProcessor = (LongProcessor)processor;
+            long[] values = (long[]) result;
+            for (int i = 0; i < length; i++) {
+                pushParamKey(params, i);
+                values[i] = longProcessor.processLong(params);
+                popParamKey(params);
+            }
+        }
+        else if (elementType == int.class && processor instanceof IntProcessor) {
+            IntProcessor intProcessor = (IntProcessor)processor;
+            int[] values = (int[]) result;
+            for (int i = 0; i < length; i++) {
+                pushParamKey(params, i);
+                values[i] = intProcessor.processInt(params);
+                popParamKey(params);
+            }
+        }
+        else if (elementType == double.class && processor instanceof DoubleProcessor) {
+            DoubleProcessor doubleProcessor = (DoubleProcessor)processor;
+            double[] values = (double[]) result;
+            for (int i = 0; i < length; i++) {
+                pushParamKey(params, i);
+                values[i] = doubleProcessor.processDouble(params);
+                popParamKey(params);
+            }
+        }
+        else if (elementType == float.class && processor instanceof DoubleProcessor) {
+            DoubleProcessor doubleProcessor = (DoubleProcessor)processor;
+            float[] values = (float[]) result;
+            for (int i = 0; i < length; i++) {
+                pushParamKey(params, i);
+                values[i] = (float)doubleProcessor.processDouble(params);
+                popParamKey(params);
+            }
+        }
+        else if (elementType == boolean.class && processor instanceof BooleanProcessor) {
+            BooleanProcessor booleanProcessor = (BooleanProcessor)processor;
+            boolean[] values = (boolean[]) result;
+            for (int i = 0; i < length; i++) {
+                pushParamKey(params, i);
+                values[i] = booleanProcessor.processBoolean(params);
+                popParamKey(params);
+            }
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                pushParamKey(params, i);
+                Array.set(result, i, generateElement(params, null, i));
+                popParamKey(params);
+            }
+        }
+        return result;
+    }
+    
     @Override
     public Object process(Map<String, Object> params) {
-        if (ThreadLocalRandom.current().nextInt(101) < this.percentNull) {
+        return process(params, null);
+    }
+    
+    /**
+     * Reuses the previous array if it has the right length, or the previous list if it is an {@code ArrayList}, 
+     * along with any elements which can be recycled.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object process(Map<String, Object> params, Object previous) {
+        if (RandomSource.nextInt(101) < this.percentNull) {
             return null;
         }
         int length = Processor.getLengthToGenerate(items, minItems, maxItems);
-        Object objs = Array.newInstance(elementType, length);
-        for (int i = 0; i < length; i++) {
-            Object thisObject;
-            pushParamKey(params, i); 
-            if (processor != null) {
-                thisObject = processor.process(params);
-            }
-            else if (subclasses.length == 0) {
-                thisObject = this.valueCreator.createAndPopulate(params, false);
+        if (isArray) {
+            if (elementType.isPrimitive()) {
+                return generatePrimitiveArray(params, length, previous);
             }
-            else {
-                Class<?> subclass = subclasses[ThreadLocalRandom.current().nextInt(subclasses.length)];
-                ValueCreator<?> creator = ValueCreatorCache.getInstance().get(subclass);
-                thisObject = creator.createAndPopulate(params);
+            Object[] result = previous != null && previous.getClass().getComponentType() == elementType && ((Object[]) previous).length == length
+                    ? (Object[]) previous : (Object[]) Array.newInstance(elementType, length);
+            for (int i = 0; i < length; i++) {
+                pushParamKey(params, i);
+                result[i] = generateElement(params, result[i], i);
+                popParamKey(params);
             }
-            Array.set(objs, i, thisObject);
-            popParamKey(params);
+            return result;
         }
-        if (isArray ) {
-            return objs;
+        else if (processor == null && Boolean.TRUE.equals(params.get(RandomSource.LAZY_PARAM))
+                && params.get(RandomSource.SEED_PARAM) != null) {
+            return new LazyList(this, params, length);
         }
         else {
-            // Do NOT use
-            // Arrays.asList(objs); 
-            // here! This gives a list of size one which contains an array.
-            List<Object> list = new ArrayList<>(length);
+            List<Object> list;
+            if (previous instanceof ArrayList) {
+                list = (List<Object>) previous;
+            }
+            else {
+                list = new ArrayList<>(length);
+            }
+            int existing = list.size();
             for (int i = 0; i < length; i++) {
-                list.add(Array.get(objs, i));
+                pushParamKey(params, i);
+                if (i < existing) {
+                    list.set(i, generateElement(params, list.get(i), i));
+                }
+                else {
+                    list.add(generateElement(params, null, i));
+                }
+                popParamKey(params);
+            }
+            if (existing > length) {
+                list.subList(length, existing).clear();
             }
             return list;
         }
     }
+    
     public boolean supports(FieldType fieldType) {
         return fieldType == FieldType.LIST;
     }
@@ -105,7 +105,7 @@ import com.aerospike.generator.annotations.GenString.StringType;
  * The processor uses intelligent pattern matching to provide contextually appropriate
  * data generators, making test data generation more meaningful and realistic.
  */
-public class GenMagicProcessor implements Processor {
+public class GenMagicProcessor implements LongProcessor, IntProcessor, DoubleProcessor, BooleanProcessor {
 
     private final int percentNull;
     private final Processor processorToUse;
@@ -133,6 +133,42 @@ public class GenMagicProcessor implements Processor {
         return processorToUse.process(params);
     }
     
+    @Override
+    public long processLong(Map<String, Object> params) {
+        if (processorToUse instanceof LongProcessor) {
+            return ((LongProcessor)processorToUse).processLong(params);
+        }
+        Object value = process(params);
+        return value == null ? 0 : ((Number)value).longValue();
+    }
+    
+    @Override
+    public int processInt(Map<String, Object> params) {
+        if (processorToUse instanceof IntProcessor) {
+            return ((IntProcessor)processorToUse).processInt(params);
+        }
+        Object value = process(params);
+        return value == null ? 0 : ((Number)value).intValue();
+    }
+    
+    @Override
+    public double processDouble(Map<String, Object> params) {
+        if (processorToUse instanceof DoubleProcessor) {
+            return ((DoubleProcessor)processorToUse).processDouble(params);
+        }
+        Object value = process(params);
+        return value == null ? 0 : ((Number)value).doubleValue();
+    }
+    
+    @Override
+    public boolean processBoolean(Map<String, Object> params) {
+        if (processorToUse instanceof BooleanProcessor) {
+            return ((BooleanProcessor)processorToUse).processBoolean(params);
+        }
+        Object value = process(params);
+        return value != null && (Boolean)value;
+    }
+    
     public boolean supports(FieldType fieldType) {
         return true;
     }
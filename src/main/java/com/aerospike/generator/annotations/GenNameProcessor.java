@@ -8,7 +8,7 @@ import com.github.javafaker.Faker;
 import com.github.javafaker.Name;
 
 public class GenNameProcessor implements Processor {
-    private final Name name = Faker.instance().name();
+    private final Name name = new Faker(RandomSource.shared()).name();
     private final NameType type;
 
     public GenNameProcessor(GenName genName, FieldType fieldType, Field field) {
@@ -2,9 +2,8 @@ package com.aerospike.generator.annotations;
 
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
-public class GenNumberProcessor implements Processor {
+public class GenNumberProcessor implements LongProcessor, IntProcessor, DoubleProcessor {
 
     private final long start;
     private final long end;
@@ -40,38 +39,51 @@ public class GenNumberProcessor implements Processor {
         }
     }
 
-    @Override
-    public Object process(Map<String, Object> params) {
-        ThreadLocalRandom random = ThreadLocalRandom.current();
+    private long generateRaw() {
         long rawValue;
         
         // Generate a random value in the range
         if (end == Long.MAX_VALUE) {
-            rawValue = random.nextLong(start, end);
+            rawValue = RandomSource.nextLong(start, end);
         } else {
-            rawValue = random.nextLong(start, end + 1);
+            rawValue = RandomSource.nextLong(start, end + 1);
         }
         
         // Apply rounding if roundToClosest > 1
         if (roundToClosest > 1) {
             rawValue = roundToNearestMultiple(rawValue, roundToClosest);
         }
-        
-        double rawDouble = (double) rawValue;
-        if (divisor != 1) {
-            rawDouble /= divisor;
-            rawValue = (long)rawDouble;
-        }
-        
+        return rawValue;
+    }
+    
+    @Override
+    public long processLong(Map<String, Object> params) {
+        long rawValue = generateRaw();
+        return divisor != 1 ? (long)((double) rawValue / divisor) : rawValue;
+    }
+    
+    @Override
+    public int processInt(Map<String, Object> params) {
+        return (int) processLong(params);
+    }
+    
+    @Override
+    public double processDouble(Map<String, Object> params) {
+        double rawDouble = (double) generateRaw();
+        return divisor != 1 ? rawDouble / divisor : rawDouble;
+    }
+    
+    @Override
+    public Object process(Map<String, Object> params) {
         switch (fieldType) {
         case LONG:
-            return rawValue;
+            return processLong(params);
         case INTEGER:
-            return (int) rawValue;
+            return processInt(params);
         case DOUBLE:
-            return rawDouble;
+            return processDouble(params);
         case FLOAT:
-            return (float) rawDouble;
+            return (float) processDouble(params);
         default: 
             return null;
         }
@@ -3,16 +3,15 @@ package com.aerospike.generator.annotations;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 import com.aerospike.generator.ValueCreator;
 import com.aerospike.generator.ValueCreatorCache;
 
-public class GenObjectProcessor<T> implements Processor {
+public class GenObjectProcessor<T> implements RecyclingProcessor {
 
     private final ValueCreator<T> valueCreator;
     private final int percentNull;
-    private final Class<?>[] subclasses;
+    private final ValueCreator<?>[] subclassCreators;
     
     public GenObjectProcessor(GenObject genObject, FieldType fieldType, Field field) {
         this(genObject.subclasses(), genObject.percentNull(), fieldType, field);
@@ -29,8 +28,9 @@ public class GenObjectProcessor<T> implements Processor {
         if (subclasses == null) {
             subclasses = new Class<?>[0];
         }
-        this.subclasses = subclasses;
-        for (Class<?> subclass : subclasses) {
+        this.subclassCreators = new ValueCreator<?>[subclasses.length];
+        for (int i = 0; i < subclasses.length; i++) {
+            Class<?> subclass = subclasses[i];
             if (!clazz.isAssignableFrom(subclass)) {
                 throw new IllegalArgumentException(String.format("Class % is listed as a subclass on field %s of class %s, but is not a subclass",
                         subclass.getName(), field.getName(), clazz.getName()));
@@ -39,25 +39,30 @@ public class GenObjectProcessor<T> implements Processor {
                 throw new IllegalArgumentException(String.format("Class % is listed as a subclass on field %s of class %s, but is abstract. Only concrete classes can be listed",
                         subclass.getName(), field.getName(), clazz.getName()));
             }
-            // Make sure this subclass in in the cache
-            ValueCreatorCache.getInstance().get(subclass);
+            subclassCreators[i] = ValueCreatorCache.getInstance().get(subclass);
         }
     }
     
     @Override
     public Object process(Map<String, Object> params) {
-        if (ThreadLocalRandom.current().nextInt(101) < this.percentNull) {
+        return process(params, null);
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object process(Map<String, Object> params, Object previous) {
+        if (RandomSource.nextInt(101) < this.percentNull) {
             return null;
         }
-        if (subclasses.length == 0) {
-            return this.valueCreator.createAndPopulate(params, false);
-        }
-        else {
-            Class<?> subclass = subclasses[ThreadLocalRandom.current().nextInt(subclasses.length)];
-            ValueCreator<?> creator = ValueCreatorCache.getInstance().get(subclass);
-            return creator.createAndPopulate(params);
+        boolean subclass = subclassCreators.length > 0;
+        ValueCreator<Object> creator = (ValueCreator<Object>) (subclass
+                ? subclassCreators[RandomSource.nextInt(subclassCreators.length)] : this.valueCreator);
+        if (creator.canRecycle(previous)) {
+            return creator.recycle(previous, params, subclass);
         }
+        return creator.createAndPopulate(params, subclass);
     }
+    
     public boolean supports(FieldType fieldType) {
         return fieldType == FieldType.OBJECT;
     }
@@ -8,7 +8,7 @@ import com.github.javafaker.Faker;
 import com.github.javafaker.PhoneNumber;
 
 public class GenPhoneNumberProcessor implements Processor {
-    private final PhoneNumber phoneNumber = Faker.instance().phoneNumber();
+    private final PhoneNumber phoneNumber = new Faker(RandomSource.shared()).phoneNumber();
     private final PhoneNumType type;
 
     public GenPhoneNumberProcessor(GenPhoneNumber phoneNumber, FieldType fieldType, Field field) {
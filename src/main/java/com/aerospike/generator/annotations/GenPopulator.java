@@ -0,0 +1,21 @@
+package com.aerospike.generator.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class as having a populator generated for it at build time by the 
+ * {@code com.aerospike.generator.codegen.PopulatorAnnotationProcessor}. The populator for class {@code Member} is 
+ * {@code MemberPopulator} in the same package, and is used by the {@code ValueCreatorCache} in place of scanning the
+ * annotations on the fields of the class at runtime. Nested classes use the names of their enclosing classes separated
+ * by underscores, so {@code Bank.Account} would be {@code Bank_AccountPopulator}.
+ * <p/>
+ * The class must not be private, and the generated populator only covers the fields declared on this class. 
+ * Superclasses are populated as normal.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GenPopulator {
+}
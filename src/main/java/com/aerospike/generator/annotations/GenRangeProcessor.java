@@ -2,9 +2,8 @@ package com.aerospike.generator.annotations;
 
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
-public class GenRangeProcessor implements Processor {
+public class GenRangeProcessor implements LongProcessor, IntProcessor {
 
     private final long startVal;
     private final long endVal;
@@ -23,9 +22,19 @@ public class GenRangeProcessor implements Processor {
         }
     }
 
+    @Override
+    public long processLong(Map<String, Object> params) {
+        return RandomSource.nextLong(startVal, endVal+1);
+    }
+    
+    @Override
+    public int processInt(Map<String, Object> params) {
+        return (int) processLong(params);
+    }
+    
     @Override
     public Object process(Map<String, Object> params) {
-        long result = ThreadLocalRandom.current().nextLong(startVal, endVal+1) ;
+        long result = processLong(params);
         if (fieldType == FieldType.INTEGER) {
             return (int)result;
         }
@@ -9,20 +9,19 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ThreadLocalRandom;
 
 import com.aerospike.generator.ValueCreator;
 import com.aerospike.generator.ValueCreatorCache;
 import com.aerospike.generator.annotations.GenString.StringType;
 
-public class GenSetProcessor<T> implements Processor {
+public class GenSetProcessor<T> implements RecyclingProcessor {
 
     private final int minItems;
     private final int maxItems;
     private final int items;
     private final ValueCreator<T> valueCreator;
     private final int percentNull;
-    private final Class<?>[] subclasses;
+    private final ValueCreator<?>[] subclassCreators;
     private final Class<?> elementType;
     private final Processor processor;
     
@@ -65,7 +64,6 @@ public class GenSetProcessor<T> implements Processor {
         if (subclasses == null) {
             subclasses = new Class<?>[0];
         }
-        this.subclasses = subclasses;
         this.minItems = minItems;
         this.maxItems = maxItems;
         this.items = items;
@@ -135,7 +133,9 @@ public class GenSetProcessor<T> implements Processor {
             this.valueCreator = (ValueCreator<T>) ValueCreatorCache.getInstance().get(elementType);
             this.valueCreator.requiresConstructor();
         
-            for (Class<?> subclass : subclasses) {
+            this.subclassCreators = new ValueCreator<?>[subclasses.length];
+            for (int i = 0; i < subclasses.length; i++) {
+                Class<?> subclass = subclasses[i];
                 if (!elementType.isAssignableFrom(subclass)) {
                     throw new IllegalArgumentException(String.format("Class %s is listed as a subclass on field %s of class %s, but is not a subclass",
                             subclass.getName(), field.getName(), elementType.getName()));
@@ -144,12 +144,12 @@ public class GenSetProcessor<T> implements Processor {
                     throw new IllegalArgumentException(String.format("Class %s is listed as a subclass on field %s of class %s, but is abstract. Only concrete classes can be listed",
                             subclass.getName(), field.getName(), elementType.getName()));
                 }
-                // Make sure this subclass in in the cache
-                ValueCreatorCache.getInstance().get(subclass);
+                subclassCreators[i] = ValueCreatorCache.getInstance().get(subclass);
             }
         }
         else {
             this.valueCreator = null;
+            this.subclassCreators = new ValueCreator<?>[0];
         }
     }
     
@@ -176,13 +176,30 @@ public class GenSetProcessor<T> implements Processor {
     
     @Override
     public Object process(Map<String, Object> params) {
-        if (ThreadLocalRandom.current().nextInt(101) < this.percentNull) {
+        return process(params, null);
+    }
+    
+    /**
+     * Refills the previous set if it is a {@code HashSet}, keeping its capacity. The elements are not reused, as
+     * changing an element would change its hash code.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object process(Map<String, Object> params, Object previous) {
+        if (RandomSource.nextInt(101) < this.percentNull) {
             return null;
         }
         int length = Processor.getLengthToGenerate(items, minItems, maxItems);
         
         // Generate items and add to set (Set automatically handles duplicates)
-        Set<Object> set = new HashSet<>();
+        Set<Object> set;
+        if (previous instanceof HashSet) {
+            set = (Set<Object>) previous;
+            set.clear();
+        }
+        else {
+            set = new HashSet<>();
+        }
         int attempts = 0;
         int maxAttempts = length * 10; // Prevent infinite loops
         
@@ -192,12 +209,11 @@ public class GenSetProcessor<T> implements Processor {
             if (processor != null) {
                 thisObject = processor.process(params);
             }
-            else if (subclasses.length == 0) {
+            else if (subclassCreators.length == 0) {
                 thisObject = this.valueCreator.createAndPopulate(params, false);
             }
             else {
-                Class<?> subclass = subclasses[ThreadLocalRandom.current().nextInt(subclasses.length)];
-                ValueCreator<?> creator = ValueCreatorCache.getInstance().get(subclass);
+                ValueCreator<?> creator = subclassCreators[RandomSource.nextInt(subclassCreators.length)];
                 thisObject = creator.createAndPopulate(params);
             }
             set.add(thisObject);
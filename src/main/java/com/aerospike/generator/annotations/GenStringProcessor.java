@@ -14,7 +14,7 @@ public class GenStringProcessor implements Processor {
     private final int length;
     private final String format;
     
-    private final Faker faker = Faker.instance();
+    private final Faker faker = new Faker(RandomSource.shared());
     
     public GenStringProcessor(GenString genString, FieldType fieldType, Field field) {
         this(genString.type(), genString.minLength(), genString.maxLength(), genString.length(), genString.format(), fieldType);
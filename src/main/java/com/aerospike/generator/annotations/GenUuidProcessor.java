@@ -19,11 +19,11 @@ public class GenUuidProcessor implements Processor {
     public Object process(Map<String, Object> params) {
         switch (this.fieldType) {
         case UUID:
-            return UUID.randomUUID();
+            return RandomSource.randomUUID();
         case STRING:
-            return UUID.randomUUID().toString();
+            return RandomSource.randomUUID().toString();
         case BYTES:
-            UUID uuid = UUID.randomUUID();
+            UUID uuid = RandomSource.randomUUID();
             ByteBuffer bb = ByteBuffer.wrap(new byte[16]);
             bb.putLong(uuid.getMostSignificantBits());
             bb.putLong(uuid.getLeastSignificantBits());
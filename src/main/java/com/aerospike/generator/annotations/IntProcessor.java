@@ -0,0 +1,11 @@
+package com.aerospike.generator.annotations;
+
+import java.util.Map;
+
+/**
+ * A {@link Processor} which can generate its values as a primitive {@code int} without boxing. This is used when the
+ * field being populated is an {@code int}.
+ */
+public interface IntProcessor extends Processor {
+    int processInt(Map<String, Object> params);
+}
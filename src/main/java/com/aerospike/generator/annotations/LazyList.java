@@ -0,0 +1,71 @@
+package com.aerospike.generator.annotations;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A fixed size list of nested objects which generates each element the first time it is read. Elements are generated
+ * from their own seed, so they have the same values whenever they are read. The parameters the list was created with
+ * are kept until every element has been generated.
+ */
+class LazyList extends AbstractList<Object> implements RandomAccess {
+    private static final Object NOT_GENERATED = new Object();
+    
+    private final GenListProcessor<?> processor;
+    private final Object[] elements;
+    private Map<String, Object> params;
+    private int remaining;
+    
+    @SuppressWarnings("unchecked")
+    LazyList(GenListProcessor<?> processor, Map<String, Object> params, int size) {
+        this.processor = processor;
+        this.elements = new Object[size];
+        this.remaining = size;
+        Arrays.fill(elements, NOT_GENERATED);
+        if (size > 0) {
+            // The caller's map changes as the rest of the object is generated, so keep a copy
+            this.params = new HashMap<>(params);
+            List<String> keys = (List<String>) params.get("__KeyStack");
+            if (keys != null) {
+                this.params.put("__KeyStack", new ArrayList<>(keys));
+            }
+        }
+    }
+    
+    @Override
+    public synchronized Object get(int index) {
+        Object element = elements[index];
+        if (element == NOT_GENERATED) {
+            element = processor.generateLazyElement(params, index);
+            elements[index] = element;
+            if (--remaining == 0) {
+                params = null;
+            }
+        }
+        return element;
+    }
+    
+    @Override
+    public synchronized Object set(int index, Object element) {
+        Object previous = get(index);
+        elements[index] = element;
+        return previous;
+    }
+    
+    @Override
+    public int size() {
+        return elements.length;
+    }
+    
+    /**
+     * The number of elements which have been read, and so generated.
+     */
+    synchronized int generatedCount() {
+        return elements.length - remaining;
+    }
+}
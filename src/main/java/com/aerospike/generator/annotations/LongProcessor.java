@@ -0,0 +1,11 @@
+package com.aerospike.generator.annotations;
+
+import java.util.Map;
+
+/**
+ * A {@link Processor} which can generate its values as a primitive {@code long} without boxing. This is used when the
+ * field being populated is a {@code long}.
+ */
+public interface LongProcessor extends Processor {
+    long processLong(Map<String, Object> params);
+}
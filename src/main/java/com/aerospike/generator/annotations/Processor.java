@@ -1,7 +1,7 @@
 package com.aerospike.generator.annotations;
 
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Set;
 
 public interface Processor {
     Object process(Map<String, Object> params);
@@ -16,12 +16,20 @@ public interface Processor {
         return false;
     }
     
+    /**
+     * Returns the names of the fields of the object being populated which this processor reads, so those fields can
+     * be generated first.
+     */
+    default Set<String> getObjectReferences() {
+        return Set.of();
+    }
+    
     static int getLengthToGenerate(int length, int minLength, int maxLength) {
         if (length >= 0) {
             return length;
         }
         else {
-            return ThreadLocalRandom.current().nextInt(minLength, maxLength +1);
+            return RandomSource.nextInt(minLength, maxLength +1);
         }
     }
 
@@ -0,0 +1,183 @@
+package com.aerospike.generator.annotations;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The source of randomness for all the processors. Normally this is {@code ThreadLocalRandom}. Inside
+ * {@link #withSeed(long, Supplier)} the current thread instead draws from a generator with a fixed seed, so the
+ * values generated are repeatable. This is what allows a record to be generated lazily: a part of the object graph
+ * generated later from its own seed has the same values as if it had been generated straight away.
+ * <p/>
+ * Faker providers should be created with {@link #shared()} as their {@code Random} so they draw from here too.
+ */
+public final class RandomSource {
+    /** The parameter holding the seed of the object or element being generated, when generation is seeded. */
+    public static final String SEED_PARAM = "__Seed";
+    /** The parameter which, when {@code true}, makes lists of nested objects generate their elements on access. */
+    public static final String LAZY_PARAM = "__Lazy";
+
+    private static final ThreadLocal<SeededRandom> SEEDED = new ThreadLocal<>();
+    // Avoids the thread local lookup entirely when no thread is generating from a seed
+    private static final AtomicInteger seededThreads = new AtomicInteger();
+
+    private static final Random SHARED = new Random() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected int next(int bits) {
+            SeededRandom seeded = seeded();
+            int value = seeded != null ? (int) (seeded.nextLong() >>> 32) : ThreadLocalRandom.current().nextInt();
+            return value >>> (32 - bits);
+        }
+    };
+
+    private RandomSource() {}
+
+    /**
+     * A generator whose state is a single {@code long} advanced by the SplitMix64 algorithm.
+     */
+    private static final class SeededRandom {
+        private long state;
+
+        SeededRandom(long seed) {
+            this.state = seed;
+        }
+
+        long nextLong() {
+            return mix64(state += 0x9E3779B97F4A7C15L);
+        }
+
+        /** A value from origin (inclusive) to bound (exclusive), by rejection so every value is equally likely */
+        long nextLong(long origin, long bound) {
+            long r = nextLong();
+            long n = bound - origin;
+            long m = n - 1;
+            if (n > 0) {
+                if ((n & m) == 0L) {
+                    return (r & m) + origin;
+                }
+                for (long u = r >>> 1; u + m - (r = u % n) < 0L; u = nextLong() >>> 1) {
+                }
+                return r + origin;
+            }
+            // The range does not fit in a long
+            while (r < origin || r >= bound) {
+                r = nextLong();
+            }
+            return r;
+        }
+    }
+
+    private static SeededRandom seeded() {
+        return seededThreads.get() == 0 ? null : SEEDED.get();
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Combine a seed with a value, for example a key or an index, into a new seed.
+     */
+    public static long mix(long seed, long value) {
+        return mix64(seed ^ mix64(value + 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Run the action with this thread drawing from a generator seeded with {@code seed}, then go back to whatever
+     * it was drawing from before.
+     */
+    public static <T> T withSeed(long seed, Supplier<T> action) {
+        SeededRandom previous = SEEDED.get();
+        SEEDED.set(new SeededRandom(seed));
+        if (previous == null) {
+            seededThreads.incrementAndGet();
+        }
+        try {
+            return action.get();
+        }
+        finally {
+            if (previous == null) {
+                SEEDED.remove();
+                seededThreads.decrementAndGet();
+            }
+            else {
+                SEEDED.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Restart the current thread's seeded generator from a new seed. Does nothing if the thread is not inside
+     * {@link #withSeed(long, Supplier)}.
+     */
+    public static void reseed(long seed) {
+        SeededRandom seeded = seeded();
+        if (seeded != null) {
+            seeded.state = seed;
+        }
+    }
+
+    public static boolean isSeeded() {
+        return seeded() != null;
+    }
+
+    /**
+     * A {@code Random} which draws from the current thread's source, for libraries which take a {@code Random}.
+     */
+    public static Random shared() {
+        return SHARED;
+    }
+
+    public static int nextInt(int bound) {
+        SeededRandom seeded = seeded();
+        return seeded == null ? ThreadLocalRandom.current().nextInt(bound) : (int) seeded.nextLong(0, bound);
+    }
+
+    public static int nextInt(int origin, int bound) {
+        SeededRandom seeded = seeded();
+        return seeded == null ? ThreadLocalRandom.current().nextInt(origin, bound) : (int) seeded.nextLong(origin, bound);
+    }
+
+    public static long nextLong(long origin, long bound) {
+        SeededRandom seeded = seeded();
+        return seeded == null ? ThreadLocalRandom.current().nextLong(origin, bound) : seeded.nextLong(origin, bound);
+    }
+
+    public static boolean nextBoolean() {
+        SeededRandom seeded = seeded();
+        return seeded == null ? ThreadLocalRandom.current().nextBoolean() : seeded.nextLong() < 0;
+    }
+
+    public static void nextBytes(byte[] bytes) {
+        SeededRandom seeded = seeded();
+        if (seeded == null) {
+            ThreadLocalRandom.current().nextBytes(bytes);
+            return;
+        }
+        for (int i = 0; i < bytes.length; ) {
+            for (long value = seeded.nextLong(), n = Math.min(bytes.length - i, 8); n-- > 0; value >>>= 8) {
+                bytes[i++] = (byte) value;
+            }
+        }
+    }
+
+    /**
+     * A random (version 4) UUID.
+     */
+    public static UUID randomUUID() {
+        SeededRandom seeded = seeded();
+        if (seeded == null) {
+            return UUID.randomUUID();
+        }
+        long most = (seeded.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (seeded.nextLong() & ~(0xC000000000000000L)) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+}
@@ -0,0 +1,17 @@
+package com.aerospike.generator.annotations;
+
+import java.util.Map;
+
+/**
+ * A {@link Processor} which can overwrite the value a field already holds rather than allocating a new one. This is
+ * used when an object is populated again, for example by a {@code Generator} which recycles its instances. The
+ * values generated are the same as {@link #process(Map)} would generate.
+ */
+public interface RecyclingProcessor extends Processor {
+    /**
+     * Generate a value, reusing {@code previous} where it is of the right type and size.
+     * @param previous the value the field currently holds, which may be null
+     * @return the value for the field, which may be {@code previous}
+     */
+    Object process(Map<String, Object> params, Object previous);
+}
@@ -3,7 +3,6 @@ package com.aerospike.generator.annotations;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class WeightedList implements Iterable<WeightedObject>{
     public interface StringPartProcessor {
@@ -106,7 +105,7 @@ public class WeightedList implements Iterable<WeightedObject>{
     
     public Object selectRandom() {
         if (totalWeight > 0) {
-            int weight = ThreadLocalRandom.current().nextInt(this.totalWeight);
+            int weight = RandomSource.nextInt(this.totalWeight);
             int runningWeight = 0;
             for (WeightedObject wo : this.weightedObjects) {
                 runningWeight += wo.getWeight();
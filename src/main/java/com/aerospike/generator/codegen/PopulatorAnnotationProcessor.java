@@ -0,0 +1,628 @@
+package com.aerospike.generator.codegen;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.SimpleAnnotationValueVisitor9;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a {@code Populator} at build time for each class marked with {@code @GenPopulator}. The generated
+ * populator constructs the processor for each field from the values of the field's annotation, written out as
+ * literals, and assigns the fields in straight-line code, so the {@code ValueCreator} does not need to scan the
+ * annotations of the class at runtime. Each populator has a {@code PopulatorFactory} which is listed in
+ * {@code META-INF/services}, so it is found through {@code ServiceLoader} rather than by name.
+ * <p/>
+ * The annotation to processor mapping mirrors {@code ValueCreator.generatorForField}: field level annotations
+ * are checked in the same order, then the class level {@code GenMagic}, {@code GenString} and {@code GenExpression}
+ * annotations. The fields are ordered as {@code GenerationPlan} orders them at runtime, with expressions
+ * after the fields they read through {@code $obj}, and a cycle of references is a compile error. Fields which can be accessed from the same package are assigned directly, private, final and
+ * primitive fields go through a {@code FieldSetter}. Only those fields, and the fields of processors which need the
+ * field's type, such as {@code GenList}, are looked up reflectively.
+ * <p/>
+ * This class deliberately refers to the generator classes by name only, so it can be compiled before the rest
+ * of the project.
+ */
+@SupportedAnnotationTypes(PopulatorAnnotationProcessor.GEN_POPULATOR)
+public class PopulatorAnnotationProcessor extends AbstractProcessor {
+    static final String ANNOTATION_PACKAGE = "com.aerospike.generator.annotations";
+    static final String GEN_POPULATOR = ANNOTATION_PACKAGE + ".GenPopulator";
+    private static final String POPULATOR_SUFFIX = "Populator";
+    private static final String FACTORY_SERVICE = "META-INF/services/com.aerospike.generator.PopulatorFactory";
+    // Processors which read the type or name of the field, rather than only the values of the annotation
+    private static final Set<String> FIELD_PROCESSORS = Set.of("GenEnum", "GenList", "GenMagic", "GenObject", "GenSet");
+
+    // Must be in the same order as ValueCreator.generatorForField
+    private static final String[] FIELD_ANNOTATIONS = {
+            "GenAddress", "GenBoolean", "GenBrowser", "GenBytes", "GenDate", "GenEmail", "GenEnum", "GenExclude",
+            "GenExpression", "GenHexString", "GenIpV4", "GenList", "GenName", "GenNumber", "GenObject", "GenOneOf",
+            "GenRange", "GenSet", "GenString", "GenUuid"
+    };
+
+    private final Set<String> factories = new TreeSet<>();
+
+    private static class FieldPlan {
+        final VariableElement field;
+        final String annotation;
+        final boolean classLevel;
+        final String fieldType;
+        final boolean direct;
+        // The primitive processXxx method used for a primitive field, or null to use process
+        final PrimitiveMethod primitive;
+
+        FieldPlan(VariableElement field, String annotation, boolean classLevel, String fieldType, boolean direct,
+                PrimitiveMethod primitive) {
+            this.field = field;
+            this.annotation = annotation;
+            this.classLevel = classLevel;
+            this.fieldType = fieldType;
+            this.direct = direct;
+            this.primitive = primitive;
+        }
+
+        boolean isDeferred() {
+            return "GenExpression".equals(annotation);
+        }
+    }
+
+    /**
+     * The primitive specialized processor interfaces, and the field type and setter each one is used for.
+     */
+    private enum PrimitiveMethod {
+        LONG(TypeKind.LONG, "LongProcessor", "processLong", "setLong", ""),
+        INT(TypeKind.INT, "IntProcessor", "processInt", "setInt", ""),
+        DOUBLE(TypeKind.DOUBLE, "DoubleProcessor", "processDouble", "setDouble", ""),
+        FLOAT(TypeKind.FLOAT, "DoubleProcessor", "processDouble", "setFloat", "(float) "),
+        BOOLEAN(TypeKind.BOOLEAN, "BooleanProcessor", "processBoolean", "setBoolean", "");
+
+        final TypeKind fieldKind;
+        final String processorInterface;
+        final String processMethod;
+        final String setterMethod;
+        final String cast;
+
+        PrimitiveMethod(TypeKind fieldKind, String processorInterface, String processMethod, String setterMethod, String cast) {
+            this.fieldKind = fieldKind;
+            this.processorInterface = processorInterface;
+            this.processMethod = processMethod;
+            this.setterMethod = setterMethod;
+            this.cast = cast;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!factories.isEmpty()) {
+                writeFactories();
+            }
+            return false;
+        }
+        TypeElement genPopulator = processingEnv.getElementUtils().getTypeElement(GEN_POPULATOR);
+        if (genPopulator == null) {
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(genPopulator)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenPopulator can only be applied to classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (!isAccessibleFromPackage(type)) {
+                error(element, "@GenPopulator classes must be static and must not be private");
+                continue;
+            }
+            try {
+                generate(type);
+            }
+            catch (IOException e) {
+                error(element, "Could not write populator: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private boolean isAccessibleFromPackage(TypeElement type) {
+        for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            TypeElement currentType = (TypeElement) current;
+            if (currentType.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (currentType.getNestingKind() == NestingKind.MEMBER && !currentType.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            if (currentType.getNestingKind() == NestingKind.LOCAL || currentType.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String qualifiedName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static boolean hasAnnotation(Element element, String simpleName) {
+        String name = ANNOTATION_PACKAGE + "." + simpleName;
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (qualifiedName(mirror).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeMirror typeOf(String className) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(className);
+        return element == null ? null : processingEnv.getTypeUtils().erasure(element.asType());
+    }
+
+    private boolean isSubtype(TypeMirror type, String className) {
+        TypeMirror other = typeOf(className);
+        return other != null && processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type), other);
+    }
+
+    /**
+     * Mirrors {@code ValueCreator.mapFieldType}, returning the name of the {@code FieldType} constant or null.
+     */
+    private String mapFieldType(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        switch (type.getKind()) {
+        case BOOLEAN:   return "BOOLEAN";
+        case DOUBLE:    return "DOUBLE";
+        case FLOAT:     return "FLOAT";
+        case INT:       return "INTEGER";
+        case LONG:      return "LONG";
+        case ARRAY:
+            TypeMirror component = ((ArrayType) type).getComponentType();
+            if (component.getKind() == TypeKind.BYTE || isSubtype(component, "java.lang.Byte")) {
+                return "BYTES";
+            }
+            return "LIST";
+        case DECLARED:
+            if (types.asElement(type).getKind() == ElementKind.ENUM) {
+                return "ENUM";
+            }
+            String[][] mappings = {
+                    {"java.lang.Boolean", "BOOLEAN"}, {"java.lang.Double", "DOUBLE"}, {"java.lang.Float", "FLOAT"},
+                    {"java.lang.Integer", "INTEGER"}, {"java.lang.Long", "LONG"}, {"java.lang.String", "STRING"},
+                    {"java.util.Date", "DATE"}, {"java.time.LocalDate", "LOCALDATE"}, {"java.time.LocalDateTime", "LOCALDATETIME"},
+                    {"java.time.LocalTime", "LOCALTIME"}, {"java.time.Instant", "INSTANT"}, {"java.util.UUID", "UUID"},
+                    {"java.util.List", "LIST"}, {"java.util.Set", "SET"}
+            };
+            for (String[] mapping : mappings) {
+                if (isSubtype(type, mapping[0])) {
+                    return mapping[1];
+                }
+            }
+            return "OBJECT";
+        default:
+            return null;
+        }
+    }
+
+    private boolean acceptsString(TypeMirror type) {
+        TypeMirror string = typeOf("java.lang.String");
+        return type.getKind() == TypeKind.DECLARED && processingEnv.getTypeUtils().isAssignable(string, type);
+    }
+
+    private List<FieldPlan> planFields(TypeElement type) {
+        List<FieldPlan> plans = new ArrayList<>();
+        List<FieldPlan> deferred = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String annotation = null;
+            boolean classLevel = false;
+            for (String candidate : FIELD_ANNOTATIONS) {
+                if (hasAnnotation(field, candidate)) {
+                    annotation = candidate;
+                    break;
+                }
+            }
+            if (annotation == null) {
+                classLevel = true;
+                if (hasAnnotation(type, "GenMagic")) {
+                    annotation = "GenMagic";
+                }
+                else if (hasAnnotation(type, "GenString") && acceptsString(field.asType())) {
+                    annotation = "GenString";
+                }
+                else if (hasAnnotation(type, "GenExpression") && acceptsString(field.asType())) {
+                    annotation = "GenExpression";
+                }
+                else {
+                    continue;
+                }
+            }
+            PrimitiveMethod primitive = primitiveMethod(field.asType(), annotation);
+            boolean direct = !modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.FINAL)
+                    && !modifiers.contains(Modifier.STATIC) && (primitive != null || !field.asType().getKind().isPrimitive());
+            FieldPlan plan = new FieldPlan(field, annotation, classLevel, mapFieldType(field.asType()), direct, primitive);
+            (plan.isDeferred() ? deferred : plans).add(plan);
+        }
+        // GenExpressions are evaluated last, then ordered so each follows the fields it reads, as GenerationPlan does
+        plans.addAll(deferred);
+        return orderByReferences(type, plans);
+    }
+
+    /**
+     * Order the fields so that each is generated after the fields its expression reads through {@code $obj}, keeping
+     * the passed order otherwise. This is the order {@code GenerationPlan} gives the same fields at runtime.
+     * @return the ordered fields, or null if they reference each other in a cycle, which is reported as an error
+     */
+    private List<FieldPlan> orderByReferences(TypeElement type, List<FieldPlan> plans) {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < plans.size(); i++) {
+            byName.put(plans.get(i).field.getSimpleName().toString(), i);
+        }
+        List<List<Integer>> dependencies = new ArrayList<>();
+        for (FieldPlan plan : plans) {
+            List<Integer> dependsOn = new ArrayList<>();
+            if (plan.isDeferred()) {
+                AnnotationMirror annotation = findAnnotation(plan.classLevel ? type : plan.field, plan.annotation);
+                for (String reference : objectReferences(stringValue(annotation, "value"))) {
+                    // Fields of superclasses are populated before the generated populator runs
+                    if (byName.containsKey(reference)) {
+                        dependsOn.add(byName.get(reference));
+                    }
+                }
+            }
+            dependencies.add(dependsOn);
+        }
+        List<FieldPlan> result = new ArrayList<>(plans.size());
+        int[] state = new int[plans.size()];
+        List<Integer> path = new ArrayList<>();
+        for (int i = 0; i < plans.size(); i++) {
+            if (!visit(i, plans, dependencies, state, path, result)) {
+                int last = path.get(path.size() - 1);
+                StringBuilder cycle = new StringBuilder();
+                for (int j = path.indexOf(last); j < path.size(); j++) {
+                    cycle.append(cycle.length() > 0 ? " -> " : "").append(plans.get(path.get(j)).field.getSimpleName());
+                }
+                error(type, String.format("Class %s cannot be generated as its fields reference each other in a cycle: %s",
+                        type.getQualifiedName(), cycle));
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private static final int VISITING = 1;
+    private static final int DONE = 2;
+
+    /** Depth first, adding the dependencies of a field before it. Returns false, leaving the cycle on the path, on a cycle */
+    private static boolean visit(int index, List<FieldPlan> plans, List<List<Integer>> dependencies, int[] state,
+            List<Integer> path, List<FieldPlan> result) {
+        if (state[index] == DONE) {
+            return true;
+        }
+        path.add(index);
+        if (state[index] == VISITING) {
+            return false;
+        }
+        state[index] = VISITING;
+        for (int dependency : dependencies.get(index)) {
+            if (!visit(dependency, plans, dependencies, state, path, result)) {
+                return false;
+            }
+        }
+        state[index] = DONE;
+        path.remove(path.size() - 1);
+        result.add(plans.get(index));
+        return true;
+    }
+
+    private String stringValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return "";
+    }
+
+    /**
+     * The fields an expression reads as {@code $obj.name}. This tokenizes the expression the way
+     * {@code ExpressionParser} does, skipping quoted strings, as that class cannot be used at build time.
+     */
+    static Set<String> objectReferences(String expression) {
+        Set<String> references = new LinkedHashSet<>();
+        int length = expression.length();
+        int pos = 0;
+        while (pos < length) {
+            char c = expression.charAt(pos);
+            if (c == '\'') {
+                int end = expression.indexOf('\'', pos + 1);
+                pos = end < 0 ? length : end + 1;
+            }
+            else if (c == '$') {
+                int start = ++pos;
+                while (pos < length && (Character.isLetterOrDigit(expression.charAt(pos)) || expression.charAt(pos) == '_')) {
+                    pos++;
+                }
+                if (expression.substring(start, pos).equals("obj")) {
+                    int dot = skipWhitespace(expression, pos);
+                    if (dot < length && expression.charAt(dot) == '.') {
+                        int nameStart = skipWhitespace(expression, dot + 1);
+                        int nameEnd = nameStart;
+                        if (nameEnd < length && Character.isLetter(expression.charAt(nameEnd))) {
+                            while (nameEnd < length && Character.isLetterOrDigit(expression.charAt(nameEnd))) {
+                                nameEnd++;
+                            }
+                            references.add(expression.substring(nameStart, nameEnd));
+                        }
+                        pos = nameEnd;
+                    }
+                }
+            }
+            else {
+                pos++;
+            }
+        }
+        return references;
+    }
+
+    private static int skipWhitespace(String expression, int pos) {
+        while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Find the primitive method to use when the field is a primitive and the processor implements the matching
+     * specialized interface, so the value is never boxed.
+     */
+    private PrimitiveMethod primitiveMethod(TypeMirror type, String annotation) {
+        Elements elements = processingEnv.getElementUtils();
+        TypeElement processor = elements.getTypeElement(ANNOTATION_PACKAGE + "." + annotation + "Processor");
+        if (processor == null) {
+            return null;
+        }
+        for (PrimitiveMethod primitive : PrimitiveMethod.values()) {
+            if (primitive.fieldKind == type.getKind()) {
+                TypeElement specialized = elements.getTypeElement(ANNOTATION_PACKAGE + "." + primitive.processorInterface);
+                Types types = processingEnv.getTypeUtils();
+                if (specialized != null && types.isAssignable(types.erasure(processor.asType()), specialized.asType())) {
+                    return primitive;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String populatorSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, enclosing.getSimpleName());
+        }
+        return name.append(POPULATOR_SUFFIX).toString();
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String simpleName = populatorSimpleName(type);
+        String className = type.getQualifiedName().toString();
+        List<FieldPlan> plans = planFields(type);
+        if (plans == null) {
+            return;
+        }
+        Types types = processingEnv.getTypeUtils();
+
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("/**\n * Populator for {@link ").append(className).append("}, generated from its annotations. Do not edit.\n */\n");
+        sb.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        sb.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        sb.append("public final class ").append(simpleName).append(" implements com.aerospike.generator.Populator<").append(className).append("> {\n");
+        for (int i = 0; i < plans.size(); i++) {
+            FieldPlan plan = plans.get(i);
+            sb.append("    // ").append(plan.field.getSimpleName()).append("\n");
+            sb.append("    private final ").append(ANNOTATION_PACKAGE).append('.').append(plan.annotation).append("Processor processor").append(i).append(";\n");
+            if (!plan.direct) {
+                sb.append("    private final com.aerospike.generator.FieldSetter setter").append(i).append(";\n");
+            }
+        }
+        sb.append("\n    public ").append(simpleName).append("() {\n");
+        for (int i = 0; i < plans.size(); i++) {
+            FieldPlan plan = plans.get(i);
+            boolean needsField = !plan.direct || FIELD_PROCESSORS.contains(plan.annotation);
+            String field = "null";
+            if (needsField) {
+                field = "field" + i;
+                sb.append("        java.lang.reflect.Field ").append(field).append(" = com.aerospike.generator.GeneratedPopulators.getField(")
+                    .append(className).append(".class, \"").append(plan.field.getSimpleName()).append("\");\n");
+            }
+            AnnotationMirror annotation = findAnnotation(plan.classLevel ? type : plan.field, plan.annotation);
+            sb.append("        this.processor").append(i).append(" = new ").append(ANNOTATION_PACKAGE).append('.')
+                .append(plan.annotation).append("Processor(").append(annotationLiteral(annotation, plan.field)).append(", ")
+                .append(plan.fieldType == null ? "null" : ANNOTATION_PACKAGE + ".FieldType." + plan.fieldType)
+                .append(", ").append(field).append(");\n");
+            if (!plan.direct) {
+                sb.append("        this.setter").append(i).append(" = new com.aerospike.generator.FieldSetter(").append(field).append(");\n");
+            }
+        }
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    public void populate(").append(className).append(" object, java.util.Map<String, Object> params) {\n");
+        for (int i = 0; i < plans.size(); i++) {
+            FieldPlan plan = plans.get(i);
+            if (plan.primitive != null) {
+                String value = plan.primitive.cast + "this.processor" + i + "." + plan.primitive.processMethod + "(params)";
+                if (plan.direct) {
+                    sb.append("        object.").append(plan.field.getSimpleName()).append(" = ").append(value).append(";\n");
+                }
+                else {
+                    sb.append("        this.setter").append(i).append('.').append(plan.primitive.setterMethod)
+                        .append("(object, ").append(value).append(");\n");
+                }
+            }
+            else if (plan.direct) {
+                sb.append("        object.").append(plan.field.getSimpleName()).append(" = (")
+                    .append(types.erasure(plan.field.asType())).append(") this.processor").append(i).append(".process(params);\n");
+            }
+            else {
+                sb.append("        this.setter").append(i).append(".set(object, this.processor").append(i).append(".process(params));\n");
+            }
+        }
+        sb.append("    }\n\n");
+        sb.append("    /** Registered with {@code ServiceLoader}, so the populator is found without looking it up by name */\n");
+        sb.append("    public static final class Factory implements com.aerospike.generator.PopulatorFactory {\n");
+        sb.append("        @Override\n");
+        sb.append("        public Class<?> getType() {\n");
+        sb.append("            return ").append(className).append(".class;\n");
+        sb.append("        }\n\n");
+        sb.append("        @Override\n");
+        sb.append("        public com.aerospike.generator.Populator<?> create() {\n");
+        sb.append("            return new ").append(simpleName).append("();\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        String fileName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(fileName, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(sb.toString());
+        }
+        factories.add(fileName + "$Factory");
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String simpleName) {
+        String name = ANNOTATION_PACKAGE + "." + simpleName;
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (qualifiedName(mirror).equals(name)) {
+                return mirror;
+            }
+        }
+        throw new IllegalStateException("@" + simpleName + " is not present on " + element);
+    }
+
+    /**
+     * An anonymous implementation of the annotation which returns the values it has in the source, so the processor
+     * is constructed from literals rather than from an annotation read reflectively at runtime.
+     */
+    private String annotationLiteral(AnnotationMirror mirror, Element field) {
+        String annotationClass = qualifiedName(mirror);
+        StringBuilder sb = new StringBuilder("new ").append(annotationClass).append("() {\n");
+        sb.append("                public Class<? extends java.lang.annotation.Annotation> annotationType() { return ")
+            .append(annotationClass).append(".class; }\n");
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            TypeMirror returnType = entry.getKey().getReturnType();
+            sb.append("                public ").append(returnType).append(' ').append(entry.getKey().getSimpleName())
+                .append("() { return ").append(valueLiteral(entry.getValue(), returnType, field)).append("; }\n");
+        }
+        return sb.append("            }").toString();
+    }
+
+    private String valueLiteral(AnnotationValue value, TypeMirror type, Element field) {
+        Types types = processingEnv.getTypeUtils();
+        return value.accept(new SimpleAnnotationValueVisitor9<String, Void>() {
+            @Override
+            protected String defaultAction(Object constant, Void unused) {
+                return processingEnv.getElementUtils().getConstantExpression(constant);
+            }
+
+            @Override
+            public String visitType(TypeMirror classValue, Void unused) {
+                return types.erasure(classValue) + ".class";
+            }
+
+            @Override
+            public String visitEnumConstant(VariableElement constant, Void unused) {
+                return ((TypeElement) constant.getEnclosingElement()).getQualifiedName() + "." + constant.getSimpleName();
+            }
+
+            @Override
+            public String visitArray(List<? extends AnnotationValue> elements, Void unused) {
+                TypeMirror component = ((ArrayType) type).getComponentType();
+                StringBuilder sb = new StringBuilder("new ").append(types.erasure(component)).append("[] {");
+                for (int i = 0; i < elements.size(); i++) {
+                    sb.append(i == 0 ? "" : ", ").append(valueLiteral(elements.get(i), component, field));
+                }
+                return sb.append('}').toString();
+            }
+
+            @Override
+            public String visitAnnotation(AnnotationMirror nested, Void unused) {
+                error(field, "Nested annotations are not supported by @GenPopulator");
+                return "null";
+            }
+        }, null);
+    }
+
+    /** List the factories of the populators generated by this compilation, merged with those of earlier ones */
+    private void writeFactories() {
+        Filer filer = processingEnv.getFiler();
+        Set<String> entries = new TreeSet<>();
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", FACTORY_SERVICE);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                reader.lines().map(String::trim).filter(line -> !line.isEmpty()).forEach(entries::add);
+            }
+        }
+        catch (IOException | IllegalArgumentException e) {
+            // No earlier compilation wrote the file
+        }
+        entries.addAll(factories);
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", FACTORY_SERVICE);
+            try (Writer writer = file.openWriter()) {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        }
+        catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + FACTORY_SERVICE + ": " + e.getMessage());
+        }
+    }
+}
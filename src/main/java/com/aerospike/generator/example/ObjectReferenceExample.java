@@ -4,6 +4,7 @@ import java.util.Date;
 
 import com.aerospike.generator.annotations.GenDate;
 import com.aerospike.generator.annotations.GenExpression;
+import com.aerospike.generator.annotations.GenList;
 import com.aerospike.generator.annotations.GenNumber;
 import com.aerospike.generator.annotations.GenString;
 
@@ -38,7 +39,7 @@ public class ObjectReferenceExample {
     private String transactionRef;
     
     // Generate an array of tags
-    @GenString(length = 10, type = GenString.StringType.CHARACTERS)
+    @GenList(items = 3, stringLength = 10, stringType = GenString.StringType.CHARACTERS)
     private String[] tags;
     
     // Generate a description that references the first tag
@@ -0,0 +1,54 @@
+package com.aerospike.generator.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.aerospike.generator.ValueCreator;
+import com.aerospike.generator.ValueCreator.PopulationMode;
+
+/**
+ * Compares the reflective and compiled population modes of {@code ValueCreator} on {@code Member} and 
+ * {@code MagicListSetExample}. Each mode is warmed up before it is timed, and the modes are alternated over
+ * several rounds so that neither consistently benefits from running second.
+ * <p/>
+ * Note that nested objects (like {@code Member.address}) come from the {@code ValueCreatorCache} and so use the
+ * default mode. Run with {@code -Dgenerator.populationMode=REFLECTION} to compare the fully reflective path.
+ */
+public class PopulatorBenchmarkRunner {
+    private static final int ROUNDS = 5;
+    
+    private static <T> long time(ValueCreator<T> creator, Class<T> clazz, int iterations) throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            params.put("Key", (long) i);
+            T object = clazz.getConstructor().newInstance();
+            creator.populate(object, params);
+        }
+        return System.nanoTime() - start;
+    }
+    
+    private static <T> void benchmark(Class<T> clazz, int iterations) throws Exception {
+        ValueCreator<T> reflective = new ValueCreator<>(clazz, PopulationMode.REFLECTION);
+        ValueCreator<T> compiled = new ValueCreator<>(clazz, PopulationMode.COMPILED);
+        time(reflective, clazz, iterations);
+        time(compiled, clazz, iterations);
+        
+        long reflectiveTotal = 0;
+        long compiledTotal = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            reflectiveTotal += time(reflective, clazz, iterations);
+            compiledTotal += time(compiled, clazz, iterations);
+        }
+        long count = (long)ROUNDS * iterations;
+        System.out.printf("%-22s reflection: %,9.1fns/object, compiled: %,9.1fns/object (%+.1f%%)\n", 
+                clazz.getSimpleName(), (double)reflectiveTotal / count, (double)compiledTotal / count,
+                100.0 * (compiledTotal - reflectiveTotal) / reflectiveTotal);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        benchmark(Member.class, iterations);
+        benchmark(MagicListSetExample.class, Math.max(1, iterations / 10));
+    }
+}
@@ -0,0 +1,142 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.client.Key;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.cluster.Partition;
+import com.aerospike.generator.annotations.GenDate;
+import com.aerospike.generator.annotations.GenEnum;
+import com.aerospike.generator.annotations.GenExpression;
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenNumber;
+
+class AerospikeSinkTest {
+    public enum Status {ACTIVE, CLOSED}
+
+    public static class Account {
+        @GenExpression("$Key")
+        private long id;
+        @GenNumber(start = 0, end = 1000)
+        private int balance;
+        @GenDate(start = "01/01/2024", end = "31/12/2024")
+        private Date opened;
+        @GenEnum
+        private Status status;
+        @GenList(items = 3)
+        private List<String> tags;
+        private transient String cached;
+
+        public Account() {}
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAsyncBatches() throws Exception {
+        InMemoryAerospikeClient store = new InMemoryAerospikeClient(2, key -> false);
+        try (AerospikeSink<Account> sink = AerospikeSink.builder(store.client(), "test", "account", Account.class)
+                .keyField("id").batchSize(10).maxInFlight(3).build()) {
+            new Generator(Account.class).generate(1, 995, 4, Account.class, sink).monitor();
+            sink.close();
+            AerospikeSink.Metrics metrics = sink.getMetrics();
+            assertEquals(995, metrics.getWritten());
+            assertEquals(0, metrics.getFailed());
+            assertEquals(0, metrics.getInFlight());
+        }
+        finally {
+            store.shutdown();
+        }
+        assertEquals(995, store.records.size());
+        // 99 full batches, then the remaining 5 records are written on close
+        assertEquals(100, store.batches.get());
+        assertTrue(store.maxOutstanding.get() <= 3, "in flight " + store.maxOutstanding.get());
+
+        Map<String, Object> record = store.records.get(new Key("test", "account", 17L));
+        assertEquals(17L, record.get("id"));
+        assertTrue(record.get("opened") instanceof Long);
+        assertTrue(List.of("ACTIVE", "CLOSED").contains(record.get("status")));
+        assertEquals(3, ((List<String>) record.get("tags")).size());
+        assertTrue(!record.containsKey("cached"));
+    }
+
+    public static class Shard {
+        @GenExpression("$PartitionId")
+        private long partition;
+
+        public Shard() {}
+    }
+
+    @Test
+    void testBatchesByPartitionWithGeneratorDigests() throws Exception {
+        InMemoryAerospikeClient store = new InMemoryAerospikeClient(0, key -> false);
+        AerospikeSink<Shard> sink = AerospikeSink.builder(store.client(), "test", "shard", Shard.class)
+                .keyFromId().grouping(AerospikeSink.Grouping.PARTITION).batchSize(3).async(false).build();
+        assertThrows(IllegalStateException.class, () -> sink.process(new Shard()));
+
+        new Generator(Shard.class).setKeyDigests("shard").generate(1, 20_000, 4, Shard.class, sink).monitor();
+        sink.close();
+        store.shutdown();
+
+        assertEquals(20_000, sink.getMetrics().getWritten());
+        assertEquals(0, store.mixedBatches.get());
+        for (long id = 1; id <= 20_000; id += 97) {
+            Key key = new Key("test", "shard", id);
+            assertEquals((long) Partition.getPartitionId(key.digest), store.records.get(key).get("partition"));
+        }
+    }
+
+    @Test
+    void testFailuresAreCounted() throws Exception {
+        InMemoryAerospikeClient store = new InMemoryAerospikeClient(0, key -> key.userKey.toLong() % 10 == 0);
+        AerospikeSink<Account> sink = AerospikeSink.builder(store.client(), "test", "account", Account.class)
+                .key(account -> account.id).async(false).build();
+        Set<Long> deadLetters = ConcurrentHashMap.newKeySet();
+        Generator generator = new Generator(Account.class).setErrorHandler(ErrorHandler.deadLetters(deadLetters::add));
+        generator.generate(1, 100, 2, Account.class, sink).monitor();
+        sink.close();
+        store.shutdown();
+
+        // Without async the write throws, so the generator handles the failure
+        assertEquals(90, generator.getMontiorStats().getSuccessCount());
+        assertEquals(10, generator.getMontiorStats().getFailureCount());
+        assertEquals(Set.of(10L, 20L, 30L, 40L, 50L, 60L, 70L, 80L, 90L, 100L), deadLetters);
+
+        AerospikeSink.Metrics metrics = sink.getMetrics();
+        assertEquals(90, metrics.getWritten());
+        assertEquals(10, metrics.getFailed());
+        assertEquals(Map.of(ResultCode.KEY_EXISTS_ERROR, 10L), metrics.getFailuresByResultCode());
+        assertEquals(ResultCode.KEY_EXISTS_ERROR, sink.getLastError().getResultCode());
+        assertEquals(90, store.records.size());
+        assertThrows(IllegalStateException.class, () -> sink.process(new Account()));
+    }
+
+    @Test
+    void testAsyncBatchFailuresAreReported() throws Exception {
+        InMemoryAerospikeClient store = new InMemoryAerospikeClient(1, key -> key.userKey.toLong() % 10 == 0);
+        Set<Long> deadLetters = ConcurrentHashMap.newKeySet();
+        Generator generator = new Generator(Account.class).setErrorHandler(ErrorHandler.deadLetters(deadLetters::add));
+        try (AerospikeSink<Account> sink = AerospikeSink.builder(store.client(), "test", "account", Account.class)
+                .keyField("id").batchSize(7).build()) {
+            generator.generate(1, 100, 2, Account.class, sink).monitor();
+            sink.close();
+            assertEquals(10, sink.getMetrics().getFailed());
+        }
+        finally {
+            store.shutdown();
+        }
+        // The records failed after they were processed, and are reported by their ids
+        assertEquals(90, generator.getMontiorStats().getSuccessCount());
+        assertEquals(10, generator.getMontiorStats().getFailureCount());
+        assertEquals(Set.of(10L, 20L, 30L, 40L, 50L, 60L, 70L, 80L, 90L, 100L), deadLetters);
+    }
+}
@@ -0,0 +1,161 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.command.ParticleType;
+import com.aerospike.client.util.Unpacker;
+import com.aerospike.generator.annotations.GenDate;
+import com.aerospike.generator.annotations.GenEnum;
+import com.aerospike.generator.annotations.GenExpression;
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenNumber;
+import com.aerospike.generator.annotations.GenObject;
+import com.aerospike.generator.annotations.GenSet;
+import com.aerospike.generator.annotations.GenString;
+import com.aerospike.generator.annotations.GenString.StringType;
+
+class BinMapperTest {
+    public enum Tier {GOLD, SILVER}
+
+    public static class Address {
+        @GenString(type = StringType.WORDS, minLength = 1, maxLength = 3)
+        private String street;
+        @GenNumber(start = 1, end = 999)
+        private int number;
+
+        public Address() {}
+    }
+
+    public static class Customer {
+        @GenExpression("$Key")
+        private long id;
+        private short age = 42;
+        @GenNumber(start = 0, end = 10000, divisor = 100)
+        private double balance;
+        private boolean active = true;
+        @GenDate(start = "01/01/2024", end = "31/12/2024")
+        private Date joined;
+        private LocalDate birthday = LocalDate.of(1990, 6, 15);
+        private Instant seen = Instant.ofEpochMilli(1_700_000_000_123L);
+        @GenEnum
+        private Tier tier;
+        @GenObject
+        private Address address;
+        @GenList(items = 2)
+        private List<Address> previous;
+        @GenSet(items = 3)
+        private Set<String> tags;
+        private int[] scores = {3, 1, 2};
+
+        public Customer() {}
+    }
+
+    public static class Named {
+        private final String name;
+
+        public Named(String name) {
+            this.name = name;
+        }
+    }
+
+    private static Customer generate(long key) {
+        return ValueCreatorCache.getInstance().get(Customer.class).createAndPopulate(Map.of("Key", key));
+    }
+
+    private static Map<String, Object> asMap(Bin[] bins) {
+        Map<String, Object> result = new HashMap<>();
+        for (Bin bin : bins) {
+            result.put(bin.name, bin.value.getObject());
+        }
+        return result;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testValuesAreStoredNatively() {
+        Customer customer = generate(7);
+        BinMapper<Customer> mapper = BinMapper.forClass(Customer.class);
+        Bin[] bins = mapper.toBins(customer);
+        assertEquals(mapper.getBinNames().length, bins.length);
+
+        Map<String, Object> values = asMap(bins);
+        assertEquals(7L, values.get("id"));
+        assertEquals((long) customer.age, values.get("age"));
+        assertEquals(customer.balance, values.get("balance"));
+        assertEquals(true, values.get("active"));
+        assertEquals(customer.joined.getTime(), values.get("joined"));
+        assertEquals(LocalDate.of(1990, 6, 15).toEpochDay() * 86_400_000L, values.get("birthday"));
+        assertEquals(1_700_000_000_123L, values.get("seen"));
+        assertEquals(customer.tier.name(), values.get("tier"));
+        assertEquals(Map.of("street", customer.address.street, "number", (long) customer.address.number), values.get("address"));
+        assertEquals(2, ((List<Object>) values.get("previous")).size());
+        assertEquals(customer.tags.size(), ((List<Object>) values.get("tags")).size());
+        assertEquals(List.of(3L, 1L, 2L), values.get("scores"));
+
+        // Lists and nested objects are packed straight from the fields
+        Bin address = bins[mapper.indexOf("address")];
+        assertEquals(ParticleType.MAP, address.value.getType());
+        byte[] packed = new byte[address.value.estimateSize()];
+        address.value.write(packed, 0);
+        assertEquals(values.get("address"), Unpacker.unpackObject(packed, 0, packed.length));
+        assertEquals(ParticleType.LIST, bins[mapper.indexOf("scores")].value.getType());
+    }
+
+    @Test
+    void testDetachedBinsAreUnaffectedByChanges() {
+        Customer customer = generate(1);
+        BinMapper<Customer> mapper = BinMapper.forClass(Customer.class);
+        Bin[] detached = mapper.toDetachedBins(customer);
+        Bin[] attached = mapper.toBins(customer);
+        customer.scores[0] = 99;
+
+        Bin scores = detached[mapper.indexOf("scores")];
+        byte[] packed = new byte[scores.value.estimateSize()];
+        scores.value.write(packed, 0);
+        assertEquals(List.of(3L, 1L, 2L), Unpacker.unpackObject(packed, 0, packed.length));
+        assertEquals(List.of(99L, 1L, 2L), attached[mapper.indexOf("scores")].value.getObject());
+    }
+
+    @Test
+    void testRoundTrip() {
+        Customer customer = generate(12);
+        BinMapper<Customer> mapper = BinMapper.forClass(Customer.class);
+        Customer copy = mapper.fromBins(mapper.toBins(customer));
+
+        assertEquals(mapper.toMap(customer), mapper.toMap(copy));
+        assertEquals(customer.joined, copy.joined);
+        assertEquals(customer.birthday, copy.birthday);
+        assertEquals(customer.seen, copy.seen);
+        assertEquals(customer.tier, copy.tier);
+        assertEquals(customer.address.street, copy.address.street);
+        assertEquals(customer.previous.get(1).number, copy.previous.get(1).number);
+        assertEquals(customer.tags, copy.tags);
+        assertArrayEquals(customer.scores, copy.scores);
+
+        // Bins which are not fields are ignored, and missing bins leave the field as constructed
+        Customer partial = mapper.fromMap(Map.of("id", 5L, "unknown", "x"));
+        assertEquals(5L, partial.id);
+        assertTrue(partial.active);
+    }
+
+    @Test
+    void testClassWithoutDefaultConstructor() {
+        BinMapper<Named> mapper = BinMapper.forClass(Named.class);
+        assertEquals("fred", mapper.toBins(new Named("fred"))[0].value.getObject());
+        assertThrows(IllegalArgumentException.class, () -> mapper.fromMap(Map.of("name", "fred")));
+    }
+}
@@ -0,0 +1,101 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.generator.FieldProfiler.ClassProfile;
+import com.aerospike.generator.FieldProfiler.FieldProfile;
+import com.aerospike.generator.annotations.GenBytes;
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenNumber;
+import com.aerospike.generator.annotations.GenObject;
+
+class FieldProfilerTest {
+    public static class Line {
+        @GenNumber(start = 1, end = 10)
+        private int quantity;
+        @GenBytes(length = 64)
+        private byte[] sku;
+
+        public Line() {}
+    }
+
+    public static class Order {
+        @GenNumber(start = 1, end = 1000)
+        private long id;
+        @GenBytes(length = 4096)
+        private byte[] payload;
+        @GenObject
+        private Line first;
+        @GenList(items = 3)
+        private List<Line> lines;
+
+        public Order() {}
+    }
+
+    @Test
+    void testProfilesFieldsAndNestedObjects() throws Exception {
+        ValueCreator<Order> creator = new ValueCreator<>(Order.class);
+        FieldProfiler profiler = FieldProfiler.start(1.0);
+        try {
+            for (int i = 0; i < 200; i++) {
+                Order order = new Order();
+                creator.populate(order, new HashMap<>());
+                assertEquals(3, order.lines.size());
+            }
+        }
+        finally {
+            profiler.stop();
+        }
+        assertNull(FieldProfiler.getActive());
+
+        ClassProfile orders = profiler.getProfile(Order.class);
+        assertEquals(200, orders.getSamples());
+        List<FieldProfile> fields = orders.getFields();
+        assertEquals(4, fields.size());
+        for (FieldProfile field : fields) {
+            assertEquals(200, field.getSamples());
+        }
+        FieldProfile payload = fields.stream().filter(field -> field.getFieldName().equals("payload")).findFirst().get();
+        assertEquals("GenBytes", payload.getProcessorName());
+        if (payload.getMeanAllocatedBytes() >= 0) {
+            assertTrue(payload.getMeanAllocatedBytes() >= 4096, "allocated " + payload.getMeanAllocatedBytes());
+        }
+
+        // Each order populates one line for the object and three for the list
+        assertEquals(800, profiler.getProfile(Line.class).getSamples());
+        FieldProfile lines = fields.stream().filter(field -> field.getFieldName().equals("lines")).findFirst().get();
+        assertTrue(lines.getChildren().contains(Line.class));
+
+        String report = profiler.report();
+        assertTrue(report.contains(Order.class.getName()), report);
+        assertTrue(report.contains("      " + Line.class.getName()), report);
+    }
+
+    @Test
+    void testSamplesFractionOfRecords() throws Exception {
+        ValueCreator<Line> creator = new ValueCreator<>(Line.class);
+        creator.populate(new Line(), new HashMap<>());
+        FieldProfiler profiler = FieldProfiler.start(0.1);
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                creator.populate(new Line(), new HashMap<>());
+            }
+        }
+        finally {
+            profiler.stop();
+        }
+        ClassProfile profile = profiler.getProfile(Line.class);
+        assertNotNull(profile);
+        assertTrue(profile.getSamples() > 700 && profile.getSamples() < 1300, "sampled " + profile.getSamples());
+        assertThrows(IllegalArgumentException.class, () -> FieldProfiler.start(0));
+    }
+}
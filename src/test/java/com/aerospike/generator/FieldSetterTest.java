@@ -0,0 +1,62 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class FieldSetterTest {
+    
+    @SuppressWarnings("unused")
+    private static class Target {
+        private int count;
+        private long total;
+        private Long boxedTotal;
+        private final String name = null;
+        private double ratio;
+    }
+    
+    private static FieldSetter setter(String name) throws Exception {
+        return new FieldSetter(Target.class.getDeclaredField(name));
+    }
+    
+    @Test
+    void testPrimitiveSetters() throws Exception {
+        Target target = new Target();
+        setter("count").setInt(target, 12);
+        setter("total").setLong(target, 34L);
+        setter("boxedTotal").setLong(target, 56L);
+        setter("ratio").setDouble(target, 0.5);
+        assertEquals(12, target.count);
+        assertEquals(34L, target.total);
+        assertEquals(56L, target.boxedTotal);
+        assertEquals(0.5, target.ratio);
+    }
+    
+    @Test
+    void testBoxedValuesAndWidening() throws Exception {
+        Target target = new Target();
+        setter("count").set(target, 7);
+        // Field.set allows widening an Integer into a long, so the setter must too
+        setter("total").set(target, 8);
+        setter("total").setInt(target, 9);
+        assertEquals(7, target.count);
+        assertEquals(9L, target.total);
+    }
+    
+    @Test
+    void testFinalFieldsCanBeSet() throws Exception {
+        Target target = new Target();
+        FieldSetter setter = setter("name");
+        setter.set(target, "Bob");
+        assertEquals("Bob", setter.getField().get(target));
+    }
+    
+    @Test
+    void testInvalidValues() throws Exception {
+        Target target = new Target();
+        assertThrows(IllegalArgumentException.class, () -> setter("count").set(target, "abc"));
+        assertThrows(IllegalArgumentException.class, () -> setter("count").set(target, null));
+        assertThrows(IllegalArgumentException.class, () -> setter("count").setLong(target, 1L));
+    }
+}
@@ -0,0 +1,263 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.management.MBeanServer;
+import javax.management.openmbean.TabularData;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.generator.ValueCreatorTest.Household;
+import com.aerospike.generator.annotations.GenExpression;
+import com.aerospike.generator.annotations.GenNumber;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class GeneratorTest {
+    public static class Keyed {
+        @GenExpression("$Key")
+        private long id;
+        
+        public Keyed() {}
+    }
+    
+    public static class Recorded {
+        @GenExpression("$Key")
+        private long id;
+        @GenNumber(start = 1, end = 10)
+        private int size;
+        
+        public Recorded() {}
+    }
+    
+    private static void waitFor(Generator generator) throws InterruptedException {
+        while (!generator.isComplete()) {
+            Thread.sleep(10);
+        }
+    }
+    
+    @Test
+    void testRecycledInstancesArePerThread() throws Exception {
+        Set<Household> instances = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        Generator generator = new Generator(Household.class).setRecycleInstances(true);
+        generator.generate(1, 1000, 4, Household.class, household -> instances.add(household));
+        waitFor(generator);
+        assertEquals(1000, generator.getMonitorStats().getSuccessCount());
+        assertTrue(instances.size() <= 4, "Expected at most one instance per thread, got " + instances.size());
+    }
+    
+    @Test
+    void testStageLatencies() throws Exception {
+        Generator generator = new Generator(Household.class);
+        generator.generate(1, 500, 2, Household.class, id -> new Household(), null, household -> {
+            long end = System.nanoTime() + 100_000;
+            while (System.nanoTime() < end) {
+                // Simulate a slow sink
+            }
+        });
+        waitFor(generator);
+        Generator.MonitorStats stats = generator.getMonitorStats();
+        for (Generator.Stage stage : Generator.Stage.values()) {
+            assertEquals(500, stats.getLatency(stage).getCount());
+            assertEquals(500, stats.getIntervalLatency(stage).getCount());
+        }
+        assertTrue(stats.getLatency(Generator.Stage.PROCESS).getValueAtPercentile(50) >= 100_000);
+        
+        // Nothing has been generated since the last statistics were taken
+        Generator.MonitorStats next = generator.getMonitorStats();
+        assertEquals(0, next.getIntervalLatency(Generator.Stage.PROCESS).getCount());
+        assertEquals(500, next.getLatency(Generator.Stage.PROCESS).getCount());
+    }
+    
+    @Test
+    void testIdBatches() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        Generator generator = new Generator(Keyed.class).setIdBatchSize(64);
+        generator.generate(1, 1000, 4, Keyed.class, keyed -> ids.add(keyed.id));
+        waitFor(generator);
+        assertEquals(1000, generator.getMonitorStats().getSuccessCount());
+        assertEquals(1000, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id >= 1 && id <= 1000));
+        assertThrows(IllegalArgumentException.class, () -> generator.setIdBatchSize(0));
+    }
+    
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).count();
+    }
+    
+    @Test
+    void testFlightRecorderEvents() throws Exception {
+        Path file = Files.createTempFile("generator", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.aerospike.generator.RunStart");
+            recording.enable("com.aerospike.generator.Run");
+            recording.enable("com.aerospike.generator.Chunk");
+            recording.enable("com.aerospike.generator.SlowRecord").withThreshold(Duration.ZERO);
+            recording.enable("com.aerospike.generator.ProcessorBuild");
+            recording.enable("com.aerospike.generator.ValueCreatorBuild");
+            recording.start();
+            Generator generator = new Generator(Recorded.class);
+            generator.generate(1, 2500, 2, Recorded.class, recorded -> {});
+            waitFor(generator);
+            recording.stop();
+            recording.dump(file);
+            
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(1, count(events, "com.aerospike.generator.RunStart"));
+            RecordedEvent run = events.stream().filter(event -> event.getEventType().getName().equals("com.aerospike.generator.Run")).findFirst().get();
+            assertEquals(2500, run.getLong("successCount"));
+            assertEquals(Recorded.class.getName(), run.getString("className"));
+            assertEquals(2500, count(events, "com.aerospike.generator.SlowRecord"));
+            assertEquals(2500, events.stream().filter(event -> event.getEventType().getName().equals("com.aerospike.generator.Chunk"))
+                    .mapToLong(event -> event.getLong("records")).sum());
+            assertEquals(2, count(events, "com.aerospike.generator.ProcessorBuild"));
+            assertEquals(1, count(events, "com.aerospike.generator.ValueCreatorBuild"));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    @Test
+    void testMetrics() throws Exception {
+        List<GeneratorMetrics> published = new CopyOnWriteArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        Generator generator = new Generator(Keyed.class).setMetricsInterval(Duration.ofMillis(10))
+                .addMetricsSink(metrics -> {
+                    published.add(metrics);
+                    if (metrics.isComplete()) {
+                        completed.countDown();
+                    }
+                });
+        assertNull(generator.getMetrics().getClassName());
+        generator.registerMBean("metrics-test");
+        try {
+            generator.generate(1, 1000, 2, Keyed.class, keyed -> {});
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+            GeneratorMetrics last = published.get(published.size() - 1);
+            assertEquals(1000, last.getSuccessCount());
+            assertEquals(0, last.getActiveThreadCount());
+            assertEquals(0, last.getEstimatedSecondsRemaining());
+            assertEquals(Keyed.class.getName(), last.getClassName());
+            assertEquals(1000, last.getCountsByClass().get(Keyed.class.getName()));
+            
+            waitFor(generator);
+            generator.generate(1, 500, 1, Keyed.class, keyed -> {});
+            waitFor(generator);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(500L, server.getAttribute(generator.getMBeanName(), "SuccessCount"));
+            assertEquals(0.0, server.getAttribute(generator.getMBeanName(), "ErrorRate"));
+            TabularData counts = (TabularData)server.getAttribute(generator.getMBeanName(), "CountsByClass");
+            assertEquals(1500L, counts.get(new Object[] {Keyed.class.getName()}).get("value"));
+        }
+        finally {
+            generator.unregisterMBean();
+        }
+        assertNull(generator.getMBeanName());
+    }
+    
+    @Test
+    void testFailingMetricsSinkIsCounted() throws Exception {
+        CountDownLatch completed = new CountDownLatch(1);
+        MetricsSink failing = metrics -> {
+            throw new IllegalStateException("Dashboard unavailable");
+        };
+        List<Exception> reported = new CopyOnWriteArrayList<>();
+        ErrorHandler handler = new ErrorHandler() {
+            @Override
+            public void handle(long id, Generator.Stage stage, Exception exception) {
+            }
+
+            @Override
+            public void metricsSinkFailed(MetricsSink sink, Exception exception) {
+                reported.add(exception);
+            }
+        };
+        Generator generator = new Generator(Keyed.class).setMetricsInterval(Duration.ofMillis(1))
+                .setErrorHandler(handler)
+                .addMetricsSink(failing)
+                .addMetricsSink(metrics -> {
+                    if (metrics.isComplete()) {
+                        completed.countDown();
+                    }
+                });
+        generator.generate(1, 1000, 1, Keyed.class, keyed -> LockSupport.parkNanos(50_000));
+        // The sinks after a failing one are still called
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertTrue(generator.getMetricsSinkFailures(failing) > 1);
+        // Only the first failure goes to the error handler
+        assertEquals(1, reported.size());
+        assertEquals("Dashboard unavailable", reported.get(0).getMessage());
+        generator.removeMetricsSink(failing);
+        assertEquals(0, generator.getMetricsSinkFailures(failing));
+    }
+    
+    @Test
+    void testErrorHandling() throws Exception {
+        // Callbacks which fail once succeed when retried
+        Set<Long> attempted = ConcurrentHashMap.newKeySet();
+        Generator retrying = new Generator(Keyed.class)
+                .setRetryPolicy(RetryPolicy.backoff(2, Duration.ofMillis(1), Duration.ofMillis(2)));
+        retrying.generate(1, 1000, 2, Keyed.class, keyed -> {
+            if (keyed.id % 10 == 0 && attempted.add(keyed.id)) {
+                throw new IllegalStateException("Rejected " + keyed.id);
+            }
+        });
+        waitFor(retrying);
+        assertEquals(1000, retrying.getMonitorStats().getSuccessCount());
+        assertEquals(0, retrying.getMonitorStats().getFailureCount());
+        
+        // Failures are logged once per type, and their ids passed to the dead-letter hook
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ErrorLogger logger = new ErrorLogger(new PrintStream(output, true), Duration.ofHours(1));
+        Set<Long> deadLetters = ConcurrentHashMap.newKeySet();
+        Generator failing = new Generator(Keyed.class).setErrorHandler(logger.andThen(ErrorHandler.deadLetters(deadLetters::add)));
+        failing.generate(1, 1000, 2, Keyed.class, keyed -> {
+            if (keyed.id % 2 == 0) {
+                throw new IllegalStateException("Rejected " + keyed.id);
+            }
+        });
+        waitFor(failing);
+        assertEquals(500, failing.getMonitorStats().getFailureCount());
+        assertEquals(500, deadLetters.size());
+        assertTrue(deadLetters.stream().allMatch(id -> id % 2 == 0));
+        assertEquals(500, logger.getCounts().get("PROCESS java.lang.IllegalStateException"));
+        String log = output.toString();
+        assertEquals(log.indexOf("failed in PROCESS"), log.lastIndexOf("failed in PROCESS"));
+        assertTrue(log.contains("499 more failures of PROCESS java.lang.IllegalStateException"));
+        assertFalse(failing.isAborted());
+        
+        // The run stops once the maximum number of errors is reached
+        Generator aborting = new Generator(Keyed.class).setMaxErrors(10).setErrorHandler((id, stage, exception) -> {});
+        aborting.generate(1, 1000, 1, Keyed.class, keyed -> {
+            throw new IllegalStateException("Rejected " + keyed.id);
+        });
+        waitFor(aborting);
+        assertTrue(aborting.isAborted());
+        assertEquals(10, aborting.getMonitorStats().getFailureCount());
+        assertTrue(aborting.getMetrics().isAborted());
+        assertThrows(IllegalArgumentException.class, () -> aborting.setMaxErrors(0));
+    }
+}
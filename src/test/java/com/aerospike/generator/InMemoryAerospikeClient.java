@@ -0,0 +1,172 @@
+package com.aerospike.generator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Bin;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.Partition;
+import com.aerospike.client.listener.BatchOperateListListener;
+import com.aerospike.client.listener.WriteListener;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.policy.WritePolicy;
+
+/**
+ * An {@code IAerospikeClient} which keeps records in memory, for testing without a cluster. It supports the puts and
+ * batch writes the sinks use, synchronously and asynchronously. Async commands complete on a thread pool after
+ * {@code asyncDelayMillis}, and the most commands outstanding at once is recorded. Writes to keys matching
+ * {@code failWhen} fail with {@code KEY_EXISTS_ERROR}. Batches holding records of more than one partition are
+ * counted.
+ */
+class InMemoryAerospikeClient implements InvocationHandler {
+    final Map<Key, Map<String, Object>> records = new ConcurrentHashMap<>();
+    final AtomicInteger outstanding = new AtomicInteger();
+    final AtomicInteger maxOutstanding = new AtomicInteger();
+    final AtomicInteger batches = new AtomicInteger();
+    /** Batches holding records of more than one partition */
+    final AtomicInteger mixedBatches = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final long asyncDelayMillis;
+    private final Predicate<Key> failWhen;
+
+    InMemoryAerospikeClient(long asyncDelayMillis, Predicate<Key> failWhen) {
+        this.asyncDelayMillis = asyncDelayMillis;
+        this.failWhen = failWhen;
+    }
+
+    IAerospikeClient client() {
+        return (IAerospikeClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {IAerospikeClient.class}, this);
+    }
+
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        Class<?>[] types = method.getParameterTypes();
+        switch (method.getName()) {
+        case "getWritePolicyDefault":
+            return new WritePolicy();
+        case "getBatchParentPolicyWriteDefault":
+            return new BatchPolicy();
+        case "getCluster":
+            return null;
+        case "getNodes":
+            return new Node[0];
+        case "isConnected":
+            return true;
+        case "close":
+            return null;
+        case "put":
+            if (types[0] == WritePolicy.class) {
+                put((Key) args[1], (Bin[]) args[2]);
+            }
+            else {
+                WriteListener listener = (WriteListener) args[1];
+                Key key = (Key) args[3];
+                Bin[] bins = (Bin[]) args[4];
+                async(() -> {
+                    try {
+                        put(key, bins);
+                        listener.onSuccess(key);
+                    }
+                    catch (AerospikeException e) {
+                        listener.onFailure(e);
+                    }
+                });
+            }
+            return null;
+        case "operate":
+            if (types.length == 2 && types[0] == BatchPolicy.class) {
+                return writeBatch((List<BatchRecord>) args[1]);
+            }
+            if (types.length == 4 && types[1] == BatchOperateListListener.class) {
+                BatchOperateListListener listener = (BatchOperateListListener) args[1];
+                List<BatchRecord> records = (List<BatchRecord>) args[3];
+                async(() -> listener.onSuccess(records, writeBatch(records)));
+                return null;
+            }
+            break;
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "equals":
+            return proxy == args[0];
+        case "toString":
+            return "InMemoryAerospikeClient";
+        default:
+            break;
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    private void async(Runnable command) {
+        int now = outstanding.incrementAndGet();
+        maxOutstanding.accumulateAndGet(now, Math::max);
+        executor.execute(() -> {
+            try {
+                Thread.sleep(asyncDelayMillis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // The listener is called after the command is no longer counted, as the real client does
+            outstanding.decrementAndGet();
+            command.run();
+        });
+    }
+
+    private void put(Key key, Bin[] bins) {
+        if (failWhen.test(key)) {
+            throw new AerospikeException(ResultCode.KEY_EXISTS_ERROR);
+        }
+        Map<String, Object> record = new HashMap<>();
+        for (Bin bin : bins) {
+            record.put(bin.name, bin.value.getObject());
+        }
+        records.put(key, record);
+    }
+
+    private boolean writeBatch(List<BatchRecord> batch) {
+        batches.incrementAndGet();
+        if (batch.stream().map(record -> Partition.getPartitionId(record.key.digest)).distinct().count() > 1) {
+            mixedBatches.incrementAndGet();
+        }
+        boolean status = true;
+        for (BatchRecord record : batch) {
+            Operation[] operations = ((BatchWrite) record).ops;
+            Bin[] bins = new Bin[operations.length];
+            for (int i = 0; i < operations.length; i++) {
+                bins[i] = new Bin(operations[i].binName, operations[i].value);
+            }
+            try {
+                put(record.key, bins);
+                record.resultCode = ResultCode.OK;
+            }
+            catch (AerospikeException e) {
+                record.resultCode = e.getResultCode();
+                status = false;
+            }
+        }
+        return status;
+    }
+}
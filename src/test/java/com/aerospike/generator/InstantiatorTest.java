@@ -0,0 +1,253 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.aerospike.generator.annotations.GenConstructor;
+import com.aerospike.generator.annotations.GenExpression;
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenNumber;
+import com.aerospike.generator.annotations.GenObject;
+import com.aerospike.generator.annotations.GenRange;
+
+class InstantiatorTest {
+    public static class Account {
+        @GenExpression("'Account-' & $Key")
+        private final String id;
+        @GenNumber(start = 100, end = 200)
+        private final long balance;
+        @GenExpression("$obj.balance * 2")
+        private final long limit;
+        // Not passed to the constructor, so set afterwards
+        @GenRange(start = 1, end = 5)
+        private int branch;
+
+        @GenConstructor({"id", "balance", "limit"})
+        public Account(String id, long balance, long limit) {
+            this.id = id;
+            this.balance = balance;
+            this.limit = limit;
+        }
+    }
+
+    public static class Money {
+        @GenNumber(start = 1, end = 100)
+        private final int amount;
+        @GenExpression("'USD'")
+        private final String currency;
+
+        private Money(int amount, String currency) {
+            this.amount = amount;
+            this.currency = currency;
+        }
+
+        @GenConstructor({"currency", "amount"})
+        static Money of(String currency, int amount) {
+            return new Money(amount, currency);
+        }
+    }
+
+    public static class Order {
+        @GenExpression("'Order-' & $Key")
+        private final String id;
+        @GenList(items = 3)
+        private final List<Long> lines;
+        @GenRange(start = 1, end = 9)
+        private final int priority;
+
+        private Order(Builder builder) {
+            this.id = builder.id;
+            this.lines = builder.lines;
+            this.priority = builder.priority;
+        }
+
+        @GenConstructor
+        static Builder builder() {
+            return new Builder();
+        }
+
+        static class Builder {
+            private String id;
+            private List<Long> lines;
+            private int priority;
+
+            Builder id(String id) {
+                this.id = id;
+                return this;
+            }
+            void setLines(List<Long> lines) {
+                this.lines = lines;
+            }
+            Builder withPriority(int priority) {
+                this.priority = priority;
+                return this;
+            }
+            Order build() {
+                return new Order(this);
+            }
+        }
+    }
+
+    public static class Holder {
+        @GenObject
+        private Account account;
+
+        public Holder() {}
+    }
+
+    // Its GenObject field is resolved while the creator of the class is still being built
+    public static class Category {
+        @GenExpression("'Category-' & $Key")
+        private final String name;
+        @GenObject(percentNull = 60)
+        private final Category parent;
+
+        @GenConstructor({"name", "parent"})
+        public Category(String name, Category parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+    }
+
+    public static class SelfReferenceWithoutConstructor {
+        @GenObject(percentNull = 100)
+        private final SelfReferenceWithoutConstructor next;
+
+        public SelfReferenceWithoutConstructor(SelfReferenceWithoutConstructor next) {
+            this.next = next;
+        }
+    }
+
+    public static class Mismatched {
+        @GenNumber(start = 1, end = 10)
+        private final long value;
+
+        @GenConstructor({"value"})
+        public Mismatched(String value) {
+            this.value = value.length();
+        }
+    }
+
+    @Test
+    void testConstructorIsPassedGeneratedValues() {
+        ValueCreator<Account> creator = new ValueCreator<>(Account.class);
+        for (long key = 1; key <= 50; key++) {
+            Account account = creator.createAndPopulate(Map.of("Key", key));
+            assertEquals("Account-" + key, account.id);
+            assertTrue(account.balance >= 100 && account.balance <= 200);
+            assertEquals(account.balance * 2, account.limit);
+            assertTrue(account.branch >= 1 && account.branch <= 5);
+        }
+        assertThrows(IllegalArgumentException.class, () -> creator.create());
+    }
+
+    @Test
+    void testFactoryAndBuilder() {
+        Money money = new ValueCreator<>(Money.class).createAndPopulate(Map.of("Key", 1L));
+        assertEquals("USD", money.currency);
+        assertTrue(money.amount >= 1 && money.amount <= 100);
+
+        Order order = new ValueCreator<>(Order.class).createAndPopulate(Map.of("Key", 7L));
+        assertEquals("Order-7", order.id);
+        assertEquals(3, order.lines.size());
+        assertTrue(order.priority >= 1 && order.priority <= 9);
+    }
+
+    @Test
+    void testNestedAndGenerator() throws Exception {
+        Holder holder = new ValueCreator<>(Holder.class).createAndPopulate(Map.of("Key", 3L));
+        assertNotNull(holder.account);
+        assertEquals(holder.account.balance * 2, holder.account.limit);
+
+        Generator generator = new Generator().generate(1, 100, 2, Account.class, account -> assertNotNull(account.id));
+        while (!generator.isComplete()) {
+            Thread.sleep(10);
+        }
+        assertEquals(100, generator.getMonitorStats().getSuccessCount());
+    }
+
+    @Test
+    void testParameterTypeMismatchIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ValueCreator<>(Mismatched.class));
+    }
+
+    @Test
+    void testSelfReferenceOfImmutableClass() {
+        ValueCreator<Category> creator = new ValueCreator<>(Category.class);
+        for (long key = 1; key <= 20; key++) {
+            Category category = creator.createAndPopulate(Map.of("Key", key));
+            for (Category current = category; current != null; current = current.parent) {
+                assertEquals("Category-" + key, current.name);
+            }
+        }
+        // The deferred check still rejects a class which cannot be created at all
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, 
+                () -> new ValueCreator<>(SelfReferenceWithoutConstructor.class));
+        assertTrue(e.getMessage().contains("constructor"), e.getMessage());
+    }
+
+    @Test
+    void testSelfReferentialRecord(@TempDir Path dir) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null && Runtime.version().feature() >= 16, "Records need a Java 16+ compiler");
+
+        Path source = dir.resolve("Node.java");
+        Files.writeString(source, "import com.aerospike.generator.annotations.*;\n"
+                + "public record Node(@GenRange(start = 1, end = 10) int value, @GenObject(percentNull = 50) Node next) {}\n");
+        String classpath = Path.of(GenConstructor.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        assertEquals(0, compiler.run(null, null, null, "-cp", classpath, "-d", dir.toString(), source.toString()));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> nodeClass = loader.loadClass("Node");
+            ValueCreator<?> creator = new ValueCreator<>(nodeClass);
+            for (long key = 1; key <= 20; key++) {
+                for (Object node = creator.createAndPopulate(Map.of("Key", key)); node != null; 
+                        node = nodeClass.getMethod("next").invoke(node)) {
+                    int value = (Integer) nodeClass.getMethod("value").invoke(node);
+                    assertTrue(value >= 1 && value <= 10);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRecordUsesCanonicalConstructor(@TempDir Path dir) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null && Runtime.version().feature() >= 16, "Records need a Java 16+ compiler");
+
+        Path source = dir.resolve("Point.java");
+        Files.writeString(source, "import com.aerospike.generator.annotations.*;\n"
+                + "public record Point(@GenRange(start = 1, end = 10) int x, @GenExpression(\"$obj.x * 3\") long y, "
+                + "@GenExpression(\"'P' & $Key\") String name) {}\n");
+        String classpath = Path.of(GenConstructor.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        assertEquals(0, compiler.run(null, null, null, "-cp", classpath, "-d", dir.toString(), source.toString()));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> pointClass = loader.loadClass("Point");
+            Object point = new ValueCreator<>(pointClass).createAndPopulate(Map.of("Key", 5L));
+            Method x = pointClass.getMethod("x");
+            Method y = pointClass.getMethod("y");
+            int xValue = (Integer) x.invoke(point);
+            assertTrue(xValue >= 1 && xValue <= 10);
+            assertEquals(xValue * 3L, y.invoke(point));
+            assertEquals("P5", pointClass.getMethod("name").invoke(point));
+        }
+    }
+}
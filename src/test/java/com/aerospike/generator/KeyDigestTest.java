@@ -0,0 +1,56 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.client.Key;
+import com.aerospike.client.Value;
+import com.aerospike.client.cluster.Partition;
+
+class KeyDigestTest {
+
+    private static void assertDigest(String setName, Value userKey) {
+        byte[] expected = new Key("test", setName, userKey).digest;
+        KeyDigest keyDigest = new KeyDigest(setName);
+        byte[] digest = new byte[KeyDigest.DIGEST_SIZE + 3];
+        int partitionId = keyDigest.digest(userKey, digest, 3);
+        byte[] actual = new byte[KeyDigest.DIGEST_SIZE];
+        System.arraycopy(digest, 3, actual, 0, actual.length);
+        assertArrayEquals(expected, actual, "digest of " + userKey);
+        assertEquals(Partition.getPartitionId(expected), partitionId);
+        assertEquals(partitionId, KeyDigest.partitionId(digest, 3));
+    }
+
+    @Test
+    void testMatchesClientDigest() {
+        KeyDigest keyDigest = new KeyDigest("customer");
+        byte[] digest = new byte[KeyDigest.DIGEST_SIZE];
+        for (long id = -1000; id < 5000; id += 7) {
+            byte[] expected = new Key("test", "customer", id).digest;
+            assertEquals(Partition.getPartitionId(expected), keyDigest.digest(id, digest, 0));
+            assertArrayEquals(expected, digest);
+            assertEquals(Partition.getPartitionId(expected), keyDigest.partitionId(id));
+        }
+        assertDigest("customer", Value.get(Long.MIN_VALUE));
+        assertDigest("customer", Value.get(42));
+        assertDigest(null, Value.get(42L));
+        assertDigest("", Value.get("key"));
+        assertDigest("orders", Value.get("Order-17"));
+        assertDigest("orders", Value.get("é中😀 and more"));
+    }
+
+    @Test
+    void testKeysCrossingBlockBoundaries() {
+        // Padding takes a second block once fewer than 8 bytes are left in the last one
+        for (int length = 0; length < 200; length++) {
+            byte[] key = new byte[length];
+            for (int i = 0; i < length; i++) {
+                key[i] = (byte) (i * 31);
+            }
+            assertDigest("set", Value.get(key));
+            assertDigest("a-much-longer-set-name", Value.get("x".repeat(length)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverEveryValue() {
+        long previousHighest = -1;
+        for (int bucket = 0; bucket <= LatencyHistogram.bucketOf(Long.MAX_VALUE); bucket++) {
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(previousHighest + 1));
+            assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+            // Each bucket is narrower than 1/64 of the values it holds
+            assertTrue(highest - previousHighest <= Math.max(1, (previousHighest + 1) / 64));
+            previousHighest = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previousHighest);
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000_500.0, histogram.getMeanNanos(), 0.001);
+        assertEquals(1000, histogram.getMinNanos());
+        assertEquals(10_000_000, histogram.getMaxNanos());
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 / 64);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 / 64);
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(50_000_000);
+        LatencyHistogram combined = histogram.copy().add(other);
+        assertEquals(10_001, combined.getCount());
+        assertEquals(50_000_000, combined.getMaxNanos());
+        assertEquals(10_000, histogram.getCount());
+    }
+
+    @Test
+    void testInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000);
+        LatencyHistogram earlier = histogram.copy();
+        histogram.record(1_000);
+        histogram.record(2_000_000);
+        LatencyHistogram interval = histogram.copy().since(earlier);
+        assertEquals(2, interval.getCount());
+        assertEquals(1_000, interval.getMinNanos());
+        assertEquals(2_000_000, interval.getMaxNanos());
+        assertEquals(1_000_500.0, interval.getMeanNanos(), 0.001);
+        assertEquals(0, histogram.since(histogram.copy()).getCount());
+    }
+}
@@ -0,0 +1,129 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.client.command.Buffer;
+import com.aerospike.client.command.ParticleType;
+import com.aerospike.client.util.Unpacker;
+import com.aerospike.generator.annotations.RandomSource;
+
+class MessagePackWriterTest {
+
+    private static Object unpack(MessagePackWriter writer) {
+        return Unpacker.unpackObject(writer.toByteArray(), 0, writer.position());
+    }
+
+    @Test
+    void testAerospikeFormat() {
+        MessagePackWriter writer = new MessagePackWriter(8, true);
+        String longString = "x".repeat(300) + "é中😀";
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("small", 5L);
+        map.put("negative", -1_000_000_000_000L);
+        map.put("text", longString);
+        map.put("bytes", new byte[] {1, 2, 3});
+        map.put("rate", 2.5);
+        map.put("when", new Date(12345));
+        map.put("flags", new int[] {1, -100, 70000});
+        map.put("nested", List.of("a", List.of(1L, 2L)));
+        writer.packValue(map);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = (Map<String, Object>) unpack(writer);
+        assertEquals(5L, result.get("small"));
+        assertEquals(-1_000_000_000_000L, result.get("negative"));
+        assertEquals(longString, result.get("text"));
+        assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) result.get("bytes"));
+        assertEquals(2.5, result.get("rate"));
+        assertEquals(12345L, result.get("when"));
+        assertEquals(List.of(1L, -100L, 70000L), result.get("flags"));
+        assertEquals(List.of("a", List.of(1L, 2L)), result.get("nested"));
+    }
+
+    @Test
+    void testPlainFormat() {
+        MessagePackWriter writer = new MessagePackWriter(16, false);
+        writer.packArrayHeader(3);
+        writer.packString("ab");
+        writer.packLong(-33);
+        writer.packBoolean(true);
+        assertArrayEquals(new byte[] {(byte) 0x93, (byte) 0xa2, 'a', 'b', (byte) 0xd0, -33, (byte) 0xc3}, writer.toByteArray());
+
+        ByteBuffer buffer = writer.getBuffer();
+        writer.reset();
+        writer.packNil();
+        assertSame(buffer, writer.getBuffer());
+        assertArrayEquals(new byte[] {(byte) 0xc0}, writer.toByteArray());
+    }
+
+    private static final String SCHEMA = String.join("\n",
+            "bins:",
+            "  id: {GenExpression: \"'Order-' & $Key\"}",
+            "  quantity: {GenNumber: {start: 1, end: 1000000}}",
+            "  price: {GenNumber: {start: 1, end: 10000, divisor: 100}, type: DOUBLE}",
+            "  lines:",
+            "    GenList: {minItems: 1, maxItems: 20}",
+            "    element:",
+            "      bins:",
+            "        sku: {GenHexString: {length: 8}}",
+            "        count: {GenNumber: {start: 1, end: 5}}",
+            "  placed: {GenDate: {start: \"01/01/2024\", end: \"31/12/2024\"}}");
+
+    @Test
+    void testRecordMatchesGeneratedMap() {
+        RecordSchema schema = RecordSchema.fromYaml(SCHEMA);
+        MessagePackWriter writer = new MessagePackWriter();
+        for (long key = 1; key <= 20; key++) {
+            Map<String, Object> params = new HashMap<>(Map.of("Key", key));
+            Map<String, Object> expected = RandomSource.withSeed(key, () -> schema.createMap(params));
+            expected.put("placed", ((Date) expected.get("placed")).getTime());
+            RandomSource.withSeed(key, () -> {
+                schema.writeRecord(writer.reset(), params);
+                return null;
+            });
+            assertEquals(expected, unpack(writer));
+        }
+    }
+
+    @Test
+    void testParticles() {
+        RecordSchema schema = RecordSchema.fromYaml(SCHEMA);
+        MessagePackWriter writer = new MessagePackWriter();
+        String[] names = schema.getBinNames();
+        int[] types = new int[names.length];
+        int[] offsets = new int[names.length];
+        int[] lengths = new int[names.length];
+        Map<String, Object> params = new HashMap<>(Map.of("Key", 7L));
+        Map<String, Object> expected = RandomSource.withSeed(3, () -> schema.createMap(params));
+        RandomSource.withSeed(3, () -> {
+            schema.writeParticles(writer, params, types, offsets, lengths);
+            return null;
+        });
+        assertEquals(Arrays.asList(ParticleType.STRING, ParticleType.INTEGER, ParticleType.DOUBLE, ParticleType.LIST, ParticleType.INTEGER),
+                Arrays.asList(types[0], types[1], types[2], types[3], types[4]));
+        byte[] bytes = writer.toByteArray();
+        for (int i = 0; i < names.length; i++) {
+            Object value = Buffer.bytesToParticle(types[i], bytes, offsets[i], lengths[i]);
+            Object expectedValue = expected.get(names[i]);
+            if (expectedValue instanceof Date) {
+                expectedValue = ((Date) expectedValue).getTime();
+            }
+            if (types[i] == ParticleType.LIST) {
+                value = Unpacker.unpackObjectList(bytes, offsets[i], lengths[i]);
+            }
+            assertEquals(expectedValue, value, names[i]);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class RecordSchemaTest {
+    private static final String CUSTOMER = String.join("\n",
+            "name: customer",
+            "bins:",
+            "  id:",
+            "    GenExpression: \"'Customer-' & $Key\"",
+            "  limit:",
+            "    GenExpression: \"$obj.age * 100\"",
+            "    type: LONG",
+            "  age:",
+            "    GenNumber: {start: 18, end: 90}",
+            "  tier:",
+            "    GenOneOf: \"gold,silver,bronze\"",
+            "  tags:",
+            "    GenList: {minItems: 1, maxItems: 4}",
+            "    element:",
+            "      GenString: {type: WORDS, length: 1}",
+            "  codes:",
+            "    GenSet: {items: 3}",
+            "    element:",
+            "      GenNumber: {start: 0, end: 1000}",
+            "  address:",
+            "    bins:",
+            "      city: {GenAddress: CITY}",
+            "      floor: {GenRange: {start: 1, end: 9}, type: INTEGER}");
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testYamlSchema() {
+        RecordSchema schema = RecordSchema.fromYaml(CUSTOMER);
+        assertEquals("customer", schema.getName());
+        assertArrayEquals(new String[] {"id", "limit", "age", "tier", "tags", "codes", "address"}, schema.getBinNames());
+        for (long key = 1; key <= 20; key++) {
+            Map<String, Object> params = new HashMap<>(Map.of("Key", key));
+            Map<String, Object> record = schema.createMap(params);
+            assertEquals(List.copyOf(record.keySet()), List.of(schema.getBinNames()));
+            assertEquals("Customer-" + key, record.get("id"));
+            long age = (Long) record.get("age");
+            assertTrue(age >= 18 && age <= 90);
+            assertEquals(age * 100, record.get("limit"));
+            assertTrue(Set.of("gold", "silver", "bronze").contains(record.get("tier")));
+            List<String> tags = (List<String>) record.get("tags");
+            assertTrue(tags.size() >= 1 && tags.size() <= 4);
+            assertEquals(3, ((Set<Long>) record.get("codes")).size());
+            Map<String, Object> address = (Map<String, Object>) record.get("address");
+            assertTrue(address.get("city") instanceof String);
+            int floor = (Integer) address.get("floor");
+            assertTrue(floor >= 1 && floor <= 9);
+            // The parameters are left as they were
+            assertEquals(Map.of("Key", key), params);
+        }
+    }
+
+    @Test
+    void testJsonSchemaValues() {
+        RecordSchema schema = RecordSchema.fromJson("{\"bins\": {"
+                + "\"total\": {\"GenExpression\": \"$obj.count * 2\", \"type\": \"LONG\"},"
+                + "\"count\": {\"GenNumber\": {\"start\": 5, \"end\": 5}}}}");
+        Object[] values = schema.createValues(new HashMap<>(Map.of("Key", 1L)));
+        assertEquals(1, schema.indexOf("count"));
+        assertArrayEquals(new Object[] {10L, 5L}, values);
+    }
+
+    @Test
+    void testInvalidSchemas() {
+        assertThrows(IllegalArgumentException.class, () -> RecordSchema.fromYaml("bins:\n  a: {GenNumber: {start: 5, end: 1}}"));
+        assertThrows(IllegalArgumentException.class, () -> RecordSchema.fromYaml("bins:\n  a: {GenWidget: 1}"));
+        assertThrows(IllegalArgumentException.class, () -> RecordSchema.fromYaml("bins:\n  a: {GenUuid: , size: 3}"));
+        assertThrows(IllegalArgumentException.class, () -> RecordSchema.fromYaml("bins:\n  a: {GenList: {items: 2}}"));
+        assertThrows(IllegalArgumentException.class, () -> RecordSchema.fromYaml(String.join("\n",
+                "bins:",
+                "  a:",
+                "    GenList: {items: 2, percentNull: 150}",
+                "    element:",
+                "      GenNumber: {start: 0, end: 9}")));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> RecordSchema.fromYaml(String.join("\n",
+                "bins:",
+                "  a: {GenExpression: \"$obj.b + 1\", type: LONG}",
+                "  b: {GenExpression: \"$obj.a + 1\", type: LONG}")));
+        assertTrue(e.getMessage().contains("a -> b -> a"), e.getMessage());
+    }
+}
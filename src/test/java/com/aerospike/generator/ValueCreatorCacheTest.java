@@ -0,0 +1,96 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenObject;
+import com.aerospike.generator.annotations.GenRange;
+
+class ValueCreatorCacheTest {
+    public static class TreeNode {
+        @GenRange(start = 1, end = 10)
+        private int value;
+        @GenObject(percentNull = 70)
+        private TreeNode child;
+        
+        public TreeNode() {}
+    }
+    
+    public static class Shape {
+        @GenRange(start = 1, end = 10)
+        int size;
+        
+        public Shape() {}
+    }
+    
+    public static class Circle extends Shape {
+        @GenRange(start = 1, end = 5)
+        int radius;
+        
+        public Circle() {}
+    }
+    
+    public static class Square extends Shape {
+        @GenRange(start = 1, end = 5)
+        int side;
+        
+        public Square() {}
+    }
+    
+    public static class Drawing {
+        @GenList(items = 20, subclasses = {Circle.class, Square.class})
+        private List<Shape> shapes;
+        
+        public Drawing() {}
+    }
+    
+    @Test
+    void testSelfReferentialType() throws Exception {
+        ValueCreator<TreeNode> creator = ValueCreatorCache.getInstance().get(TreeNode.class);
+        assertSame(creator, ValueCreatorCache.getInstance().get(TreeNode.class));
+        for (long key = 1; key <= 100; key++) {
+            for (TreeNode node = creator.createAndPopulate(Map.of("Key", key)); node != null; node = node.child) {
+                assertTrue(node.value >= 1 && node.value <= 10);
+            }
+        }
+    }
+    
+    @Test
+    void testConcurrentPolymorphicLists() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(executor.submit(() -> {
+                    ValueCreator<Drawing> creator = ValueCreatorCache.getInstance().get(Drawing.class);
+                    int shapes = 0;
+                    for (long key = 1; key <= 200; key++) {
+                        for (Shape shape : creator.createAndPopulate(Map.of("Key", key)).shapes) {
+                            assertTrue(shape instanceof Circle || shape instanceof Square);
+                            assertTrue(shape.size >= 1 && shape.size <= 10);
+                            shapes++;
+                        }
+                    }
+                    return shapes;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(4000, result.get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.generator.ValueCreator.PopulationMode;
+import com.aerospike.generator.annotations.FieldType;
+import com.aerospike.generator.annotations.GenBoolean;
+import com.aerospike.generator.annotations.GenExpression;
+import com.aerospike.generator.annotations.GenExpressionProcessor;
+import com.aerospike.generator.annotations.GenList;
+import com.aerospike.generator.annotations.GenNumber;
+import com.aerospike.generator.annotations.GenNumberProcessor;
+import com.aerospike.generator.annotations.GenObject;
+import com.aerospike.generator.annotations.GenPopulator;
+import com.aerospike.generator.annotations.GenRange;
+import com.aerospike.generator.annotations.GenRangeProcessor;
+import com.aerospike.generator.annotations.GenSet;
+import com.aerospike.generator.annotations.GenString;
+import com.aerospike.generator.annotations.GenString.StringType;
+
+class ValueCreatorTest {
+    
+    public static class Customer {
+        @GenExpression("'Customer-' & $Key")
+        private String id;
+        @GenRange(start = 1, end = 5)
+        private int children;
+        @GenNumber(start = 100, end = 200)
+        private long balance;
+        @GenExpression("$obj.balance * 2")
+        private long doubleBalance;
+        @GenNumber(start = 0, end = 1000, divisor = 100)
+        private double rate;
+        @GenNumber(start = 0, end = 100, divisor = 10)
+        private float discount;
+        @GenBoolean
+        private boolean active;
+        @GenList(items = 4)
+        private int[] scores;
+        @GenList(minItems = 1, maxItems = 3)
+        private double[] weights;
+        
+        public Customer() {}
+    }
+    
+    @GenPopulator
+    @GenString(type = StringType.CHARACTERS, length = 6)
+    public static class GeneratedCustomer {
+        @GenExpression("'Customer-' & $Key")
+        private String id;
+        String nickname;
+        @GenNumber(start = 1, end = 3)
+        Integer rank;
+        @GenExpression("$obj.nickname & '-' & $Key")
+        private String handle;
+        @GenRange(start = 1, end = 9)
+        int level;
+        @GenNumber(start = 0, end = 10, divisor = 4)
+        private double score;
+    }
+    
+    // Each expression reads one declared after it, so declaration order would leave them unset
+    @GenPopulator
+    public static class GeneratedChain {
+        @GenExpression("$obj.middle & '-end'")
+        String last;
+        @GenExpression("$obj.first & '-middle'")
+        private String middle;
+        @GenExpression("'Chain-' & $Key & ' ($obj.last)'")
+        String first;
+    }
+    
+    public static class PremiumCustomer extends Customer {
+        // Reads a field of this class generated by a later expression and an inherited field
+        @GenExpression("$obj.tier & '-' & $obj.balance")
+        private String label;
+        @GenExpression("'Tier' & $obj.children")
+        private String tier;
+        
+        public PremiumCustomer() {}
+    }
+    
+    public static class CyclicCustomer {
+        @GenExpression("$obj.b + 1")
+        private long a;
+        @GenExpression("$obj.a + 1")
+        private long b;
+        
+        public CyclicCustomer() {}
+    }
+    
+    public static class ShortAge {
+        @GenNumber(start = 0, end = 100)
+        private short age;
+    }
+    
+    public static class BooleanName {
+        @GenNumber(start = 0, end = 100)
+        private boolean name;
+    }
+    
+    public static class Household {
+        @GenObject
+        private Customer head;
+        @GenList(items = 3)
+        private List<Customer> members;
+        @GenList(items = 2)
+        private Customer[] guests;
+        @GenSet(items = 5)
+        private Set<Long> codes;
+        
+        public Household() {}
+    }
+    
+    private void checkCustomer(Customer customer, long key) {
+        assertEquals("Customer-" + key, customer.id);
+        assertTrue(customer.children >= 1 && customer.children <= 5);
+        assertTrue(customer.balance >= 100 && customer.balance <= 200);
+        assertEquals(customer.balance * 2, customer.doubleBalance);
+        assertTrue(customer.rate >= 0 && customer.rate <= 10);
+        assertTrue(customer.discount >= 0 && customer.discount <= 10);
+        assertEquals(4, customer.scores.length);
+        for (int score : customer.scores) {
+            assertTrue(score >= 0 && score <= 100);
+        }
+        assertTrue(customer.weights.length >= 1 && customer.weights.length <= 3);
+    }
+    
+    @Test
+    void testPopulationModes() throws Exception {
+        for (PopulationMode mode : new PopulationMode[] {PopulationMode.REFLECTION, PopulationMode.COMPILED}) {
+            ValueCreator<Customer> creator = new ValueCreator<>(Customer.class, mode);
+            for (long key = 1; key <= 10; key++) {
+                checkCustomer(creator.createAndPopulate(Map.of("Key", key)), key);
+            }
+        }
+    }
+    
+    @Test
+    void testFieldsOrderedByReferences() throws Exception {
+        for (PopulationMode mode : new PopulationMode[] {PopulationMode.REFLECTION, PopulationMode.COMPILED}) {
+            ValueCreator<PremiumCustomer> creator = new ValueCreator<>(PremiumCustomer.class, mode);
+            for (long key = 1; key <= 10; key++) {
+                PremiumCustomer customer = creator.createAndPopulate(Map.of("Key", key));
+                checkCustomer(customer, key);
+                assertEquals("Tier" + ((Customer)customer).children, customer.tier);
+                assertEquals(customer.tier + "-" + ((Customer)customer).balance, customer.label);
+            }
+        }
+    }
+    
+    @Test
+    void testReferenceCycleIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new ValueCreator<>(CyclicCustomer.class));
+        assertTrue(e.getMessage().contains("a -> b -> a"), e.getMessage());
+    }
+    
+    @Test
+    void testGeneratedPopulatorOrdersExpressions() {
+        ValueCreator<GeneratedChain> generated = ValueCreatorCache.getInstance().get(GeneratedChain.class);
+        assertEquals(PopulationMode.GENERATED, generated.getPopulationMode());
+        ValueCreator<GeneratedChain> reflection = new ValueCreator<>(GeneratedChain.class, PopulationMode.REFLECTION);
+        for (long key = 1; key <= 3; key++) {
+            GeneratedChain chain = generated.createAndPopulate(Map.of("Key", key));
+            assertEquals("Chain-" + key + " ($obj.last)-middle-end", chain.last);
+            assertEquals(reflection.createAndPopulate(Map.of("Key", key)).last, chain.last);
+        }
+    }
+    
+    @Test
+    void testUnsupportedFieldsAreRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new ValueCreator<>(ShortAge.class));
+        assertTrue(e.getMessage().contains("age") && e.getMessage().contains(ShortAge.class.getName())
+                && e.getMessage().contains("@GenNumber"), e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> new ValueCreator<>(BooleanName.class));
+        assertTrue(e.getMessage().contains("name") && e.getMessage().contains(BooleanName.class.getName())
+                && e.getMessage().contains("@GenNumber"), e.getMessage());
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+    
+    @Test
+    void testPrimitiveFieldsAreSpecialized() throws Exception {
+        assertEquals(FieldGenerator.ValueKind.INT, new FieldGenerator(Customer.class.getDeclaredField("children"), 
+                new GenRangeProcessor(1, 5, FieldType.INTEGER)).getKind());
+        assertEquals(FieldGenerator.ValueKind.FLOAT, new FieldGenerator(Customer.class.getDeclaredField("discount"), 
+                new GenNumberProcessor(0, 100, FieldType.FLOAT)).getKind());
+        assertEquals(FieldGenerator.ValueKind.OBJECT, new FieldGenerator(Customer.class.getDeclaredField("id"), 
+                new GenExpressionProcessor("'x'", FieldType.STRING)).getKind());
+    }
+    
+    @Test
+    void testRecycleReusesNestedValues() throws Exception {
+        for (PopulationMode mode : new PopulationMode[] {PopulationMode.REFLECTION, PopulationMode.COMPILED}) {
+            ValueCreator<Household> creator = new ValueCreator<>(Household.class, mode);
+            Household household = creator.createAndPopulate(Map.of("Key", 1L));
+            Customer head = household.head;
+            List<Customer> members = household.members;
+            Customer firstMember = members.get(0);
+            Customer[] guests = household.guests;
+            int[] scores = head.scores;
+            Set<Long> codes = household.codes;
+            
+            assertTrue(creator.canRecycle(household));
+            assertSame(household, creator.recycle(household, Map.of("Key", 2L)));
+            assertSame(head, household.head);
+            assertSame(scores, head.scores);
+            assertSame(members, household.members);
+            assertSame(firstMember, household.members.get(0));
+            assertSame(guests, household.guests);
+            assertSame(codes, household.codes);
+            checkCustomer(household.head, 2);
+            for (Customer member : household.members) {
+                checkCustomer(member, 2);
+            }
+            assertEquals(3, household.members.size());
+            assertEquals(5, household.codes.size());
+        }
+    }
+    
+    @Test
+    void testGeneratedPopulator() throws Exception {
+        // Found through the factory the annotation processor registered with ServiceLoader
+        assertNotNull(GeneratedPopulators.find(GeneratedCustomer.class));
+        assertNull(GeneratedPopulators.find(Customer.class));
+        ValueCreator<GeneratedCustomer> creator = ValueCreatorCache.getInstance().get(GeneratedCustomer.class);
+        assertEquals(PopulationMode.GENERATED, creator.getPopulationMode());
+        for (long key = 1; key <= 10; key++) {
+            GeneratedCustomer customer = creator.createAndPopulate(Map.of("Key", key));
+            assertEquals("Customer-" + key, customer.id);
+            assertEquals(6, customer.nickname.length());
+            assertTrue(customer.rank >= 1 && customer.rank <= 3);
+            assertEquals(customer.nickname + "-" + key, customer.handle);
+            assertTrue(customer.level >= 1 && customer.level <= 9);
+            assertTrue(customer.score >= 0 && customer.score <= 2.5);
+        }
+    }
+}
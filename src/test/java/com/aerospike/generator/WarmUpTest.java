@@ -0,0 +1,49 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.generator.ValueCreatorCacheTest.Circle;
+import com.aerospike.generator.ValueCreatorCacheTest.Drawing;
+import com.aerospike.generator.ValueCreatorCacheTest.Shape;
+import com.aerospike.generator.ValueCreatorCacheTest.Square;
+import com.aerospike.generator.ValueCreatorCacheTest.TreeNode;
+
+class WarmUpTest {
+    @Test
+    void testFindsReferencedClassesFirst() {
+        List<Class<?>> classes = WarmUp.findReachableClasses(List.of(Drawing.class, TreeNode.class));
+        assertEquals(List.of(Shape.class, Circle.class, Square.class, Drawing.class, TreeNode.class), classes);
+    }
+    
+    @Test
+    void testBuildsReferencedClassesInEarlierWaves() {
+        Map<Class<?>, Set<Class<?>>> references = new HashMap<>();
+        List<Class<?>> classes = WarmUp.findReachableClasses(List.of(Drawing.class, TreeNode.class), references);
+        assertEquals(List.of(List.of(Shape.class, Circle.class, Square.class, TreeNode.class), List.of(Drawing.class)),
+                WarmUp.groupIntoWaves(classes, references));
+    }
+    
+    @Test
+    void testWarmUpReportsEachClass() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            WarmUp.Report report = WarmUp.warmUp(pool, 50, Drawing.class, TreeNode.class);
+            assertTrue(report.getFailures().isEmpty(), report.toString());
+            assertEquals(5, report.getBuildNanos().size());
+            assertTrue(report.getBuildNanos().containsKey(Circle.class));
+            assertEquals(50, report.getJitIterations());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.aerospike.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.generator.Workload.OperationType;
+import com.aerospike.generator.annotations.GenExpression;
+import com.aerospike.generator.annotations.GenNumber;
+
+class WorkloadTest {
+    public static class Item {
+        @GenExpression("$Key")
+        private long id;
+        @GenNumber(start = 1, end = 100)
+        private int quantity;
+
+        public Item() {}
+    }
+
+    @Test
+    void testMixOfOperations() throws Exception {
+        Map<Long, Item> store = new ConcurrentHashMap<>();
+        LongAdder missing = new LongAdder();
+        for (long id = 1; id <= 1000; id++) {
+            Item item = new Item();
+            item.id = id;
+            store.put(id, item);
+        }
+        Workload<Item> workload = Workload.builder(Item.class)
+                .keyRange(1, 1000)
+                .read(80, (id, ignored) -> {
+                    if (store.get(id) == null) {
+                        missing.increment();
+                    }
+                })
+                .update(15, (id, item) -> {
+                    assertEquals(id, item.id);
+                    store.put(id, item);
+                })
+                .insert(5, (id, item) -> {
+                    if (store.putIfAbsent(id, item) != null) {
+                        throw new IllegalStateException("Inserted " + id + " twice");
+                    }
+                })
+                .operations(20_000)
+                .threads(4)
+                .build();
+        Generator generator = new Generator(Item.class).setRecycleInstances(false).run(workload);
+        generator.monitor();
+
+        long reads = workload.getCount(OperationType.READ);
+        long updates = workload.getCount(OperationType.UPDATE);
+        long inserts = workload.getCount(OperationType.INSERT);
+        assertEquals(20_000, reads + updates + inserts);
+        assertEquals(20_000, generator.getMonitorStats().getSuccessCount());
+        assertEquals(0, workload.getFailures(OperationType.INSERT));
+        assertTrue(reads > 15_000 && updates > 2_400 && inserts > 700, workload.toString());
+        assertEquals(1000 + inserts, store.size());
+        assertEquals(1001 + inserts, workload.getNextInsertId());
+        // Reads only pick ids whose insert has completed
+        assertEquals(0, missing.sum());
+        assertTrue(workload.getLatency(OperationType.READ).getMaxNanos() > 0);
+    }
+
+    @Test
+    void testDurationBound() throws Exception {
+        Workload<Item> workload = Workload.builder(Item.class)
+                .keyRange(1, 10)
+                .read(1, (id, ignored) -> Thread.sleep(1))
+                .duration(Duration.ofMillis(200))
+                .threads(2)
+                .build();
+        long start = System.nanoTime();
+        new Generator(Item.class).run(workload).monitor();
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertTrue(workload.getCount(OperationType.READ) > 0);
+        assertThrows(IllegalArgumentException.class, () -> Workload.builder(Item.class).keyRange(1, 10).read(1, (id, ignored) -> {}).build());
+        assertThrows(IllegalArgumentException.class, () -> Workload.builder(Item.class).keyRange(1, 10).read(1, null));
+    }
+
+    @Test
+    void testKeyDistributions() {
+        long[] counts = new long[1000];
+        Workload.KeyDistribution zipf = Workload.zipf(0.99);
+        for (int i = 0; i < 100_000; i++) {
+            counts[(int) zipf.next(1000)]++;
+        }
+        // The first key of a zipf distribution over 1000 keys with exponent 0.99 is used about 13% of the time
+        assertTrue(counts[0] > 11_000 && counts[0] < 15_000, "first key " + counts[0]);
+        assertTrue(counts[0] > counts[1] && counts[1] > counts[10] && counts[10] > counts[999]);
+
+        Workload.KeyDistribution hotSpot = Workload.hotSpot(0.1, 0.9);
+        long hot = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (hotSpot.next(1000) < 100) {
+                hot++;
+            }
+        }
+        assertTrue(hot > 89_000 && hot < 91_000, "hot " + hot);
+    }
+}
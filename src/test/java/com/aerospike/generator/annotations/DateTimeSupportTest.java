@@ -0,0 +1,79 @@
+package com.aerospike.generator.annotations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+class DateTimeSupportTest {
+
+    private static final long MIN = LocalDateTime.of(1800, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) * 1000;
+    private static final long MAX = LocalDateTime.of(2200, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) * 1000;
+    
+    @Test
+    void testConversionsMatchJavaTime() {
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < 10000; i++) {
+            long time = ThreadLocalRandom.current().nextLong(MIN, MAX);
+            LocalDateTime expected = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), zone);
+            assertEquals(expected, DateTimeSupport.toLocalDateTime(time));
+            assertEquals(expected.toLocalDate(), DateTimeSupport.toLocalDate(time));
+            assertEquals(expected.toLocalTime(), DateTimeSupport.toLocalTime(time));
+        }
+    }
+    
+    @Test
+    void testOffsetsAcrossDaylightSavingChanges() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        DateTimeSupport.TransitionTable table = new DateTimeSupport.TransitionTable(zone);
+        // Clocks went forward at 2024-03-10 07:00 UTC and back at 2024-11-03 06:00 UTC
+        long[] changes = {
+            LocalDateTime.of(2024, 3, 10, 7, 0).toEpochSecond(ZoneOffset.UTC) * 1000,
+            LocalDateTime.of(2024, 11, 3, 6, 0).toEpochSecond(ZoneOffset.UTC) * 1000
+        };
+        for (long change : changes) {
+            for (long delta = -2000; delta <= 2000; delta += 250) {
+                long time = change + delta;
+                assertEquals(zone.getRules().getOffset(Instant.ofEpochMilli(time)).getTotalSeconds(),
+                        table.offsetSeconds(time), Instant.ofEpochMilli(time).toString());
+            }
+        }
+        assertEquals(-4 * 3600, table.offsetSeconds(changes[0]));
+        assertEquals(-5 * 3600, table.offsetSeconds(changes[0] - 1));
+        assertEquals(-5 * 3600, table.offsetSeconds(changes[1]));
+        assertEquals(-4 * 3600, table.offsetSeconds(changes[1] - 1));
+        // Including the times outside of the table, which are looked up from the rules
+        for (int i = 0; i < 10000; i++) {
+            long time = ThreadLocalRandom.current().nextLong(MIN, MAX);
+            assertEquals(zone.getRules().getOffset(Instant.ofEpochMilli(time)).getTotalSeconds(), table.offsetSeconds(time));
+        }
+    }
+    
+    @Test
+    void testFastPatternsMatchFormatter() {
+        String[] patterns = {"yyyy-MM-dd", "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd'T'HH:mm:ss", "HH:mm:ss", "dd/MM/yyyy"};
+        for (String pattern : patterns) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+            for (int i = 0; i < 1000; i++) {
+                long time = ThreadLocalRandom.current().nextLong(MIN, MAX);
+                LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+                assertEquals(formatter.format(dateTime), DateTimeSupport.getFormat(pattern).format(time), pattern);
+            }
+        }
+    }
+    
+    @Test
+    void testGenDateStringFormat() {
+        GenDateProcessor processor = new GenDateProcessor("01/01/2000", "31/12/2000", 0, "yyyy-MM-dd", FieldType.STRING);
+        for (int i = 0; i < 100; i++) {
+            String value = (String) processor.process(null);
+            assertEquals(10, value.length());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.aerospike.generator.annotations;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.aerospike.generator.ValueCreator;
+import com.aerospike.generator.ValueCreator.PopulationMode;
+import com.aerospike.generator.ValueCreatorCache;
+
+public class LazyListTest {
+    
+    public static class Product {
+        @GenUuid
+        private UUID id;
+        @GenName(GenName.NameType.FULL)
+        private String name;
+        @GenList(items = 3)
+        private long[] prices;
+        
+        public Product() {}
+    }
+    
+    public static class Line {
+        static final AtomicInteger created = new AtomicInteger();
+        @GenExpression("'Line-' & $Key")
+        private String id;
+        @GenNumber(start = 1, end = 10)
+        private int quantity;
+        @GenObject
+        private Product product;
+        
+        public Line() {
+            created.incrementAndGet();
+        }
+    }
+    
+    public static class Order {
+        @GenExpression("'Order-' & $Key")
+        private String id;
+        @GenDate(start = "01/01/2024", end = "31/12/2024")
+        private Date placed;
+        @GenList(minItems = 5, maxItems = 20)
+        private List<Line> lines;
+        @GenString(type = GenString.StringType.WORDS, minLength = 2, maxLength = 6)
+        private String notes;
+        
+        public Order() {}
+    }
+    
+    @GenPopulator
+    public static class Basket {
+        @GenList(items = 3)
+        List<Line> first;
+        @GenList(items = 3)
+        List<Line> second;
+        @GenNumber(start = 0, end = 1_000_000_000)
+        long after;
+    }
+    
+    private void assertSameLine(Line expected, Line actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.quantity, actual.quantity);
+        assertEquals(expected.product.id, actual.product.id);
+        assertEquals(expected.product.name, actual.product.name);
+        assertArrayEquals(expected.product.prices, actual.product.prices);
+    }
+    
+    private void assertSameOrder(Order expected, Order actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.placed, actual.placed);
+        assertEquals(expected.notes, actual.notes);
+        assertEquals(expected.lines.size(), actual.lines.size());
+        for (int i = 0; i < expected.lines.size(); i++) {
+            assertSameLine(expected.lines.get(i), actual.lines.get(i));
+        }
+    }
+    
+    @Test
+    void testLazyOrderMatchesEagerOrder() {
+        ValueCreator<Order> creator = ValueCreatorCache.getInstance().get(Order.class);
+        for (long key = 1; key <= 20; key++) {
+            Map<String, Object> params = Map.of("Key", key);
+            Order eager = creator.createAndPopulate(params, 42, false);
+            Order lazy = creator.createAndPopulate(params, 42, true);
+            assertTrue((Object) lazy.lines instanceof LazyList);
+            // Read the lines out of order, as only the seed of each line should matter
+            for (int i = lazy.lines.size() - 1; i >= 0; i -= 2) {
+                lazy.lines.get(i);
+            }
+            assertSameOrder(eager, lazy);
+            assertSameOrder(eager, creator.createAndPopulate(params, 42, false));
+            assertNotEquals(eager.id, creator.createAndPopulate(Map.of("Key", key + 1), 42, false).id);
+        }
+    }
+    
+    @Test
+    void testLinesAreGeneratedWhenRead() {
+        ValueCreator<Order> creator = ValueCreatorCache.getInstance().get(Order.class);
+        Order order = creator.createAndPopulate(Map.of("Key", 3L), 7, true);
+        LazyList lines = (LazyList) (Object) order.lines;
+        int before = Line.created.get();
+        assertEquals(0, lines.generatedCount());
+        
+        Line line = order.lines.get(2);
+        assertEquals("Line-3", line.id);
+        assertEquals(1, lines.generatedCount());
+        assertEquals(before + 1, Line.created.get());
+        assertSame(line, order.lines.get(2));
+        
+        order.lines.forEach(l -> {});
+        assertEquals(order.lines.size(), lines.generatedCount());
+    }
+    
+    @Test
+    void testLazyListsOfGeneratedPopulator() {
+        ValueCreator<Basket> creator = ValueCreatorCache.getInstance().get(Basket.class);
+        assertEquals(PopulationMode.GENERATED, creator.getPopulationMode());
+        for (long key = 1; key <= 10; key++) {
+            Map<String, Object> params = Map.of("Key", key);
+            Basket eager = creator.createAndPopulate(params, 42, false);
+            Basket lazy = creator.createAndPopulate(params, 42, true);
+            assertTrue((Object) lazy.first instanceof LazyList);
+            // The field after the lists must not depend on whether the lists drew their elements
+            assertEquals(eager.after, lazy.after);
+            for (int i = 0; i < 3; i++) {
+                assertSameLine(eager.first.get(i), lazy.first.get(i));
+                assertSameLine(eager.second.get(i), lazy.second.get(i));
+                // Sibling lists have seeds of their own, rather than repeating each other's elements
+                assertNotEquals(eager.first.get(i).product.id, eager.second.get(i).product.id);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.aerospike.generator.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PopulatorAnnotationProcessorTest {
+    
+    @Test
+    void testObjectReferences() {
+        assertEquals(Set.of("a", "b"), PopulatorAnnotationProcessor.objectReferences("$obj.a & '-' & $obj . b"));
+        // Quoted text, other parameters and names which only start with obj are not references
+        assertEquals(Set.of("c"), PopulatorAnnotationProcessor.objectReferences("'$obj.a' & $objects.b & $obj.c"));
+        assertEquals(Set.of("d"), PopulatorAnnotationProcessor.objectReferences("UPPER($obj.d)"));
+    }
+    
+    @Test
+    void testReferenceCycleIsACompileError(@TempDir Path output) throws Exception {
+        String source = String.join("\n",
+                "import com.aerospike.generator.annotations.*;",
+                "@GenPopulator",
+                "public class Cyclic {",
+                "    @GenExpression(\"$obj.b & '1'\") String a;",
+                "    @GenExpression(\"$obj.a & '2'\") String b;",
+                "}");
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Cyclic.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = List.of("-d", output.toString(), "-s", output.toString(),
+                "-classpath", System.getProperty("java.class.path"));
+        boolean compiled = compiler.getTask(null, null, diagnostics, options, null, List.of(file)).call();
+        assertFalse(compiled);
+        assertTrue(diagnostics.getDiagnostics().stream().anyMatch(diagnostic -> 
+                diagnostic.getMessage(null).contains("reference each other in a cycle: a -> b -> a")), 
+                diagnostics.getDiagnostics().toString());
+        assertFalse(Files.exists(output.resolve("CyclicPopulator.java")));
+    }
+}